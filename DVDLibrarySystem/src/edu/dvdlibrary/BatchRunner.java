@@ -0,0 +1,388 @@
+package edu.dvdlibrary;
+
+import edu.dvdlibrary.librarycore.metrics.HistogramSnapshot;
+import edu.dvdlibrary.librarycore.metrics.LatencyHistogram;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.service.LibraryService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a stream of library commands without prompting, one command per line.
+ * Arguments are separated by spaces; an argument containing spaces is put in
+ * double quotes. Blank lines and lines starting with # are skipped.
+ * <pre>
+ * film "The Matrix"
+ * dvd "The Matrix" DVD001
+ * member M001 "John Doe"
+ * borrow DVD001 M001 [yyyy-mm-dd]
+ * return DVD001 [yyyy-mm-dd]
+ * search Matrix
+ * available "The Matrix"
+ * loans M001
+ * date 2024-05-01
+ * </pre>
+ * Each command prints one line starting with OK or ERROR. Output is buffered
+ * and flushed after every batch of commands, so a large stream is not
+ * slowed down by a write per line. The time taken by each kind of command
+ * is recorded and can be printed at the end.
+ */
+public class BatchRunner {
+    
+    /**
+     * The commands a batch can contain.
+     */
+    enum Command {
+        FILM("film", 1), DVD("dvd", 2), MEMBER("member", 2), BORROW("borrow", 2), RETURN("return", 1),
+        SEARCH("search", 1), AVAILABLE("available", 1), LOANS("loans", 1), DATE("date", 1);
+        
+        private static final Map<String, Command> BY_NAME = new HashMap<>();
+        
+        static {
+            for (Command command : values()) {
+                BY_NAME.put(command.name, command);
+            }
+        }
+        
+        final String name;
+        final int requiredArgs;
+        
+        Command(String name, int requiredArgs) {
+            this.name = name;
+            this.requiredArgs = requiredArgs;
+        }
+    }
+    
+    private static final Command[] COMMANDS = Command.values();
+    
+    private final LibraryService service;
+    private final Writer out;
+    private final boolean quiet;
+    private final int flushEvery;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[COMMANDS.length];
+    private final long[] failures = new long[COMMANDS.length];
+    private final List<String> args = new ArrayList<>();
+    private final StringBuilder line = new StringBuilder();
+    private LocalDate today;
+    private String lastDateText;
+    private LocalDate lastDate;
+    private long commandCount;
+    private long failureCount;
+    private long elapsedNanos;
+    
+    /**
+     * Creates a batch runner.
+     * 
+     * @param service The service to run commands against
+     * @param out Where to write the result of each command
+     * @param quiet true to write only the commands that fail
+     * @param flushEvery The number of commands to run between flushes of the output
+     * @param today The date used by borrow and return commands that do not give one
+     */
+    public BatchRunner(LibraryService service, Writer out, boolean quiet, int flushEvery, LocalDate today) {
+        if (flushEvery < 1) {
+            throw new IllegalArgumentException("Flush interval must be at least 1 command");
+        }
+        this.service = service;
+        this.out = out;
+        this.quiet = quiet;
+        this.flushEvery = flushEvery;
+        this.today = today;
+        for (int i = 0; i < COMMANDS.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+    
+    /**
+     * Runs every command in a stream, flushing the output after each batch and at the end.
+     * 
+     * @param in The commands
+     * @return The number of commands that failed
+     * @throws IOException if the commands cannot be read or the results written
+     */
+    public long run(BufferedReader in) throws IOException {
+        long start = System.nanoTime();
+        long failedBefore = failureCount;
+        int sinceFlush = 0;
+        int lineNumber = 0;
+        String text;
+        while ((text = in.readLine()) != null) {
+            lineNumber++;
+            if (!tokenize(text)) {
+                continue;
+            }
+            execute(lineNumber);
+            if (++sinceFlush == flushEvery) {
+                out.flush();
+                sinceFlush = 0;
+            }
+        }
+        out.flush();
+        elapsedNanos += System.nanoTime() - start;
+        return failureCount - failedBefore;
+    }
+    
+    /**
+     * Runs the command in args, timing it and writing its result.
+     * 
+     * @param lineNumber The line the command was read from, for error messages
+     * @throws IOException if the result cannot be written
+     */
+    private void execute(int lineNumber) throws IOException {
+        line.setLength(0);
+        Command command = Command.BY_NAME.get(args.get(0));
+        long start = System.nanoTime();
+        try {
+            if (command == null) {
+                throw new IllegalArgumentException("Unknown command '" + args.get(0) + "'");
+            }
+            if (args.size() - 1 < command.requiredArgs) {
+                throw new IllegalArgumentException(command.name + " needs " + command.requiredArgs + " argument(s)");
+            }
+            line.append("OK ").append(command.name);
+            perform(command);
+            latencies[command.ordinal()].record(System.nanoTime() - start);
+            commandCount++;
+            if (quiet) {
+                return;
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            if (command != null) {
+                latencies[command.ordinal()].record(System.nanoTime() - start);
+                failures[command.ordinal()]++;
+            }
+            commandCount++;
+            failureCount++;
+            line.setLength(0);
+            line.append("ERROR line ").append(lineNumber).append(": ").append(e.getMessage());
+        }
+        line.append('\n');
+        out.append(line);
+    }
+    
+    /**
+     * Calls the service for one command and appends what it did to the output line.
+     * 
+     * @param command The command, whose arguments are in args
+     */
+    private void perform(Command command) {
+        switch (command) {
+            case FILM: {
+                Film film = service.addFilm(args.get(1));
+                line.append(' ').append(film.getTitle());
+                break;
+            }
+            case DVD: {
+                DVD dvd = service.addDVDCopy(film(args.get(1)), args.get(2));
+                line.append(' ').append(dvd.getDvdId());
+                break;
+            }
+            case MEMBER: {
+                Member member = service.addMember(args.get(1), args.get(2));
+                line.append(' ').append(member.getMembershipNumber());
+                break;
+            }
+            case BORROW: {
+                Loan loan = service.borrowDVD(dvd(args.get(1)), member(args.get(2)), dateArg(3));
+                line.append(' ').append(loan.getDvd().getDvdId()).append(' ')
+                        .append(loan.getMember().getMembershipNumber()).append(" due ").append(loan.getDueDate());
+                break;
+            }
+            case RETURN: {
+                Loan loan = service.returnDVD(dvd(args.get(1)), dateArg(2));
+                line.append(' ').append(loan.getDvd().getDvdId()).append(' ')
+                        .append(loan.getMember().getMembershipNumber());
+                if (loan.getReturnDate().isAfter(loan.getDueDate())) {
+                    line.append(" late");
+                }
+                break;
+            }
+            case SEARCH: {
+                List<Film> films = service.searchFilmsByTitle(args.get(1));
+                line.append(' ').append(films.size());
+                for (Film film : films) {
+                    line.append(" | ").append(film.getTitle());
+                }
+                break;
+            }
+            case AVAILABLE: {
+                Film film = film(args.get(1));
+                line.append(' ').append(film.getTitle()).append(' ').append(service.getNumberAvailable(film));
+                break;
+            }
+            case LOANS: {
+                List<Loan> loans = service.listFilmsForMember(member(args.get(1)));
+                line.append(' ').append(args.get(1)).append(' ').append(loans.size());
+                for (Loan loan : loans) {
+                    line.append(" | ").append(loan.getDvd().getDvdId()).append(' ')
+                            .append(loan.getDvd().getFilm().getTitle()).append(" due ").append(loan.getDueDate());
+                }
+                break;
+            }
+            case DATE:
+                today = parseDate(args.get(1));
+                line.append(' ').append(today);
+                break;
+            default:
+                throw new IllegalStateException("Unhandled command " + command);
+        }
+    }
+    
+    /**
+     * Splits a line into args, honouring double quotes.
+     * 
+     * @param text The line
+     * @return false if the line is blank or a comment
+     */
+    private boolean tokenize(String text) {
+        args.clear();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '\t') {
+                i++;
+            } else if (c == '#' && args.isEmpty()) {
+                break;
+            } else if (c == '"') {
+                int close = text.indexOf('"', i + 1);
+                int end = close < 0 ? length : close;
+                args.add(text.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && text.charAt(end) != ' ' && text.charAt(end) != '\t') {
+                    end++;
+                }
+                args.add(text.substring(i, end));
+                i = end;
+            }
+        }
+        return !args.isEmpty();
+    }
+    
+    /**
+     * Looks up the film named in a command.
+     * 
+     * @param title The film title
+     * @return The film
+     * @throws IllegalArgumentException if there is no such film
+     */
+    private Film film(String title) {
+        Film film = service.findFilmByTitle(title);
+        if (film == null) {
+            throw new IllegalArgumentException("No film titled '" + title + "'");
+        }
+        return film;
+    }
+    
+    /**
+     * Looks up the DVD named in a command.
+     * 
+     * @param dvdId The DVD ID
+     * @return The DVD
+     * @throws IllegalArgumentException if there is no such DVD
+     */
+    private DVD dvd(String dvdId) {
+        DVD dvd = service.findDVDById(dvdId);
+        if (dvd == null) {
+            throw new IllegalArgumentException("No DVD with ID '" + dvdId + "'");
+        }
+        return dvd;
+    }
+    
+    /**
+     * Looks up the member named in a command.
+     * 
+     * @param membershipNumber The membership number
+     * @return The member
+     * @throws IllegalArgumentException if there is no such member
+     */
+    private Member member(String membershipNumber) {
+        Member member = service.findMemberByNumber(membershipNumber);
+        if (member == null) {
+            throw new IllegalArgumentException("No member with number '" + membershipNumber + "'");
+        }
+        return member;
+    }
+    
+    /**
+     * Gets an optional date argument.
+     * 
+     * @param index The position of the argument
+     * @return The date given, or the current batch date
+     */
+    private LocalDate dateArg(int index) {
+        return args.size() > index ? parseDate(args.get(index)) : today;
+    }
+    
+    /**
+     * Parses a yyyy-mm-dd date, reusing the last result since batches tend to repeat dates.
+     * 
+     * @param text The date
+     * @return The parsed date
+     */
+    private LocalDate parseDate(String text) {
+        if (!text.equals(lastDateText)) {
+            try {
+                lastDate = LocalDate.parse(text);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid date '" + text + "', expected yyyy-mm-dd");
+            }
+            lastDateText = text;
+        }
+        return lastDate;
+    }
+    
+    /**
+     * Gets the number of commands run so far.
+     * 
+     * @return The command count
+     */
+    public long getCommandCount() {
+        return commandCount;
+    }
+    
+    /**
+     * Gets the number of commands that have failed so far.
+     * 
+     * @return The failure count
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+    
+    /**
+     * Prints the count, failures and latency of each kind of command run, and the overall rate.
+     * 
+     * @param err The stream to print to
+     */
+    public void printTimings(PrintStream err) {
+        err.printf("%-10s %10s %8s %10s %10s %10s %10s%n", "Command", "Count", "Failed", "Mean us", "p50 us", "p99 us", "Max us");
+        for (Command command : COMMANDS) {
+            HistogramSnapshot latency = latencies[command.ordinal()].snapshot();
+            if (latency.getCount() == 0) {
+                continue;
+            }
+            err.printf("%-10s %10d %8d %10.1f %10.1f %10.1f %10.1f%n", command.name, latency.getCount(),
+                    failures[command.ordinal()], latency.getMeanNanos() / 1000.0,
+                    latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+                    latency.getMaxNanos() / 1000.0);
+        }
+        double seconds = elapsedNanos / 1e9;
+        err.printf("%d commands, %d failed, in %.3f s (%.0f commands/s)%n",
+                commandCount, failureCount, seconds, seconds > 0 ? commandCount / seconds : 0);
+    }
+}
@@ -9,6 +9,17 @@ import edu.dvdlibrary.librarycore.model.Member;
 import edu.dvdlibrary.librarycore.service.LibraryService;
 import edu.dvdlibrary.librarycore.service.LibraryServiceImpl;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -17,8 +28,13 @@ import java.util.Scanner;
 /**
  * Console-based application for the DVD Library System.
  * Demonstrates the same functionality as the GUI version but using a text-based interface.
+ * With --batch it instead runs a file of commands (or standard input) without
+ * prompting; see BatchRunner for the command format.
  */
 public class ConsoleApp {
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final int LIST_PAGE_SIZE = 20;
+    
     private final LibraryService libraryService;
     private final Scanner scanner;
     
@@ -199,17 +215,32 @@ public class ConsoleApp {
     private void listAllFilms() {
         System.out.println("\n==== FILM LIST ====");
         
-        List<Film> films = libraryService.getAllFilms();
-        if (films.isEmpty()) {
-            System.out.println("No films available.");
-            return;
-        }
+        String fromTitle = getStringInput("List titles from (Enter for the start): ");
+        String toTitle = getStringInput("List titles to (Enter for the end): ");
         
-        System.out.printf("%-30s %-15s %-15s%n", "Title", "Total Copies", "Available");
-        System.out.println("-----------------------------------------------------------------------");
-        
-        for (Film film : films) {
-            System.out.printf("%-30s %-15d %-15d%n", film.getTitle(), film.getTotalCopies(), film.getNumberAvailable());
+        // Fetch a page at a time in title order, one extra to learn whether another page follows
+        String after = null;
+        boolean first = true;
+        while (true) {
+            List<Film> films = libraryService.browseFilms(fromTitle, toTitle, after, LIST_PAGE_SIZE + 1, false);
+            if (first && films.isEmpty()) {
+                System.out.println("No films available.");
+                return;
+            }
+            if (first) {
+                System.out.printf("%-30s %-15s %-15s%n", "Title", "Total Copies", "Available");
+                System.out.println("-----------------------------------------------------------------------");
+                first = false;
+            }
+            
+            boolean more = films.size() > LIST_PAGE_SIZE;
+            for (Film film : more ? films.subList(0, LIST_PAGE_SIZE) : films) {
+                System.out.printf("%-30s %-15d %-15d%n", film.getTitle(), film.getTotalCopies(), film.getNumberAvailable());
+            }
+            if (!more || !getStringInput("Press Enter for more, or q to stop: ").isEmpty()) {
+                return;
+            }
+            after = films.get(LIST_PAGE_SIZE - 1).getTitle();
         }
     }
     
@@ -482,7 +513,58 @@ public class ConsoleApp {
         }
     }
     
-    public static void main(String[] args) {
+    /**
+     * Runs a batch of commands. Options: --batch [FILE] reads FILE, or standard
+     * input if FILE is - or left out; --quiet prints only failed commands;
+     * --flush-every=N flushes the output every N commands (default 1000);
+     * --sample starts from the sample library rather than an empty one.
+     * 
+     * @param args The command-line options
+     * @return The exit status: 0 if every command succeeded, 1 otherwise
+     * @throws IOException if the commands cannot be read or the results written
+     */
+    private static int runBatch(String[] args) throws IOException {
+        String source = "-";
+        boolean quiet = false;
+        boolean sample = false;
+        int flushEvery = 1000;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--quiet")) {
+                quiet = true;
+            } else if (args[i].equals("--sample")) {
+                sample = true;
+            } else if (args[i].startsWith("--flush-every=")) {
+                flushEvery = Integer.parseInt(args[i].substring("--flush-every=".length()));
+            } else if (!args[i].startsWith("--")) {
+                source = args[i];
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        
+        InMemoryDataStore dataStore = new InMemoryDataStore();
+        if (sample) {
+            dataStore.initializeWithSampleData();
+        }
+        LibraryService service = new LibraryServiceImpl(dataStore);
+        
+        // Write straight to the file descriptor; System.out would flush on every line
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), IO_BUFFER_SIZE);
+        BatchRunner runner = new BatchRunner(service, out, quiet, flushEvery, LocalDate.now());
+        try (BufferedReader in = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), IO_BUFFER_SIZE)
+                : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            runner.run(in);
+        }
+        runner.printTimings(System.err);
+        return runner.getFailureCount() == 0 ? 0 : 1;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args));
+        }
         ConsoleApp app = new ConsoleApp();
         app.start();
     }
@@ -2,6 +2,11 @@ package edu.dvdlibrary;
 
 import edu.dvdlibrary.librarycore.dao.DataStore;
 import edu.dvdlibrary.librarycore.dao.InMemoryDataStore;
+import edu.dvdlibrary.librarycore.dao.InstrumentedDataStore;
+import edu.dvdlibrary.librarycore.metrics.MetricsEndpoint;
+import edu.dvdlibrary.librarycore.metrics.MetricsRegistry;
+import edu.dvdlibrary.librarycore.service.InstrumentedLibraryService;
+import edu.dvdlibrary.librarycore.service.MaintenanceScheduler;
 import edu.dvdlibrary.librarycore.service.LibraryService;
 import edu.dvdlibrary.librarycore.service.LibraryServiceImpl;
 import edu.dvdlibrary.librarygui.controller.LibraryController;
@@ -9,6 +14,7 @@ import edu.dvdlibrary.librarygui.view.LibraryTheme;
 import edu.dvdlibrary.librarygui.view.MainFrame;
 
 import javax.swing.SwingUtilities;
+import java.io.IOException;
 
 /**
  * Main entry point for the DVD Library System application.
@@ -16,9 +22,23 @@ import javax.swing.SwingUtilities;
  */
 public class Main {
     public static void main(String[] args) {
-        // Initialize core system components
-        DataStore dataStore = new InMemoryDataStore();
-        LibraryService libraryService = new LibraryServiceImpl(dataStore);
+        // Initialize core system components, timing the service and the store
+        MetricsRegistry metrics = new MetricsRegistry();
+        DataStore dataStore = new InstrumentedDataStore(new InMemoryDataStore(), metrics);
+        LibraryService libraryService = new InstrumentedLibraryService(new LibraryServiceImpl(dataStore), metrics);
+        
+        // Serve the timings for scraping if a port is configured, e.g. -Ddvdlibrary.metrics.port=9400
+        Integer metricsPort = Integer.getInteger("dvdlibrary.metrics.port");
+        if (metricsPort != null) {
+            try {
+                new MetricsEndpoint(metrics, metricsPort);
+            } catch (IOException e) {
+                System.err.println("Could not start metrics endpoint on port " + metricsPort + ": " + e.getMessage());
+            }
+        }
+        
+        // Expire uncollected holds and assess overdue fines in the background
+        new MaintenanceScheduler(libraryService).start();
         
         // Initialize GUI components using Swing
         SwingUtilities.invokeLater(() -> {
@@ -26,7 +46,7 @@ public class Main {
             LibraryTheme.applyTheme();
             
             // Create controller with reference to the library service
-            LibraryController controller = new LibraryController(libraryService);
+            LibraryController controller = new LibraryController(libraryService, metrics);
             
             // Create main application window and pass controller reference
             MainFrame mainFrame = new MainFrame(controller);
@@ -0,0 +1,56 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+/**
+ * Time windows over which borrowing analytics can be queried.
+ * Each window covers the given number of days ending on the reference date.
+ */
+public enum AnalyticsWindow {
+    DAY(1, "Today"),
+    WEEK(7, "This Week"),
+    MONTH(30, "This Month");
+    
+    private final int days;
+    private final String label;
+    
+    AnalyticsWindow(int days, String label) {
+        this.days = days;
+        this.label = label;
+    }
+    
+    /**
+     * Gets the number of days covered by this window.
+     * 
+     * @return The window length in days
+     */
+    public int getDays() {
+        return days;
+    }
+    
+    /**
+     * Gets the display label for this window.
+     * 
+     * @return The label
+     */
+    public String getLabel() {
+        return label;
+    }
+    
+    /**
+     * Gets the length of the longest window, which is how many days of
+     * history an analytics implementation has to retain.
+     * 
+     * @return The longest window length in days
+     */
+    public static int maxDays() {
+        int max = 0;
+        for (AnalyticsWindow window : values()) {
+            max = Math.max(max, window.days);
+        }
+        return max;
+    }
+    
+    @Override
+    public String toString() {
+        return label;
+    }
+}
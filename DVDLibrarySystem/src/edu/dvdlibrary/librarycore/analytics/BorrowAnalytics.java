@@ -0,0 +1,41 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import edu.dvdlibrary.librarycore.model.Loan;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Streaming analytics over borrow events.
+ * Implementations are fed every new loan and answer "most borrowed"
+ * queries for films and members over a sliding time window.
+ */
+public interface BorrowAnalytics {
+    
+    /**
+     * Records a borrow event.
+     * 
+     * @param loan The loan that was created
+     */
+    void record(Loan loan);
+    
+    /**
+     * Gets the most borrowed films within a window ending on the given date.
+     * 
+     * @param window The time window
+     * @param k The maximum number of films to return
+     * @param asOf The last day of the window
+     * @return Film titles with their borrow counts, most borrowed first
+     */
+    List<RankedItem> topFilms(AnalyticsWindow window, int k, LocalDate asOf);
+    
+    /**
+     * Gets the members who borrowed the most within a window ending on the given date.
+     * 
+     * @param window The time window
+     * @param k The maximum number of members to return
+     * @param asOf The last day of the window
+     * @return Membership numbers with their borrow counts, most active first
+     */
+    List<RankedItem> topMembers(AnalyticsWindow window, int k, LocalDate asOf);
+}
@@ -0,0 +1,243 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import edu.dvdlibrary.librarycore.model.Loan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * "Members who borrowed this also borrowed" recommendations.
+ * Maintains a sparse film-to-film co-occurrence matrix where each cell counts
+ * the members who have borrowed both films. Rows are pruned to a bounded size,
+ * and each film's top neighbours are cached so lookups are a single array read.
+ */
+public class CoBorrowRecommender {
+    
+    private static final int DEFAULT_NEIGHBOURS = 10;
+    private static final int ROW_SLACK_FACTOR = 4;
+    private static final int FILMS_PER_TASK = 64;
+    
+    private final int neighbours;
+    private final int maxRowSize;
+    
+    // Films are interned to dense ids so rows can be primitive maps
+    private final Map<String, Integer> filmIds = new HashMap<>();
+    private final List<String> filmTitles = new ArrayList<>();
+    private final Map<String, int[]> filmsByMember = new HashMap<>();
+    private final List<IntCountMap> rows = new ArrayList<>();
+    private final List<RankedItem[]> topNeighbours = new ArrayList<>();
+    
+    /**
+     * Creates a recommender that keeps the default number of neighbours per film.
+     */
+    public CoBorrowRecommender() {
+        this(DEFAULT_NEIGHBOURS);
+    }
+    
+    /**
+     * Creates a recommender.
+     * 
+     * @param neighbours The number of neighbours kept for each film
+     */
+    public CoBorrowRecommender(int neighbours) {
+        if (neighbours <= 0) {
+            throw new IllegalArgumentException("Number of neighbours must be positive");
+        }
+        this.neighbours = neighbours;
+        this.maxRowSize = neighbours * ROW_SLACK_FACTOR;
+    }
+    
+    /**
+     * Builds the matrix from existing loan history, replacing any current state.
+     * Rows are independent, so they are counted in parallel on the common
+     * fork/join pool with each task owning a range of films.
+     * 
+     * @param loans The loans to load
+     */
+    public synchronized void load(Collection<Loan> loans) {
+        filmIds.clear();
+        filmTitles.clear();
+        filmsByMember.clear();
+        rows.clear();
+        topNeighbours.clear();
+        
+        for (Loan loan : loans) {
+            int film = internFilm(loan.getDvd().getFilm().getTitle());
+            addFilmToMember(loan.getMember().getMembershipNumber(), film);
+        }
+        
+        // Invert member -> films into film -> members so each row can be built alone
+        int filmCount = filmTitles.size();
+        int[] memberCounts = new int[filmCount];
+        for (int[] films : filmsByMember.values()) {
+            for (int i = 1; i <= films[0]; i++) {
+                memberCounts[films[i]]++;
+            }
+        }
+        int[][] membersOfFilm = new int[filmCount][];
+        for (int film = 0; film < filmCount; film++) {
+            membersOfFilm[film] = new int[memberCounts[film]];
+        }
+        int[][] memberFilms = filmsByMember.values().toArray(new int[0][]);
+        int[] fill = new int[filmCount];
+        for (int member = 0; member < memberFilms.length; member++) {
+            int[] films = memberFilms[member];
+            for (int i = 1; i <= films[0]; i++) {
+                membersOfFilm[films[i]][fill[films[i]]++] = member;
+            }
+        }
+        
+        IntCountMap[] built = new IntCountMap[filmCount];
+        ForkJoinPool.commonPool().invoke(new RowTask(memberFilms, membersOfFilm, built, 0, filmCount));
+        rows.clear();
+        rows.addAll(Arrays.asList(built));
+    }
+    
+    /**
+     * Updates the matrix with a new loan. Only the first loan of a film by a
+     * member changes the matrix, since cells count members rather than loans.
+     * 
+     * @param loan The loan that was created
+     */
+    public synchronized void record(Loan loan) {
+        int film = internFilm(loan.getDvd().getFilm().getTitle());
+        int[] borrowed = addFilmToMember(loan.getMember().getMembershipNumber(), film);
+        if (borrowed == null) {
+            return;
+        }
+        
+        for (int i = 1; i <= borrowed[0]; i++) {
+            int other = borrowed[i];
+            if (other != film) {
+                increment(film, other);
+                increment(other, film);
+            }
+        }
+    }
+    
+    /**
+     * Gets the films most often borrowed by members who also borrowed a film.
+     * 
+     * @param film The title of the film
+     * @param limit The maximum number of films to return
+     * @return Film titles with the number of members who borrowed both, strongest first
+     */
+    public synchronized List<RankedItem> recommend(String film, int limit) {
+        Integer id = filmIds.get(film);
+        if (id == null) {
+            return new ArrayList<>();
+        }
+        
+        RankedItem[] top = topNeighbours.get(id);
+        if (top == null) {
+            IntCountMap row = rows.get(id);
+            int[] keys = row.topKeys(neighbours);
+            top = new RankedItem[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                top[i] = new RankedItem(filmTitles.get(keys[i]), row.get(keys[i]));
+            }
+            topNeighbours.set(id, top);
+        }
+        
+        int size = Math.min(limit, top.length);
+        return new ArrayList<>(Arrays.asList(top).subList(0, size));
+    }
+    
+    private int internFilm(String title) {
+        Integer id = filmIds.get(title);
+        if (id != null) {
+            return id;
+        }
+        int newId = filmTitles.size();
+        filmIds.put(title, newId);
+        filmTitles.add(title);
+        rows.add(new IntCountMap(4));
+        topNeighbours.add(null);
+        return newId;
+    }
+    
+    /**
+     * Adds a film to a member's borrowed set, stored as a length-prefixed int array.
+     * 
+     * @return The member's updated set, or null if the film was already in it
+     */
+    private int[] addFilmToMember(String membershipNumber, int film) {
+        int[] films = filmsByMember.get(membershipNumber);
+        if (films == null) {
+            films = new int[4];
+        } else {
+            for (int i = 1; i <= films[0]; i++) {
+                if (films[i] == film) {
+                    return null;
+                }
+            }
+            if (films[0] + 1 == films.length) {
+                films = Arrays.copyOf(films, films.length * 2);
+            }
+        }
+        films[++films[0]] = film;
+        filmsByMember.put(membershipNumber, films);
+        return films;
+    }
+    
+    private void increment(int film, int other) {
+        IntCountMap row = rows.get(film);
+        row.add(other, 1);
+        
+        // Let rows grow to twice the cap before trimming so pruning is amortised
+        if (row.size() > maxRowSize * 2) {
+            row.retainTop(maxRowSize);
+        }
+        topNeighbours.set(film, null);
+    }
+    
+    /**
+     * Builds the co-occurrence rows for a range of films,
+     * splitting the range until it is small enough to build directly.
+     */
+    private class RowTask extends RecursiveAction {
+        private final int[][] memberFilms;
+        private final int[][] membersOfFilm;
+        private final IntCountMap[] built;
+        private final int from;
+        private final int to;
+        
+        RowTask(int[][] memberFilms, int[][] membersOfFilm, IntCountMap[] built, int from, int to) {
+            this.memberFilms = memberFilms;
+            this.membersOfFilm = membersOfFilm;
+            this.built = built;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > FILMS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RowTask(memberFilms, membersOfFilm, built, from, mid),
+                        new RowTask(memberFilms, membersOfFilm, built, mid, to));
+                return;
+            }
+            
+            for (int film = from; film < to; film++) {
+                IntCountMap row = new IntCountMap(maxRowSize);
+                for (int member : membersOfFilm[film]) {
+                    int[] films = memberFilms[member];
+                    for (int i = 1; i <= films[0]; i++) {
+                        if (films[i] != film) {
+                            row.add(films[i], 1);
+                        }
+                    }
+                }
+                row.retainTop(maxRowSize);
+                built[film] = row;
+            }
+        }
+    }
+}
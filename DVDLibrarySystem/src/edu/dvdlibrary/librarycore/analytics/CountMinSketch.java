@@ -0,0 +1,89 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch for approximate frequency counting in fixed memory.
+ * Estimates never undercount; overcounting is bounded by the table width.
+ */
+public class CountMinSketch {
+    
+    private static final int[] SEEDS = {
+            0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F,
+            0x165667B1, 0xD3A2646C, 0xFD7046C5, 0xB55A4F09
+    };
+    
+    private final int depth;
+    private final int mask;
+    private final long[] counts;
+    
+    /**
+     * Creates a new sketch.
+     * 
+     * @param width The number of counters per row (rounded up to a power of two)
+     * @param depth The number of hash rows (at most 8)
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Sketch width must be positive");
+        }
+        if (depth <= 0 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Sketch depth must be between 1 and " + SEEDS.length);
+        }
+        int roundedWidth = Integer.highestOneBit(width);
+        if (roundedWidth < width) {
+            roundedWidth <<= 1;
+        }
+        this.depth = depth;
+        this.mask = roundedWidth - 1;
+        this.counts = new long[roundedWidth * depth];
+    }
+    
+    /**
+     * Adds to the count of a key.
+     * 
+     * @param key The key to count
+     * @param count The amount to add
+     */
+    public void add(String key, long count) {
+        int hash = key.hashCode();
+        int width = mask + 1;
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + index(hash, row)] += count;
+        }
+    }
+    
+    /**
+     * Estimates the count of a key.
+     * 
+     * @param key The key to look up
+     * @return The estimated count (never less than the true count)
+     */
+    public long estimate(String key) {
+        int hash = key.hashCode();
+        int width = mask + 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row * width + index(hash, row)]);
+        }
+        return min;
+    }
+    
+    /**
+     * Resets all counters to zero.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0L);
+    }
+    
+    private int index(int hash, int row) {
+        // murmur3 finalizer over the key hash mixed with a per-row seed
+        int h = hash ^ SEEDS[row];
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
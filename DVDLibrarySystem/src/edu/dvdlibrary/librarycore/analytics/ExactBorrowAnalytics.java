@@ -0,0 +1,61 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import edu.dvdlibrary.librarycore.model.Loan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exact borrow analytics that keeps a full per-day count of every key.
+ * Memory grows with the number of distinct films and members, so this is
+ * meant for verifying SketchBorrowAnalytics rather than production use.
+ */
+public class ExactBorrowAnalytics implements BorrowAnalytics {
+    
+    private final TreeMap<Long, Map<String, Long>> filmCountsByDay = new TreeMap<>();
+    private final TreeMap<Long, Map<String, Long>> memberCountsByDay = new TreeMap<>();
+    
+    @Override
+    public synchronized void record(Loan loan) {
+        long epochDay = loan.getBorrowDate().toEpochDay();
+        increment(filmCountsByDay, epochDay, loan.getDvd().getFilm().getTitle());
+        increment(memberCountsByDay, epochDay, loan.getMember().getMembershipNumber());
+    }
+    
+    @Override
+    public synchronized List<RankedItem> topFilms(AnalyticsWindow window, int k, LocalDate asOf) {
+        return top(filmCountsByDay, window, k, asOf);
+    }
+    
+    @Override
+    public synchronized List<RankedItem> topMembers(AnalyticsWindow window, int k, LocalDate asOf) {
+        return top(memberCountsByDay, window, k, asOf);
+    }
+    
+    private static void increment(TreeMap<Long, Map<String, Long>> countsByDay, long epochDay, String key) {
+        countsByDay.computeIfAbsent(epochDay, day -> new HashMap<>()).merge(key, 1L, Long::sum);
+    }
+    
+    private static List<RankedItem> top(TreeMap<Long, Map<String, Long>> countsByDay,
+                                        AnalyticsWindow window, int k, LocalDate asOf) {
+        long lastDay = asOf.toEpochDay();
+        long firstDay = lastDay - window.getDays() + 1;
+        
+        Map<String, Long> totals = new HashMap<>();
+        for (Map<String, Long> dayCounts : countsByDay.subMap(firstDay, true, lastDay, true).values()) {
+            for (Map.Entry<String, Long> entry : dayCounts.entrySet()) {
+                totals.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        }
+        
+        List<RankedItem> ranked = new ArrayList<>(totals.size());
+        for (Map.Entry<String, Long> entry : totals.entrySet()) {
+            ranked.add(new RankedItem(entry.getKey(), entry.getValue()));
+        }
+        return TopK.select(ranked, k);
+    }
+}
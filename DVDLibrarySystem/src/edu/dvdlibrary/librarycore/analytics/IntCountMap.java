@@ -0,0 +1,163 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from non-negative int keys to int counts.
+ * Avoids the boxing and entry objects of a HashMap on hot counting paths.
+ */
+class IntCountMap {
+    
+    private static final int EMPTY = -1;
+    
+    private int[] keys;
+    private int[] counts;
+    private int size;
+    
+    /**
+     * Creates an empty map.
+     * 
+     * @param expectedSize The number of keys expected
+     */
+    IntCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+    
+    /**
+     * Adds to the count of a key.
+     * 
+     * @param key The key (must be non-negative)
+     * @param delta The amount to add
+     */
+    void add(int key, int delta) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                counts[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        if (++size * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+    }
+    
+    /**
+     * Gets the number of keys in the map.
+     * 
+     * @return The number of keys
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the keys of the map, in no particular order.
+     * 
+     * @return A new array of the keys
+     */
+    int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Gets the count for a key.
+     * 
+     * @param key The key to look up
+     * @return The count, or 0 if the key is absent
+     */
+    int get(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+    
+    /**
+     * Keeps only the keys with the highest counts.
+     * 
+     * @param limit The number of keys to keep
+     */
+    void retainTop(int limit) {
+        if (size <= limit) {
+            return;
+        }
+        int[] top = topKeys(limit);
+        int[] topCounts = new int[top.length];
+        for (int i = 0; i < top.length; i++) {
+            topCounts[i] = get(top[i]);
+        }
+        
+        keys = new int[Integer.highestOneBit(Math.max(4, limit * 2 - 1)) << 1];
+        counts = new int[keys.length];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < top.length; i++) {
+            add(top[i], topCounts[i]);
+        }
+    }
+    
+    /**
+     * Gets the keys with the highest counts, highest first.
+     * Ties are broken by the lower key.
+     * 
+     * @param limit The maximum number of keys to return
+     * @return The top keys
+     */
+    int[] topKeys(int limit) {
+        // Pack count and inverted key into one long so a primitive sort orders both
+        long[] packed = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                packed[n++] = ((long) counts[slot] << 32) | (Integer.MAX_VALUE - keys[slot]);
+            }
+        }
+        Arrays.sort(packed);
+        
+        int resultSize = Math.min(limit, n);
+        int[] result = new int[resultSize];
+        for (int i = 0; i < resultSize; i++) {
+            result[i] = Integer.MAX_VALUE - (int) packed[n - 1 - i];
+        }
+        return result;
+    }
+    
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add(oldKeys[i], oldCounts[i]);
+            }
+        }
+    }
+    
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,135 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Headline totals for the library, as shown in the status bar: films,
+ * discs, discs on loan, overdue loans, members and members at their loan limit.
+ */
+public class LibraryStats {
+    private final LocalDate date;
+    private final int films;
+    private final int discs;
+    private final int discsOnLoan;
+    private final int overdueLoans;
+    private final int members;
+    private final int membersAtLoanLimit;
+    
+    /**
+     * Creates a new set of totals.
+     * 
+     * @param date The date overdue loans are counted as of
+     * @param films The number of films
+     * @param discs The number of DVD copies
+     * @param discsOnLoan The number of DVD copies on loan
+     * @param overdueLoans The number of active loans past their due date
+     * @param members The number of members
+     * @param membersAtLoanLimit The number of members who cannot borrow any more
+     */
+    public LibraryStats(LocalDate date, int films, int discs, int discsOnLoan, int overdueLoans,
+                        int members, int membersAtLoanLimit) {
+        this.date = date;
+        this.films = films;
+        this.discs = discs;
+        this.discsOnLoan = discsOnLoan;
+        this.overdueLoans = overdueLoans;
+        this.members = members;
+        this.membersAtLoanLimit = membersAtLoanLimit;
+    }
+    
+    /**
+     * Gets the date overdue loans are counted as of.
+     * 
+     * @return The date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+    
+    /**
+     * Gets the number of films in the catalogue.
+     * 
+     * @return The number of films
+     */
+    public int getFilms() {
+        return films;
+    }
+    
+    /**
+     * Gets the number of DVD copies in the library.
+     * 
+     * @return The number of discs
+     */
+    public int getDiscs() {
+        return discs;
+    }
+    
+    /**
+     * Gets the number of DVD copies on loan.
+     * 
+     * @return The number of discs on loan
+     */
+    public int getDiscsOnLoan() {
+        return discsOnLoan;
+    }
+    
+    /**
+     * Gets the number of active loans past their due date.
+     * 
+     * @return The number of overdue loans
+     */
+    public int getOverdueLoans() {
+        return overdueLoans;
+    }
+    
+    /**
+     * Gets the number of library members.
+     * 
+     * @return The number of members
+     */
+    public int getMembers() {
+        return members;
+    }
+    
+    /**
+     * Gets the number of members with as many DVDs as they are allowed.
+     * 
+     * @return The number of members at their loan limit
+     */
+    public int getMembersAtLoanLimit() {
+        return membersAtLoanLimit;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LibraryStats that = (LibraryStats) o;
+        return films == that.films &&
+                discs == that.discs &&
+                discsOnLoan == that.discsOnLoan &&
+                overdueLoans == that.overdueLoans &&
+                members == that.members &&
+                membersAtLoanLimit == that.membersAtLoanLimit &&
+                Objects.equals(date, that.date);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, films, discs, discsOnLoan, overdueLoans, members, membersAtLoanLimit);
+    }
+    
+    @Override
+    public String toString() {
+        return "LibraryStats{" +
+                "date=" + date +
+                ", films=" + films +
+                ", discs=" + discs +
+                ", discsOnLoan=" + discsOnLoan +
+                ", overdueLoans=" + overdueLoans +
+                ", members=" + members +
+                ", membersAtLoanLimit=" + membersAtLoanLimit +
+                '}';
+    }
+}
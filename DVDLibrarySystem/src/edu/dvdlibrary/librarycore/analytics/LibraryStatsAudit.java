@@ -0,0 +1,59 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+/**
+ * The outcome of checking the library totals against a full recount.
+ */
+public class LibraryStatsAudit {
+    private final LibraryStats tracked;
+    private final LibraryStats recounted;
+    private final boolean corrected;
+    
+    /**
+     * Creates a new audit result.
+     * 
+     * @param tracked The totals as kept up to date by each change
+     * @param recounted The totals found by counting everything again
+     * @param corrected true if the tracked totals had drifted and were reset from the recount
+     */
+    public LibraryStatsAudit(LibraryStats tracked, LibraryStats recounted, boolean corrected) {
+        this.tracked = tracked;
+        this.recounted = recounted;
+        this.corrected = corrected;
+    }
+    
+    /**
+     * Gets the totals as they were tracked before the audit.
+     * 
+     * @return The tracked totals
+     */
+    public LibraryStats getTracked() {
+        return tracked;
+    }
+    
+    /**
+     * Gets the totals found by the recount.
+     * 
+     * @return The recounted totals
+     */
+    public LibraryStats getRecounted() {
+        return recounted;
+    }
+    
+    /**
+     * Checks whether the tracked totals had drifted and were corrected.
+     * 
+     * @return true if a correction was made
+     */
+    public boolean isCorrected() {
+        return corrected;
+    }
+    
+    @Override
+    public String toString() {
+        return "LibraryStatsAudit{" +
+                "tracked=" + tracked +
+                ", recounted=" + recounted +
+                ", corrected=" + corrected +
+                '}';
+    }
+}
@@ -0,0 +1,255 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import edu.dvdlibrary.librarycore.dao.DataStore;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps the library's headline totals up to date as films, discs, members
+ * and loans are added, so reading them never scans anything.
+ * <p>
+ * Overdue loans depend on the date as well as on changes, so active loans
+ * are counted per due date. Loans due before the date last asked about are
+ * overdue; when a later date is asked for, the due dates passed in between
+ * are added to the overdue count, once. Members at their loan limit are
+ * re-checked from the member after every borrow and return, so two of a
+ * member's loans changing at once still leave the right answer.
+ * <p>
+ * The totals are checked against a full recount by audit(), which corrects
+ * them if they have drifted.
+ */
+public class LibraryStatsTracker {
+    
+    private static final int AUDIT_ATTEMPTS = 3;
+    
+    private final DataStore dataStore;
+    private int films;
+    private int discs;
+    private int members;
+    private int activeLoans;
+    private final NavigableMap<LocalDate, Integer> activeLoansByDueDate = new TreeMap<>();
+    private final Set<Member> membersAtLoanLimit = new HashSet<>();
+    // Loans due before this date are counted in overdueLoans
+    private LocalDate overdueAsOf = LocalDate.MIN;
+    private int overdueLoans;
+    
+    /**
+     * Creates a tracker and counts what is already in a data store.
+     * 
+     * @param dataStore The data store to count, and to recount when auditing
+     */
+    public LibraryStatsTracker(DataStore dataStore) {
+        this(dataStore, dataStore.getAllFilms(), dataStore.getActiveLoans(), dataStore.getAllMembers());
+    }
+    
+    /**
+     * Creates a tracker and counts records already read from a data store.
+     * 
+     * @param dataStore The data store to recount when auditing
+     * @param allFilms The films in the store
+     * @param activeLoans The active loans in the store
+     * @param allMembers The members in the store
+     */
+    public LibraryStatsTracker(DataStore dataStore, Collection<Film> allFilms, List<Loan> activeLoans,
+                               List<Member> allMembers) {
+        this.dataStore = dataStore;
+        Recount recount = count(LocalDate.now(), allFilms, activeLoans, allMembers);
+        films = recount.stats.getFilms();
+        discs = recount.stats.getDiscs();
+        members = recount.stats.getMembers();
+        reloadLoans(recount.activeLoans, recount.members);
+    }
+    
+    /**
+     * Records that a film was added.
+     */
+    public synchronized void filmAdded() {
+        films++;
+    }
+    
+    /**
+     * Records that a DVD copy was added.
+     */
+    public synchronized void dvdAdded() {
+        discs++;
+    }
+    
+    /**
+     * Records that a member joined.
+     */
+    public synchronized void memberAdded() {
+        members++;
+    }
+    
+    /**
+     * Records a new loan. Call it after the loan has been added to the member.
+     * 
+     * @param loan The loan that started
+     */
+    public synchronized void loanStarted(Loan loan) {
+        activeLoans++;
+        activeLoansByDueDate.merge(loan.getDueDate(), 1, Integer::sum);
+        if (loan.getDueDate().isBefore(overdueAsOf)) {
+            overdueLoans++;
+        }
+        refreshLoanLimit(loan.getMember());
+    }
+    
+    /**
+     * Records a returned loan. Call it after the loan has been removed from the member.
+     * 
+     * @param loan The loan that ended
+     */
+    public synchronized void loanEnded(Loan loan) {
+        activeLoans--;
+        activeLoansByDueDate.merge(loan.getDueDate(), -1, (count, change) -> count + change == 0 ? null : count + change);
+        if (loan.getDueDate().isBefore(overdueAsOf)) {
+            overdueLoans--;
+        }
+        refreshLoanLimit(loan.getMember());
+    }
+    
+    /**
+     * Gets the current totals.
+     * 
+     * @param currentDate The date to count overdue loans as of
+     * @return The totals
+     */
+    public synchronized LibraryStats current(LocalDate currentDate) {
+        if (currentDate.isAfter(overdueAsOf)) {
+            for (int count : activeLoansByDueDate.subMap(overdueAsOf, true, currentDate, false).values()) {
+                overdueLoans += count;
+            }
+            overdueAsOf = currentDate;
+        } else if (currentDate.isBefore(overdueAsOf)) {
+            // Asked about an earlier day than before, e.g. after the clock was put back
+            overdueLoans = 0;
+            for (int count : activeLoansByDueDate.headMap(currentDate, false).values()) {
+                overdueLoans += count;
+            }
+            overdueAsOf = currentDate;
+        }
+        return new LibraryStats(currentDate, films, discs, activeLoans, overdueLoans,
+                members, membersAtLoanLimit.size());
+    }
+    
+    /**
+     * Checks the totals against a full recount of the data store and corrects
+     * them if they have drifted. A recount that overlaps a change cannot be
+     * compared fairly, so it is retried; a difference is only corrected once
+     * two clean recounts in a row agree on it.
+     * 
+     * @param currentDate The date to count overdue loans as of
+     * @return The result of the check
+     */
+    public LibraryStatsAudit audit(LocalDate currentDate) {
+        LibraryStats tracked = current(currentDate);
+        Recount recount = null;
+        // The last clean recount that disagreed, and the tracked totals it disagreed with
+        LibraryStats driftTracked = null;
+        LibraryStats driftCounted = null;
+        for (int attempt = 0; attempt < AUDIT_ATTEMPTS; attempt++) {
+            LibraryStats before = current(currentDate);
+            recount = recount(currentDate);
+            tracked = current(currentDate);
+            if (!before.equals(tracked)) {
+                driftTracked = null;
+                continue;
+            }
+            if (recount.stats.equals(tracked)) {
+                return new LibraryStatsAudit(tracked, recount.stats, false);
+            }
+            if (tracked.equals(driftTracked) && recount.stats.equals(driftCounted)) {
+                correct(tracked, recount);
+                return new LibraryStatsAudit(tracked, recount.stats, true);
+            }
+            driftTracked = tracked;
+            driftCounted = recount.stats;
+        }
+        // Too busy to get two matching recounts; leave it to the next audit
+        return new LibraryStatsAudit(tracked, recount.stats, false);
+    }
+    
+    private synchronized void correct(LibraryStats tracked, Recount recount) {
+        films += recount.stats.getFilms() - tracked.getFilms();
+        discs += recount.stats.getDiscs() - tracked.getDiscs();
+        members += recount.stats.getMembers() - tracked.getMembers();
+        reloadLoans(recount.activeLoans, recount.members);
+    }
+    
+    private synchronized void reloadLoans(Collection<Loan> loans, Collection<Member> allMembers) {
+        activeLoans = 0;
+        activeLoansByDueDate.clear();
+        overdueAsOf = LocalDate.MIN;
+        overdueLoans = 0;
+        for (Loan loan : loans) {
+            activeLoans++;
+            activeLoansByDueDate.merge(loan.getDueDate(), 1, Integer::sum);
+        }
+        membersAtLoanLimit.clear();
+        for (Member member : allMembers) {
+            refreshLoanLimit(member);
+        }
+    }
+    
+    private void refreshLoanLimit(Member member) {
+        if (member.isAtLoanLimit()) {
+            membersAtLoanLimit.add(member);
+        } else {
+            membersAtLoanLimit.remove(member);
+        }
+    }
+    
+    private Recount recount(LocalDate currentDate) {
+        return count(currentDate, dataStore.getAllFilms(), dataStore.getActiveLoans(), dataStore.getAllMembers());
+    }
+    
+    private static Recount count(LocalDate currentDate, Collection<Film> allFilms, List<Loan> loans,
+                                 List<Member> allMembers) {
+        int filmCount = 0;
+        int discCount = 0;
+        for (Film film : allFilms) {
+            filmCount++;
+            discCount += film.getTotalCopies();
+        }
+        int overdue = 0;
+        for (Loan loan : loans) {
+            if (loan.isOverdue(currentDate)) {
+                overdue++;
+            }
+        }
+        int atLimit = 0;
+        for (Member member : allMembers) {
+            if (member.isAtLoanLimit()) {
+                atLimit++;
+            }
+        }
+        LibraryStats stats = new LibraryStats(currentDate, filmCount, discCount, loans.size(), overdue,
+                allMembers.size(), atLimit);
+        return new Recount(stats, loans, allMembers);
+    }
+    
+    /**
+     * The totals from a full count, with the loans and members they were counted from.
+     */
+    private static class Recount {
+        final LibraryStats stats;
+        final List<Loan> activeLoans;
+        final List<Member> members;
+        
+        Recount(LibraryStats stats, List<Loan> activeLoans, List<Member> members) {
+            this.stats = stats;
+            this.activeLoans = activeLoans;
+            this.members = members;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import java.util.Objects;
+
+/**
+ * An entry in a top-K result: a key (film title or membership number)
+ * and its (possibly estimated) borrow count.
+ */
+public class RankedItem {
+    private final String key;
+    private final long count;
+    
+    /**
+     * Creates a new ranked item.
+     * 
+     * @param key The film title or membership number
+     * @param count The borrow count
+     */
+    public RankedItem(String key, long count) {
+        this.key = key;
+        this.count = count;
+    }
+    
+    /**
+     * Gets the key of this item.
+     * 
+     * @return The film title or membership number
+     */
+    public String getKey() {
+        return key;
+    }
+    
+    /**
+     * Gets the borrow count for this item.
+     * 
+     * @return The borrow count
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RankedItem that = (RankedItem) o;
+        return count == that.count && Objects.equals(key, that.key);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, count);
+    }
+    
+    @Override
+    public String toString() {
+        return "RankedItem{" +
+                "key='" + key + '\'' +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import edu.dvdlibrary.librarycore.model.Loan;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Constant-memory borrow analytics backed by sliding-window Count-Min
+ * sketches with heavy-hitter tracking. Counts are estimates that may
+ * slightly overcount; use ExactBorrowAnalytics to compare against the
+ * true values.
+ */
+public class SketchBorrowAnalytics implements BorrowAnalytics {
+    
+    private static final int DEFAULT_SKETCH_WIDTH = 1024;
+    private static final int DEFAULT_SKETCH_DEPTH = 4;
+    private static final int DEFAULT_CANDIDATES_PER_DAY = 64;
+    
+    private final SlidingWindowTopK films;
+    private final SlidingWindowTopK members;
+    
+    /**
+     * Creates analytics with the default sketch sizes.
+     */
+    public SketchBorrowAnalytics() {
+        this(DEFAULT_SKETCH_WIDTH, DEFAULT_SKETCH_DEPTH, DEFAULT_CANDIDATES_PER_DAY);
+    }
+    
+    /**
+     * Creates analytics with custom sketch sizes.
+     * 
+     * @param sketchWidth The Count-Min sketch width per day
+     * @param sketchDepth The Count-Min sketch depth per day
+     * @param candidatesPerDay The number of heavy-hitter candidates tracked per day
+     */
+    public SketchBorrowAnalytics(int sketchWidth, int sketchDepth, int candidatesPerDay) {
+        int days = AnalyticsWindow.maxDays();
+        this.films = new SlidingWindowTopK(days, sketchWidth, sketchDepth, candidatesPerDay);
+        this.members = new SlidingWindowTopK(days, sketchWidth, sketchDepth, candidatesPerDay);
+    }
+    
+    @Override
+    public synchronized void record(Loan loan) {
+        long epochDay = loan.getBorrowDate().toEpochDay();
+        films.add(loan.getDvd().getFilm().getTitle(), epochDay);
+        members.add(loan.getMember().getMembershipNumber(), epochDay);
+    }
+    
+    @Override
+    public synchronized List<RankedItem> topFilms(AnalyticsWindow window, int k, LocalDate asOf) {
+        return films.top(window.getDays(), k, asOf.toEpochDay());
+    }
+    
+    @Override
+    public synchronized List<RankedItem> topMembers(AnalyticsWindow window, int k, LocalDate asOf) {
+        return members.top(window.getDays(), k, asOf.toEpochDay());
+    }
+}
@@ -0,0 +1,125 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Approximate top-K over a sliding window of days for a single key space.
+ * Keeps a ring of daily buckets, each holding a Count-Min sketch and a
+ * bounded set of heavy-hitter candidates, so memory does not grow with
+ * the number of distinct keys or events.
+ */
+class SlidingWindowTopK {
+    
+    private final DayBucket[] buckets;
+    private final int candidatesPerDay;
+    
+    /**
+     * Creates a new sliding window counter.
+     * 
+     * @param days The number of days of history to keep
+     * @param sketchWidth The Count-Min sketch width of each daily bucket
+     * @param sketchDepth The Count-Min sketch depth of each daily bucket
+     * @param candidatesPerDay The number of heavy-hitter candidates tracked per day
+     */
+    SlidingWindowTopK(int days, int sketchWidth, int sketchDepth, int candidatesPerDay) {
+        this.buckets = new DayBucket[days];
+        this.candidatesPerDay = candidatesPerDay;
+        for (int i = 0; i < days; i++) {
+            buckets[i] = new DayBucket(new CountMinSketch(sketchWidth, sketchDepth));
+        }
+    }
+    
+    /**
+     * Records one occurrence of a key on a day.
+     * Events older than the retained history are ignored.
+     * 
+     * @param key The key
+     * @param epochDay The day of the event
+     */
+    void add(String key, long epochDay) {
+        DayBucket bucket = buckets[(int) Math.floorMod(epochDay, (long) buckets.length)];
+        if (bucket.epochDay != epochDay) {
+            if (bucket.epochDay > epochDay) {
+                return;
+            }
+            bucket.reset(epochDay);
+        }
+        bucket.sketch.add(key, 1);
+        bucket.offerCandidate(key, bucket.sketch.estimate(key), candidatesPerDay);
+    }
+    
+    /**
+     * Gets the top keys over the days ending on the given day.
+     * 
+     * @param days The window length in days
+     * @param k The maximum number of keys to return
+     * @param asOfEpochDay The last day of the window
+     * @return Ranked keys, highest estimated count first
+     */
+    List<RankedItem> top(int days, int k, long asOfEpochDay) {
+        long firstDay = asOfEpochDay - Math.min(days, buckets.length) + 1;
+        List<DayBucket> inWindow = new ArrayList<>();
+        Set<String> candidates = new HashSet<>();
+        for (DayBucket bucket : buckets) {
+            if (bucket.epochDay >= firstDay && bucket.epochDay <= asOfEpochDay) {
+                inWindow.add(bucket);
+                candidates.addAll(bucket.candidates.keySet());
+            }
+        }
+        
+        List<RankedItem> ranked = new ArrayList<>(candidates.size());
+        for (String key : candidates) {
+            long total = 0;
+            for (DayBucket bucket : inWindow) {
+                total += bucket.sketch.estimate(key);
+            }
+            ranked.add(new RankedItem(key, total));
+        }
+        return TopK.select(ranked, k);
+    }
+    
+    /**
+     * A single day's sketch and heavy-hitter candidates.
+     */
+    private static class DayBucket {
+        private final CountMinSketch sketch;
+        private final Map<String, Long> candidates = new HashMap<>();
+        private long epochDay = Long.MIN_VALUE;
+        
+        DayBucket(CountMinSketch sketch) {
+            this.sketch = sketch;
+        }
+        
+        void reset(long newEpochDay) {
+            sketch.clear();
+            candidates.clear();
+            epochDay = newEpochDay;
+        }
+        
+        void offerCandidate(String key, long estimate, int capacity) {
+            if (candidates.containsKey(key) || candidates.size() < capacity) {
+                candidates.put(key, estimate);
+                return;
+            }
+            
+            // Replace the weakest candidate if the new key now outranks it
+            String weakestKey = null;
+            long weakestCount = Long.MAX_VALUE;
+            for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+                if (entry.getValue() < weakestCount) {
+                    weakestKey = entry.getKey();
+                    weakestCount = entry.getValue();
+                }
+            }
+            if (estimate > weakestCount) {
+                candidates.remove(weakestKey);
+                candidates.put(key, estimate);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Helper for ranking counted items.
+ */
+final class TopK {
+    
+    /**
+     * Highest count first; ties broken by key so results are stable.
+     */
+    static final Comparator<RankedItem> BY_COUNT_DESC =
+            Comparator.comparingLong(RankedItem::getCount).reversed()
+                    .thenComparing(RankedItem::getKey);
+    
+    private TopK() {
+    }
+    
+    /**
+     * Selects the k highest-ranked items.
+     * 
+     * @param items The items to rank
+     * @param k The maximum number of items to return
+     * @return The top items, highest count first
+     */
+    static List<RankedItem> select(List<RankedItem> items, int k) {
+        return items.stream()
+                .sorted(BY_COUNT_DESC)
+                .limit(Math.max(k, 0))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,249 @@
+package edu.dvdlibrary.librarycore.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Reads the values written by BinaryWriter from a channel through a reusable
+ * direct buffer. Numbers are decoded straight from the buffer and strings
+ * through a reusable character array, so the only objects created are the
+ * strings and dates themselves.
+ */
+public class BinaryReader {
+    
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final int MAX_STRING_BYTES = 1 << 20;
+    
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private char[] chars = new char[256];
+    private long position;
+    
+    /**
+     * Creates a reader with a 64 KB buffer.
+     * 
+     * @param channel The channel to read from
+     */
+    public BinaryReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * Creates a reader.
+     * 
+     * @param channel The channel to read from
+     * @param bufferSize The size of the buffer in bytes (at least 16)
+     */
+    public BinaryReader(ReadableByteChannel channel, int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size must be at least 16 bytes");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer.limit(0);
+    }
+    
+    /**
+     * Checks whether there is anything left to read.
+     * 
+     * @return true if at least one more byte can be read
+     * @throws IOException if the channel fails
+     */
+    public boolean hasRemaining() throws IOException {
+        return buffer.hasRemaining() || fill();
+    }
+    
+    /**
+     * Gets the number of bytes read so far.
+     * 
+     * @return The position in the stream
+     */
+    public long getPosition() {
+        return position;
+    }
+    
+    /**
+     * Reads a single byte.
+     * 
+     * @return The byte as a value from 0 to 255
+     * @throws EOFException if the stream ends
+     * @throws IOException if the channel fails
+     */
+    public int readByte() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            throw new EOFException();
+        }
+        position++;
+        return buffer.get() & 0xFF;
+    }
+    
+    /**
+     * Reads a fixed-width 32-bit integer.
+     * 
+     * @return The integer
+     * @throws EOFException if the stream ends
+     * @throws IOException if the channel fails
+     */
+    public int readInt() throws IOException {
+        return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+    
+    /**
+     * Reads a value written by writeVarLong.
+     * 
+     * @return The value
+     * @throws EOFException if the stream ends
+     * @throws IOException if the channel fails or the value is malformed
+     */
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+            int b = readByte();
+            if (i == MAX_VARINT_BYTES - 1 && b > 1) {
+                // The tenth byte carries only the top bit of a long
+                break;
+            }
+            value |= (long) (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer at byte " + position);
+    }
+    
+    /**
+     * Reads a value written by writeVarLong that must fit in a non-negative int.
+     * 
+     * @return The value
+     * @throws EOFException if the stream ends
+     * @throws IOException if the channel fails or the value is out of range
+     */
+    public int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Value out of range at byte " + position + ": " + value);
+        }
+        return (int) value;
+    }
+    
+    /**
+     * Reads a value written by writeSignedVarLong.
+     * 
+     * @return The value
+     * @throws EOFException if the stream ends
+     * @throws IOException if the channel fails or the value is malformed
+     */
+    public long readSignedVarLong() throws IOException {
+        long zigzag = readVarLong();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+    
+    /**
+     * Reads a date written by writeDate.
+     * 
+     * @return The date
+     * @throws EOFException if the stream ends
+     * @throws IOException if the channel fails or the date is out of range
+     */
+    public LocalDate readDate() throws IOException {
+        return toDate(readSignedVarLong());
+    }
+    
+    /**
+     * Reads a date written by writeNullableDate.
+     * 
+     * @return The date, or null if none was written
+     * @throws EOFException if the stream ends
+     * @throws IOException if the channel fails or the date is out of range
+     */
+    public LocalDate readNullableDate() throws IOException {
+        long value = readVarLong();
+        if (value == 0) {
+            return null;
+        }
+        long zigzag = value - 1;
+        return toDate((zigzag >>> 1) ^ -(zigzag & 1));
+    }
+    
+    /**
+     * Reads a string written by writeString.
+     * 
+     * @return The string
+     * @throws EOFException if the stream ends
+     * @throws IOException if the channel fails or the string is malformed
+     */
+    public String readString() throws IOException {
+        int bytes = readVarInt();
+        if (bytes > MAX_STRING_BYTES) {
+            throw new IOException("String of " + bytes + " bytes is too long at byte " + position);
+        }
+        if (chars.length < bytes) {
+            chars = new char[Math.max(bytes, chars.length * 2)];
+        }
+        int count = 0;
+        int read = 0;
+        while (read < bytes) {
+            int b = readByte();
+            read++;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | continuation());
+                read++;
+            } else if ((b & 0xF0) == 0xE0) {
+                chars[count++] = (char) (((b & 0x0F) << 12) | (continuation() << 6) | continuation());
+                read += 2;
+            } else if ((b & 0xF8) == 0xF0) {
+                int codePoint = ((b & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+                if (!Character.isSupplementaryCodePoint(codePoint)) {
+                    throw new IOException("Malformed UTF-8 at byte " + position);
+                }
+                chars[count++] = Character.highSurrogate(codePoint);
+                chars[count++] = Character.lowSurrogate(codePoint);
+                read += 3;
+            } else {
+                throw new IOException("Malformed UTF-8 at byte " + position);
+            }
+        }
+        if (read != bytes) {
+            throw new IOException("UTF-8 sequence runs past the end of a string at byte " + position);
+        }
+        return new String(chars, 0, count);
+    }
+    
+    private int continuation() throws IOException {
+        int b = readByte();
+        if ((b & 0xC0) != 0x80) {
+            throw new IOException("Malformed UTF-8 at byte " + position);
+        }
+        return b & 0x3F;
+    }
+    
+    private LocalDate toDate(long epochDay) throws IOException {
+        try {
+            return LocalDate.ofEpochDay(epochDay);
+        } catch (DateTimeException e) {
+            throw new IOException("Date out of range at byte " + position + ": " + epochDay, e);
+        }
+    }
+    
+    /**
+     * Refills the buffer from the channel.
+     * 
+     * @return false if the channel has no more data
+     */
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = 0;
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        buffer.flip();
+        return read > 0;
+    }
+}
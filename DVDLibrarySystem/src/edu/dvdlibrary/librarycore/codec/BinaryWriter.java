@@ -0,0 +1,215 @@
+package edu.dvdlibrary.librarycore.codec;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+
+/**
+ * Writes compact binary values to a channel through a reusable direct buffer.
+ * Integers are written as variable-length (LEB128) values so that small ids
+ * take one or two bytes, dates as their epoch day, and strings as UTF-8
+ * encoded straight into the buffer, so writing a value allocates nothing.
+ * Values are only sent to the channel by flush() or when the buffer fills.
+ */
+public class BinaryWriter implements Flushable {
+    
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_VARINT_BYTES = 10;
+    
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long bytesWritten;
+    
+    /**
+     * Creates a writer with a 64 KB buffer.
+     * 
+     * @param channel The channel to write to
+     */
+    public BinaryWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * Creates a writer.
+     * 
+     * @param channel The channel to write to
+     * @param bufferSize The size of the buffer in bytes (at least 16)
+     */
+    public BinaryWriter(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size must be at least 16 bytes");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+    
+    /**
+     * Writes a single byte.
+     * 
+     * @param value The byte to write (only the low 8 bits are used)
+     * @throws IOException if the buffer had to be flushed and the channel failed
+     */
+    public void writeByte(int value) throws IOException {
+        ensureSpace(1);
+        buffer.put((byte) value);
+    }
+    
+    /**
+     * Writes a fixed-width 32-bit integer.
+     * 
+     * @param value The integer to write
+     * @throws IOException if the buffer had to be flushed and the channel failed
+     */
+    public void writeInt(int value) throws IOException {
+        ensureSpace(4);
+        buffer.putInt(value);
+    }
+    
+    /**
+     * Writes a non-negative integer in as few bytes as it needs (7 bits per byte).
+     * Negative values are written as very large unsigned ones, taking ten bytes.
+     * 
+     * @param value The value to write
+     * @throws IOException if the buffer had to be flushed and the channel failed
+     */
+    public void writeVarLong(long value) throws IOException {
+        ensureSpace(MAX_VARINT_BYTES);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+    
+    /**
+     * Writes a signed integer in as few bytes as its magnitude needs, using zigzag encoding.
+     * 
+     * @param value The value to write
+     * @throws IOException if the buffer had to be flushed and the channel failed
+     */
+    public void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+    
+    /**
+     * Writes a date as its epoch day.
+     * 
+     * @param date The date to write
+     * @throws IOException if the buffer had to be flushed and the channel failed
+     */
+    public void writeDate(LocalDate date) throws IOException {
+        writeSignedVarLong(date.toEpochDay());
+    }
+    
+    /**
+     * Writes a date that may be missing. A missing date takes one byte.
+     * 
+     * @param date The date to write, or null
+     * @throws IOException if the buffer had to be flushed and the channel failed
+     */
+    public void writeNullableDate(LocalDate date) throws IOException {
+        if (date == null) {
+            writeVarLong(0);
+        } else {
+            long zigzag = (date.toEpochDay() << 1) ^ (date.toEpochDay() >> 63);
+            writeVarLong(zigzag + 1);
+        }
+    }
+    
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+     * Unpaired surrogates are written as '?', as String.getBytes does.
+     * 
+     * @param value The string to write
+     * @throws IOException if the buffer had to be flushed and the channel failed
+     */
+    public void writeString(CharSequence value) throws IOException {
+        int length = value.length();
+        writeVarLong(utf8Length(value));
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                ensureSpace(1);
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                ensureSpace(2);
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureSpace(4);
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                ensureSpace(1);
+                buffer.put((byte) '?');
+            } else {
+                ensureSpace(3);
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+    
+    /**
+     * Sends everything buffered to the channel.
+     * 
+     * @throws IOException if the channel fails
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Drops everything buffered since the last flush without sending it.
+     */
+    public void discard() {
+        buffer.clear();
+    }
+    
+    /**
+     * Gets the number of bytes sent to the channel so far.
+     * 
+     * @return The number of bytes flushed
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+    
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+    
+    private static int utf8Length(CharSequence value) {
+        int length = value.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
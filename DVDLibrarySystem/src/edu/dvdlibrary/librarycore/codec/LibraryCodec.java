@@ -0,0 +1,302 @@
+package edu.dvdlibrary.librarycore.codec;
+
+import edu.dvdlibrary.librarycore.dao.DataStore;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary encoding of films, DVDs, members and loans.
+ * 
+ * A stream starts with a header (magic number and format version) followed
+ * by records, each a one-byte type and its fields. Each film, DVD, member
+ * and loan is numbered in the order it first appears in the stream, and
+ * later records refer to it by that surrogate number rather than repeating
+ * its key: a DVD names its film, a loan its DVD and member, and an update
+ * the record it changes. A record is always written after the records it
+ * refers to, so a reader can rebuild the object graph in a single pass.
+ * 
+ * A codec instance holds the surrogate numbering for one stream, so the
+ * same instance must be used for every record written to or read from it.
+ * After reading a stream a codec can carry on appending to it. Numbers given
+ * out by the write methods are provisional until commit() is called once
+ * the records have reached the stream; if writing fails, rollback() forgets
+ * them, so later records do not refer to ones the stream never received.
+ */
+public class LibraryCodec {
+    
+    /** Identifies a library stream ("DVDL"). */
+    public static final int MAGIC = 0x4456444C;
+    
+    /** The format version written by this codec. */
+    public static final int FORMAT_VERSION = 1;
+    
+    private static final int FILM = 1;
+    private static final int DVD_COPY = 2;
+    private static final int MEMBER = 3;
+    private static final int MEMBER_RENAMED = 4;
+    private static final int LOAN = 5;
+    private static final int LOAN_UPDATED = 6;
+    
+    private final Map<String, Integer> filmRefs = new HashMap<>();
+    private final Map<String, Integer> dvdRefs = new HashMap<>();
+    private final Map<String, Integer> memberRefs = new HashMap<>();
+    private final Map<Loan, Integer> loanRefs = new IdentityHashMap<>();
+    private final List<Film> films = new ArrayList<>();
+    private final List<DVD> dvds = new ArrayList<>();
+    private final List<Member> members = new ArrayList<>();
+    private final List<Loan> loans = new ArrayList<>();
+    private int committedFilms;
+    private int committedDvds;
+    private int committedMembers;
+    private int committedLoans;
+    
+    /**
+     * Writes the stream header.
+     * 
+     * @param writer The writer to write to
+     * @throws IOException if writing fails
+     */
+    public static void writeHeader(BinaryWriter writer) throws IOException {
+        writer.writeInt(MAGIC);
+        writer.writeVarLong(FORMAT_VERSION);
+    }
+    
+    /**
+     * Reads and checks the stream header.
+     * 
+     * @param reader The reader to read from
+     * @throws IOException if the stream is not a library stream or was written by a newer version
+     */
+    public static void readHeader(BinaryReader reader) throws IOException {
+        if (reader.readInt() != MAGIC) {
+            throw new IOException("Not a library data stream");
+        }
+        long version = reader.readVarLong();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported library data format version " + version);
+        }
+    }
+    
+    /**
+     * Writes a film, unless it is already in the stream.
+     * 
+     * @param writer The writer to write to
+     * @param film The film to write
+     * @throws IOException if writing fails
+     */
+    public void writeFilm(BinaryWriter writer, Film film) throws IOException {
+        if (filmRefs.containsKey(film.getTitle())) {
+            return;
+        }
+        writer.writeByte(FILM);
+        writer.writeString(film.getTitle());
+        register(film);
+    }
+    
+    /**
+     * Writes a DVD, preceded by its film if that is not yet in the stream.
+     * Does nothing if the DVD is already in the stream, since a DVD never changes film.
+     * 
+     * @param writer The writer to write to
+     * @param dvd The DVD to write
+     * @throws IOException if writing fails
+     */
+    public void writeDVD(BinaryWriter writer, DVD dvd) throws IOException {
+        if (dvdRefs.containsKey(dvd.getDvdId())) {
+            return;
+        }
+        writeFilm(writer, dvd.getFilm());
+        writer.writeByte(DVD_COPY);
+        writer.writeVarLong(filmRefs.get(dvd.getFilm().getTitle()));
+        writer.writeString(dvd.getDvdId());
+        register(dvd);
+    }
+    
+    /**
+     * Writes a member, or their current name if they are already in the stream.
+     * 
+     * @param writer The writer to write to
+     * @param member The member to write
+     * @throws IOException if writing fails
+     */
+    public void writeMember(BinaryWriter writer, Member member) throws IOException {
+        Integer ref = memberRefs.get(member.getMembershipNumber());
+        if (ref != null) {
+            writer.writeByte(MEMBER_RENAMED);
+            writer.writeVarLong(ref);
+            writer.writeString(member.getName());
+            return;
+        }
+        writer.writeByte(MEMBER);
+        writer.writeString(member.getMembershipNumber());
+        writer.writeString(member.getName());
+        register(member);
+    }
+    
+    /**
+     * Writes a loan, preceded by its DVD and member if they are not yet in the stream,
+     * or its current return date if it is already in the stream.
+     * 
+     * @param writer The writer to write to
+     * @param loan The loan to write
+     * @throws IOException if writing fails
+     */
+    public void writeLoan(BinaryWriter writer, Loan loan) throws IOException {
+        Integer ref = loanRefs.get(loan);
+        if (ref != null) {
+            writer.writeByte(LOAN_UPDATED);
+            writer.writeVarLong(ref);
+            writer.writeNullableDate(loan.getReturnDate());
+            return;
+        }
+        writeDVD(writer, loan.getDvd());
+        if (!memberRefs.containsKey(loan.getMember().getMembershipNumber())) {
+            writeMember(writer, loan.getMember());
+        }
+        writer.writeByte(LOAN);
+        writer.writeVarLong(dvdRefs.get(loan.getDvd().getDvdId()));
+        writer.writeVarLong(memberRefs.get(loan.getMember().getMembershipNumber()));
+        writer.writeDate(loan.getBorrowDate());
+        writer.writeNullableDate(loan.getReturnDate());
+        register(loan);
+    }
+    
+    /**
+     * Makes the numbers given to records written since the last commit
+     * permanent. Call once those records have been flushed to the stream.
+     */
+    public void commit() {
+        committedFilms = films.size();
+        committedDvds = dvds.size();
+        committedMembers = members.size();
+        committedLoans = loans.size();
+    }
+    
+    /**
+     * Forgets the records written since the last commit, so that writing
+     * them again numbers them afresh. Call when they could not be flushed.
+     */
+    public void rollback() {
+        while (films.size() > committedFilms) {
+            filmRefs.remove(films.remove(films.size() - 1).getTitle());
+        }
+        while (dvds.size() > committedDvds) {
+            dvdRefs.remove(dvds.remove(dvds.size() - 1).getDvdId());
+        }
+        while (members.size() > committedMembers) {
+            memberRefs.remove(members.remove(members.size() - 1).getMembershipNumber());
+        }
+        while (loans.size() > committedLoans) {
+            loanRefs.remove(loans.remove(loans.size() - 1));
+        }
+    }
+    
+    /**
+     * Reads one record and applies it to a data store: new records are saved
+     * with linked objects (a DVD joins its film's copies, an active loan is
+     * attached to its DVD and member) and updates change the saved object.
+     * 
+     * @param reader The reader to read from
+     * @param target The store to save the decoded objects to
+     * @throws java.io.EOFException if the stream ends part way through the record
+     * @throws IOException if reading fails or the record is malformed
+     */
+    public void readRecord(BinaryReader reader, DataStore target) throws IOException {
+        int type = reader.readByte();
+        switch (type) {
+            case FILM: {
+                Film film = new Film(reader.readString());
+                register(film);
+                target.saveFilm(film);
+                break;
+            }
+            case DVD_COPY: {
+                Film film = lookup(films, reader.readVarInt(), "film");
+                DVD dvd = new DVD(reader.readString(), film);
+                film.addDvdCopy(dvd);
+                register(dvd);
+                target.saveDVD(dvd);
+                break;
+            }
+            case MEMBER: {
+                Member member = new Member(reader.readString(), reader.readString());
+                register(member);
+                target.saveMember(member);
+                break;
+            }
+            case MEMBER_RENAMED: {
+                Member member = lookup(members, reader.readVarInt(), "member");
+                member.setName(reader.readString());
+                target.saveMember(member);
+                break;
+            }
+            case LOAN: {
+                DVD dvd = lookup(dvds, reader.readVarInt(), "DVD");
+                Member member = lookup(members, reader.readVarInt(), "member");
+                Loan loan = new Loan(dvd, member, reader.readDate());
+                LocalDate returnDate = reader.readNullableDate();
+                if (returnDate != null) {
+                    loan.returnDVD(returnDate);
+                } else {
+                    dvd.borrowedBy(member);
+                    member.addLoan(loan);
+                }
+                register(loan);
+                target.saveLoan(loan);
+                break;
+            }
+            case LOAN_UPDATED: {
+                Loan loan = lookup(loans, reader.readVarInt(), "loan");
+                LocalDate returnDate = reader.readNullableDate();
+                if (returnDate != null && loan.tryReturn(returnDate)) {
+                    loan.getMember().removeLoan(loan);
+                    if (loan.getDvd().getBorrower() == loan.getMember()) {
+                        loan.getDvd().tryReturn();
+                    }
+                }
+                target.updateLoan(loan);
+                break;
+            }
+            default:
+                throw new IOException("Unknown record type " + type + " at byte " + (reader.getPosition() - 1));
+        }
+        commit();
+    }
+    
+    private void register(Film film) {
+        filmRefs.put(film.getTitle(), films.size());
+        films.add(film);
+    }
+    
+    private void register(DVD dvd) {
+        dvdRefs.put(dvd.getDvdId(), dvds.size());
+        dvds.add(dvd);
+    }
+    
+    private void register(Member member) {
+        memberRefs.put(member.getMembershipNumber(), members.size());
+        members.add(member);
+    }
+    
+    private void register(Loan loan) {
+        loanRefs.put(loan, loans.size());
+        loans.add(loan);
+    }
+    
+    private static <T> T lookup(List<T> table, int ref, String kind) throws IOException {
+        if (ref >= table.size()) {
+            throw new IOException("Reference to unknown " + kind + " #" + ref);
+        }
+        return table.get(ref);
+    }
+}
@@ -0,0 +1,187 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe Bloom filter over string keys.
+ * mightContain never returns false for a key that was added, and returns
+ * true for a key that was not added with roughly the configured
+ * false-positive probability, as long as no more than the expected number
+ * of keys are added.
+ */
+public class BloomFilter {
+    
+    private static final int FORMAT_MAGIC = 0x424C4F4D; // "BLOM"
+    
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final LongAdder insertions = new LongAdder();
+    
+    /**
+     * Creates a filter sized for a number of keys and a false-positive rate.
+     * Ten million keys at 1% take about 12MB.
+     * 
+     * @param expectedKeys The number of keys the filter should hold
+     * @param falsePositiveRate The acceptable false-positive probability, e.g. 0.01
+     */
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        if (expectedKeys <= 0) {
+            throw new IllegalArgumentException("Expected keys must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        long bits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long wordCount = (Math.max(bits, 64) + 63) / 64;
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large");
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bitCount = wordCount * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+    }
+    
+    private BloomFilter(AtomicLongArray words, int hashFunctions, long insertions) {
+        this.words = words;
+        this.bitCount = (long) words.length() * 64;
+        this.hashFunctions = hashFunctions;
+        this.insertions.add(insertions);
+    }
+    
+    /**
+     * Adds a key to the filter.
+     * 
+     * @param key The key to add
+     */
+    public void put(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            setBit(bit);
+        }
+        insertions.increment();
+    }
+    
+    /**
+     * Checks whether a key may have been added.
+     * 
+     * @param key The key to check
+     * @return false if the key was definitely never added, true if it probably was
+     */
+    public boolean mightContain(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Gets the number of keys added, counting repeats.
+     * 
+     * @return The insertion count
+     */
+    public long getInsertions() {
+        return insertions.sum();
+    }
+    
+    /**
+     * Gets the size of the filter.
+     * 
+     * @return The number of bits
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+    
+    /**
+     * Estimates the current false-positive probability from the number of keys added.
+     * 
+     * @return The expected false-positive rate
+     */
+    public double getExpectedFalsePositiveRate() {
+        double fill = 1 - Math.exp(-(double) hashFunctions * insertions.sum() / bitCount);
+        return Math.pow(fill, hashFunctions);
+    }
+    
+    /**
+     * Writes the filter to a stream.
+     * 
+     * @param out The stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_MAGIC);
+        out.writeInt(hashFunctions);
+        out.writeLong(insertions.sum());
+        out.writeInt(words.length());
+        for (int i = 0; i < words.length(); i++) {
+            out.writeLong(words.get(i));
+        }
+    }
+    
+    /**
+     * Reads a filter written by writeTo.
+     * 
+     * @param in The stream to read from
+     * @return The filter
+     * @throws IOException if the stream cannot be read or is not a Bloom filter
+     */
+    public static BloomFilter readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_MAGIC) {
+            throw new IOException("Not a Bloom filter");
+        }
+        int hashFunctions = in.readInt();
+        long insertions = in.readLong();
+        int wordCount = in.readInt();
+        if (hashFunctions <= 0 || wordCount <= 0) {
+            throw new IOException("Corrupt Bloom filter header");
+        }
+        AtomicLongArray words = new AtomicLongArray(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            words.set(i, in.readLong());
+        }
+        return new BloomFilter(words, hashFunctions, insertions);
+    }
+    
+    private void setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) != 0) {
+                return;
+            }
+        } while (!words.compareAndSet(index, word, word | mask));
+    }
+    
+    /**
+     * 64-bit FNV-1a over the key's characters, finished with the MurmurHash3 mixer.
+     */
+    private static long hash64(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
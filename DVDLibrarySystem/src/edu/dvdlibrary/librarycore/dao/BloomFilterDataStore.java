@@ -0,0 +1,233 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataStore decorator that answers lookups for ids that were never saved
+ * without asking the backing store. A Bloom filter per key space (film
+ * titles, DVD ids, membership numbers) is updated by every save; when a
+ * filter says a key is definitely absent, the lookup returns null straight
+ * away. This makes the duplicate checks in bulk onboarding, which almost
+ * always miss, nearly free against a slow store.
+ * 
+ * The filters can be kept in a file next to the store. open() loads and
+ * then deletes the file, and close() writes it back, so the file only
+ * exists after a clean shutdown; after a crash the filters are rebuilt from
+ * the store rather than trusted while possibly missing recent saves.
+ */
+public class BloomFilterDataStore implements DataStore, AutoCloseable {
+    
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    
+    private final DataStore delegate;
+    private final BloomFilter filmTitles;
+    private final BloomFilter dvdIds;
+    private final BloomFilter membershipNumbers;
+    private final Path filterFile;
+    private final LongAdder skippedLookups = new LongAdder();
+    
+    /**
+     * Creates a filtering store, building the filters from the store's current contents.
+     * 
+     * @param delegate The backing store
+     * @param expectedKeys The number of keys each filter should be sized for
+     */
+    public BloomFilterDataStore(DataStore delegate, long expectedKeys) {
+        this(delegate, buildFilters(delegate, expectedKeys), null);
+    }
+    
+    private BloomFilterDataStore(DataStore delegate, BloomFilter[] filters, Path filterFile) {
+        this.delegate = delegate;
+        this.filmTitles = filters[0];
+        this.dvdIds = filters[1];
+        this.membershipNumbers = filters[2];
+        this.filterFile = filterFile;
+    }
+    
+    /**
+     * Creates a filtering store whose filters are persisted in a file.
+     * If the file was left by a clean close() it is loaded, otherwise the
+     * filters are rebuilt from the store.
+     * 
+     * @param delegate The backing store
+     * @param filterFile The file to load the filters from and save them to on close
+     * @param expectedKeys The number of keys each filter should be sized for when rebuilding
+     * @return The filtering store
+     * @throws IOException if an existing filter file cannot be read or removed
+     */
+    public static BloomFilterDataStore open(DataStore delegate, Path filterFile, long expectedKeys) throws IOException {
+        BloomFilter[] filters;
+        if (Files.exists(filterFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(filterFile)))) {
+                filters = new BloomFilter[]{
+                    BloomFilter.readFrom(in),
+                    BloomFilter.readFrom(in),
+                    BloomFilter.readFrom(in)
+                };
+            }
+            // Until close() writes it back, the file would not reflect new saves
+            Files.delete(filterFile);
+        } else {
+            filters = buildFilters(delegate, expectedKeys);
+        }
+        return new BloomFilterDataStore(delegate, filters, filterFile);
+    }
+    
+    /**
+     * Writes the filters to the filter file, if this store was opened with one.
+     * 
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (filterFile == null) {
+            return;
+        }
+        Path temp = filterFile.resolveSibling(filterFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            filmTitles.writeTo(out);
+            dvdIds.writeTo(out);
+            membershipNumbers.writeTo(out);
+        }
+        Files.move(temp, filterFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Gets the number of lookups answered without asking the backing store.
+     * 
+     * @return The number of skipped lookups
+     */
+    public long getSkippedLookups() {
+        return skippedLookups.sum();
+    }
+    
+    @Override
+    public void saveFilm(Film film) {
+        delegate.saveFilm(film);
+        filmTitles.put(film.getTitle());
+    }
+    
+    @Override
+    public Film findFilmByTitle(String title) {
+        if (!filmTitles.mightContain(title)) {
+            skippedLookups.increment();
+            return null;
+        }
+        return delegate.findFilmByTitle(title);
+    }
+    
+    @Override
+    public List<Film> getAllFilms() {
+        return delegate.getAllFilms();
+    }
+    
+    @Override
+    public List<Film> searchFilmsByTitle(String searchTerm) {
+        return delegate.searchFilmsByTitle(searchTerm);
+    }
+    
+    @Override
+    public void saveDVD(DVD dvd) {
+        delegate.saveDVD(dvd);
+        dvdIds.put(dvd.getDvdId());
+    }
+    
+    @Override
+    public DVD findDVDById(String dvdId) {
+        if (!dvdIds.mightContain(dvdId)) {
+            skippedLookups.increment();
+            return null;
+        }
+        return delegate.findDVDById(dvdId);
+    }
+    
+    @Override
+    public List<DVD> getAllDVDs() {
+        return delegate.getAllDVDs();
+    }
+    
+    @Override
+    public void saveMember(Member member) {
+        delegate.saveMember(member);
+        membershipNumbers.put(member.getMembershipNumber());
+    }
+    
+    @Override
+    public Member findMemberByNumber(String membershipNumber) {
+        if (!membershipNumbers.mightContain(membershipNumber)) {
+            skippedLookups.increment();
+            return null;
+        }
+        return delegate.findMemberByNumber(membershipNumber);
+    }
+    
+    @Override
+    public List<Member> getAllMembers() {
+        return delegate.getAllMembers();
+    }
+    
+    @Override
+    public void saveLoan(Loan loan) {
+        delegate.saveLoan(loan);
+    }
+    
+    @Override
+    public void updateLoan(Loan loan) {
+        delegate.updateLoan(loan);
+    }
+    
+    @Override
+    public Loan findActiveLoanByDVD(DVD dvd) {
+        return delegate.findActiveLoanByDVD(dvd);
+    }
+    
+    @Override
+    public List<Loan> getAllLoans() {
+        return delegate.getAllLoans();
+    }
+    
+    @Override
+    public List<Loan> getActiveLoans() {
+        return delegate.getActiveLoans();
+    }
+    
+    @Override
+    public List<String> getBranches() {
+        return delegate.getBranches();
+    }
+    
+    @Override
+    public String branchOf(String id) {
+        return delegate.branchOf(id);
+    }
+    
+    private static BloomFilter[] buildFilters(DataStore store, long expectedKeys) {
+        BloomFilter films = new BloomFilter(expectedKeys, FALSE_POSITIVE_RATE);
+        for (Film film : store.getAllFilms()) {
+            films.put(film.getTitle());
+        }
+        BloomFilter dvds = new BloomFilter(expectedKeys, FALSE_POSITIVE_RATE);
+        for (DVD dvd : store.getAllDVDs()) {
+            dvds.put(dvd.getDvdId());
+        }
+        BloomFilter members = new BloomFilter(expectedKeys, FALSE_POSITIVE_RATE);
+        for (Member member : store.getAllMembers()) {
+            members.put(member.getMembershipNumber());
+        }
+        return new BloomFilter[]{films, dvds, members};
+    }
+}
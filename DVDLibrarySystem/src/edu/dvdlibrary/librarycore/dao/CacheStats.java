@@ -0,0 +1,78 @@
+package edu.dvdlibrary.librarycore.dao;
+
+/**
+ * Immutable counters for a lookup cache.
+ */
+public class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+    
+    /**
+     * Creates a new set of cache statistics.
+     * 
+     * @param hitCount The number of lookups answered from the cache
+     * @param missCount The number of lookups passed to the backing store
+     * @param evictionCount The number of entries evicted to stay within the size limit
+     * @param size The number of entries currently cached
+     */
+    public CacheStats(long hitCount, long missCount, long evictionCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+    
+    /**
+     * Gets the number of lookups answered from the cache.
+     * 
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+    
+    /**
+     * Gets the number of lookups passed to the backing store.
+     * 
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+    
+    /**
+     * Gets the number of entries evicted to stay within the size limit.
+     * 
+     * @return The eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    /**
+     * Gets the number of entries currently cached.
+     * 
+     * @return The cache size
+     */
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Gets the fraction of lookups answered from the cache.
+     * 
+     * @return The hit rate between 0 and 1, or 0 if there have been no lookups
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, evictions=%d, size=%d, hitRate=%.1f%%",
+                hitCount, missCount, evictionCount, size, getHitRate() * 100);
+    }
+}
@@ -0,0 +1,171 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.util.List;
+
+/**
+ * DataStore decorator that caches film, DVD and member lookups from a slow
+ * backing store. Lookups read through a size-bounded segmented LRU cache;
+ * every write goes straight to the backing store and invalidates the cached
+ * entries it affects. Saving or updating a loan invalidates its DVD and
+ * member, whose loan state the backing store has just changed.
+ */
+public class CachingDataStore implements DataStore {
+    
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final int STRIPES = 16;
+    
+    private final DataStore delegate;
+    private final LookupCache<String, Film> films;
+    private final LookupCache<String, DVD> dvds;
+    private final LookupCache<String, Member> members;
+    
+    /**
+     * Creates a caching store holding up to 10,000 films, DVDs and members each.
+     * 
+     * @param delegate The backing store
+     */
+    public CachingDataStore(DataStore delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES);
+    }
+    
+    /**
+     * Creates a caching store.
+     * 
+     * @param delegate The backing store
+     * @param maxEntries The maximum number of films, DVDs and members to cache (each)
+     */
+    public CachingDataStore(DataStore delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.films = new LookupCache<>(maxEntries, STRIPES);
+        this.dvds = new LookupCache<>(maxEntries, STRIPES);
+        this.members = new LookupCache<>(maxEntries, STRIPES);
+    }
+    
+    @Override
+    public void saveFilm(Film film) {
+        delegate.saveFilm(film);
+        films.invalidate(film.getTitle());
+    }
+    
+    @Override
+    public Film findFilmByTitle(String title) {
+        return films.get(title, delegate::findFilmByTitle);
+    }
+    
+    @Override
+    public List<Film> getAllFilms() {
+        return delegate.getAllFilms();
+    }
+    
+    @Override
+    public List<Film> searchFilmsByTitle(String searchTerm) {
+        return delegate.searchFilmsByTitle(searchTerm);
+    }
+    
+    @Override
+    public void saveDVD(DVD dvd) {
+        delegate.saveDVD(dvd);
+        dvds.invalidate(dvd.getDvdId());
+        films.invalidate(dvd.getFilm().getTitle());
+    }
+    
+    @Override
+    public DVD findDVDById(String dvdId) {
+        return dvds.get(dvdId, delegate::findDVDById);
+    }
+    
+    @Override
+    public List<DVD> getAllDVDs() {
+        return delegate.getAllDVDs();
+    }
+    
+    @Override
+    public void saveMember(Member member) {
+        delegate.saveMember(member);
+        members.invalidate(member.getMembershipNumber());
+    }
+    
+    @Override
+    public Member findMemberByNumber(String membershipNumber) {
+        return members.get(membershipNumber, delegate::findMemberByNumber);
+    }
+    
+    @Override
+    public List<Member> getAllMembers() {
+        return delegate.getAllMembers();
+    }
+    
+    @Override
+    public void saveLoan(Loan loan) {
+        delegate.saveLoan(loan);
+        invalidateLoanParties(loan);
+    }
+    
+    @Override
+    public void updateLoan(Loan loan) {
+        delegate.updateLoan(loan);
+        invalidateLoanParties(loan);
+    }
+    
+    @Override
+    public Loan findActiveLoanByDVD(DVD dvd) {
+        return delegate.findActiveLoanByDVD(dvd);
+    }
+    
+    @Override
+    public List<Loan> getAllLoans() {
+        return delegate.getAllLoans();
+    }
+    
+    @Override
+    public List<Loan> getActiveLoans() {
+        return delegate.getActiveLoans();
+    }
+    
+    @Override
+    public List<String> getBranches() {
+        return delegate.getBranches();
+    }
+    
+    @Override
+    public String branchOf(String id) {
+        return delegate.branchOf(id);
+    }
+    
+    /**
+     * Gets the film lookup cache counters.
+     * 
+     * @return The film cache statistics
+     */
+    public CacheStats getFilmCacheStats() {
+        return films.stats();
+    }
+    
+    /**
+     * Gets the DVD lookup cache counters.
+     * 
+     * @return The DVD cache statistics
+     */
+    public CacheStats getDVDCacheStats() {
+        return dvds.stats();
+    }
+    
+    /**
+     * Gets the member lookup cache counters.
+     * 
+     * @return The member cache statistics
+     */
+    public CacheStats getMemberCacheStats() {
+        return members.stats();
+    }
+    
+    private void invalidateLoanParties(Loan loan) {
+        dvds.invalidate(loan.getDvd().getDvdId());
+        members.invalidate(loan.getMember().getMembershipNumber());
+    }
+}
@@ -0,0 +1,132 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A small fixed-size pool of JDBC connections. Connections are opened on
+ * demand up to the pool size and then reused; a caller that finds every
+ * connection in use waits for one to be released. Each connection in use
+ * holds one of the pool's permits, so a connection that is closed rather
+ * than reused frees its place for a waiting caller to open a new one.
+ */
+class ConnectionPool implements AutoCloseable {
+    
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+    
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Queue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private final Semaphore permits;
+    private volatile boolean closed;
+    
+    /**
+     * Creates an empty pool.
+     * 
+     * @param url The JDBC URL to connect to
+     * @param user The database user, or null to connect without credentials
+     * @param password The database password
+     * @param maxSize The maximum number of open connections
+     */
+    ConnectionPool(String url, String user, String password, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.permits = new Semaphore(maxSize, true);
+    }
+    
+    /**
+     * Takes a connection from the pool, opening a new one if no idle connection is left.
+     * The connection has auto-commit switched off.
+     * 
+     * @return A connection to hand back with release()
+     * @throws SQLException if a connection cannot be opened or none is released in time
+     */
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("No connection became free within " + BORROW_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a connection", e);
+        }
+        try {
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            Connection connection = idle.poll();
+            if (connection == null) {
+                connection = user == null
+                        ? DriverManager.getConnection(url)
+                        : DriverManager.getConnection(url, user, password);
+                connection.setAutoCommit(false);
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Hands a connection back to the pool. Any open transaction is rolled back.
+     * A connection that has failed is closed instead of being reused.
+     * 
+     * @param connection The connection taken with borrow()
+     * @param failed true if an error occurred while it was in use
+     */
+    void release(Connection connection, boolean failed) {
+        boolean reusable = !closed;
+        try {
+            connection.rollback();
+            if (failed) {
+                reusable &= connection.isValid(1);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        if (reusable) {
+            idle.offer(connection);
+        } else {
+            discard(connection);
+        }
+        permits.release();
+        // The pool may have closed after the connection went back to idle
+        if (closed && idle.remove(connection)) {
+            discard(connection);
+        }
+    }
+    
+    /**
+     * Closes all idle connections. Connections still in use are closed when released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+    
+    private static void discard(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Nothing more can be done with a connection that will not close
+        }
+    }
+}
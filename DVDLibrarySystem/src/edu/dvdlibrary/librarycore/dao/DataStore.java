@@ -5,7 +5,9 @@ import edu.dvdlibrary.librarycore.model.Film;
 import edu.dvdlibrary.librarycore.model.Loan;
 import edu.dvdlibrary.librarycore.model.Member;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Interface for the data store that persists the DVD library system data.
@@ -36,6 +38,20 @@ public interface DataStore {
      */
     List<Film> getAllFilms();
     
+    /**
+     * Finds films whose title contains a search term, ignoring case, accents
+     * and punctuation. Implementations that can search more efficiently than
+     * a full scan, or in parallel, should override this.
+     * 
+     * @param searchTerm The term to look for, already normalized with TitleNormalizer
+     * @return List of matching films
+     */
+    default List<Film> searchFilmsByTitle(String searchTerm) {
+        return getAllFilms().stream()
+                .filter(film -> film.getSearchKey().contains(searchTerm))
+                .collect(Collectors.toList());
+    }
+    
     /**
      * Saves a DVD to the data store.
      * 
@@ -108,4 +124,37 @@ public interface DataStore {
      * @return List of all loans
      */
     List<Loan> getAllLoans();
+    
+    /**
+     * Gets all loans that have not been returned.
+     * Implementations that track active loans separately should override this.
+     * 
+     * @return List of active loans
+     */
+    default List<Loan> getActiveLoans() {
+        return getAllLoans().stream()
+                .filter(loan -> !loan.isReturned())
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Gets the branches the store divides the library between. Stores that
+     * wrap another store should pass this through.
+     * 
+     * @return List of branch codes, empty if the store does not divide the library by branch
+     */
+    default List<String> getBranches() {
+        return Collections.emptyList();
+    }
+    
+    /**
+     * Gets the branch a DVD id or membership number belongs to. Stores that
+     * wrap another store should pass this through.
+     * 
+     * @param id A DVD id or membership number
+     * @return The branch code, or null if the store does not divide the library by branch
+     */
+    default String branchOf(String id) {
+        return null;
+    }
 }
@@ -0,0 +1,266 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.codec.BinaryReader;
+import edu.dvdlibrary.librarycore.codec.BinaryWriter;
+import edu.dvdlibrary.librarycore.codec.LibraryCodec;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * DataStore implementation that keeps the library in memory and logs every
+ * save to a file in the LibraryCodec binary format, so the library survives
+ * a restart. Opening the store replays the file; a record cut short by a
+ * crash part way through writing it is dropped and the file truncated to
+ * the last complete record. Updates append to the file rather than rewrite
+ * it, so compact() should be called now and then to replace the history
+ * with just the current state.
+ */
+public class FileDataStore implements DataStore, AutoCloseable {
+    
+    private final Path file;
+    private final InMemoryDataStore records;
+    private FileChannel channel;
+    private BinaryWriter writer;
+    private LibraryCodec codec;
+    
+    /**
+     * Opens a store, creating the file if it does not exist.
+     * 
+     * @param file The file to keep the library in
+     * @throws IOException if the file cannot be opened or is not a library data file
+     */
+    public FileDataStore(Path file) throws IOException {
+        this.file = file;
+        this.records = new InMemoryDataStore();
+        this.codec = new LibraryCodec();
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                this.writer = new BinaryWriter(channel);
+                LibraryCodec.writeHeader(writer);
+                writer.flush();
+            } else {
+                replay();
+                this.writer = new BinaryWriter(channel);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private void replay() throws IOException {
+        BinaryReader reader = new BinaryReader(channel);
+        LibraryCodec.readHeader(reader);
+        long complete = reader.getPosition();
+        try {
+            while (reader.hasRemaining()) {
+                codec.readRecord(reader, records);
+                complete = reader.getPosition();
+            }
+        } catch (EOFException e) {
+            System.err.println("Dropping incomplete record at the end of " + file);
+            channel.truncate(complete);
+        }
+        channel.position(complete);
+    }
+    
+    /**
+     * Rewrites the file so that it holds only the current films, DVDs, members and loans.
+     * The new file replaces the old one only once it is complete; if it
+     * cannot be written or moved into place, the store carries on appending
+     * to the old file.
+     * 
+     * @throws IOException if the new file cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        LibraryCodec fresh = new LibraryCodec();
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                BinaryWriter compacted = new BinaryWriter(out);
+                LibraryCodec.writeHeader(compacted);
+                for (Film film : records.getAllFilms()) {
+                    fresh.writeFilm(compacted, film);
+                }
+                for (DVD dvd : records.getAllDVDs()) {
+                    fresh.writeDVD(compacted, dvd);
+                }
+                for (Member member : records.getAllMembers()) {
+                    fresh.writeMember(compacted, member);
+                }
+                for (Loan loan : records.getAllLoans()) {
+                    fresh.writeLoan(compacted, loan);
+                }
+                compacted.flush();
+                out.force(true);
+            }
+            fresh.commit();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        
+        FileChannel replaced = channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } finally {
+            // If the new file cannot be opened, later saves fail on the closed channel
+            // rather than go to the file that was replaced
+            replaced.close();
+        }
+        writer = new BinaryWriter(channel);
+        codec = fresh;
+    }
+    
+    /**
+     * Forces everything written so far to disk and closes the file.
+     * 
+     * @throws IOException if the file cannot be synced or closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+    
+    @Override
+    public synchronized void saveFilm(Film film) {
+        append(() -> codec.writeFilm(writer, film));
+        records.saveFilm(film);
+    }
+    
+    @Override
+    public synchronized Film findFilmByTitle(String title) {
+        return records.findFilmByTitle(title);
+    }
+    
+    @Override
+    public synchronized List<Film> getAllFilms() {
+        return records.getAllFilms();
+    }
+    
+    @Override
+    public synchronized List<Film> searchFilmsByTitle(String searchTerm) {
+        return records.searchFilmsByTitle(searchTerm);
+    }
+    
+    @Override
+    public synchronized void saveDVD(DVD dvd) {
+        append(() -> codec.writeDVD(writer, dvd));
+        records.saveDVD(dvd);
+    }
+    
+    @Override
+    public synchronized DVD findDVDById(String dvdId) {
+        return records.findDVDById(dvdId);
+    }
+    
+    @Override
+    public synchronized List<DVD> getAllDVDs() {
+        return records.getAllDVDs();
+    }
+    
+    @Override
+    public synchronized void saveMember(Member member) {
+        append(() -> codec.writeMember(writer, member));
+        records.saveMember(member);
+    }
+    
+    @Override
+    public synchronized Member findMemberByNumber(String membershipNumber) {
+        return records.findMemberByNumber(membershipNumber);
+    }
+    
+    @Override
+    public synchronized List<Member> getAllMembers() {
+        return records.getAllMembers();
+    }
+    
+    @Override
+    public synchronized void saveLoan(Loan loan) {
+        append(() -> codec.writeLoan(writer, loan));
+        records.saveLoan(loan);
+    }
+    
+    @Override
+    public synchronized void updateLoan(Loan loan) {
+        append(() -> codec.writeLoan(writer, loan));
+        records.updateLoan(loan);
+    }
+    
+    @Override
+    public synchronized Loan findActiveLoanByDVD(DVD dvd) {
+        return records.findActiveLoanByDVD(dvd);
+    }
+    
+    @Override
+    public synchronized List<Loan> getAllLoans() {
+        return records.getAllLoans();
+    }
+    
+    @Override
+    public synchronized List<Loan> getActiveLoans() {
+        return records.getActiveLoans();
+    }
+    
+    /**
+     * Writes one record and flushes it. If that fails, anything written of
+     * the record is cut off the end of the file and the codec forgets the
+     * records it numbered, so the file and the codec still agree.
+     */
+    private void append(RecordWrite write) {
+        long start = -1;
+        try {
+            start = channel.position();
+            write.run();
+            writer.flush();
+            codec.commit();
+        } catch (IOException e) {
+            undo(start);
+            throw new UncheckedIOException("Could not write to " + file, e);
+        } catch (RuntimeException e) {
+            undo(start);
+            throw e;
+        }
+    }
+    
+    private void undo(long start) {
+        writer.discard();
+        codec.rollback();
+        if (start < 0) {
+            return;
+        }
+        try {
+            channel.truncate(start);
+            channel.position(start);
+        } catch (IOException e) {
+            // Opening the file again drops an incomplete record at the end
+        }
+    }
+    
+    /**
+     * Encodes one record into the writer.
+     */
+    private interface RecordWrite {
+        void run() throws IOException;
+    }
+}
@@ -7,12 +7,14 @@ import edu.dvdlibrary.librarycore.model.Member;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * In-memory implementation of the DataStore interface.
- * Stores all data in memory using collections.
+ * Stores all data in memory using collections. Methods are synchronized so
+ * that several desks (or the maintenance scheduler) can use it at once.
  */
 public class InMemoryDataStore implements DataStore {
     
@@ -20,79 +22,106 @@ public class InMemoryDataStore implements DataStore {
     private final Map<String, DVD> dvds = new HashMap<>();
     private final Map<String, Member> members = new HashMap<>();
     private final List<Loan> loans = new ArrayList<>();
+    // Unreturned loans by DVD ID, in the order they were made, so returns need not scan every past loan
+    private final Map<String, Loan> activeLoans = new LinkedHashMap<>();
     
     @Override
-    public void saveFilm(Film film) {
+    public synchronized void saveFilm(Film film) {
         films.put(film.getTitle(), film);
     }
     
     @Override
-    public Film findFilmByTitle(String title) {
+    public synchronized Film findFilmByTitle(String title) {
         return films.get(title);
     }
     
     @Override
-    public List<Film> getAllFilms() {
+    public synchronized List<Film> getAllFilms() {
         return new ArrayList<>(films.values());
     }
     
     @Override
-    public void saveDVD(DVD dvd) {
+    public synchronized List<Film> searchFilmsByTitle(String searchTerm) {
+        // Compares against each film's precomputed key, so only the result list is allocated
+        List<Film> matches = new ArrayList<>();
+        for (Film film : films.values()) {
+            if (film.getSearchKey().contains(searchTerm)) {
+                matches.add(film);
+            }
+        }
+        return matches;
+    }
+    
+    @Override
+    public synchronized void saveDVD(DVD dvd) {
         dvds.put(dvd.getDvdId(), dvd);
     }
     
     @Override
-    public DVD findDVDById(String dvdId) {
+    public synchronized DVD findDVDById(String dvdId) {
         return dvds.get(dvdId);
     }
     
     @Override
-    public List<DVD> getAllDVDs() {
+    public synchronized List<DVD> getAllDVDs() {
         return new ArrayList<>(dvds.values());
     }
     
     @Override
-    public void saveMember(Member member) {
+    public synchronized void saveMember(Member member) {
         members.put(member.getMembershipNumber(), member);
     }
     
     @Override
-    public Member findMemberByNumber(String membershipNumber) {
+    public synchronized Member findMemberByNumber(String membershipNumber) {
         return members.get(membershipNumber);
     }
     
     @Override
-    public List<Member> getAllMembers() {
+    public synchronized List<Member> getAllMembers() {
         return new ArrayList<>(members.values());
     }
     
     @Override
-    public void saveLoan(Loan loan) {
+    public synchronized void saveLoan(Loan loan) {
         loans.add(loan);
+        if (!loan.isReturned()) {
+            activeLoans.put(loan.getDvd().getDvdId(), loan);
+        }
     }
     
     @Override
-    public void updateLoan(Loan loan) {
+    public synchronized void updateLoan(Loan loan) {
         // Since we're using the same Loan objects,
         // updates automatically persist in the in-memory list.
         // In a real database implementation, this would update the record.
+        if (loan.isReturned()) {
+            activeLoans.remove(loan.getDvd().getDvdId(), loan);
+        }
     }
     
     @Override
-    public Loan findActiveLoanByDVD(DVD dvd) {
-        for (Loan loan : loans) {
-            if (loan.getDvd().equals(dvd) && !loan.isReturned()) {
-                return loan;
-            }
-        }
-        return null;
+    public synchronized Loan findActiveLoanByDVD(DVD dvd) {
+        Loan loan = activeLoans.get(dvd.getDvdId());
+        return loan != null && !loan.isReturned() ? loan : null;
     }
     
     @Override
-    public List<Loan> getAllLoans() {
+    public synchronized List<Loan> getAllLoans() {
         return new ArrayList<>(loans);
     }
     
+    @Override
+    public synchronized List<Loan> getActiveLoans() {
+        List<Loan> active = new ArrayList<>(activeLoans.size());
+        for (Loan loan : activeLoans.values()) {
+            if (!loan.isReturned()) {
+                active.add(loan);
+            }
+        }
+        return active;
+    }
+    
     /**
      * Initializes the data store with some sample data for testing.
      * This is not part of the DataStore interface.
@@ -0,0 +1,267 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.metrics.MetricsRegistry;
+import edu.dvdlibrary.librarycore.metrics.OperationTimer;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.util.List;
+
+/**
+ * DataStore decorator that times every call to the backing store, under
+ * the name "store." followed by the method name, so slow storage can be
+ * told apart from slow service logic.
+ */
+public class InstrumentedDataStore implements DataStore {
+    
+    private static final String PREFIX = "store.";
+    
+    private final DataStore delegate;
+    private final OperationTimer saveFilmTimer;
+    private final OperationTimer findFilmByTitleTimer;
+    private final OperationTimer getAllFilmsTimer;
+    private final OperationTimer searchFilmsByTitleTimer;
+    private final OperationTimer saveDVDTimer;
+    private final OperationTimer findDVDByIdTimer;
+    private final OperationTimer getAllDVDsTimer;
+    private final OperationTimer saveMemberTimer;
+    private final OperationTimer findMemberByNumberTimer;
+    private final OperationTimer getAllMembersTimer;
+    private final OperationTimer saveLoanTimer;
+    private final OperationTimer updateLoanTimer;
+    private final OperationTimer findActiveLoanByDVDTimer;
+    private final OperationTimer getAllLoansTimer;
+    private final OperationTimer getActiveLoansTimer;
+    
+    /**
+     * Creates an instrumented store.
+     * 
+     * @param delegate The store to time
+     * @param metrics The registry to record timings in
+     */
+    public InstrumentedDataStore(DataStore delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.saveFilmTimer = metrics.timer(PREFIX + "saveFilm");
+        this.findFilmByTitleTimer = metrics.timer(PREFIX + "findFilmByTitle");
+        this.getAllFilmsTimer = metrics.timer(PREFIX + "getAllFilms");
+        this.searchFilmsByTitleTimer = metrics.timer(PREFIX + "searchFilmsByTitle");
+        this.saveDVDTimer = metrics.timer(PREFIX + "saveDVD");
+        this.findDVDByIdTimer = metrics.timer(PREFIX + "findDVDById");
+        this.getAllDVDsTimer = metrics.timer(PREFIX + "getAllDVDs");
+        this.saveMemberTimer = metrics.timer(PREFIX + "saveMember");
+        this.findMemberByNumberTimer = metrics.timer(PREFIX + "findMemberByNumber");
+        this.getAllMembersTimer = metrics.timer(PREFIX + "getAllMembers");
+        this.saveLoanTimer = metrics.timer(PREFIX + "saveLoan");
+        this.updateLoanTimer = metrics.timer(PREFIX + "updateLoan");
+        this.findActiveLoanByDVDTimer = metrics.timer(PREFIX + "findActiveLoanByDVD");
+        this.getAllLoansTimer = metrics.timer(PREFIX + "getAllLoans");
+        this.getActiveLoansTimer = metrics.timer(PREFIX + "getActiveLoans");
+    }
+    
+    @Override
+    public void saveFilm(Film film) {
+        long start = System.nanoTime();
+        try {
+            delegate.saveFilm(film);
+        } catch (RuntimeException e) {
+            saveFilmTimer.failed();
+            throw e;
+        } finally {
+            saveFilmTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Film findFilmByTitle(String title) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findFilmByTitle(title);
+        } catch (RuntimeException e) {
+            findFilmByTitleTimer.failed();
+            throw e;
+        } finally {
+            findFilmByTitleTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Film> getAllFilms() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllFilms();
+        } catch (RuntimeException e) {
+            getAllFilmsTimer.failed();
+            throw e;
+        } finally {
+            getAllFilmsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Film> searchFilmsByTitle(String searchTerm) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchFilmsByTitle(searchTerm);
+        } catch (RuntimeException e) {
+            searchFilmsByTitleTimer.failed();
+            throw e;
+        } finally {
+            searchFilmsByTitleTimer.record(start);
+        }
+    }
+    
+    @Override
+    public void saveDVD(DVD dvd) {
+        long start = System.nanoTime();
+        try {
+            delegate.saveDVD(dvd);
+        } catch (RuntimeException e) {
+            saveDVDTimer.failed();
+            throw e;
+        } finally {
+            saveDVDTimer.record(start);
+        }
+    }
+    
+    @Override
+    public DVD findDVDById(String dvdId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findDVDById(dvdId);
+        } catch (RuntimeException e) {
+            findDVDByIdTimer.failed();
+            throw e;
+        } finally {
+            findDVDByIdTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<DVD> getAllDVDs() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllDVDs();
+        } catch (RuntimeException e) {
+            getAllDVDsTimer.failed();
+            throw e;
+        } finally {
+            getAllDVDsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public void saveMember(Member member) {
+        long start = System.nanoTime();
+        try {
+            delegate.saveMember(member);
+        } catch (RuntimeException e) {
+            saveMemberTimer.failed();
+            throw e;
+        } finally {
+            saveMemberTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Member findMemberByNumber(String membershipNumber) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findMemberByNumber(membershipNumber);
+        } catch (RuntimeException e) {
+            findMemberByNumberTimer.failed();
+            throw e;
+        } finally {
+            findMemberByNumberTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Member> getAllMembers() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllMembers();
+        } catch (RuntimeException e) {
+            getAllMembersTimer.failed();
+            throw e;
+        } finally {
+            getAllMembersTimer.record(start);
+        }
+    }
+    
+    @Override
+    public void saveLoan(Loan loan) {
+        long start = System.nanoTime();
+        try {
+            delegate.saveLoan(loan);
+        } catch (RuntimeException e) {
+            saveLoanTimer.failed();
+            throw e;
+        } finally {
+            saveLoanTimer.record(start);
+        }
+    }
+    
+    @Override
+    public void updateLoan(Loan loan) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateLoan(loan);
+        } catch (RuntimeException e) {
+            updateLoanTimer.failed();
+            throw e;
+        } finally {
+            updateLoanTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Loan findActiveLoanByDVD(DVD dvd) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findActiveLoanByDVD(dvd);
+        } catch (RuntimeException e) {
+            findActiveLoanByDVDTimer.failed();
+            throw e;
+        } finally {
+            findActiveLoanByDVDTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Loan> getAllLoans() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllLoans();
+        } catch (RuntimeException e) {
+            getAllLoansTimer.failed();
+            throw e;
+        } finally {
+            getAllLoansTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Loan> getActiveLoans() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getActiveLoans();
+        } catch (RuntimeException e) {
+            getActiveLoansTimer.failed();
+            throw e;
+        } finally {
+            getActiveLoansTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<String> getBranches() {
+        return delegate.getBranches();
+    }
+    
+    @Override
+    public String branchOf(String id) {
+        return delegate.branchOf(id);
+    }
+}
@@ -0,0 +1,1017 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.model.TitleNormalizer;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * DataStore implementation backed by a relational database over JDBC.
+ * 
+ * The rest of the system relies on there being one object per film, DVD,
+ * member and loan (a DVD's borrower, a film's copies and a member's current
+ * loans are shared object references), so this store keeps an identity map
+ * of every record it has loaded or saved. Records are read from the
+ * database the first time they are needed, together with the records they
+ * refer to, and are then served from the identity map; every save is
+ * written to the database before it returns. Saved records join the
+ * identity map before they are written, so a load running at the same time
+ * finds them rather than building a second object from the new rows, and
+ * leave it again if the write fails. The store assumes it is the only
+ * writer to its tables, apart from two of its own saves racing to insert
+ * the same row, which it resolves by updating instead.
+ * 
+ * Tables are created on first use with indexes for looking up films by
+ * title, DVDs by id and by film, members by number, and active loans by DVD
+ * and by member. Each film row also holds its normalized search key, which
+ * title searches match against; a films table from before the key existed
+ * has the column added and filled in when the store opens it. The getAll methods read through a forward-only cursor with
+ * a fetch size rather than loading the whole table into the driver first;
+ * the driver must allow further statements on a connection while a result
+ * set is open (H2, Derby, HSQLDB and PostgreSQL do).
+ */
+public class JdbcDataStore implements DataStore, AutoCloseable {
+    
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final int FETCH_SIZE = 500;
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ATTEMPTS = 5;
+    
+    private static final String[] SCHEMA = {
+        "CREATE TABLE films (title VARCHAR(255) NOT NULL PRIMARY KEY, search_key VARCHAR(512) NOT NULL)",
+        "CREATE TABLE dvds (dvd_id VARCHAR(64) NOT NULL PRIMARY KEY,"
+                + " film_title VARCHAR(255) NOT NULL REFERENCES films (title))",
+        "CREATE INDEX dvds_by_film ON dvds (film_title)",
+        "CREATE TABLE members (membership_number VARCHAR(64) NOT NULL PRIMARY KEY,"
+                + " name VARCHAR(255) NOT NULL)",
+        "CREATE TABLE loans (loan_id BIGINT NOT NULL PRIMARY KEY,"
+                + " dvd_id VARCHAR(64) NOT NULL REFERENCES dvds (dvd_id),"
+                + " membership_number VARCHAR(64) NOT NULL REFERENCES members (membership_number),"
+                + " borrow_date DATE NOT NULL, return_date DATE)",
+        "CREATE INDEX loans_by_dvd ON loans (dvd_id, return_date)",
+        "CREATE INDEX loans_by_member ON loans (membership_number, return_date)"
+    };
+    
+    private static final String UPDATE_FILM = "UPDATE films SET search_key = ? WHERE title = ?";
+    private static final String INSERT_FILM = "INSERT INTO films (search_key, title) VALUES (?, ?)";
+    private static final String ADD_SEARCH_KEY = "ALTER TABLE films ADD search_key VARCHAR(512)";
+    private static final String UPDATE_DVD = "UPDATE dvds SET film_title = ? WHERE dvd_id = ?";
+    private static final String INSERT_DVD = "INSERT INTO dvds (film_title, dvd_id) VALUES (?, ?)";
+    private static final String UPDATE_MEMBER = "UPDATE members SET name = ? WHERE membership_number = ?";
+    private static final String INSERT_MEMBER = "INSERT INTO members (name, membership_number) VALUES (?, ?)";
+    private static final String INSERT_LOAN = "INSERT INTO loans"
+            + " (loan_id, dvd_id, membership_number, borrow_date, return_date) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_LOAN = "UPDATE loans SET return_date = ? WHERE loan_id = ?";
+    
+    private static final String SELECT_FILM_WITH_COPIES = "SELECT f.title, d.dvd_id FROM films f"
+            + " LEFT JOIN dvds d ON d.film_title = f.title WHERE f.title = ? ORDER BY d.dvd_id";
+    private static final String SELECT_DVD_FILM = "SELECT film_title FROM dvds WHERE dvd_id = ?";
+    private static final String SELECT_MEMBER = "SELECT name FROM members WHERE membership_number = ?";
+    private static final String LOAN_COLUMNS =
+            "SELECT loan_id, dvd_id, membership_number, borrow_date, return_date FROM loans";
+    private static final String SELECT_ACTIVE_LOAN_FOR_DVD = LOAN_COLUMNS
+            + " WHERE dvd_id = ? AND return_date IS NULL";
+    private static final String SELECT_ACTIVE_LOANS_FOR_MEMBER = LOAN_COLUMNS
+            + " WHERE membership_number = ? AND return_date IS NULL";
+    private static final String SELECT_ALL_LOANS = LOAN_COLUMNS + " ORDER BY loan_id";
+    private static final String SELECT_ACTIVE_LOANS = LOAN_COLUMNS + " WHERE return_date IS NULL ORDER BY loan_id";
+    private static final String SELECT_ALL_FILMS = "SELECT title FROM films ORDER BY title";
+    private static final String SEARCH_FILMS = "SELECT title FROM films"
+            + " WHERE search_key LIKE ? ESCAPE '!' ORDER BY title";
+    private static final String SELECT_ALL_DVDS = "SELECT dvd_id FROM dvds ORDER BY dvd_id";
+    private static final String SELECT_ALL_MEMBERS = "SELECT membership_number FROM members ORDER BY membership_number";
+    private static final String SELECT_MAX_LOAN_ID = "SELECT MAX(loan_id) FROM loans";
+    
+    private final ConnectionPool pool;
+    private final Map<String, Film> films = new ConcurrentHashMap<>();
+    private final Map<String, DVD> dvds = new ConcurrentHashMap<>();
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private final Map<Long, Loan> loansById = new ConcurrentHashMap<>();
+    private final Map<Loan, Long> loanIds = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final AtomicLong nextLoanId;
+    private final SharedRecords shared;
+    
+    /**
+     * Creates a store for a database that needs no credentials, such as an embedded one.
+     * 
+     * @param url The JDBC URL of the database
+     */
+    public JdbcDataStore(String url) {
+        this(url, null, null, DEFAULT_POOL_SIZE);
+    }
+    
+    /**
+     * Creates a store for a database that needs no credentials, holding part
+     * of a library whose films and members are shared with other stores.
+     * 
+     * @param url The JDBC URL of the database
+     * @param shared The film and member objects shared with the other stores
+     */
+    public JdbcDataStore(String url, SharedRecords shared) {
+        this(url, null, null, DEFAULT_POOL_SIZE, shared);
+    }
+    
+    /**
+     * Creates a store, creating its tables if the database does not have them yet.
+     * 
+     * @param url The JDBC URL of the database
+     * @param user The database user, or null to connect without credentials
+     * @param password The database password
+     * @param poolSize The maximum number of connections to keep open
+     * @throws IllegalStateException if the database cannot be reached or set up
+     */
+    public JdbcDataStore(String url, String user, String password, int poolSize) {
+        this(url, user, password, poolSize, new SharedRecords());
+    }
+    
+    /**
+     * Creates a store holding part of a library whose films and members are
+     * shared with other stores, creating its tables if the database does not
+     * have them yet.
+     * 
+     * @param url The JDBC URL of the database
+     * @param user The database user, or null to connect without credentials
+     * @param password The database password
+     * @param poolSize The maximum number of connections to keep open
+     * @param shared The film and member objects shared with the other stores
+     * @throws IllegalStateException if the database cannot be reached or set up
+     */
+    public JdbcDataStore(String url, String user, String password, int poolSize, SharedRecords shared) {
+        this.shared = shared;
+        this.pool = new ConnectionPool(url, user, password, poolSize);
+        this.nextLoanId = new AtomicLong(inTransaction(connection -> {
+            createSchemaIfMissing(connection);
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(SELECT_MAX_LOAN_ID)) {
+                return rs.next() ? rs.getLong(1) + 1 : 1;
+            }
+        }));
+    }
+    
+    /**
+     * Closes the store's database connections.
+     */
+    @Override
+    public void close() {
+        pool.close();
+    }
+    
+    @Override
+    public void saveFilm(Film film) {
+        saveFilms(Collections.singletonList(film));
+    }
+    
+    /**
+     * Saves a number of films in one transaction using batched statements.
+     * 
+     * @param batch The films to save
+     */
+    public void saveFilms(Collection<Film> batch) {
+        for (Film film : batch) {
+            films.put(film.getTitle(), film);
+            shared.films.putIfAbsent(film.getTitle(), film);
+        }
+        try {
+            inTransaction(connection -> {
+                StatementBinder<Film> bind = (ps, film) -> {
+                    ps.setString(1, film.getSearchKey());
+                    ps.setString(2, film.getTitle());
+                };
+                upsert(connection, UPDATE_FILM, INSERT_FILM, batch, bind);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            for (Film film : batch) {
+                films.remove(film.getTitle(), film);
+            }
+            throw e;
+        }
+    }
+    
+    @Override
+    public Film findFilmByTitle(String title) {
+        Film film = films.get(title);
+        if (film != null) {
+            return film;
+        }
+        return inTransaction(connection -> {
+            LoadBatch batch = new LoadBatch();
+            batch.addFilm(title);
+            load(connection, batch);
+            return films.get(title);
+        });
+    }
+    
+    @Override
+    public List<Film> getAllFilms() {
+        return queryKeys(SELECT_ALL_FILMS, null, films, LoadBatch::addFilm);
+    }
+    
+    @Override
+    public List<Film> searchFilmsByTitle(String searchTerm) {
+        String pattern = "%" + searchTerm.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        return queryKeys(SEARCH_FILMS, pattern, films, LoadBatch::addFilm);
+    }
+    
+    @Override
+    public void saveDVD(DVD dvd) {
+        saveDVDs(Collections.singletonList(dvd));
+    }
+    
+    /**
+     * Saves a number of DVDs in one transaction using batched statements.
+     * Their films must already be saved.
+     * 
+     * @param batch The DVDs to save
+     */
+    public void saveDVDs(Collection<DVD> batch) {
+        for (DVD dvd : batch) {
+            dvds.put(dvd.getDvdId(), dvd);
+        }
+        try {
+            inTransaction(connection -> {
+                StatementBinder<DVD> bind = (ps, dvd) -> {
+                    ps.setString(1, dvd.getFilm().getTitle());
+                    ps.setString(2, dvd.getDvdId());
+                };
+                upsert(connection, UPDATE_DVD, INSERT_DVD, batch, bind);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            for (DVD dvd : batch) {
+                dvds.remove(dvd.getDvdId(), dvd);
+            }
+            throw e;
+        }
+    }
+    
+    @Override
+    public DVD findDVDById(String dvdId) {
+        DVD dvd = dvds.get(dvdId);
+        if (dvd != null) {
+            return dvd;
+        }
+        return inTransaction(connection -> {
+            LoadBatch batch = new LoadBatch();
+            batch.addDVD(dvdId);
+            load(connection, batch);
+            return dvds.get(dvdId);
+        });
+    }
+    
+    @Override
+    public List<DVD> getAllDVDs() {
+        return queryKeys(SELECT_ALL_DVDS, null, dvds, LoadBatch::addDVD);
+    }
+    
+    @Override
+    public void saveMember(Member member) {
+        saveMembers(Collections.singletonList(member));
+    }
+    
+    /**
+     * Saves a number of members in one transaction using batched statements.
+     * 
+     * @param batch The members to save
+     */
+    public void saveMembers(Collection<Member> batch) {
+        for (Member member : batch) {
+            members.put(member.getMembershipNumber(), member);
+            shared.members.putIfAbsent(member.getMembershipNumber(), member);
+        }
+        try {
+            inTransaction(connection -> {
+                StatementBinder<Member> bind = (ps, member) -> {
+                    ps.setString(1, member.getName());
+                    ps.setString(2, member.getMembershipNumber());
+                };
+                upsert(connection, UPDATE_MEMBER, INSERT_MEMBER, batch, bind);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            for (Member member : batch) {
+                members.remove(member.getMembershipNumber(), member);
+            }
+            throw e;
+        }
+    }
+    
+    @Override
+    public Member findMemberByNumber(String membershipNumber) {
+        Member member = members.get(membershipNumber);
+        if (member != null) {
+            return member;
+        }
+        return inTransaction(connection -> {
+            LoadBatch batch = new LoadBatch();
+            batch.addMember(membershipNumber);
+            load(connection, batch);
+            return members.get(membershipNumber);
+        });
+    }
+    
+    @Override
+    public List<Member> getAllMembers() {
+        return queryKeys(SELECT_ALL_MEMBERS, null, members, LoadBatch::addMember);
+    }
+    
+    @Override
+    public void saveLoan(Loan loan) {
+        saveLoans(Collections.singletonList(loan));
+    }
+    
+    /**
+     * Saves a number of loans in one transaction using batched statements.
+     * Loans already saved have their return date updated. Their DVDs and
+     * members must already be saved.
+     * 
+     * @param batch The loans to save
+     */
+    public void saveLoans(Collection<Loan> batch) {
+        List<Loan> inserts = new ArrayList<>();
+        List<Long> insertIds = new ArrayList<>();
+        List<Loan> updates = new ArrayList<>();
+        for (Loan loan : batch) {
+            if (loanIds.containsKey(loan)) {
+                updates.add(loan);
+            } else {
+                inserts.add(loan);
+                insertIds.add(nextLoanId.getAndIncrement());
+            }
+        }
+        for (int i = 0; i < inserts.size(); i++) {
+            remember(insertIds.get(i), inserts.get(i));
+        }
+        try {
+            inTransaction(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(INSERT_LOAN)) {
+                    for (int i = 0; i < inserts.size(); i++) {
+                        Loan loan = inserts.get(i);
+                        ps.setLong(1, insertIds.get(i));
+                        ps.setString(2, loan.getDvd().getDvdId());
+                        ps.setString(3, loan.getMember().getMembershipNumber());
+                        ps.setDate(4, Date.valueOf(loan.getBorrowDate()));
+                        setDate(ps, 5, loan.getReturnDate());
+                        addToBatch(ps, i);
+                    }
+                    ps.executeBatch();
+                }
+                updateLoans(connection, updates);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            for (int i = 0; i < inserts.size(); i++) {
+                loansById.remove(insertIds.get(i));
+                loanIds.remove(inserts.get(i));
+            }
+            throw e;
+        }
+    }
+    
+    @Override
+    public void updateLoan(Loan loan) {
+        if (!loanIds.containsKey(loan)) {
+            saveLoan(loan);
+            return;
+        }
+        inTransaction(connection -> {
+            updateLoans(connection, Collections.singletonList(loan));
+            return null;
+        });
+    }
+    
+    @Override
+    public Loan findActiveLoanByDVD(DVD dvd) {
+        return inTransaction(connection -> {
+            LoanRow row = null;
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_ACTIVE_LOAN_FOR_DVD)) {
+                ps.setString(1, dvd.getDvdId());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        row = new LoanRow(rs);
+                    }
+                }
+            }
+            if (row == null) {
+                return null;
+            }
+            Loan loan = loansById.get(row.loanId);
+            if (loan != null) {
+                return loan;
+            }
+            LoadBatch batch = new LoadBatch();
+            batch.addLoan(row);
+            load(connection, batch);
+            return loansById.get(row.loanId);
+        });
+    }
+    
+    @Override
+    public List<Loan> getAllLoans() {
+        return queryLoans(SELECT_ALL_LOANS);
+    }
+    
+    @Override
+    public List<Loan> getActiveLoans() {
+        return queryLoans(SELECT_ACTIVE_LOANS);
+    }
+    
+    /**
+     * Creates the tables and indexes unless the films table already exists.
+     */
+    private static void createSchemaIfMissing(Connection connection) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        // Unquoted names are stored upper case by some databases and lower case by others
+        for (String name : new String[]{"films", "FILMS"}) {
+            try (ResultSet rs = meta.getTables(null, null, name, null)) {
+                if (rs.next()) {
+                    addSearchKeyIfMissing(connection, meta, name);
+                    return;
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        }
+    }
+    
+    /**
+     * Adds the search_key column to a films table created before it existed
+     * and fills it in from the titles.
+     */
+    private static void addSearchKeyIfMissing(Connection connection, DatabaseMetaData meta, String table)
+            throws SQLException {
+        for (String column : new String[]{"search_key", "SEARCH_KEY"}) {
+            try (ResultSet rs = meta.getColumns(null, null, table, column)) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        List<String> titles = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(ADD_SEARCH_KEY);
+            try (ResultSet rs = statement.executeQuery(SELECT_ALL_FILMS)) {
+                while (rs.next()) {
+                    titles.add(rs.getString(1));
+                }
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(UPDATE_FILM)) {
+            for (int i = 0; i < titles.size(); i++) {
+                ps.setString(1, TitleNormalizer.normalize(titles.get(i)));
+                ps.setString(2, titles.get(i));
+                addToBatch(ps, i);
+            }
+            ps.executeBatch();
+        }
+    }
+    
+    /**
+     * Updates each row and then inserts the ones that did not exist, both as batches.
+     * If another writer inserts one of the missing rows first, the inserts
+     * are rolled back and redone one row at a time, updating any row that
+     * now exists.
+     */
+    private static <T> void upsert(Connection connection, String updateSql, String insertSql, Collection<T> batch,
+                                   StatementBinder<T> bind) throws SQLException {
+        List<T> missing;
+        try (PreparedStatement update = connection.prepareStatement(updateSql)) {
+            missing = updateExisting(update, new ArrayList<>(batch), bind);
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Savepoint beforeInserts = connection.setSavepoint();
+        try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+            for (int i = 0; i < missing.size(); i++) {
+                bind.bind(insert, missing.get(i));
+                addToBatch(insert, i);
+            }
+            insert.executeBatch();
+            return;
+        } catch (SQLException e) {
+            if (!isDuplicateKey(e)) {
+                throw e;
+            }
+            connection.rollback(beforeInserts);
+        }
+        
+        try (PreparedStatement insert = connection.prepareStatement(insertSql);
+             PreparedStatement update = connection.prepareStatement(updateSql)) {
+            for (T row : missing) {
+                Savepoint beforeRow = connection.setSavepoint();
+                try {
+                    bind.bind(insert, row);
+                    insert.executeUpdate();
+                } catch (SQLException e) {
+                    if (!isDuplicateKey(e)) {
+                        throw e;
+                    }
+                    connection.rollback(beforeRow);
+                    bind.bind(update, row);
+                    if (update.executeUpdate() == 0) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Runs the update for each row in batches and returns the rows it did
+     * not match. A driver may report a batched statement as done without
+     * saying how many rows it changed; those rows are updated again singly
+     * to find out.
+     */
+    private static <T> List<T> updateExisting(PreparedStatement ps, List<T> rows, StatementBinder<T> bind)
+            throws SQLException {
+        List<T> missing = new ArrayList<>();
+        List<T> unknown = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            bind.bind(ps, rows.get(i));
+            ps.addBatch();
+            if ((i + 1) % BATCH_SIZE == 0 || i == rows.size() - 1) {
+                int[] counts = ps.executeBatch();
+                for (int j = 0; j < counts.length; j++) {
+                    T row = rows.get(start + j);
+                    if (counts[j] == Statement.SUCCESS_NO_INFO) {
+                        unknown.add(row);
+                    } else if (counts[j] == Statement.EXECUTE_FAILED) {
+                        throw new SQLException("Batched update failed for " + row);
+                    } else if (counts[j] == 0) {
+                        missing.add(row);
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        for (T row : unknown) {
+            bind.bind(ps, row);
+            if (ps.executeUpdate() == 0) {
+                missing.add(row);
+            }
+        }
+        return missing;
+    }
+    
+    /**
+     * Tells whether an error, or one chained to it, is a unique key violation.
+     */
+    private static boolean isDuplicateKey(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if ("23505".equals(state) || "23000".equals(state)) {
+                    return true;
+                }
+                SQLException next = ((SQLException) cause).getNextException();
+                if (next != null && next != cause.getCause() && isDuplicateKey(next)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Tells whether an error, or one chained to it, means the database rolled
+     * the transaction back (SQLSTATE class 40), such as a deadlock victim.
+     */
+    private static boolean isTransactionRollback(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (state != null && state.startsWith("40")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private void updateLoans(Connection connection, List<Loan> loans) throws SQLException {
+        if (loans.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(UPDATE_LOAN)) {
+            for (int i = 0; i < loans.size(); i++) {
+                Loan loan = loans.get(i);
+                setDate(ps, 1, loan.getReturnDate());
+                ps.setLong(2, loanIds.get(loan));
+                addToBatch(ps, i);
+            }
+            ps.executeBatch();
+        }
+    }
+    
+    /**
+     * Adds the bound parameters to the batch, sending the batch every BATCH_SIZE rows.
+     */
+    private static void addToBatch(PreparedStatement ps, int index) throws SQLException {
+        ps.addBatch();
+        if ((index + 1) % BATCH_SIZE == 0) {
+            ps.executeBatch();
+        }
+    }
+    
+    private static void setDate(PreparedStatement ps, int index, LocalDate date) throws SQLException {
+        if (date == null) {
+            ps.setNull(index, Types.DATE);
+        } else {
+            ps.setDate(index, Date.valueOf(date));
+        }
+    }
+    
+    /**
+     * Streams a single-column key query, taking each record from the identity
+     * map and loading the rest once the cursor is closed.
+     */
+    private <T> List<T> queryKeys(String sql, String parameter, Map<String, T> loaded,
+                                  BiConsumer<LoadBatch, String> toLoad) {
+        return inTransaction(connection -> {
+            List<String> keys = new ArrayList<>();
+            LoadBatch batch = new LoadBatch();
+            try (PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                if (parameter != null) {
+                    ps.setString(1, parameter);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String key = rs.getString(1);
+                        keys.add(key);
+                        if (!loaded.containsKey(key)) {
+                            toLoad.accept(batch, key);
+                        }
+                    }
+                }
+            }
+            load(connection, batch);
+            List<T> results = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                T entity = loaded.get(key);
+                if (entity != null) {
+                    results.add(entity);
+                }
+            }
+            return results;
+        });
+    }
+    
+    private List<Loan> queryLoans(String sql) {
+        return inTransaction(connection -> {
+            List<Long> ids = new ArrayList<>();
+            LoadBatch batch = new LoadBatch();
+            try (PreparedStatement ps = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long loanId = rs.getLong(1);
+                        ids.add(loanId);
+                        if (!loansById.containsKey(loanId)) {
+                            batch.addLoan(new LoanRow(rs));
+                        }
+                    }
+                }
+            }
+            load(connection, batch);
+            List<Loan> results = new ArrayList<>(ids.size());
+            for (long loanId : ids) {
+                Loan loan = loansById.get(loanId);
+                if (loan != null) {
+                    results.add(loan);
+                }
+            }
+            return results;
+        });
+    }
+    
+    /**
+     * Reads the rows a batch needs from the database, then builds and
+     * registers the records under the shared records' lock. Only the second
+     * step holds the lock, so threads loading different records only wait
+     * for each other while objects are being created.
+     */
+    private void load(Connection connection, LoadBatch batch) throws SQLException {
+        batch.read(connection);
+        if (batch.isEmpty()) {
+            return;
+        }
+        synchronized (shared) {
+            build(batch);
+        }
+    }
+    
+    /**
+     * Creates the records read into a batch and links active loans to their
+     * DVDs and members. Records another thread built in the meantime are
+     * reused, as are films and members another store sharing the records
+     * built, which gain this store's copies and loans. Nothing is registered
+     * until the whole batch is linked, so lookups never see a film without
+     * its copies or a DVD without its loan. Callers must hold the shared
+     * records' lock.
+     */
+    private void build(LoadBatch batch) {
+        Map<String, Film> newFilms = new LinkedHashMap<>();
+        Map<String, DVD> newDvds = new LinkedHashMap<>();
+        Map<String, Member> newMembers = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : batch.filmCopies.entrySet()) {
+            if (films.containsKey(entry.getKey())) {
+                continue;
+            }
+            Film film = shared.films.get(entry.getKey());
+            boolean created = film == null;
+            if (created) {
+                film = new Film(entry.getKey());
+            }
+            for (String dvdId : entry.getValue()) {
+                DVD dvd = dvds.get(dvdId);
+                if (dvd == null) {
+                    dvd = new DVD(dvdId, film);
+                    newDvds.put(dvdId, dvd);
+                    film.addDvdCopy(dvd);
+                } else if (created) {
+                    film.addDvdCopy(dvd);
+                }
+            }
+            newFilms.put(film.getTitle(), film);
+        }
+        for (Map.Entry<String, String> entry : batch.memberNames.entrySet()) {
+            if (!members.containsKey(entry.getKey())) {
+                Member member = shared.members.get(entry.getKey());
+                newMembers.put(entry.getKey(), member != null ? member : new Member(entry.getKey(), entry.getValue()));
+            }
+        }
+        Map<Long, Loan> newLoans = new LinkedHashMap<>();
+        for (LoanRow row : batch.loans.values()) {
+            if (loansById.containsKey(row.loanId)) {
+                continue;
+            }
+            DVD dvd = newDvds.containsKey(row.dvdId) ? newDvds.get(row.dvdId) : dvds.get(row.dvdId);
+            Member member = newMembers.containsKey(row.membershipNumber)
+                    ? newMembers.get(row.membershipNumber) : members.get(row.membershipNumber);
+            if (dvd == null || member == null) {
+                continue;
+            }
+            Loan loan = new Loan(dvd, member, row.borrowDate);
+            if (row.returnDate != null) {
+                loan.returnDVD(row.returnDate);
+            } else {
+                dvd.borrowedBy(member);
+                member.addLoan(loan);
+            }
+            newLoans.put(row.loanId, loan);
+        }
+        dvds.putAll(newDvds);
+        members.putAll(newMembers);
+        films.putAll(newFilms);
+        for (Member member : newMembers.values()) {
+            shared.members.putIfAbsent(member.getMembershipNumber(), member);
+        }
+        for (Film film : newFilms.values()) {
+            shared.films.putIfAbsent(film.getTitle(), film);
+        }
+        for (Map.Entry<Long, Loan> entry : newLoans.entrySet()) {
+            remember(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    private void remember(long loanId, Loan loan) {
+        loansById.put(loanId, loan);
+        loanIds.put(loan, loanId);
+    }
+    
+    /**
+     * Runs some work on a pooled connection and commits it. If the database
+     * rolls the transaction back to break a deadlock, as it may when two
+     * batches save overlapping rows in different orders, the work is run
+     * again a few times before giving up.
+     */
+    private <T> T inTransaction(SqlWork<T> work) {
+        Connection connection;
+        try {
+            connection = pool.borrow();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Database unavailable: " + e.getMessage(), e);
+        }
+        boolean failed = true;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = work.run(connection);
+                    connection.commit();
+                    failed = false;
+                    return result;
+                } catch (SQLException e) {
+                    if (attempt == MAX_ATTEMPTS || !isTransactionRollback(e)) {
+                        throw e;
+                    }
+                    connection.rollback();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Database error: " + e.getMessage(), e);
+        } finally {
+            pool.release(connection, failed);
+        }
+    }
+    
+    /**
+     * Work to run against a database connection.
+     */
+    private interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+    
+    /**
+     * Binds one record's values to a prepared statement.
+     */
+    private interface StatementBinder<T> {
+        void bind(PreparedStatement ps, T record) throws SQLException;
+    }
+    
+    /**
+     * The rows needed to load some records: everything they lead to through
+     * copies and active loans that is not in the identity maps yet. Rows are
+     * read breadth-first from work queues, so long chains of members sharing
+     * films do not recurse.
+     */
+    private class LoadBatch {
+        final Map<String, List<String>> filmCopies = new LinkedHashMap<>();
+        final Map<String, String> memberNames = new LinkedHashMap<>();
+        final Map<Long, LoanRow> loans = new LinkedHashMap<>();
+        private final Deque<String> filmQueue = new ArrayDeque<>();
+        private final Deque<String> dvdQueue = new ArrayDeque<>();
+        private final Deque<String> memberQueue = new ArrayDeque<>();
+        private final Set<String> queued = new HashSet<>();
+        
+        void addFilm(String title) {
+            if (!films.containsKey(title) && queued.add("F" + title)) {
+                filmQueue.add(title);
+            }
+        }
+        
+        void addDVD(String dvdId) {
+            if (!dvds.containsKey(dvdId) && queued.add("D" + dvdId)) {
+                dvdQueue.add(dvdId);
+            }
+        }
+        
+        void addMember(String membershipNumber) {
+            if (!members.containsKey(membershipNumber) && queued.add("M" + membershipNumber)) {
+                memberQueue.add(membershipNumber);
+            }
+        }
+        
+        void addLoan(LoanRow row) {
+            if (!loansById.containsKey(row.loanId) && !loans.containsKey(row.loanId)) {
+                loans.put(row.loanId, row);
+                addDVD(row.dvdId);
+                addMember(row.membershipNumber);
+            }
+        }
+        
+        boolean isEmpty() {
+            return filmCopies.isEmpty() && memberNames.isEmpty() && loans.isEmpty();
+        }
+        
+        void read(Connection connection) throws SQLException {
+            while (!filmQueue.isEmpty() || !dvdQueue.isEmpty() || !memberQueue.isEmpty()) {
+                if (!filmQueue.isEmpty()) {
+                    readFilm(connection, filmQueue.poll());
+                } else if (!dvdQueue.isEmpty()) {
+                    readDVD(connection, dvdQueue.poll());
+                } else {
+                    readMember(connection, memberQueue.poll());
+                }
+            }
+        }
+        
+        private void readFilm(Connection connection, String title) throws SQLException {
+            boolean found = false;
+            List<String> copyIds = new ArrayList<>();
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_FILM_WITH_COPIES)) {
+                ps.setString(1, title);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        found = true;
+                        String dvdId = rs.getString(2);
+                        if (dvdId != null) {
+                            copyIds.add(dvdId);
+                        }
+                    }
+                }
+            }
+            if (!found) {
+                return;
+            }
+            filmCopies.put(title, copyIds);
+            for (String dvdId : copyIds) {
+                // Its own copies are read with the film, so only their active loans are still needed
+                queued.add("D" + dvdId);
+                if (dvds.containsKey(dvdId)) {
+                    continue;
+                }
+                try (PreparedStatement ps = connection.prepareStatement(SELECT_ACTIVE_LOAN_FOR_DVD)) {
+                    ps.setString(1, dvdId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            addLoan(new LoanRow(rs));
+                        }
+                    }
+                }
+            }
+        }
+        
+        private void readDVD(Connection connection, String dvdId) throws SQLException {
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_DVD_FILM)) {
+                ps.setString(1, dvdId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        addFilm(rs.getString(1));
+                    }
+                }
+            }
+        }
+        
+        private void readMember(Connection connection, String membershipNumber) throws SQLException {
+            String name = null;
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_MEMBER)) {
+                ps.setString(1, membershipNumber);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        name = rs.getString(1);
+                    }
+                }
+            }
+            if (name == null) {
+                return;
+            }
+            memberNames.put(membershipNumber, name);
+            List<LoanRow> rows = new ArrayList<>();
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_ACTIVE_LOANS_FOR_MEMBER)) {
+                ps.setString(1, membershipNumber);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new LoanRow(rs));
+                    }
+                }
+            }
+            for (LoanRow row : rows) {
+                addLoan(row);
+            }
+        }
+    }
+    
+    /**
+     * The columns of a loans row, read before any further queries are made.
+     */
+    private static class LoanRow {
+        final long loanId;
+        final String dvdId;
+        final String membershipNumber;
+        final LocalDate borrowDate;
+        final LocalDate returnDate;
+        
+        LoanRow(ResultSet rs) throws SQLException {
+            this.loanId = rs.getLong(1);
+            this.dvdId = rs.getString(2);
+            this.membershipNumber = rs.getString(3);
+            this.borrowDate = rs.getDate(4).toLocalDate();
+            Date returned = rs.getDate(5);
+            this.returnDate = returned != null ? returned.toLocalDate() : null;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded read-through cache with segmented LRU eviction.
+ * 
+ * Entries live in a ConcurrentHashMap, so a hit is a lock-free read that
+ * only sets the entry's referenced flag. Keys are split across stripes, each
+ * with its own lock and its own probationary and protected segments; those
+ * locks are only taken to insert, invalidate or evict. New entries start in
+ * probation. When a stripe is over its share of the limit, the eldest
+ * probationary entry is evicted unless it has been referenced since it was
+ * last looked at, in which case it is promoted to the protected segment;
+ * entries pushed out of the protected segment drop back into probation.
+ * A one-off scan therefore only ever displaces probationary entries.
+ */
+class LookupCache<K, V> {
+    
+    private static final double PROTECTED_SHARE = 0.8;
+    
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Stripe<K, V>[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    /**
+     * Creates a cache.
+     * 
+     * @param maxSize The maximum number of entries
+     * @param stripeCount The number of independently locked stripes (rounded up to a power of two)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    LookupCache(int maxSize, int stripeCount) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        int count = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, maxSize)) * 2 - 1);
+        this.stripes = new Stripe[count];
+        int perStripe = (maxSize + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>(perStripe);
+        }
+    }
+    
+    /**
+     * Gets a cached value, loading and caching it on a miss.
+     * Values the loader cannot find (null) are not cached.
+     * 
+     * @param key The key to look up
+     * @param loader Loads the value from the backing store
+     * @return The value or null if the backing store has none
+     */
+    V get(K key, Function<K, V> loader) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.value;
+        }
+        
+        misses.increment();
+        Stripe<K, V> stripe = stripeFor(key);
+        long generation = stripe.generation;
+        V value = loader.apply(key);
+        if (value != null) {
+            stripe.insert(key, value, generation, this);
+        }
+        return value;
+    }
+    
+    /**
+     * Removes a key so the next lookup goes to the backing store.
+     * 
+     * @param key The key to invalidate
+     */
+    void invalidate(K key) {
+        stripeFor(key).remove(key, this);
+    }
+    
+    /**
+     * Gets a snapshot of the cache counters.
+     * 
+     * @return The cache statistics
+     */
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+    
+    private Stripe<K, V> stripeFor(K key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+    
+    /**
+     * A cached value and whether it has been hit since eviction last passed it.
+     */
+    private static class Entry<V> {
+        private final V value;
+        private volatile boolean referenced;
+        
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+    
+    /**
+     * One lock's worth of the cache: its probationary and protected segments,
+     * each ordered eldest first.
+     */
+    private static class Stripe<K, V> {
+        private final int capacity;
+        private final int protectedCapacity;
+        private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>();
+        private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>();
+        private volatile long generation;
+        
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = (int) (capacity * PROTECTED_SHARE);
+        }
+        
+        synchronized void insert(K key, V value, long loadedAtGeneration, LookupCache<K, V> cache) {
+            // An invalidation while the value was loading means it may be stale
+            if (generation != loadedAtGeneration || cache.entries.containsKey(key)) {
+                return;
+            }
+            Entry<V> entry = new Entry<>(value);
+            probation.put(key, entry);
+            cache.entries.put(key, entry);
+            while (probation.size() + protectedSegment.size() > capacity) {
+                evictOne(cache);
+            }
+        }
+        
+        synchronized void remove(K key, LookupCache<K, V> cache) {
+            generation++;
+            if (probation.remove(key) == null) {
+                protectedSegment.remove(key);
+            }
+            cache.entries.remove(key);
+        }
+        
+        private void evictOne(LookupCache<K, V> cache) {
+            while (true) {
+                if (probation.isEmpty()) {
+                    demoteEldestProtected();
+                    continue;
+                }
+                Iterator<Map.Entry<K, Entry<V>>> eldest = probation.entrySet().iterator();
+                Map.Entry<K, Entry<V>> candidate = eldest.next();
+                eldest.remove();
+                
+                if (candidate.getValue().referenced) {
+                    // Hit while on probation: give it a place in the protected segment
+                    candidate.getValue().referenced = false;
+                    protectedSegment.put(candidate.getKey(), candidate.getValue());
+                    if (protectedSegment.size() > protectedCapacity) {
+                        demoteEldestProtected();
+                    }
+                    continue;
+                }
+                
+                cache.entries.remove(candidate.getKey());
+                cache.evictions.increment();
+                return;
+            }
+        }
+        
+        private void demoteEldestProtected() {
+            Iterator<Map.Entry<K, Entry<V>>> eldest = protectedSegment.entrySet().iterator();
+            Map.Entry<K, Entry<V>> demoted = eldest.next();
+            eldest.remove();
+            if (demoted.getValue().referenced) {
+                // Still in use: clear the flag and move it to the protected tail instead
+                demoted.getValue().referenced = false;
+                protectedSegment.put(demoted.getKey(), demoted.getValue());
+            } else {
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+    }
+}
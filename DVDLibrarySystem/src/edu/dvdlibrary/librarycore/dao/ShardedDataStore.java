@@ -0,0 +1,313 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * DataStore that partitions a multi-branch library across independent shards.
+ * DVDs, members and loans belong to a branch, identified by the prefix of
+ * their id before the first '-' (e.g. "NORTH-DVD001", "NORTH-M001"); ids
+ * without a known prefix go to the default branch. DVDs live in their
+ * branch's shard and loans in the shard of the DVD they are for.
+ * 
+ * Films and members are written to every shard, so that each shard can
+ * resolve the film of every copy it holds and the member of every loan it
+ * holds, whichever branch the member joined; a store with foreign keys,
+ * such as JdbcDataStore, needs this. Film and member lookups ask every
+ * shard, so a store that loads records lazily attaches its own copies and
+ * loans before the record is returned. Persistent shards must be built over
+ * one SharedRecords, so that they return the same film and member objects.
+ * 
+ * Each shard has its own read/write lock, so operations on different
+ * branches never contend, and cross-branch reads are scatter-gathered in
+ * parallel.
+ */
+public class ShardedDataStore implements DataStore {
+    
+    private static final char BRANCH_SEPARATOR = '-';
+    
+    private final Map<String, Shard> shardsByBranch;
+    private final List<Shard> shards;
+    private final Shard defaultShard;
+    
+    /**
+     * Creates a sharded store over existing per-branch stores.
+     * 
+     * @param storesByBranch The store for each branch code, in a stable order
+     * @param defaultBranch The branch for ids without a recognised prefix
+     */
+    public ShardedDataStore(Map<String, ? extends DataStore> storesByBranch, String defaultBranch) {
+        if (storesByBranch.isEmpty()) {
+            throw new IllegalArgumentException("At least one branch is required");
+        }
+        if (!storesByBranch.containsKey(defaultBranch)) {
+            throw new IllegalArgumentException("Default branch '" + defaultBranch + "' has no store");
+        }
+        
+        Map<String, Shard> byBranch = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends DataStore> entry : storesByBranch.entrySet()) {
+            byBranch.put(entry.getKey(), new Shard(entry.getKey(), entry.getValue()));
+        }
+        this.shardsByBranch = Collections.unmodifiableMap(byBranch);
+        this.shards = Collections.unmodifiableList(new ArrayList<>(byBranch.values()));
+        this.defaultShard = byBranch.get(defaultBranch);
+    }
+    
+    /**
+     * Creates a sharded store with an in-memory store per branch.
+     * The first branch is the default.
+     * 
+     * @param branches The branch codes
+     * @return The sharded store
+     */
+    public static ShardedDataStore inMemory(String... branches) {
+        if (branches.length == 0) {
+            throw new IllegalArgumentException("At least one branch is required");
+        }
+        Map<String, DataStore> stores = new LinkedHashMap<>();
+        for (String branch : branches) {
+            stores.put(branch, new InMemoryDataStore());
+        }
+        return new ShardedDataStore(stores, branches[0]);
+    }
+    
+    /**
+     * Gets the branch codes, in shard order.
+     * 
+     * @return List of branch codes
+     */
+    @Override
+    public List<String> getBranches() {
+        return new ArrayList<>(shardsByBranch.keySet());
+    }
+    
+    /**
+     * Gets the branch an id belongs to.
+     * 
+     * @param id A DVD id or membership number
+     * @return The branch code
+     */
+    @Override
+    public String branchOf(String id) {
+        return shardFor(id).branch;
+    }
+    
+    /**
+     * Gets the DVDs held by one branch.
+     * 
+     * @param branch The branch code
+     * @return List of the branch's DVDs
+     */
+    public List<DVD> getDVDsForBranch(String branch) {
+        Shard shard = requireShard(branch);
+        return shard.read(shard.store::getAllDVDs);
+    }
+    
+    /**
+     * Gets the loans made from one branch.
+     * 
+     * @param branch The branch code
+     * @return List of the branch's loans
+     */
+    public List<Loan> getLoansForBranch(String branch) {
+        Shard shard = requireShard(branch);
+        return shard.read(shard.store::getAllLoans);
+    }
+    
+    @Override
+    public void saveFilm(Film film) {
+        for (Shard shard : shards) {
+            shard.write(() -> shard.store.saveFilm(film));
+        }
+    }
+    
+    @Override
+    public Film findFilmByTitle(String title) {
+        return findEverywhere(store -> store.findFilmByTitle(title));
+    }
+    
+    @Override
+    public List<Film> getAllFilms() {
+        return gatherDistinct(DataStore::getAllFilms);
+    }
+    
+    @Override
+    public List<Film> searchFilmsByTitle(String searchTerm) {
+        return gatherDistinct(store -> store.searchFilmsByTitle(searchTerm));
+    }
+    
+    @Override
+    public void saveDVD(DVD dvd) {
+        Shard shard = shardFor(dvd.getDvdId());
+        shard.write(() -> shard.store.saveDVD(dvd));
+    }
+    
+    @Override
+    public DVD findDVDById(String dvdId) {
+        Shard shard = shardFor(dvdId);
+        return shard.read(() -> shard.store.findDVDById(dvdId));
+    }
+    
+    @Override
+    public List<DVD> getAllDVDs() {
+        return gather(DataStore::getAllDVDs);
+    }
+    
+    @Override
+    public void saveMember(Member member) {
+        for (Shard shard : shards) {
+            shard.write(() -> shard.store.saveMember(member));
+        }
+    }
+    
+    @Override
+    public Member findMemberByNumber(String membershipNumber) {
+        return findEverywhere(store -> store.findMemberByNumber(membershipNumber));
+    }
+    
+    @Override
+    public List<Member> getAllMembers() {
+        return gatherDistinct(DataStore::getAllMembers);
+    }
+    
+    @Override
+    public void saveLoan(Loan loan) {
+        Shard shard = shardFor(loan.getDvd().getDvdId());
+        shard.write(() -> shard.store.saveLoan(loan));
+    }
+    
+    @Override
+    public void updateLoan(Loan loan) {
+        Shard shard = shardFor(loan.getDvd().getDvdId());
+        shard.write(() -> shard.store.updateLoan(loan));
+    }
+    
+    @Override
+    public Loan findActiveLoanByDVD(DVD dvd) {
+        Shard shard = shardFor(dvd.getDvdId());
+        return shard.read(() -> shard.store.findActiveLoanByDVD(dvd));
+    }
+    
+    @Override
+    public List<Loan> getAllLoans() {
+        return gather(DataStore::getAllLoans);
+    }
+    
+    @Override
+    public List<Loan> getActiveLoans() {
+        return gather(DataStore::getActiveLoans);
+    }
+    
+    private Shard shardFor(String id) {
+        int separator = id.indexOf(BRANCH_SEPARATOR);
+        if (separator > 0) {
+            Shard shard = shardsByBranch.get(id.substring(0, separator));
+            if (shard != null) {
+                return shard;
+            }
+        }
+        return defaultShard;
+    }
+    
+    private Shard requireShard(String branch) {
+        Shard shard = shardsByBranch.get(branch);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown branch '" + branch + "'");
+        }
+        return shard;
+    }
+    
+    /**
+     * Looks a replicated record up in every shard, so each can attach what it
+     * holds, and returns the first one found.
+     */
+    private <T> T findEverywhere(Function<DataStore, T> lookup) {
+        T found = null;
+        for (Shard shard : shards) {
+            T record = shard.read(() -> lookup.apply(shard.store));
+            if (found == null) {
+                found = record;
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Runs a query for replicated records against every shard and drops the
+     * copies of a record after the first.
+     */
+    private <T> List<T> gatherDistinct(Function<DataStore, List<T>> query) {
+        List<T> all = gather(query);
+        if (shards.size() == 1) {
+            return all;
+        }
+        Set<T> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<T> distinct = new ArrayList<>(all.size() / shards.size());
+        for (T record : all) {
+            if (seen.add(record)) {
+                distinct.add(record);
+            }
+        }
+        return distinct;
+    }
+    
+    /**
+     * Runs a query against every shard in parallel and concatenates the results.
+     */
+    private <T> List<T> gather(Function<DataStore, List<T>> query) {
+        if (shards.size() == 1) {
+            return defaultShard.read(() -> query.apply(defaultShard.store));
+        }
+        return shards.parallelStream()
+                .map(shard -> shard.read(() -> query.apply(shard.store)))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * A branch's store and the lock that guards it.
+     */
+    private static class Shard {
+        private final String branch;
+        private final DataStore store;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        
+        Shard(String branch, DataStore store) {
+            this.branch = branch;
+            this.store = store;
+        }
+        
+        <T> T read(Supplier<T> action) {
+            lock.readLock().lock();
+            try {
+                return action.get();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        void write(Runnable action) {
+            lock.writeLock().lock();
+            try {
+                action.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Film and member objects shared by several stores that each hold part of
+ * one library, such as the shards of a ShardedDataStore. Every shard keeps
+ * its own rows for a film or member, but the library must still see one
+ * object for it, carrying the copies and loans of all the shards; stores
+ * built over the same SharedRecords reuse the object another store created
+ * instead of building their own, and attach their own copies and loans to
+ * it. Stores sharing records also build loaded records one at a time, under
+ * this object's monitor, since they may be linking to the same objects.
+ */
+public final class SharedRecords {
+    
+    final Map<String, Film> films = new ConcurrentHashMap<>();
+    final Map<String, Member> members = new ConcurrentHashMap<>();
+}
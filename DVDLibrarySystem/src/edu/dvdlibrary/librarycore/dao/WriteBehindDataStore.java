@@ -0,0 +1,722 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * DataStore decorator that acknowledges writes from memory and persists them
+ * to a slower backing store on a background thread.
+ * 
+ * Pending writes are kept in a bounded queue, one entry per film, DVD, member
+ * or loan, so repeated writes to the same record (e.g. a loan saved and then
+ * returned) are coalesced into a single backend write. Entries are flushed in
+ * the order they were first queued, so a loan never reaches the backing store
+ * before its DVD or member. Reads consult the queue first, so callers always
+ * see their own writes.
+ * 
+ * When the queue is full, writers either wait for the background writer to
+ * make room or are rejected, depending on the overflow policy. flush() is a
+ * durability barrier: it returns once every write made before the call has
+ * reached the backing store.
+ * 
+ * A write the backing store rejects is retried after the flush interval.
+ * After five failed attempts it is given up on and kept as a dead letter,
+ * so one bad record cannot hold up the queue behind it for ever; the next
+ * flush() or close() then throws to report it.
+ */
+public class WriteBehindDataStore implements DataStore, AutoCloseable {
+    
+    /**
+     * What a write does when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait until the background writer has made room. */
+        BLOCK,
+        /** Throw an IllegalStateException straight away. */
+        REJECT
+    }
+    
+    private static final int DEFAULT_MAX_PENDING = 10_000;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(100);
+    private static final int MAX_ATTEMPTS = 5;
+    
+    private final DataStore delegate;
+    private final int maxPending;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+    private final Condition progress = lock.newCondition();
+    private final Map<WriteKey, PendingWrite> pending = new LinkedHashMap<>();
+    private final Thread writer;
+    private long sequence;
+    private boolean flushRequested;
+    private boolean closed;
+    
+    private long writesAccepted;
+    private long writesCoalesced;
+    private long batchesFlushed;
+    private long recordsFlushed;
+    private long totalFlushNanos;
+    private long maxFlushNanos;
+    private long failures;
+    private RuntimeException lastFailure;
+    private final List<Object> deadLetters = new ArrayList<>();
+    private int unreportedDeadLetters;
+    
+    /**
+     * Creates a write-behind store with default limits: up to 10,000 pending
+     * records, batches of 500, flushed at least every 100ms, blocking when full.
+     * 
+     * @param delegate The backing store to persist to
+     */
+    public WriteBehindDataStore(DataStore delegate) {
+        this(delegate, DEFAULT_MAX_PENDING, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL, OverflowPolicy.BLOCK);
+    }
+    
+    /**
+     * Creates a write-behind store and starts its background writer.
+     * 
+     * @param delegate The backing store to persist to
+     * @param maxPending The maximum number of records waiting to be written
+     * @param batchSize The maximum number of records written per batch
+     * @param flushInterval How long a write may wait before it is flushed
+     * @param overflowPolicy What a write does when the queue is full
+     */
+    public WriteBehindDataStore(DataStore delegate, int maxPending, int batchSize,
+                                Duration flushInterval, OverflowPolicy overflowPolicy) {
+        if (maxPending <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Queue and batch sizes must be positive");
+        }
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        this.delegate = delegate;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        
+        this.writer = new Thread(this::runWriter, "datastore-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    @Override
+    public void saveFilm(Film film) {
+        enqueue(new WriteKey(Kind.FILM, film.getTitle()), film, false);
+    }
+    
+    @Override
+    public Film findFilmByTitle(String title) {
+        Film film = (Film) pendingEntity(new WriteKey(Kind.FILM, title));
+        return film != null ? film : delegate.findFilmByTitle(title);
+    }
+    
+    @Override
+    public List<Film> getAllFilms() {
+        return merge(delegate.getAllFilms(), Kind.FILM, Film::getTitle);
+    }
+    
+    @Override
+    public List<Film> searchFilmsByTitle(String searchTerm) {
+        return merge(delegate.searchFilmsByTitle(searchTerm), Kind.FILM, Film::getTitle).stream()
+                .filter(film -> film.getSearchKey().contains(searchTerm))
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public void saveDVD(DVD dvd) {
+        enqueue(new WriteKey(Kind.DVD, dvd.getDvdId()), dvd, false);
+    }
+    
+    @Override
+    public DVD findDVDById(String dvdId) {
+        DVD dvd = (DVD) pendingEntity(new WriteKey(Kind.DVD, dvdId));
+        return dvd != null ? dvd : delegate.findDVDById(dvdId);
+    }
+    
+    @Override
+    public List<DVD> getAllDVDs() {
+        return merge(delegate.getAllDVDs(), Kind.DVD, DVD::getDvdId);
+    }
+    
+    @Override
+    public void saveMember(Member member) {
+        enqueue(new WriteKey(Kind.MEMBER, member.getMembershipNumber()), member, false);
+    }
+    
+    @Override
+    public Member findMemberByNumber(String membershipNumber) {
+        Member member = (Member) pendingEntity(new WriteKey(Kind.MEMBER, membershipNumber));
+        return member != null ? member : delegate.findMemberByNumber(membershipNumber);
+    }
+    
+    @Override
+    public List<Member> getAllMembers() {
+        return merge(delegate.getAllMembers(), Kind.MEMBER, Member::getMembershipNumber);
+    }
+    
+    @Override
+    public void saveLoan(Loan loan) {
+        enqueue(new WriteKey(Kind.LOAN, loan), loan, false);
+    }
+    
+    @Override
+    public void updateLoan(Loan loan) {
+        enqueue(new WriteKey(Kind.LOAN, loan), loan, true);
+    }
+    
+    @Override
+    public Loan findActiveLoanByDVD(DVD dvd) {
+        List<Loan> pendingLoans = pendingEntities(Kind.LOAN);
+        for (Loan loan : pendingLoans) {
+            if (loan.getDvd().equals(dvd) && !loan.isReturned()) {
+                return loan;
+            }
+        }
+        
+        // The backend may not have seen a queued return yet
+        Loan stored = delegate.findActiveLoanByDVD(dvd);
+        if (stored != null && pendingEntity(new WriteKey(Kind.LOAN, stored)) != null) {
+            return null;
+        }
+        return stored;
+    }
+    
+    @Override
+    public List<Loan> getAllLoans() {
+        return merge(delegate.getAllLoans(), Kind.LOAN, Function.identity());
+    }
+    
+    @Override
+    public List<Loan> getActiveLoans() {
+        return merge(delegate.getActiveLoans(), Kind.LOAN, Function.identity()).stream()
+                .filter(loan -> !loan.isReturned())
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<String> getBranches() {
+        return delegate.getBranches();
+    }
+    
+    @Override
+    public String branchOf(String id) {
+        return delegate.branchOf(id);
+    }
+    
+    /**
+     * Waits until every write made before this call has reached the backing store.
+     * 
+     * @throws IllegalStateException if the store is closed before the writes are flushed,
+     *         or writes were given up on since the last flush
+     */
+    public void flush() {
+        if (!flush(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+            lock.lock();
+            try {
+                throwIfDeadLettered();
+            } finally {
+                lock.unlock();
+            }
+            throw new IllegalStateException("Write-behind store closed before flushing", lastFailure);
+        }
+    }
+    
+    /**
+     * Waits up to a time limit for every write made before this call to reach the backing store.
+     * 
+     * @param timeout The maximum time to wait
+     * @param unit The unit of the timeout
+     * @return true if the writes were flushed, false if the time ran out, the store was closed
+     *         first or writes were given up on since the last flush
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            long barrier = sequence;
+            flushRequested = true;
+            workAvailable.signal();
+            while (oldestPendingSequence() <= barrier) {
+                if (remaining <= 0 || (closed && !writer.isAlive())) {
+                    return false;
+                }
+                remaining = progress.awaitNanos(remaining);
+            }
+            return unreportedDeadLetters == 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Flushes all pending writes and stops the background writer.
+     * Later writes are rejected.
+     * 
+     * @throws IllegalStateException if some writes could not be flushed,
+     *         or writes were given up on since the last flush
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            workAvailable.signal();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            throwIfDeadLettered();
+            if (!pending.isEmpty()) {
+                throw new IllegalStateException(pending.size() + " writes were not flushed before closing",
+                        lastFailure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of records waiting to be written.
+     * 
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of writes accepted, including those merged into a pending write.
+     * 
+     * @return The number of writes
+     */
+    public long getWritesAccepted() {
+        lock.lock();
+        try {
+            return writesAccepted;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of writes merged into a record that was already waiting.
+     * 
+     * @return The number of backend writes saved by coalescing
+     */
+    public long getWritesCoalesced() {
+        lock.lock();
+        try {
+            return writesCoalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of batches written to the backing store.
+     * 
+     * @return The number of batches
+     */
+    public long getBatchesFlushed() {
+        lock.lock();
+        try {
+            return batchesFlushed;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of records written to the backing store.
+     * 
+     * @return The number of records
+     */
+    public long getRecordsFlushed() {
+        lock.lock();
+        try {
+            return recordsFlushed;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the average time taken to write a batch to the backing store.
+     * 
+     * @return The mean flush latency in milliseconds, or 0 if nothing has been flushed
+     */
+    public double getAverageFlushMillis() {
+        lock.lock();
+        try {
+            return batchesFlushed == 0 ? 0 : totalFlushNanos / (batchesFlushed * 1_000_000.0);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the longest time taken to write a batch to the backing store.
+     * 
+     * @return The maximum flush latency in milliseconds
+     */
+    public double getMaxFlushMillis() {
+        lock.lock();
+        try {
+            return maxFlushNanos / 1_000_000.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of batches that failed part way through.
+     * 
+     * @return The failure count
+     */
+    public long getFailureCount() {
+        lock.lock();
+        try {
+            return failures;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Gets the records whose writes were given up on after failing repeatedly,
+     * in the order they were given up on.
+     * 
+     * @return List of the films, DVDs, members and loans that were not written
+     */
+    public List<Object> getDeadLetters() {
+        lock.lock();
+        try {
+            return new ArrayList<>(deadLetters);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void enqueue(WriteKey key, Object entity, boolean update) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Write-behind store is closed");
+            }
+            long seq = ++sequence;
+            writesAccepted++;
+            
+            PendingWrite existing = pending.get(key);
+            if (existing != null) {
+                // A queued save stays a save until the flush that writes it completes
+                existing.entity = entity;
+                existing.lastSequence = seq;
+                writesCoalesced++;
+                return;
+            }
+            
+            while (pending.size() >= maxPending) {
+                if (overflowPolicy == OverflowPolicy.REJECT) {
+                    throw new IllegalStateException("Write-behind queue is full (" + maxPending + " records)");
+                }
+                workAvailable.signal();
+                spaceAvailable.awaitUninterruptibly();
+                if (closed) {
+                    throw new IllegalStateException("Write-behind store is closed");
+                }
+            }
+            
+            pending.put(key, new PendingWrite(key, entity, update, seq));
+            if (pending.size() >= batchSize) {
+                workAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void runWriter() {
+        while (true) {
+            List<PendingWrite> batch;
+            lock.lock();
+            try {
+                // Give writes a moment to coalesce unless a batch is full or someone is waiting
+                long waitNanos = flushIntervalNanos;
+                while (!closed && !flushRequested && pending.size() < batchSize && waitNanos > 0) {
+                    waitNanos = workAvailable.awaitNanos(pending.isEmpty() ? flushIntervalNanos : waitNanos);
+                    if (pending.isEmpty()) {
+                        waitNanos = flushIntervalNanos;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    flushRequested = false;
+                    progress.signalAll();
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                
+                batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+                for (PendingWrite write : pending.values()) {
+                    batch.add(write.copy());
+                    if (batch.size() == batchSize) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            
+            long start = System.nanoTime();
+            int written = 0;
+            RuntimeException failure = null;
+            for (PendingWrite write : batch) {
+                try {
+                    write.applyTo(delegate);
+                    written++;
+                } catch (RuntimeException e) {
+                    failure = e;
+                    break;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            
+            lock.lock();
+            try {
+                for (int i = 0; i < written; i++) {
+                    PendingWrite flushed = batch.get(i);
+                    PendingWrite current = pending.get(flushed.key);
+                    if (current.lastSequence == flushed.lastSequence) {
+                        pending.remove(flushed.key);
+                    } else {
+                        // Changed while being written; what is left is everything after the copy,
+                        // and the backend now has the record, so a save left behind must become an update
+                        current.firstSequence = flushed.lastSequence + 1;
+                        current.update = true;
+                    }
+                }
+                batchesFlushed++;
+                recordsFlushed += written;
+                totalFlushNanos += elapsed;
+                maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+                if (pending.isEmpty() || oldestPendingSequence() > sequence) {
+                    flushRequested = false;
+                }
+                spaceAvailable.signalAll();
+                progress.signalAll();
+                
+                if (failure != null) {
+                    failures++;
+                    lastFailure = failure;
+                    PendingWrite failed = pending.get(batch.get(written).key);
+                    if (++failed.attempts < MAX_ATTEMPTS) {
+                        System.err.println("Write-behind flush failed, will retry: " + failure.getMessage());
+                        // Retry after the interval even when closing, so close() still flushes what it can
+                        workAvailable.awaitNanos(flushIntervalNanos);
+                    } else {
+                        System.err.println("Write-behind flush failed " + MAX_ATTEMPTS
+                                + " times, giving up on " + failed.entity + ": " + failure.getMessage());
+                        pending.remove(failed.key);
+                        deadLetters.add(failed.entity);
+                        unreportedDeadLetters++;
+                        spaceAvailable.signalAll();
+                        progress.signalAll();
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Throws if writes were given up on since this was last called. Callers must hold the lock.
+     */
+    private void throwIfDeadLettered() {
+        if (unreportedDeadLetters > 0) {
+            int count = unreportedDeadLetters;
+            unreportedDeadLetters = 0;
+            throw new IllegalStateException(count + " writes were given up on after " + MAX_ATTEMPTS
+                    + " failed attempts", lastFailure);
+        }
+    }
+    
+    /**
+     * Gets the sequence number of the oldest write not yet in the backing store. Callers must hold the lock.
+     */
+    private long oldestPendingSequence() {
+        long oldest = Long.MAX_VALUE;
+        for (PendingWrite write : pending.values()) {
+            oldest = Math.min(oldest, write.firstSequence);
+        }
+        return oldest;
+    }
+    
+    private Object pendingEntity(WriteKey key) {
+        lock.lock();
+        try {
+            PendingWrite write = pending.get(key);
+            return write != null ? write.entity : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> List<T> pendingEntities(Kind kind) {
+        lock.lock();
+        try {
+            List<T> entities = new ArrayList<>();
+            for (PendingWrite write : pending.values()) {
+                if (write.key.kind == kind) {
+                    entities.add((T) write.entity);
+                }
+            }
+            return entities;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Overlays queued writes on records read from the backing store, matching
+     * them the way the queue does, so loans are matched by identity.
+     */
+    private <T> List<T> merge(List<T> stored, Kind kind, Function<T, ?> idOf) {
+        List<T> queued = pendingEntities(kind);
+        if (queued.isEmpty()) {
+            return stored;
+        }
+        Map<WriteKey, T> byKey = new LinkedHashMap<>();
+        for (T entity : stored) {
+            byKey.put(new WriteKey(kind, idOf.apply(entity)), entity);
+        }
+        for (T entity : queued) {
+            byKey.put(new WriteKey(kind, idOf.apply(entity)), entity);
+        }
+        return new ArrayList<>(byKey.values());
+    }
+    
+    private enum Kind {
+        FILM, DVD, MEMBER, LOAN
+    }
+    
+    /**
+     * Identifies the record a write is for. Loans are matched by identity,
+     * since Loan.equals cannot tell a same-day re-borrow from the original.
+     */
+    private static class WriteKey {
+        private final Kind kind;
+        private final Object id;
+        
+        WriteKey(Kind kind, Object id) {
+            this.kind = kind;
+            this.id = id;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            WriteKey that = (WriteKey) o;
+            if (kind != that.kind) return false;
+            return kind == Kind.LOAN ? id == that.id : Objects.equals(id, that.id);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * kind.hashCode() + (kind == Kind.LOAN ? System.identityHashCode(id) : id.hashCode());
+        }
+    }
+    
+    /**
+     * The latest queued state of one record, with the sequence numbers of the
+     * oldest and newest writes it holds.
+     */
+    private static class PendingWrite {
+        private final WriteKey key;
+        private boolean update;
+        private Object entity;
+        private long firstSequence;
+        private long lastSequence;
+        private int attempts;
+        
+        PendingWrite(WriteKey key, Object entity, boolean update, long sequence) {
+            this.key = key;
+            this.entity = entity;
+            this.update = update;
+            this.firstSequence = sequence;
+            this.lastSequence = sequence;
+        }
+        
+        PendingWrite copy() {
+            PendingWrite copy = new PendingWrite(key, entity, update, firstSequence);
+            copy.lastSequence = lastSequence;
+            return copy;
+        }
+        
+        void applyTo(DataStore store) {
+            switch (key.kind) {
+                case FILM:
+                    store.saveFilm((Film) entity);
+                    break;
+                case DVD:
+                    store.saveDVD((DVD) entity);
+                    break;
+                case MEMBER:
+                    store.saveMember((Member) entity);
+                    break;
+                case LOAN:
+                    if (update) {
+                        store.updateLoan((Loan) entity);
+                    } else {
+                        store.saveLoan((Loan) entity);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown record kind " + key.kind);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package edu.dvdlibrary.librarycore.events;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only log of library events with periodic in-memory checkpoints.
+ * The state of the library at the end of any day is rebuilt by copying the
+ * latest checkpoint taken on or before that day and replaying the events
+ * dated after it.
+ * 
+ * A checkpoint is taken when the first event of a new day arrives, once the
+ * events since the previous checkpoint outnumber the films, DVDs and members
+ * a checkpoint has to copy. Replaying never costs more than the copy, and
+ * checkpoints take memory in proportion to the length of the log. An event
+ * dated before an existing checkpoint (e.g. a loan entered retrospectively)
+ * discards the checkpoints it makes stale.
+ */
+public class EventLog {
+    
+    private static final int MIN_CHECKPOINT_INTERVAL = 1000;
+    
+    private final List<LibraryEvent> events = new ArrayList<>();
+    private final NavigableMap<LocalDate, List<LibraryEvent>> eventsByDate = new TreeMap<>();
+    private final NavigableMap<LocalDate, LibrarySnapshot> checkpoints = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LocalDate latestDate;
+    private int eventsSinceCheckpoint;
+    private int entityCount;
+    
+    /**
+     * Records that a film was added.
+     * 
+     * @param date The date the film was added
+     * @param filmTitle The film title
+     * @return The recorded event
+     */
+    public LibraryEvent recordFilmAdded(LocalDate date, String filmTitle) {
+        return append(date, LibraryEvent.Type.FILM_ADDED, filmTitle, null, null, null);
+    }
+    
+    /**
+     * Records that a DVD copy of a film was added.
+     * 
+     * @param date The date the copy was added
+     * @param filmTitle The film title
+     * @param dvdId The DVD ID
+     * @return The recorded event
+     */
+    public LibraryEvent recordDVDAdded(LocalDate date, String filmTitle, String dvdId) {
+        return append(date, LibraryEvent.Type.DVD_ADDED, filmTitle, dvdId, null, null);
+    }
+    
+    /**
+     * Records that a member joined.
+     * 
+     * @param date The date the member joined
+     * @param membershipNumber The membership number
+     * @param name The member's name
+     * @return The recorded event
+     */
+    public LibraryEvent recordMemberAdded(LocalDate date, String membershipNumber, String name) {
+        return append(date, LibraryEvent.Type.MEMBER_ADDED, null, null, membershipNumber, name);
+    }
+    
+    /**
+     * Records that a member borrowed a DVD.
+     * 
+     * @param date The borrow date
+     * @param dvdId The DVD ID
+     * @param membershipNumber The borrower's membership number
+     * @return The recorded event
+     */
+    public LibraryEvent recordBorrowed(LocalDate date, String dvdId, String membershipNumber) {
+        return append(date, LibraryEvent.Type.DVD_BORROWED, null, dvdId, membershipNumber, null);
+    }
+    
+    /**
+     * Records that a DVD was returned.
+     * 
+     * @param date The return date
+     * @param dvdId The DVD ID
+     * @return The recorded event
+     */
+    public LibraryEvent recordReturned(LocalDate date, String dvdId) {
+        return append(date, LibraryEvent.Type.DVD_RETURNED, null, dvdId, null, null);
+    }
+    
+    /**
+     * Rebuilds the library as it stood at the end of a day.
+     * 
+     * @param date The day to rebuild
+     * @return A read-only snapshot of that day
+     */
+    public LibrarySnapshot snapshotAsOf(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            return rebuild(date);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets every event in the order it was recorded.
+     * 
+     * @return List of events
+     */
+    public List<LibraryEvent> getEvents() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(events);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the events dated between two days (both inclusive), in date order.
+     * 
+     * @param from The earliest date to include
+     * @param to The latest date to include
+     * @return List of events
+     */
+    public List<LibraryEvent> getEvents(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            if (from.isAfter(to)) {
+                return Collections.emptyList();
+            }
+            List<LibraryEvent> result = new ArrayList<>();
+            for (List<LibraryEvent> dayEvents : eventsByDate.subMap(from, true, to, true).values()) {
+                result.addAll(dayEvents);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of events recorded.
+     * 
+     * @return The log size
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return events.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of checkpoints currently held.
+     * 
+     * @return The checkpoint count
+     */
+    public int getCheckpointCount() {
+        lock.readLock().lock();
+        try {
+            return checkpoints.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private LibraryEvent append(LocalDate date, LibraryEvent.Type type, String filmTitle,
+                                String dvdId, String membershipNumber, String memberName) {
+        lock.writeLock().lock();
+        try {
+            if (latestDate != null && date.isAfter(latestDate)
+                    && eventsSinceCheckpoint >= Math.max(MIN_CHECKPOINT_INTERVAL, entityCount)) {
+                // Every event for the previous day is in, so its state can be frozen
+                checkpoints.put(latestDate, rebuild(latestDate));
+                eventsSinceCheckpoint = 0;
+            }
+            
+            LibraryEvent event = new LibraryEvent(events.size(), date, type, filmTitle,
+                    dvdId, membershipNumber, memberName);
+            events.add(event);
+            eventsByDate.computeIfAbsent(date, key -> new ArrayList<>()).add(event);
+            
+            // A retrospective event changes every checkpoint on or after its date
+            checkpoints.tailMap(date, true).clear();
+            
+            if (latestDate == null || date.isAfter(latestDate)) {
+                latestDate = date;
+            }
+            if (type == LibraryEvent.Type.FILM_ADDED || type == LibraryEvent.Type.DVD_ADDED
+                    || type == LibraryEvent.Type.MEMBER_ADDED) {
+                entityCount++;
+            }
+            eventsSinceCheckpoint++;
+            return event;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Copies the nearest checkpoint and replays the events after it. Callers must hold the lock.
+     */
+    private LibrarySnapshot rebuild(LocalDate date) {
+        Map.Entry<LocalDate, LibrarySnapshot> checkpoint = checkpoints.floorEntry(date);
+        LibrarySnapshot snapshot;
+        NavigableMap<LocalDate, List<LibraryEvent>> toReplay;
+        if (checkpoint == null) {
+            snapshot = new LibrarySnapshot(date);
+            toReplay = eventsByDate.headMap(date, true);
+        } else {
+            snapshot = new LibrarySnapshot(checkpoint.getValue(), date);
+            toReplay = eventsByDate.subMap(checkpoint.getKey(), false, date, true);
+        }
+        
+        for (List<LibraryEvent> dayEvents : toReplay.values()) {
+            for (LibraryEvent event : dayEvents) {
+                snapshot.apply(event);
+            }
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,126 @@
+package edu.dvdlibrary.librarycore.events;
+
+import java.time.LocalDate;
+
+/**
+ * An immutable record of one change to the library.
+ * Only the fields relevant to the event's type are set; the rest are null.
+ */
+public class LibraryEvent {
+    
+    /**
+     * The kinds of change that are recorded.
+     */
+    public enum Type {
+        FILM_ADDED,
+        DVD_ADDED,
+        MEMBER_ADDED,
+        DVD_BORROWED,
+        DVD_RETURNED
+    }
+    
+    private final long sequence;
+    private final LocalDate date;
+    private final Type type;
+    private final String filmTitle;
+    private final String dvdId;
+    private final String membershipNumber;
+    private final String memberName;
+    
+    /**
+     * Creates a new event.
+     * 
+     * @param sequence The position of the event in the log
+     * @param date The date the change took effect
+     * @param type The kind of change
+     * @param filmTitle The film involved, or null
+     * @param dvdId The DVD involved, or null
+     * @param membershipNumber The member involved, or null
+     * @param memberName The member's name for MEMBER_ADDED, otherwise null
+     */
+    public LibraryEvent(long sequence, LocalDate date, Type type, String filmTitle,
+                        String dvdId, String membershipNumber, String memberName) {
+        this.sequence = sequence;
+        this.date = date;
+        this.type = type;
+        this.filmTitle = filmTitle;
+        this.dvdId = dvdId;
+        this.membershipNumber = membershipNumber;
+        this.memberName = memberName;
+    }
+    
+    /**
+     * Gets the position of this event in the log.
+     * 
+     * @return The sequence number, starting at 0
+     */
+    public long getSequence() {
+        return sequence;
+    }
+    
+    /**
+     * Gets the date the change took effect.
+     * 
+     * @return The event date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+    
+    /**
+     * Gets the kind of change.
+     * 
+     * @return The event type
+     */
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * Gets the title of the film involved.
+     * 
+     * @return The film title, or null
+     */
+    public String getFilmTitle() {
+        return filmTitle;
+    }
+    
+    /**
+     * Gets the ID of the DVD involved.
+     * 
+     * @return The DVD ID, or null
+     */
+    public String getDvdId() {
+        return dvdId;
+    }
+    
+    /**
+     * Gets the membership number of the member involved.
+     * 
+     * @return The membership number, or null
+     */
+    public String getMembershipNumber() {
+        return membershipNumber;
+    }
+    
+    /**
+     * Gets the name of a newly added member.
+     * 
+     * @return The member name, or null
+     */
+    public String getMemberName() {
+        return memberName;
+    }
+    
+    @Override
+    public String toString() {
+        return "LibraryEvent{" +
+                "sequence=" + sequence +
+                ", date=" + date +
+                ", type=" + type +
+                ", filmTitle='" + filmTitle + '\'' +
+                ", dvdId='" + dvdId + '\'' +
+                ", membershipNumber='" + membershipNumber + '\'' +
+                '}';
+    }
+}
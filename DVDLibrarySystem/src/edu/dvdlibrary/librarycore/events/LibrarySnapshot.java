@@ -0,0 +1,186 @@
+package edu.dvdlibrary.librarycore.events;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of the library's films, DVDs, members and loans as they
+ * stood at the end of a given day, rebuilt from the event log.
+ */
+public class LibrarySnapshot {
+    
+    private final LocalDate date;
+    private final Map<String, List<String>> dvdIdsByFilm;
+    private final Map<String, String> filmByDvd;
+    private final Map<String, String> memberNames;
+    private final Map<String, String> borrowerByDvd;
+    private final Map<String, LocalDate> borrowDateByDvd;
+    
+    /**
+     * Creates an empty snapshot.
+     * 
+     * @param date The day the snapshot describes
+     */
+    LibrarySnapshot(LocalDate date) {
+        this.date = date;
+        this.dvdIdsByFilm = new HashMap<>();
+        this.filmByDvd = new HashMap<>();
+        this.memberNames = new HashMap<>();
+        this.borrowerByDvd = new HashMap<>();
+        this.borrowDateByDvd = new HashMap<>();
+    }
+    
+    /**
+     * Creates a copy of another snapshot that can be rolled forward independently.
+     * 
+     * @param other The snapshot to copy
+     * @param date The day the copy will describe
+     */
+    LibrarySnapshot(LibrarySnapshot other, LocalDate date) {
+        this.date = date;
+        this.dvdIdsByFilm = new HashMap<>(other.dvdIdsByFilm.size() * 2);
+        for (Map.Entry<String, List<String>> entry : other.dvdIdsByFilm.entrySet()) {
+            dvdIdsByFilm.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        this.filmByDvd = new HashMap<>(other.filmByDvd);
+        this.memberNames = new HashMap<>(other.memberNames);
+        this.borrowerByDvd = new HashMap<>(other.borrowerByDvd);
+        this.borrowDateByDvd = new HashMap<>(other.borrowDateByDvd);
+    }
+    
+    /**
+     * Applies one event to this snapshot.
+     * Events that refer to a DVD the snapshot does not know about are ignored.
+     * 
+     * @param event The event to apply
+     */
+    void apply(LibraryEvent event) {
+        switch (event.getType()) {
+            case FILM_ADDED:
+                dvdIdsByFilm.putIfAbsent(event.getFilmTitle(), new ArrayList<>());
+                break;
+            case DVD_ADDED:
+                dvdIdsByFilm.computeIfAbsent(event.getFilmTitle(), key -> new ArrayList<>()).add(event.getDvdId());
+                filmByDvd.put(event.getDvdId(), event.getFilmTitle());
+                break;
+            case MEMBER_ADDED:
+                memberNames.put(event.getMembershipNumber(), event.getMemberName());
+                break;
+            case DVD_BORROWED:
+                if (filmByDvd.containsKey(event.getDvdId())) {
+                    borrowerByDvd.put(event.getDvdId(), event.getMembershipNumber());
+                    borrowDateByDvd.put(event.getDvdId(), event.getDate());
+                }
+                break;
+            case DVD_RETURNED:
+                borrowerByDvd.remove(event.getDvdId());
+                borrowDateByDvd.remove(event.getDvdId());
+                break;
+            default:
+                throw new IllegalStateException("Unknown event type " + event.getType());
+        }
+    }
+    
+    /**
+     * Gets the day this snapshot describes.
+     * 
+     * @return The snapshot date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+    
+    /**
+     * Gets the titles of all films in the library on the snapshot date.
+     * 
+     * @return List of film titles
+     */
+    public List<String> getFilmTitles() {
+        return new ArrayList<>(dvdIdsByFilm.keySet());
+    }
+    
+    /**
+     * Gets the IDs of a film's DVD copies on the snapshot date.
+     * 
+     * @param filmTitle The film title
+     * @return List of DVD IDs, empty if the film did not exist
+     */
+    public List<String> getDvdIds(String filmTitle) {
+        List<String> dvdIds = dvdIdsByFilm.get(filmTitle);
+        return dvdIds != null ? new ArrayList<>(dvdIds) : new ArrayList<>();
+    }
+    
+    /**
+     * Gets the number of copies of a film that were not on loan.
+     * 
+     * @param filmTitle The film title
+     * @return The number of copies on the shelf
+     */
+    public int getNumberAvailable(String filmTitle) {
+        int count = 0;
+        for (String dvdId : getDvdIds(filmTitle)) {
+            if (!borrowerByDvd.containsKey(dvdId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Gets the name of a member on the snapshot date.
+     * 
+     * @param membershipNumber The membership number
+     * @return The member's name, or null if they had not joined
+     */
+    public String getMemberName(String membershipNumber) {
+        return memberNames.get(membershipNumber);
+    }
+    
+    /**
+     * Gets who had a DVD on the snapshot date.
+     * 
+     * @param dvdId The DVD ID
+     * @return The borrower's membership number, or null if the DVD was not on loan
+     */
+    public String getBorrower(String dvdId) {
+        return borrowerByDvd.get(dvdId);
+    }
+    
+    /**
+     * Gets when the loan of a DVD that was out on the snapshot date began.
+     * 
+     * @param dvdId The DVD ID
+     * @return The borrow date, or null if the DVD was not on loan
+     */
+    public LocalDate getBorrowDate(String dvdId) {
+        return borrowDateByDvd.get(dvdId);
+    }
+    
+    /**
+     * Gets the DVDs a member had on loan on the snapshot date.
+     * 
+     * @param membershipNumber The membership number
+     * @return List of DVD IDs
+     */
+    public List<String> getDvdIdsOnLoanTo(String membershipNumber) {
+        List<String> dvdIds = new ArrayList<>();
+        for (Map.Entry<String, String> entry : borrowerByDvd.entrySet()) {
+            if (entry.getValue().equals(membershipNumber)) {
+                dvdIds.add(entry.getKey());
+            }
+        }
+        return dvdIds;
+    }
+    
+    /**
+     * Gets the number of DVDs that were on loan.
+     * 
+     * @return The number of active loans
+     */
+    public int getActiveLoanCount() {
+        return borrowerByDvd.size();
+    }
+}
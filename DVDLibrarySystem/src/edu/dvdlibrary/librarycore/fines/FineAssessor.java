@@ -0,0 +1,158 @@
+package edu.dvdlibrary.librarycore.fines;
+
+import edu.dvdlibrary.librarycore.model.Fine;
+import edu.dvdlibrary.librarycore.model.Loan;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Calculates overdue fines and writes them to a ledger.
+ * Fines are assessed when a DVD is returned late, and a nightly batch
+ * brings the fines on still-outstanding overdue loans up to date.
+ */
+public class FineAssessor {
+    
+    private static final int LOANS_PER_TASK = 8192;
+    
+    private final FineRateTable rates;
+    private final FineLedger ledger;
+    private final ForkJoinPool pool;
+    
+    /**
+     * Creates an assessor that runs batches on the common fork/join pool.
+     * 
+     * @param rates The rate table to charge by
+     * @param ledger The ledger to record fines in
+     */
+    public FineAssessor(FineRateTable rates, FineLedger ledger) {
+        this(rates, ledger, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates an assessor that runs batches on a specific pool.
+     * 
+     * @param rates The rate table to charge by
+     * @param ledger The ledger to record fines in
+     * @param pool The fork/join pool for batch runs
+     */
+    public FineAssessor(FineRateTable rates, FineLedger ledger, ForkJoinPool pool) {
+        this.rates = rates;
+        this.ledger = ledger;
+        this.pool = pool;
+    }
+    
+    /**
+     * Assesses the final fine for a loan that has just been returned.
+     * A loan returned on time owes nothing, so any fine a nightly batch
+     * recorded for it, e.g. before a return backdated to the due date, is
+     * removed.
+     * 
+     * @param loan The returned loan
+     * @return The fine recorded, or null if the loan was returned on time
+     */
+    public Fine assessOnReturn(Loan loan) {
+        if (!loan.isReturned()) {
+            throw new IllegalStateException("Loan has not been returned");
+        }
+        Fine fine = assess(loan, loan.getReturnDate());
+        if (fine == null) {
+            ledger.remove(loan);
+        }
+        return fine;
+    }
+    
+    /**
+     * Brings the fines on all overdue, unreturned loans up to date.
+     * The loan list is split into chunks processed in parallel; if the time
+     * budget runs out, remaining chunks are skipped and the result reports
+     * that the run did not complete. Re-running is safe since each loan's
+     * fine is replaced rather than added to.
+     * 
+     * @param loans The active loans to scan (any returned since the list was taken are skipped)
+     * @param assessmentDate The date to calculate fines as of
+     * @param budget The maximum time to spend
+     * @return A summary of the run
+     */
+    public FineBatchResult assessOverdue(List<Loan> loans, LocalDate assessmentDate, Duration budget) {
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        
+        long[] totals = pool.invoke(new BatchTask(loans, 0, loans.size(), assessmentDate, deadline));
+        
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new FineBatchResult(totals[0], totals[1], totals[2], elapsedMillis, totals[0] == loans.size());
+    }
+    
+    private Fine assess(Loan loan, LocalDate asOf) {
+        long overdueDays = ChronoUnit.DAYS.between(loan.getDueDate(), asOf);
+        if (overdueDays <= 0) {
+            return null;
+        }
+        int days = (int) Math.min(overdueDays, Integer.MAX_VALUE);
+        long amount = rates.fineFor(days);
+        if (amount == 0) {
+            return null;
+        }
+        Fine fine = new Fine(loan, amount, days, asOf);
+        ledger.record(fine);
+        return fine;
+    }
+    
+    /**
+     * Assesses a slice of the loan list, returning {scanned, fined, total cents}.
+     */
+    private class BatchTask extends RecursiveTask<long[]> {
+        private final List<Loan> loans;
+        private final int from;
+        private final int to;
+        private final LocalDate assessmentDate;
+        private final long deadline;
+        
+        BatchTask(List<Loan> loans, int from, int to, LocalDate assessmentDate, long deadline) {
+            this.loans = loans;
+            this.from = from;
+            this.to = to;
+            this.assessmentDate = assessmentDate;
+            this.deadline = deadline;
+        }
+        
+        @Override
+        protected long[] compute() {
+            if (System.nanoTime() > deadline) {
+                return new long[3];
+            }
+            
+            if (to - from > LOANS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                BatchTask left = new BatchTask(loans, from, mid, assessmentDate, deadline);
+                left.fork();
+                long[] right = new BatchTask(loans, mid, to, assessmentDate, deadline).compute();
+                long[] leftTotals = left.join();
+                return new long[]{
+                        leftTotals[0] + right[0],
+                        leftTotals[1] + right[1],
+                        leftTotals[2] + right[2]
+                };
+            }
+            
+            long fined = 0;
+            long totalCents = 0;
+            for (int i = from; i < to; i++) {
+                Loan loan = loans.get(i);
+                if (loan.isOverdue(assessmentDate)) {
+                    Fine fine = assess(loan, assessmentDate);
+                    if (fine != null) {
+                        fined++;
+                        totalCents += fine.getAmountCents();
+                    }
+                }
+            }
+            return new long[]{to - from, fined, totalCents};
+        }
+    }
+}
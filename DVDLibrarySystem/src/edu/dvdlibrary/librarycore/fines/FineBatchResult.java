@@ -0,0 +1,88 @@
+package edu.dvdlibrary.librarycore.fines;
+
+import edu.dvdlibrary.librarycore.model.Fine;
+
+/**
+ * Summary of a nightly fine assessment run.
+ */
+public class FineBatchResult {
+    private final long loansScanned;
+    private final long finesAssessed;
+    private final long totalAccruedCents;
+    private final long elapsedMillis;
+    private final boolean completed;
+    
+    /**
+     * Creates a new batch result.
+     * 
+     * @param loansScanned The number of loans examined
+     * @param finesAssessed The number of overdue loans that were fined
+     * @param totalAccruedCents The total of the fines assessed, in cents
+     * @param elapsedMillis The time the run took
+     * @param completed false if the run stopped early because it hit its time budget
+     */
+    public FineBatchResult(long loansScanned, long finesAssessed, long totalAccruedCents,
+                           long elapsedMillis, boolean completed) {
+        this.loansScanned = loansScanned;
+        this.finesAssessed = finesAssessed;
+        this.totalAccruedCents = totalAccruedCents;
+        this.elapsedMillis = elapsedMillis;
+        this.completed = completed;
+    }
+    
+    /**
+     * Gets the number of loans examined.
+     * 
+     * @return The number of loans scanned
+     */
+    public long getLoansScanned() {
+        return loansScanned;
+    }
+    
+    /**
+     * Gets the number of overdue loans that were fined.
+     * 
+     * @return The number of fines assessed
+     */
+    public long getFinesAssessed() {
+        return finesAssessed;
+    }
+    
+    /**
+     * Gets the total of the fines assessed.
+     * 
+     * @return The total in cents
+     */
+    public long getTotalAccruedCents() {
+        return totalAccruedCents;
+    }
+    
+    /**
+     * Gets how long the run took.
+     * 
+     * @return The elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    /**
+     * Checks whether every loan was examined before the time budget ran out.
+     * 
+     * @return true if the run finished, false if it stopped early
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+    
+    @Override
+    public String toString() {
+        return "FineBatchResult{" +
+                "loansScanned=" + loansScanned +
+                ", finesAssessed=" + finesAssessed +
+                ", totalAccrued=" + Fine.formatAmount(totalAccruedCents) +
+                ", elapsedMillis=" + elapsedMillis +
+                ", completed=" + completed +
+                '}';
+    }
+}
@@ -0,0 +1,129 @@
+package edu.dvdlibrary.librarycore.fines;
+
+import edu.dvdlibrary.librarycore.model.Fine;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-member ledger of fines, safe for concurrent writers.
+ * Each loan has at most one entry: re-assessing a loan replaces its fine,
+ * so the nightly batch can run repeatedly without double charging. Entries
+ * are kept per loan object, since a DVD borrowed again on the day it came
+ * back makes a loan equal to the earlier one. The fine assessed when a loan
+ * is returned is final; a nightly assessment of the same loan that finishes
+ * after the return does not replace it. A loan returned on time has its
+ * fine removed instead.
+ */
+public class FineLedger {
+    
+    private final ConcurrentHashMap<String, MemberAccount> accounts = new ConcurrentHashMap<>();
+    
+    /**
+     * Records a fine, replacing any earlier fine for the same loan unless
+     * the loan has been returned and this is not its final fine.
+     * 
+     * @param fine The fine to record
+     */
+    public void record(Fine fine) {
+        accounts.computeIfAbsent(fine.getMember().getMembershipNumber(), key -> new MemberAccount())
+                .record(fine);
+    }
+    
+    /**
+     * Removes the fine recorded for a loan, taking it off the member's balance.
+     * 
+     * @param loan The loan
+     * @return The fine removed, or null if none was recorded
+     */
+    public Fine remove(Loan loan) {
+        MemberAccount account = accounts.get(loan.getMember().getMembershipNumber());
+        return account != null ? account.remove(loan) : null;
+    }
+    
+    /**
+     * Gets the total fines owed by a member, in cents.
+     * 
+     * @param member The member
+     * @return The balance in cents
+     */
+    public long getBalance(Member member) {
+        MemberAccount account = accounts.get(member.getMembershipNumber());
+        return account != null ? account.getBalance() : 0;
+    }
+    
+    /**
+     * Gets a member's fines, oldest loan first.
+     * 
+     * @param member The member
+     * @return List of fines
+     */
+    public List<Fine> getFines(Member member) {
+        MemberAccount account = accounts.get(member.getMembershipNumber());
+        if (account == null) {
+            return new ArrayList<>();
+        }
+        List<Fine> fines = account.getFines();
+        fines.sort(Comparator.comparing((Fine fine) -> fine.getLoan().getBorrowDate()));
+        return fines;
+    }
+    
+    /**
+     * Finds the fine recorded for a loan.
+     * 
+     * @param loan The loan
+     * @return The fine or null if none has been recorded
+     */
+    public Fine findFine(Loan loan) {
+        MemberAccount account = accounts.get(loan.getMember().getMembershipNumber());
+        return account != null ? account.findFine(loan) : null;
+    }
+    
+    /**
+     * A single member's fines and running balance.
+     */
+    private static class MemberAccount {
+        private final Map<Loan, Fine> finesByLoan = new IdentityHashMap<>();
+        private long balance;
+        
+        synchronized void record(Fine fine) {
+            Loan loan = fine.getLoan();
+            if (loan.isReturned() && !isFinal(fine)) {
+                return;
+            }
+            Fine previous = finesByLoan.put(loan, fine);
+            long previousAmount = previous != null ? previous.getAmountCents() : 0;
+            balance += fine.getAmountCents() - previousAmount;
+        }
+        
+        synchronized Fine remove(Loan loan) {
+            Fine removed = finesByLoan.remove(loan);
+            if (removed != null) {
+                balance -= removed.getAmountCents();
+            }
+            return removed;
+        }
+        
+        synchronized long getBalance() {
+            return balance;
+        }
+        
+        synchronized List<Fine> getFines() {
+            return new ArrayList<>(finesByLoan.values());
+        }
+        
+        synchronized Fine findFine(Loan loan) {
+            return finesByLoan.get(loan);
+        }
+        
+        private static boolean isFinal(Fine fine) {
+            return fine.getAssessedDate().equals(fine.getLoan().getReturnDate());
+        }
+    }
+}
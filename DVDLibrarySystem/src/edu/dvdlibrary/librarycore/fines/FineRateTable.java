@@ -0,0 +1,86 @@
+package edu.dvdlibrary.librarycore.fines;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Configurable schedule of overdue fine rates.
+ * Rates are tiered by how long a loan has been overdue: each tier sets the
+ * daily rate from its first overdue day until the next tier starts. An
+ * optional cap limits the fine for a single loan.
+ */
+public class FineRateTable {
+    
+    private final TreeMap<Integer, Long> dailyRateByFirstDay = new TreeMap<>();
+    private final int graceDays;
+    private final long maxFineCents;
+    
+    /**
+     * Creates an empty rate table.
+     * 
+     * @param graceDays The number of overdue days that are not charged
+     * @param maxFineCents The maximum fine for a single loan in cents, or 0 for no cap
+     */
+    public FineRateTable(int graceDays, long maxFineCents) {
+        if (graceDays < 0) {
+            throw new IllegalArgumentException("Grace days cannot be negative");
+        }
+        if (maxFineCents < 0) {
+            throw new IllegalArgumentException("Maximum fine cannot be negative");
+        }
+        this.graceDays = graceDays;
+        this.maxFineCents = maxFineCents;
+    }
+    
+    /**
+     * Creates the standard rate table: 50 cents a day for the first week
+     * overdue, 1.00 a day after that, capped at 20.00 per loan.
+     * 
+     * @return The standard rate table
+     */
+    public static FineRateTable standard() {
+        return new FineRateTable(0, 2000)
+                .withTier(1, 50)
+                .withTier(8, 100);
+    }
+    
+    /**
+     * Adds a rate tier.
+     * 
+     * @param firstOverdueDay The first overdue day (1-based) charged at this rate
+     * @param centsPerDay The daily rate in cents
+     * @return This table, for chaining
+     */
+    public FineRateTable withTier(int firstOverdueDay, long centsPerDay) {
+        if (firstOverdueDay < 1) {
+            throw new IllegalArgumentException("Tiers start on overdue day 1 or later");
+        }
+        if (centsPerDay < 0) {
+            throw new IllegalArgumentException("Daily rate cannot be negative");
+        }
+        dailyRateByFirstDay.put(firstOverdueDay, centsPerDay);
+        return this;
+    }
+    
+    /**
+     * Calculates the fine for a loan that is overdue by the given number of days.
+     * 
+     * @param overdueDays The number of days past the due date
+     * @return The fine in cents
+     */
+    public long fineFor(int overdueDays) {
+        int chargedUntil = overdueDays;
+        long total = 0;
+        Map.Entry<Integer, Long> tier = dailyRateByFirstDay.firstEntry();
+        while (tier != null && tier.getKey() <= chargedUntil) {
+            Map.Entry<Integer, Long> next = dailyRateByFirstDay.higherEntry(tier.getKey());
+            int tierStart = Math.max(tier.getKey(), graceDays + 1);
+            int tierEnd = next != null ? Math.min(next.getKey() - 1, chargedUntil) : chargedUntil;
+            if (tierEnd >= tierStart) {
+                total += (long) (tierEnd - tierStart + 1) * tier.getValue();
+            }
+            tier = next;
+        }
+        return maxFineCents > 0 ? Math.min(total, maxFineCents) : total;
+    }
+}
@@ -0,0 +1,257 @@
+package edu.dvdlibrary.librarycore.index;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Which DVDs are on loan and how many copies of each film are on the shelf,
+ * kept as compressed bitmaps so that availability searches and stock counts
+ * never have to look at individual discs.
+ * <p>
+ * Every film and DVD gets a small int id in the order it is first seen. One
+ * bitmap holds the ids of the DVDs on loan and each film has a bitmap of its
+ * copies. Availability is range-encoded over films: the k-th "at least"
+ * bitmap holds every film with k or more copies on the shelf, so a borrow
+ * takes the film out of one bitmap and a return puts it back into one, and
+ * "between min and max available" is one bitmap minus another. Stock totals
+ * are cardinalities of these bitmaps.
+ * <p>
+ * Updates read the DVD's current loan state rather than being told what
+ * changed, so a borrow and a return racing to update the index leave it
+ * matching the DVD whichever arrives last.
+ */
+public class AvailabilityIndex {
+    
+    private final Map<Film, Integer> filmIds = new HashMap<>();
+    private final Map<String, Integer> dvdIds = new HashMap<>();
+    private final List<Film> films = new ArrayList<>();
+    private final List<DVD> dvds = new ArrayList<>();
+    private final List<CompressedBitmap> copies = new ArrayList<>();
+    private int[] available = new int[16];
+    
+    private final CompressedBitmap allFilms = new CompressedBitmap();
+    private final CompressedBitmap filmsWithCopies = new CompressedBitmap();
+    private final CompressedBitmap onLoan = new CompressedBitmap();
+    // atLeast.get(k - 1) holds the films with at least k copies on the shelf
+    private final List<CompressedBitmap> atLeast = new ArrayList<>();
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * Adds a film, with no copies, to the index.
+     * 
+     * @param film The film to add
+     */
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            filmId(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Adds a DVD copy to the index, on loan or not as it currently is.
+     * Adding a DVD that is already indexed just refreshes its loan state.
+     * 
+     * @param dvd The DVD to add
+     */
+    public void addDVD(DVD dvd) {
+        lock.writeLock().lock();
+        try {
+            index(dvd);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Adds many films and all of their copies, e.g. when loading from a data store.
+     * 
+     * @param films The films to add
+     */
+    public void addAll(Collection<Film> films) {
+        lock.writeLock().lock();
+        try {
+            for (Film film : films) {
+                filmId(film);
+                for (DVD dvd : film.getDvdCopies()) {
+                    index(dvd);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Records that a DVD has been borrowed or returned. Call it after the DVD's
+     * own loan state has changed.
+     * 
+     * @param dvd The DVD whose loan state changed
+     */
+    public void update(DVD dvd) {
+        addDVD(dvd);
+    }
+    
+    /**
+     * Gets the films with a number of copies on the shelf in a range.
+     * 
+     * @param min The fewest copies available, inclusive
+     * @param max The most copies available, inclusive
+     * @return The matching films, in no particular order
+     */
+    public List<Film> filmsAvailableBetween(int min, int max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Invalid availability range: " + min + " to " + max);
+        }
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matches = min == 0 ? allFilms : atLeast(min);
+            if (matches == null) {
+                return new ArrayList<>();
+            }
+            CompressedBitmap tooMany = max == Integer.MAX_VALUE ? null : atLeast(max + 1);
+            if (tooMany != null) {
+                matches = matches.andNot(tooMany);
+            }
+            List<Film> results = new ArrayList<>();
+            matches.forEach(id -> results.add(films.get(id)));
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the DVDs on loan.
+     * 
+     * @param film The film whose copies to check, or null for every film
+     * @return The DVDs on loan, in the order they were added to the index
+     */
+    public List<DVD> dvdsOnLoan(Film film) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matches = onLoan;
+            if (film != null) {
+                Integer filmId = filmIds.get(film);
+                if (filmId == null) {
+                    return new ArrayList<>();
+                }
+                matches = copies.get(filmId).and(onLoan);
+            }
+            List<DVD> results = new ArrayList<>(matches.cardinality());
+            matches.forEach(id -> results.add(dvds.get(id)));
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the number of copies of a film on the shelf.
+     * 
+     * @param film The film to check
+     * @return The number of copies not on loan, or 0 for a film not in the index
+     */
+    public int countAvailable(Film film) {
+        lock.readLock().lock();
+        try {
+            Integer filmId = filmIds.get(film);
+            return filmId == null ? 0 : available[filmId];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the stock totals for the whole library.
+     * 
+     * @return The counts, all taken at the same moment
+     */
+    public InventoryCounts counts() {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap someAvailable = atLeast(1);
+            int withCopies = filmsWithCopies.cardinality();
+            int filmCount = allFilms.cardinality();
+            return new InventoryCounts(filmCount, dvds.size(), onLoan.cardinality(),
+                    withCopies - (someAvailable == null ? 0 : someAvailable.cardinality()),
+                    filmCount - withCopies);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private int filmId(Film film) {
+        Integer id = filmIds.get(film);
+        if (id != null) {
+            return id;
+        }
+        int filmId = films.size();
+        filmIds.put(film, filmId);
+        films.add(film);
+        copies.add(new CompressedBitmap());
+        if (filmId == available.length) {
+            available = Arrays.copyOf(available, filmId * 2);
+        }
+        allFilms.add(filmId);
+        return filmId;
+    }
+    
+    private void index(DVD dvd) {
+        int filmId = filmId(dvd.getFilm());
+        Integer id = dvdIds.get(dvd.getDvdId());
+        int dvdId;
+        boolean wasOnLoan;
+        if (id == null) {
+            dvdId = dvds.size();
+            dvdIds.put(dvd.getDvdId(), dvdId);
+            dvds.add(dvd);
+            copies.get(filmId).add(dvdId);
+            filmsWithCopies.add(filmId);
+            // A new copy counts as returned to the shelf until its loan state is applied
+            wasOnLoan = true;
+            onLoan.add(dvdId);
+        } else {
+            dvdId = id;
+            wasOnLoan = onLoan.contains(dvdId);
+        }
+        boolean isOnLoan = dvd.isOnLoan();
+        if (wasOnLoan == isOnLoan) {
+            return;
+        }
+        if (isOnLoan) {
+            onLoan.add(dvdId);
+            atLeast(available[filmId]).remove(filmId);
+            available[filmId]--;
+        } else {
+            onLoan.remove(dvdId);
+            available[filmId]++;
+            if (available[filmId] > atLeast.size()) {
+                atLeast.add(new CompressedBitmap());
+            }
+            atLeast(available[filmId]).add(filmId);
+        }
+    }
+    
+    /**
+     * Gets the films with at least a number of copies available.
+     * 
+     * @param count The number of copies, at least 1
+     * @return The bitmap, or null if no film has ever had that many on the shelf
+     */
+    private CompressedBitmap atLeast(int count) {
+        return count <= atLeast.size() ? atLeast.get(count - 1) : null;
+    }
+}
@@ -0,0 +1,125 @@
+package edu.dvdlibrary.librarycore.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of the bitmaps behind AvailabilityIndex at tens of millions of
+ * discs, more than fit in memory as DVD objects. It builds the same bitmaps
+ * the index keeps, the discs on loan and the range-encoded "at least k
+ * available" films, straight from disc and film ids, then reports their
+ * size and times stock counts, availability range differences and the bit
+ * flips a borrow or return makes.
+ * <p>
+ * Lives in the index package because CompressedBitmap is package-private.
+ * AvailabilityBenchmark in the load package measures the whole index over
+ * DVD objects.
+ * <pre>
+ * java -Xmx2g edu.dvdlibrary.librarycore.index.CompressedBitmapBenchmark --discs=40000000 --films=4000000
+ * </pre>
+ */
+public class CompressedBitmapBenchmark {
+    
+    /**
+     * Runs the benchmark and prints the results.
+     * 
+     * @param args Options: --discs=40000000 --films=4000000 --onloan=30 (percent) --runs=5
+     *             --updates=1000000 --seed=1
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        int discCount = Integer.parseInt(options.getOrDefault("discs", "40000000"));
+        int filmCount = Integer.parseInt(options.getOrDefault("films", "4000000"));
+        int onLoanPercent = Integer.parseInt(options.getOrDefault("onloan", "30"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int updates = Integer.parseInt(options.getOrDefault("updates", "1000000"));
+        SplittableRandom random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "1")));
+        
+        long start = System.nanoTime();
+        CompressedBitmap onLoan = new CompressedBitmap();
+        int[] filmOf = new int[discCount];
+        int[] available = new int[filmCount];
+        for (int disc = 0; disc < discCount; disc++) {
+            filmOf[disc] = random.nextInt(filmCount);
+            if (random.nextInt(100) < onLoanPercent) {
+                onLoan.add(disc);
+            } else {
+                available[filmOf[disc]]++;
+            }
+        }
+        List<CompressedBitmap> atLeast = new ArrayList<>();
+        for (int film = 0; film < filmCount; film++) {
+            for (int k = 1; k <= available[film]; k++) {
+                if (k > atLeast.size()) {
+                    atLeast.add(new CompressedBitmap());
+                }
+                atLeast.get(k - 1).add(film);
+            }
+        }
+        long bytes = onLoan.sizeInBytes();
+        for (CompressedBitmap bitmap : atLeast) {
+            bytes += bitmap.sizeInBytes();
+        }
+        System.out.printf("Built bitmaps for %,d discs (%,d on loan) of %,d films in %.1f s: %,d bitmaps, %.1f MB%n",
+                discCount, onLoan.cardinality(), filmCount, (System.nanoTime() - start) / 1e9,
+                atLeast.size() + 1, bytes / 1e6);
+        
+        for (int run = 0; run <= runs; run++) {
+            start = System.nanoTime();
+            int discsOnLoan = onLoan.cardinality();
+            int filmsAvailable = atLeast.get(0).cardinality();
+            double countMicros = (System.nanoTime() - start) / 1e3;
+            StringBuilder line = new StringBuilder(String.format("%-7s counts %.1f us (%,d on loan, %,d films on the shelf)",
+                    run == 0 ? "warmup" : "run " + run, countMicros, discsOnLoan, filmsAvailable));
+            // Films with exactly k copies available: at least k, minus at least k + 1
+            for (int k : new int[]{1, 3, 6}) {
+                if (k >= atLeast.size()) {
+                    continue;
+                }
+                start = System.nanoTime();
+                CompressedBitmap exactly = atLeast.get(k - 1).andNot(atLeast.get(k));
+                line.append(String.format("   exactly %d: %,d films %.2f ms", k, exactly.cardinality(),
+                        (System.nanoTime() - start) / 1e6));
+            }
+            System.out.println(line);
+        }
+        
+        // A borrow moves a disc into the on-loan bitmap and its film down one "at least" level; a return undoes it
+        int[] discs = new int[updates];
+        for (int i = 0; i < updates; i++) {
+            discs[i] = random.nextInt(discCount);
+        }
+        start = System.nanoTime();
+        for (int disc : discs) {
+            int film = filmOf[disc];
+            if (onLoan.contains(disc)) {
+                onLoan.remove(disc);
+                available[film]++;
+                if (available[film] > atLeast.size()) {
+                    atLeast.add(new CompressedBitmap());
+                }
+                atLeast.get(available[film] - 1).add(film);
+            } else {
+                onLoan.add(disc);
+                atLeast.get(available[film] - 1).remove(film);
+                available[film]--;
+            }
+        }
+        System.out.printf("Borrow/return bit flips: %.3f us each%n", (System.nanoTime() - start) / 1e3 / updates);
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Unexpected argument '" + arg + "'");
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,337 @@
+package edu.dvdlibrary.librarycore.index;
+
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.TitleNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant film title index, so that "Intersteller" finds
+ * "Interstellar". Titles are kept in order of their normalized search keys
+ * and searched as if they were a trie: one row of the Levenshtein table is
+ * computed per title character, titles that share a prefix share its rows,
+ * and once a prefix cannot lead to a match the titles under it are skipped,
+ * stepping over a short run or seeking past a long one.
+ * <p>
+ * A title within k edits of the query has one half of the query within k/2
+ * edits of the matching part of the title, so every search runs twice: once
+ * over the titles holding the first half of the query to k/2 edits, and once
+ * over the reversed titles doing the same for the second half. Holding half
+ * the query to fewer edits prunes most prefixes within a few characters, so
+ * the work done depends on how many titles are actually near the query
+ * rather than on the size of the catalogue.
+ * <p>
+ * Matches are ranked by edit distance, then by how often the film has been
+ * borrowed, then by title.
+ */
+public class FuzzyTitleIndex {
+    
+    private static final int MAX_DISTANCE = 2;
+    private static final int SKIP_BEFORE_SEEK = 8;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, List<Film>> titles = new TreeMap<>();
+    private final NavigableMap<String, List<Film>> reversedTitles = new TreeMap<>();
+    private final Map<String, AtomicInteger> borrowCounts = new ConcurrentHashMap<>();
+    private int size;
+    
+    /**
+     * Adds a film's title to the index.
+     * 
+     * @param film The film to add
+     */
+    public void add(Film film) {
+        String key = film.getSearchKey();
+        lock.writeLock().lock();
+        try {
+            List<Film> films = titles.get(key);
+            if (films == null) {
+                films = new ArrayList<>(1);
+                titles.put(key, films);
+                reversedTitles.put(reverse(key), films);
+            }
+            films.add(film);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Adds many films, e.g. when loading from a data store.
+     * 
+     * @param films The films to add
+     */
+    public void addAll(Collection<Film> films) {
+        for (Film film : films) {
+            add(film);
+        }
+    }
+    
+    /**
+     * Counts a borrow of a film towards its popularity.
+     * 
+     * @param film The film borrowed
+     */
+    public void recordBorrow(Film film) {
+        borrowCounts.computeIfAbsent(film.getTitle(), title -> new AtomicInteger()).incrementAndGet();
+    }
+    
+    /**
+     * Finds the titles closest to a query, allowing more typos in longer
+     * queries: none up to 3 characters, 1 up to 5 and 2 beyond. Each extra
+     * edit multiplies the number of prefixes a search has to follow, so two
+     * is the most ever allowed by default.
+     * 
+     * @param query The title as typed
+     * @param limit The maximum number of films to return
+     * @return The closest films, best first
+     */
+    public List<Film> search(String query, int limit) {
+        return search(query, maxDistanceFor(TitleNormalizer.normalize(query).length()), limit);
+    }
+    
+    /**
+     * Finds the titles within an edit distance of a query.
+     * 
+     * @param query The title as typed
+     * @param maxDistance The most insertions, deletions and substitutions to allow
+     * @param limit The maximum number of films to return
+     * @return The matching films, best first
+     */
+    public List<Film> search(String query, int maxDistance, int limit) {
+        if (maxDistance < 0 || limit < 0) {
+            throw new IllegalArgumentException("Distance and limit cannot be negative");
+        }
+        String key = TitleNormalizer.normalize(query);
+        String reversedKey = reverse(key);
+        int half = key.length() / 2;
+        
+        Map<List<Film>, Integer> found = new IdentityHashMap<>();
+        lock.readLock().lock();
+        try {
+            walk(titles, key, half, maxDistance, found);
+            walk(reversedTitles, reversedKey, key.length() - half, maxDistance, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<List<Film>, Integer> entry : found.entrySet()) {
+            for (Film film : entry.getKey()) {
+                matches.add(new Match(film, entry.getValue(), popularityOf(film)));
+            }
+        }
+        matches.sort(Comparator.comparingInt((Match match) -> match.distance)
+                .thenComparing(match -> -match.popularity)
+                .thenComparing(match -> match.film.getTitle()));
+        List<Film> films = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            films.add(matches.get(i).film);
+        }
+        return films;
+    }
+    
+    /**
+     * Gets the number of films indexed.
+     * 
+     * @return The film count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the edit distance allowed for a query of a given length.
+     * 
+     * @param length The query length
+     * @return The maximum distance to search within
+     */
+    static int maxDistanceFor(int length) {
+        if (length <= 3) {
+            return 0;
+        }
+        return length <= 5 ? 1 : MAX_DISTANCE;
+    }
+    
+    /**
+     * Finds the titles within maxDistance of a key whose first anchor
+     * characters match some prefix of the title within maxDistance / 2.
+     * 
+     * @param map The titles to search, keyed the same way round as the key
+     * @param key The query
+     * @param anchor The length of the part of the key held to fewer edits
+     * @param maxDistance The most edits to allow overall
+     * @param found Receives each matching film list and its distance
+     */
+    private static void walk(NavigableMap<String, List<Film>> map, String key, int anchor,
+            int maxDistance, Map<List<Film>, Integer> found) {
+        int anchorDistance = maxDistance / 2;
+        int width = key.length() + 1;
+        // rows[d] holds the distances from the first d characters of the current title;
+        // no prefix longer than the key by more than maxDistance survives pruning
+        int[][] rows = new int[key.length() + maxDistance + 2][];
+        rows[0] = new int[width];
+        for (int j = 0; j < width; j++) {
+            rows[0][j] = j;
+        }
+        int unanchored = Integer.MAX_VALUE;
+        int initialAnchor = anchor <= anchorDistance ? 0 : unanchored;
+        // The shallowest depth at which the current title's prefix matched the anchor
+        int anchoredAt = initialAnchor;
+        
+        Iterator<Map.Entry<String, List<Film>>> entries = map.entrySet().iterator();
+        String previous = "";
+        int validRows = 0;
+        int prunedLength = -1;
+        int skipped = 0;
+        while (entries.hasNext()) {
+            Map.Entry<String, List<Film>> entry = entries.next();
+            String title = entry.getKey();
+            int common = commonPrefixLength(previous, title);
+            if (prunedLength >= 0 && common >= prunedLength) {
+                // Still under a pruned prefix: step over a few titles, seek past a long run
+                if (++skipped < SKIP_BEFORE_SEEK) {
+                    continue;
+                }
+                String next = successorOfPrefix(title, prunedLength);
+                if (next == null) {
+                    break;
+                }
+                entries = map.tailMap(next, true).entrySet().iterator();
+                skipped = 0;
+                continue;
+            }
+            prunedLength = -1;
+            skipped = 0;
+            int depth = Math.min(validRows, common);
+            if (anchoredAt > depth) {
+                anchoredAt = initialAnchor;
+            }
+            while (depth < title.length()) {
+                boolean anchored = anchoredAt <= depth;
+                // Until anchored, only the columns up to the anchor can still lead to a match
+                int min = nextRow(rows, depth, title.charAt(depth), key, anchored ? width : anchor + 1);
+                depth++;
+                if (!anchored && rows[depth][anchor] <= anchorDistance) {
+                    anchoredAt = depth;
+                    anchored = true;
+                    min = Math.min(min, rowMin(rows[depth]));
+                }
+                if (min > (anchored ? maxDistance : anchorDistance)) {
+                    prunedLength = depth;
+                    break;
+                }
+            }
+            previous = title;
+            validRows = depth;
+            if (prunedLength < 0) {
+                int distance = rows[depth][key.length()];
+                if (distance <= maxDistance) {
+                    found.put(entry.getValue(), distance);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Fills in rows[depth + 1] for one more title character.
+     * 
+     * @return The smallest distance among the first columns entries of the new row
+     */
+    private static int nextRow(int[][] rows, int depth, char c, String key, int columns) {
+        int[] above = rows[depth];
+        int[] row = rows[depth + 1];
+        if (row == null) {
+            row = new int[above.length];
+            rows[depth + 1] = row;
+        }
+        row[0] = depth + 1;
+        int min = row[0];
+        for (int j = 1; j < row.length; j++) {
+            int cost = key.charAt(j - 1) == c ? 0 : 1;
+            int value = Math.min(Math.min(above[j] + 1, row[j - 1] + 1), above[j - 1] + cost);
+            row[j] = value;
+            if (j < columns && value < min) {
+                min = value;
+            }
+        }
+        return min;
+    }
+    
+    private static int rowMin(int[] row) {
+        int min = row[0];
+        for (int value : row) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+    
+    private static int commonPrefixLength(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * Gets the smallest string after every string starting with the first
+     * length characters of a title, or null if there is none.
+     */
+    private static String successorOfPrefix(String title, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            char c = title.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return title.substring(0, i) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+    
+    private int popularityOf(Film film) {
+        AtomicInteger count = borrowCounts.get(film.getTitle());
+        return count == null ? 0 : count.get();
+    }
+    
+    private static String reverse(String key) {
+        char[] chars = new char[key.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = key.charAt(chars.length - 1 - i);
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * A film found by a search.
+     */
+    private static class Match {
+        final Film film;
+        final int distance;
+        final int popularity;
+        
+        Match(Film film, int distance, int popularity) {
+            this.film = film;
+            this.distance = distance;
+            this.popularity = popularity;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package edu.dvdlibrary.librarycore.index;
+
+/**
+ * Stock totals for the whole library, taken at one moment.
+ */
+public class InventoryCounts {
+    private final int films;
+    private final int discs;
+    private final int discsOnLoan;
+    private final int filmsAllOnLoan;
+    private final int filmsWithoutCopies;
+    
+    /**
+     * Creates a new set of counts.
+     * 
+     * @param films The number of films in the catalogue
+     * @param discs The number of DVD copies
+     * @param discsOnLoan The number of DVD copies on loan
+     * @param filmsAllOnLoan The number of films with copies, none of them on the shelf
+     * @param filmsWithoutCopies The number of films with no copies at all
+     */
+    public InventoryCounts(int films, int discs, int discsOnLoan, int filmsAllOnLoan, int filmsWithoutCopies) {
+        this.films = films;
+        this.discs = discs;
+        this.discsOnLoan = discsOnLoan;
+        this.filmsAllOnLoan = filmsAllOnLoan;
+        this.filmsWithoutCopies = filmsWithoutCopies;
+    }
+    
+    /**
+     * Gets the number of films in the catalogue.
+     * 
+     * @return The number of films
+     */
+    public int getFilms() {
+        return films;
+    }
+    
+    /**
+     * Gets the number of DVD copies in the library.
+     * 
+     * @return The number of discs
+     */
+    public int getDiscs() {
+        return discs;
+    }
+    
+    /**
+     * Gets the number of DVD copies on loan.
+     * 
+     * @return The number of discs on loan
+     */
+    public int getDiscsOnLoan() {
+        return discsOnLoan;
+    }
+    
+    /**
+     * Gets the number of DVD copies on the shelf.
+     * 
+     * @return The number of discs available
+     */
+    public int getDiscsAvailable() {
+        return discs - discsOnLoan;
+    }
+    
+    /**
+     * Gets the number of films that have copies but none on the shelf.
+     * 
+     * @return The number of films with every copy on loan
+     */
+    public int getFilmsAllOnLoan() {
+        return filmsAllOnLoan;
+    }
+    
+    /**
+     * Gets the number of films with no DVD copies.
+     * 
+     * @return The number of films without copies
+     */
+    public int getFilmsWithoutCopies() {
+        return filmsWithoutCopies;
+    }
+    
+    @Override
+    public String toString() {
+        return "InventoryCounts{" +
+                "films=" + films +
+                ", discs=" + discs +
+                ", discsOnLoan=" + discsOnLoan +
+                ", filmsAllOnLoan=" + filmsAllOnLoan +
+                ", filmsWithoutCopies=" + filmsWithoutCopies +
+                '}';
+    }
+}
@@ -0,0 +1,124 @@
+package edu.dvdlibrary.librarycore.index;
+
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Per-member index of every loan ever made, ordered by borrow date.
+ * Unlike Member's current loans, returned loans are kept so that past
+ * borrowing can be queried without scanning the whole loan list.
+ */
+public class LoanHistoryIndex {
+
+    private final Map<String, MemberHistory> histories = new HashMap<>();
+
+    /**
+     * Records a new loan in the borrowing member's history.
+     *
+     * @param loan The loan to record
+     */
+    public synchronized void addLoan(Loan loan) {
+        String membershipNumber = loan.getMember().getMembershipNumber();
+        histories.computeIfAbsent(membershipNumber, key -> new MemberHistory()).add(loan);
+    }
+
+    /**
+     * Records a collection of existing loans, e.g. when loading from a data store.
+     *
+     * @param loans The loans to record
+     */
+    public void addAll(Collection<Loan> loans) {
+        for (Loan loan : loans) {
+            addLoan(loan);
+        }
+    }
+
+    /**
+     * Gets every loan a member has made, oldest first.
+     *
+     * @param member The member to look up
+     * @return List of loans ordered by borrow date
+     */
+    public synchronized List<Loan> getHistory(Member member) {
+        MemberHistory history = histories.get(member.getMembershipNumber());
+        if (history == null) {
+            return new ArrayList<>();
+        }
+        return flatten(history.byBorrowDate);
+    }
+
+    /**
+     * Gets the loans a member made between two dates (both inclusive), oldest first.
+     *
+     * @param member The member to look up
+     * @param from The earliest borrow date to include
+     * @param to The latest borrow date to include
+     * @return List of loans ordered by borrow date
+     */
+    public synchronized List<Loan> getHistory(Member member, LocalDate from, LocalDate to) {
+        MemberHistory history = histories.get(member.getMembershipNumber());
+        if (history == null || from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return flatten(history.byBorrowDate.subMap(from, true, to, true));
+    }
+
+    /**
+     * Checks whether a member has ever borrowed any copy of a film.
+     *
+     * @param member The member to check
+     * @param film The film to check
+     * @return true if the member has borrowed the film at least once
+     */
+    public synchronized boolean hasBorrowed(Member member, Film film) {
+        MemberHistory history = histories.get(member.getMembershipNumber());
+        return history != null && history.filmTitles.contains(film.getTitle());
+    }
+
+    /**
+     * Gets the total number of loans a member has made.
+     *
+     * @param member The member to look up
+     * @return The number of loans in the member's history
+     */
+    public synchronized int getLoanCount(Member member) {
+        MemberHistory history = histories.get(member.getMembershipNumber());
+        return history != null ? history.size : 0;
+    }
+
+    private static List<Loan> flatten(NavigableMap<LocalDate, List<Loan>> loansByDate) {
+        List<Loan> result = new ArrayList<>();
+        for (List<Loan> loans : loansByDate.values()) {
+            result.addAll(loans);
+        }
+        return result;
+    }
+
+    /**
+     * Loans of a single member, keyed by borrow date, plus the set of
+     * film titles they have borrowed.
+     */
+    private static class MemberHistory {
+        private final NavigableMap<LocalDate, List<Loan>> byBorrowDate = new TreeMap<>();
+        private final Set<String> filmTitles = new HashSet<>();
+        private int size;
+
+        void add(Loan loan) {
+            byBorrowDate.computeIfAbsent(loan.getBorrowDate(), key -> new ArrayList<>(1)).add(loan);
+            filmTitles.add(loan.getDvd().getFilm().getTitle());
+            size++;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package edu.dvdlibrary.librarycore.index;
+
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.TitleNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Films in alphabetical order of title, for browsing the catalogue a page
+ * at a time: "titles from A to C", "the next page after X", in either
+ * direction. Titles are ordered by their search keys, so case, accents and
+ * punctuation do not affect where a film sorts, with the exact title
+ * breaking ties. Each page costs a seek plus the films on it, however large
+ * the catalogue, and readers never wait for films being added.
+ */
+public class SortedTitleIndex {
+    
+    // Separates the search key from the title in sort keys; sorts before every other character
+    private static final char SEPARATOR = '\u0000';
+    
+    private final NavigableMap<String, Film> films = new ConcurrentSkipListMap<>();
+    
+    /**
+     * Adds a film to the index.
+     * 
+     * @param film The film to add
+     */
+    public void add(Film film) {
+        films.put(film.getSearchKey() + SEPARATOR + film.getTitle(), film);
+    }
+    
+    /**
+     * Adds many films, e.g. when loading from a data store.
+     * 
+     * @param films The films to add
+     */
+    public void addAll(Collection<Film> films) {
+        for (Film film : films) {
+            add(film);
+        }
+    }
+    
+    /**
+     * Gets a page of films in title order.
+     * 
+     * @param fromTitle The first title to include, or null to start at the beginning
+     * @param toTitle The last title to include, or null to run to the end; every
+     *                title starting with it is included, so "C" covers "Casablanca"
+     * @param afterTitle The title the previous page ended with, or null for the first page;
+     *                   the page starts just after it in the direction of travel
+     * @param limit The maximum number of films to return
+     * @param descending true to run from Z to A instead of A to Z
+     * @return The films on the page, in the order browsed
+     */
+    public List<Film> page(String fromTitle, String toTitle, String afterTitle, int limit, boolean descending) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        // The cursor narrows whichever end of the range the page runs towards
+        String low = fromTitle != null ? TitleNormalizer.normalize(fromTitle) : null;
+        boolean lowInclusive = true;
+        String high = toTitle != null ? TitleNormalizer.normalize(toTitle) + Character.MAX_VALUE : null;
+        boolean highInclusive = true;
+        if (afterTitle != null) {
+            String after = sortKeyOf(afterTitle);
+            if (descending && (high == null || after.compareTo(high) <= 0)) {
+                high = after;
+                highInclusive = false;
+            } else if (!descending && (low == null || after.compareTo(low) >= 0)) {
+                low = after;
+                lowInclusive = false;
+            }
+        }
+        
+        NavigableMap<String, Film> range;
+        if (low != null && high != null) {
+            if (low.compareTo(high) > 0) {
+                return new ArrayList<>();
+            }
+            range = films.subMap(low, lowInclusive, high, highInclusive);
+        } else if (low != null) {
+            range = films.tailMap(low, lowInclusive);
+        } else if (high != null) {
+            range = films.headMap(high, highInclusive);
+        } else {
+            range = films;
+        }
+        if (descending) {
+            range = range.descendingMap();
+        }
+        
+        List<Film> page = new ArrayList<>(Math.min(limit, 64));
+        for (Film film : range.values()) {
+            page.add(film);
+            if (page.size() == limit) {
+                break;
+            }
+        }
+        return page;
+    }
+    
+    /**
+     * Gets the number of films indexed.
+     * 
+     * @return The film count
+     */
+    public int size() {
+        return films.size();
+    }
+    
+    private static String sortKeyOf(String title) {
+        return TitleNormalizer.normalize(title) + SEPARATOR + title;
+    }
+}
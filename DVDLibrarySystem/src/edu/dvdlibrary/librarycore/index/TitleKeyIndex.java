@@ -0,0 +1,67 @@
+package edu.dvdlibrary.librarycore.index;
+
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.TitleNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash index from normalized title keys to the titles stored under them,
+ * so that a film can be found whichever way its title is capitalized,
+ * accented or punctuated. Data stores look films up by their exact title;
+ * this index turns what was typed into that title first.
+ * <p>
+ * Titles that only differ in case or punctuation share a key. Stores that
+ * predate normalized lookups may hold several of them, in which case an
+ * exact match wins.
+ */
+public class TitleKeyIndex {
+    
+    private final Map<String, List<String>> titles = new ConcurrentHashMap<>();
+    
+    /**
+     * Adds a film's title to the index.
+     * 
+     * @param film The film to add
+     */
+    public void add(Film film) {
+        titles.merge(film.getSearchKey(), Collections.singletonList(film.getTitle()), (existing, added) -> {
+            List<String> merged = new ArrayList<>(existing);
+            merged.addAll(added);
+            return Collections.unmodifiableList(merged);
+        });
+    }
+    
+    /**
+     * Adds many films, e.g. when loading from a data store.
+     * 
+     * @param films The films to add
+     */
+    public void addAll(Collection<Film> films) {
+        for (Film film : films) {
+            add(film);
+        }
+    }
+    
+    /**
+     * Finds the stored title that a title matches once both are normalized.
+     * 
+     * @param title The title as typed
+     * @return The title as stored, or null if no film has a matching title
+     */
+    public String findTitle(String title) {
+        List<String> candidates = titles.get(TitleNormalizer.normalize(title));
+        if (candidates == null) {
+            return null;
+        }
+        if (candidates.size() > 1 && candidates.contains(title)) {
+            return title;
+        }
+        return candidates.get(0);
+    }
+}
@@ -0,0 +1,38 @@
+package edu.dvdlibrary.librarycore.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one call to borrow a DVD.
+ */
+@Name(BorrowEvent.NAME)
+@Label("Borrow DVD")
+@Category({"DVD Library", "Service"})
+@Description("A member borrowing a DVD, including failed attempts")
+@StackTrace(false)
+public class BorrowEvent extends Event {
+    
+    /** The event type name used in recordings. */
+    public static final String NAME = "edu.dvdlibrary.Borrow";
+    
+    @Label("DVD ID")
+    public String dvdId;
+    
+    @Label("Film Title")
+    public String filmTitle;
+    
+    @Label("Membership Number")
+    public String membershipNumber;
+    
+    @Label("Succeeded")
+    public boolean succeeded;
+    
+    @Label("Failure")
+    @Description("Why the borrow was refused, if it was")
+    public String failure;
+}
@@ -0,0 +1,194 @@
+package edu.dvdlibrary.librarycore.jfr;
+
+import edu.dvdlibrary.librarycore.metrics.HistogramSnapshot;
+import edu.dvdlibrary.librarycore.metrics.LatencyHistogram;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Command-line tool that summarizes a Flight Recorder recording into a
+ * latency table per library operation, with the garbage collection and
+ * lock contention seen in the same recording. The "During GC" column
+ * counts the operations that overlapped a GC pause, which tells whether
+ * slow operations are the library's own doing or the collector's.
+ * 
+ * Usage: java edu.dvdlibrary.librarycore.jfr.RecordingSummary recording.jfr
+ */
+public class RecordingSummary {
+    
+    private final Map<String, OperationSummary> operations = new TreeMap<>();
+    private final List<Instant[]> gcPauses = new ArrayList<>();
+    private int collections;
+    private Duration totalGcPause = Duration.ZERO;
+    private Duration longestGcPause = Duration.ZERO;
+    private int contendedLocks;
+    private Duration contendedLockTime = Duration.ZERO;
+    private int parks;
+    private Duration parkTime = Duration.ZERO;
+    
+    /**
+     * Summarizes the recording named on the command line.
+     * 
+     * @param args The path of the recording
+     * @throws IOException if the recording cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java " + RecordingSummary.class.getName() + " recording.jfr");
+            System.exit(2);
+        }
+        RecordingSummary summary = new RecordingSummary();
+        summary.read(Paths.get(args[0]));
+        summary.print(System.out);
+    }
+    
+    /**
+     * Adds the events in a recording to the summary.
+     * 
+     * @param recording The recording file
+     * @throws IOException if the recording cannot be read
+     */
+    public void read(Path recording) throws IOException {
+        List<RecordedEvent> libraryEvents = new ArrayList<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String type = event.getEventType().getName();
+                switch (type) {
+                    case BorrowEvent.NAME:
+                    case ReturnEvent.NAME:
+                    case SearchEvent.NAME:
+                    case StoreLookupEvent.NAME:
+                        libraryEvents.add(event);
+                        break;
+                    case "jdk.GarbageCollection":
+                        collections++;
+                        Duration pauses = event.getDuration("sumOfPauses");
+                        totalGcPause = totalGcPause.plus(pauses);
+                        Duration longest = event.getDuration("longestPause");
+                        if (longest.compareTo(longestGcPause) > 0) {
+                            longestGcPause = longest;
+                        }
+                        break;
+                    case "jdk.GCPhasePause":
+                        gcPauses.add(new Instant[]{event.getStartTime(), event.getEndTime()});
+                        break;
+                    case "jdk.JavaMonitorEnter":
+                        contendedLocks++;
+                        contendedLockTime = contendedLockTime.plus(event.getDuration());
+                        break;
+                    case "jdk.ThreadPark":
+                        parks++;
+                        parkTime = parkTime.plus(event.getDuration());
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        // Pauses are needed to classify operations, and may come later in the file
+        gcPauses.sort((a, b) -> a[0].compareTo(b[0]));
+        for (RecordedEvent event : libraryEvents) {
+            OperationSummary operation = operations.computeIfAbsent(operationName(event), OperationSummary::new);
+            operation.latency.record(event.getDuration().toNanos());
+            if (event.hasField("succeeded") && !event.getBoolean("succeeded")) {
+                operation.failures++;
+            }
+            if (overlapsGcPause(event.getStartTime(), event.getEndTime())) {
+                operation.duringGc++;
+            }
+        }
+    }
+    
+    /**
+     * Prints the summary tables.
+     * 
+     * @param out The stream to print to
+     */
+    public void print(PrintStream out) {
+        out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s%n",
+                "Operation", "Count", "Failed", "p50 ms", "p90 ms", "p99 ms", "Max ms", "During GC");
+        for (OperationSummary operation : operations.values()) {
+            HistogramSnapshot latency = operation.latency.snapshot();
+            out.printf("%-28s %9d %7d %9.3f %9.3f %9.3f %9.3f %9d%n",
+                    operation.name, latency.getCount(), operation.failures,
+                    millis(latency.getValueAtPercentile(50)),
+                    millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getMaxNanos()),
+                    operation.duringGc);
+        }
+        if (operations.isEmpty()) {
+            out.println("(no library events; was the recording made with library.jfc?)");
+        }
+        out.println();
+        out.printf("GC: %d collections, %.3f ms paused in total, longest pause %.3f ms%n",
+                collections, millis(totalGcPause.toNanos()), millis(longestGcPause.toNanos()));
+        out.printf("Contended monitor enters: %d, %.3f ms blocked%n",
+                contendedLocks, millis(contendedLockTime.toNanos()));
+        out.printf("Thread parks: %d, %.3f ms parked%n", parks, millis(parkTime.toNanos()));
+    }
+    
+    private static String operationName(RecordedEvent event) {
+        String label = event.getEventType().getLabel();
+        if (event.hasField("kind")) {
+            return label + " (" + event.getString("kind") + ")";
+        }
+        return label;
+    }
+    
+    /**
+     * Checks whether an interval overlaps any GC pause.
+     */
+    private boolean overlapsGcPause(Instant start, Instant end) {
+        // Find the last pause starting no later than the end of the interval
+        int low = 0;
+        int high = gcPauses.size() - 1;
+        int last = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (!gcPauses.get(mid)[0].isAfter(end)) {
+                last = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        // Pauses do not overlap each other, so only the nearest few can reach back to the start
+        for (int i = last; i >= 0 && i > last - 4; i--) {
+            if (!gcPauses.get(i)[1].isBefore(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+    
+    /**
+     * Counts for one operation.
+     */
+    private static class OperationSummary {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        long failures;
+        long duringGc;
+        
+        OperationSummary(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package edu.dvdlibrary.librarycore.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one call to return a DVD.
+ */
+@Name(ReturnEvent.NAME)
+@Label("Return DVD")
+@Category({"DVD Library", "Service"})
+@Description("A DVD being returned, including the fine and hold processing it triggers")
+@StackTrace(false)
+public class ReturnEvent extends Event {
+    
+    /** The event type name used in recordings. */
+    public static final String NAME = "edu.dvdlibrary.Return";
+    
+    @Label("DVD ID")
+    public String dvdId;
+    
+    @Label("Film Title")
+    public String filmTitle;
+    
+    @Label("Membership Number")
+    public String membershipNumber;
+    
+    @Label("Late")
+    public boolean late;
+    
+    @Label("Succeeded")
+    public boolean succeeded;
+    
+    @Label("Failure")
+    @Description("Why the return was refused, if it was")
+    public String failure;
+}
@@ -0,0 +1,36 @@
+package edu.dvdlibrary.librarycore.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one film search.
+ */
+@Name(SearchEvent.NAME)
+@Label("Film Search")
+@Category({"DVD Library", "Service"})
+@Description("A search of the film catalogue by title, similar title, availability, both, or criteria")
+@StackTrace(false)
+public class SearchEvent extends Event {
+    
+    /** The event type name used in recordings. */
+    public static final String NAME = "edu.dvdlibrary.Search";
+    
+    @Label("Kind")
+    @Description("title, similar, availability, combined or query")
+    public String kind;
+    
+    @Label("Term Length")
+    @Description("Length of the title search term in characters, or 0 for searches without one")
+    public int termLength;
+    
+    @Label("Minimum Available")
+    public int minAvailable;
+    
+    @Label("Result Count")
+    public int resultCount;
+}
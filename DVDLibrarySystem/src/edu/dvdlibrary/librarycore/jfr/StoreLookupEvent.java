@@ -0,0 +1,32 @@
+package edu.dvdlibrary.librarycore.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one lookup the service makes in its data store.
+ */
+@Name(StoreLookupEvent.NAME)
+@Label("Store Lookup")
+@Category({"DVD Library", "Data Store"})
+@Description("A lookup of a film, DVD, member or active loan in the data store")
+@StackTrace(false)
+public class StoreLookupEvent extends Event {
+    
+    /** The event type name used in recordings. */
+    public static final String NAME = "edu.dvdlibrary.StoreLookup";
+    
+    @Label("Kind")
+    @Description("film, dvd, member or activeLoan")
+    public String kind;
+    
+    @Label("Key")
+    public String key;
+    
+    @Label("Found")
+    public boolean found;
+}
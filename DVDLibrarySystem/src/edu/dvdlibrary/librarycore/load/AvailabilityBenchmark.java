@@ -0,0 +1,125 @@
+package edu.dvdlibrary.librarycore.load;
+
+import edu.dvdlibrary.librarycore.index.AvailabilityIndex;
+import edu.dvdlibrary.librarycore.index.InventoryCounts;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of AvailabilityIndex over millions of discs: builds films with
+ * a random number of copies each, puts a share of the copies on loan, then
+ * times loading the index, availability searches against a scan of every
+ * film, stock counts, and index updates for borrows and returns.
+ * <p>
+ * Every disc is a DVD object, so the heap limits how many fit; a 5 GB heap
+ * holds about ten million. The bitmaps alone, at tens of millions of disc
+ * ids, are measured by CompressedBitmapBenchmark in the index package.
+ * <pre>
+ * java -Xmx4g edu.dvdlibrary.librarycore.load.AvailabilityBenchmark --dvds=5000000 --films=500000
+ * </pre>
+ */
+public class AvailabilityBenchmark {
+    
+    /**
+     * Runs the benchmark and prints the results.
+     * 
+     * @param args Options: --dvds=5000000 --films=500000 --onloan=30 (percent) --runs=5
+     *             --updates=1000000 --seed=1
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = LoadGenerator.parseOptions(args);
+        int dvdCount = Integer.parseInt(options.getOrDefault("dvds", "5000000"));
+        int filmCount = Integer.parseInt(options.getOrDefault("films", "500000"));
+        int onLoanPercent = Integer.parseInt(options.getOrDefault("onloan", "30"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int updates = Integer.parseInt(options.getOrDefault("updates", "1000000"));
+        SplittableRandom random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "1")));
+        
+        List<Film> films = new ArrayList<>(filmCount);
+        for (int i = 0; i < filmCount; i++) {
+            films.add(new Film("Film " + i));
+        }
+        DVD[] dvds = new DVD[dvdCount];
+        Member member = new Member("M1", "Benchmark");
+        for (int i = 0; i < dvdCount; i++) {
+            Film film = films.get(random.nextInt(filmCount));
+            dvds[i] = new DVD("DVD" + i, film);
+            film.addDvdCopy(dvds[i]);
+            if (random.nextInt(100) < onLoanPercent) {
+                dvds[i].borrowedBy(member);
+            }
+        }
+        
+        long start = System.nanoTime();
+        AvailabilityIndex index = new AvailabilityIndex();
+        index.addAll(films);
+        System.out.printf("Indexed %,d discs of %,d films in %.2f s; %s%n", dvdCount, filmCount,
+                (System.nanoTime() - start) / 1e9, index.counts());
+        
+        int[][] ranges = {{0, 0}, {1, 2}, {3, Integer.MAX_VALUE}};
+        for (int run = 0; run <= runs; run++) {
+            StringBuilder line = new StringBuilder(run == 0 ? "warmup" : "run " + run);
+            for (int[] range : ranges) {
+                start = System.nanoTime();
+                int found = index.filmsAvailableBetween(range[0], range[1]).size();
+                double indexMillis = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                int scanned = scan(films, range[0], range[1]);
+                double scanMillis = (System.nanoTime() - start) / 1e6;
+                if (found != scanned) {
+                    throw new IllegalStateException("Index found " + found + " films but the scan " + scanned);
+                }
+                line.append(String.format("   %s: %,d films %.1f ms (scan %.1f ms)", rangeLabel(range), found,
+                        indexMillis, scanMillis));
+            }
+            System.out.println(line);
+        }
+        
+        int countCalls = 100_000;
+        start = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < countCalls; i++) {
+            InventoryCounts counts = index.counts();
+            total += counts.getDiscsOnLoan();
+        }
+        System.out.printf("Stock counts: %.2f us each (%,d discs on loan)%n", (System.nanoTime() - start) / 1e3 / countCalls,
+                total / countCalls);
+        
+        // Each update flips a disc and tells the index, as the service does on a borrow or return
+        start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            DVD dvd = dvds[random.nextInt(dvdCount)];
+            if (dvd.isOnLoan()) {
+                dvd.returnDVD();
+            } else {
+                dvd.borrowedBy(member);
+            }
+            index.update(dvd);
+        }
+        System.out.printf("Borrow/return updates: %.2f us each%n", (System.nanoTime() - start) / 1e3 / updates);
+    }
+    
+    /**
+     * Counts the films with a number of copies available in a range by asking each film.
+     */
+    private static int scan(List<Film> films, int min, int max) {
+        int count = 0;
+        for (Film film : films) {
+            int available = film.getNumberAvailable();
+            if (available >= min && available <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private static String rangeLabel(int[] range) {
+        return range[1] == Integer.MAX_VALUE ? range[0] + "+" : range[0] + "-" + range[1];
+    }
+}
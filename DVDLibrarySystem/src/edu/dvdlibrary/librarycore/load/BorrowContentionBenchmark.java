@@ -0,0 +1,242 @@
+package edu.dvdlibrary.librarycore.load;
+
+import edu.dvdlibrary.librarycore.dao.InMemoryDataStore;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.service.LibraryService;
+import edu.dvdlibrary.librarycore.service.LibraryServiceImpl;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Micro-benchmark of the compare-and-set borrow path under contention: a
+ * number of threads borrowing and straight away returning a handful of hot
+ * copies, shared between a handful of members, so that most attempts race
+ * another thread for the same DVD or the same member's loan slots.
+ * <p>
+ * Three variants are timed at each thread count:
+ * <ul>
+ * <li>cas: the lock-free steps borrowDVD and returnDVD are built on, from
+ * Member.reserveLoanSlot and DVD.tryBorrow to Loan.tryReturn and DVD.tryReturn</li>
+ * <li>locked: the same check-and-set done under the DVD's and the member's
+ * monitors, for comparison</li>
+ * <li>service: LibraryService.borrowDVD and returnDVD over an in-memory store,
+ * where a lost race surfaces as an IllegalStateException</li>
+ * </ul>
+ * Each run warms up before it is measured. Run from the command line, e.g.
+ * <pre>
+ * java edu.dvdlibrary.librarycore.load.BorrowContentionBenchmark --threads=1,2,4,8 --copies=4 --duration=5
+ * </pre>
+ */
+public class BorrowContentionBenchmark {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 1);
+    
+    private final String variant;
+    private final int threads;
+    private final DVD[] copies;
+    private final Member[] members;
+    private final LibraryService service;
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+    
+    /**
+     * Creates a benchmark run with its own library.
+     * 
+     * @param variant "cas", "locked" or "service"
+     * @param threads The number of competing threads
+     * @param copyCount The number of copies they compete for
+     * @param memberCount The number of members they borrow as
+     */
+    public BorrowContentionBenchmark(String variant, int threads, int copyCount, int memberCount) {
+        if (!variant.equals("cas") && !variant.equals("locked") && !variant.equals("service")) {
+            throw new IllegalArgumentException("Unknown variant '" + variant + "'");
+        }
+        this.variant = variant;
+        this.threads = threads;
+        this.service = new LibraryServiceImpl(new InMemoryDataStore());
+        this.copies = new DVD[copyCount];
+        this.members = new Member[memberCount];
+        Film film = service.addFilm("Hot Release");
+        for (int i = 0; i < copyCount; i++) {
+            copies[i] = service.addDVDCopy(film, "DVD" + i);
+        }
+        for (int i = 0; i < memberCount; i++) {
+            members[i] = service.addMember("M" + i, "Member " + i);
+        }
+    }
+    
+    /**
+     * Runs the benchmark.
+     * 
+     * @param warmupMillis How long to run before measuring
+     * @param durationMillis How long to measure for
+     * @return {borrows, lost races, full members} counted while measuring, and the nanoseconds measured
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public long[] run(long warmupMillis, long durationMillis) throws InterruptedException {
+        long[][] counts = new long[threads][];
+        Thread[] workers = new Thread[threads];
+        CountDownLatch ready = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> {
+                ready.countDown();
+                counts[index] = work(new SplittableRandom(index + 1));
+            }, "borrow-" + t);
+            workers[t].start();
+        }
+        ready.await();
+        Thread.sleep(warmupMillis);
+        long start = System.nanoTime();
+        measuring = true;
+        Thread.sleep(durationMillis);
+        stopped = true;
+        long elapsed = System.nanoTime() - start;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        long[] totals = new long[4];
+        for (long[] threadCounts : counts) {
+            for (int i = 0; i < 3; i++) {
+                totals[i] += threadCounts[i];
+            }
+        }
+        totals[3] = elapsed;
+        return totals;
+    }
+    
+    /**
+     * Borrows and returns until stopped, counting outcomes once measuring starts.
+     */
+    private long[] work(SplittableRandom random) {
+        long[] counts = new long[3];
+        long[] warmup = new long[3];
+        while (!stopped) {
+            DVD dvd = copies[random.nextInt(copies.length)];
+            Member member = members[random.nextInt(members.length)];
+            int outcome;
+            switch (variant) {
+                case "cas":
+                    outcome = casBorrowAndReturn(dvd, member);
+                    break;
+                case "locked":
+                    outcome = lockedBorrowAndReturn(dvd, member);
+                    break;
+                default:
+                    outcome = serviceBorrowAndReturn(dvd, member);
+                    break;
+            }
+            (measuring ? counts : warmup)[outcome]++;
+        }
+        return counts;
+    }
+    
+    private static int casBorrowAndReturn(DVD dvd, Member member) {
+        if (!member.reserveLoanSlot()) {
+            return 2;
+        }
+        if (!dvd.tryBorrow(member)) {
+            member.releaseLoanSlot();
+            return 1;
+        }
+        Loan loan = new Loan(dvd, member, TODAY);
+        member.addReservedLoan(loan);
+        
+        loan.tryReturn(TODAY);
+        member.removeLoan(loan);
+        dvd.tryReturn();
+        return 0;
+    }
+    
+    private static int lockedBorrowAndReturn(DVD dvd, Member member) {
+        synchronized (member) {
+            if (!member.canBorrow()) {
+                return 2;
+            }
+            member.reserveLoanSlot();
+        }
+        synchronized (dvd) {
+            if (dvd.isOnLoan()) {
+                synchronized (member) {
+                    member.releaseLoanSlot();
+                }
+                return 1;
+            }
+            dvd.borrowedBy(member);
+        }
+        Loan loan = new Loan(dvd, member, TODAY);
+        synchronized (member) {
+            member.addReservedLoan(loan);
+        }
+        
+        synchronized (dvd) {
+            loan.returnDVD(TODAY);
+            dvd.returnDVD();
+        }
+        synchronized (member) {
+            member.removeLoan(loan);
+        }
+        return 0;
+    }
+    
+    private int serviceBorrowAndReturn(DVD dvd, Member member) {
+        Loan loan;
+        try {
+            loan = service.borrowDVD(dvd, member, TODAY);
+        } catch (IllegalStateException e) {
+            return member.isAtLoanLimit() ? 2 : 1;
+        }
+        service.returnDVD(loan.getDvd(), TODAY);
+        return 0;
+    }
+    
+    /**
+     * Runs each variant at each thread count and prints a table of results.
+     * 
+     * @param args Options: --threads=1,2,4,8 --copies=4 --members=8 --warmup=2 --duration=5
+     *             and --variants=cas,locked,service
+     * @throws InterruptedException if interrupted while waiting for a run
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument '" + arg + "'");
+            }
+            int equals = arg.indexOf('=');
+            options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals),
+                    equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+        String[] threadCounts = options.getOrDefault("threads", "1,2,4,8").split(",");
+        String[] variants = options.getOrDefault("variants", "cas,locked,service").split(",");
+        int copyCount = Integer.parseInt(options.getOrDefault("copies", "4"));
+        int memberCount = Integer.parseInt(options.getOrDefault("members", "8"));
+        long warmupMillis = Long.parseLong(options.getOrDefault("warmup", "2")) * 1000;
+        long durationMillis = Long.parseLong(options.getOrDefault("duration", "5")) * 1000;
+        
+        System.out.printf("%d copies shared by %d members, %d s warmup, %d s measured%n",
+                copyCount, memberCount, warmupMillis / 1000, durationMillis / 1000);
+        System.out.printf("%-8s %7s %14s %14s %10s%n", "variant", "threads", "attempts/s", "borrows/s", "lost %");
+        for (String variant : variants) {
+            for (String threadCount : threadCounts) {
+                int threads = Integer.parseInt(threadCount.trim());
+                BorrowContentionBenchmark benchmark =
+                        new BorrowContentionBenchmark(variant.trim(), threads, copyCount, memberCount);
+                long[] totals = benchmark.run(warmupMillis, durationMillis);
+                double seconds = totals[3] / 1e9;
+                long attempts = totals[0] + totals[1] + totals[2];
+                System.out.printf("%-8s %7d %14.0f %14.0f %10.1f%n", variant.trim(), threads,
+                        attempts / seconds, totals[0] / seconds,
+                        attempts == 0 ? 0.0 : 100.0 * (totals[1] + totals[2]) / attempts);
+            }
+        }
+    }
+}
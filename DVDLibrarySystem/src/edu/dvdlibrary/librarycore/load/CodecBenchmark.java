@@ -0,0 +1,239 @@
+package edu.dvdlibrary.librarycore.load;
+
+import edu.dvdlibrary.librarycore.codec.BinaryReader;
+import edu.dvdlibrary.librarycore.codec.BinaryWriter;
+import edu.dvdlibrary.librarycore.codec.LibraryCodec;
+import edu.dvdlibrary.librarycore.dao.InMemoryDataStore;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Throughput benchmark of LibraryCodec: encodes a synthetic library of
+ * films, copies, members and returned loans, decodes the stream back into
+ * an in-memory store, and encodes return-date updates to loans already in
+ * the stream. Each phase is run several times after a warmup run, and
+ * reports records per second; the encode phases also report the bytes
+ * allocated per record on the benchmark thread, where the JVM can measure
+ * them.
+ * <p>
+ * Run from the command line, e.g.
+ * <pre>
+ * java -Xmx2g edu.dvdlibrary.librarycore.load.CodecBenchmark --loans=1000000 --runs=5
+ * </pre>
+ */
+public class CodecBenchmark {
+    
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+    
+    private final Film[] films;
+    private final DVD[] dvds;
+    private final Member[] members;
+    private final Loan[] loans;
+    
+    /**
+     * Creates a benchmark over a synthetic library.
+     * 
+     * @param filmCount The number of films
+     * @param dvdCount The number of copies, spread evenly over the films
+     * @param memberCount The number of members
+     * @param loanCount The number of returned loans
+     * @param seed The random seed
+     */
+    public CodecBenchmark(int filmCount, int dvdCount, int memberCount, int loanCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        films = new Film[filmCount];
+        for (int i = 0; i < filmCount; i++) {
+            films[i] = new Film("Film number " + i);
+        }
+        dvds = new DVD[dvdCount];
+        for (int i = 0; i < dvdCount; i++) {
+            dvds[i] = new DVD("DVD" + i, films[i % filmCount]);
+        }
+        members = new Member[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            members[i] = new Member("M" + i, "Member " + i);
+        }
+        loans = new Loan[loanCount];
+        for (int i = 0; i < loanCount; i++) {
+            LocalDate borrowed = START.plusDays(random.nextInt(1500));
+            loans[i] = new Loan(dvds[random.nextInt(dvdCount)], members[random.nextInt(memberCount)], borrowed);
+            loans[i].returnDVD(borrowed.plusDays(1 + random.nextInt(10)));
+        }
+    }
+    
+    /**
+     * Gets the number of records in the encoded library.
+     * 
+     * @return The record count
+     */
+    public int getRecordCount() {
+        return films.length + dvds.length + members.length + loans.length;
+    }
+    
+    /**
+     * Encodes the whole library with a fresh codec.
+     * 
+     * @param channel The channel to write to
+     * @return The codec, which now knows every record
+     * @throws IOException if the channel fails
+     */
+    public LibraryCodec encode(WritableByteChannel channel) throws IOException {
+        LibraryCodec codec = new LibraryCodec();
+        BinaryWriter writer = new BinaryWriter(channel);
+        LibraryCodec.writeHeader(writer);
+        for (Film film : films) {
+            codec.writeFilm(writer, film);
+        }
+        for (DVD dvd : dvds) {
+            codec.writeDVD(writer, dvd);
+        }
+        for (Member member : members) {
+            codec.writeMember(writer, member);
+        }
+        for (Loan loan : loans) {
+            codec.writeLoan(writer, loan);
+        }
+        writer.flush();
+        codec.commit();
+        return codec;
+    }
+    
+    /**
+     * Encodes an update for every loan, as the store does when a loan is returned.
+     * 
+     * @param codec A codec that has already encoded the library
+     * @param channel The channel to write to
+     * @throws IOException if the channel fails
+     */
+    public void encodeUpdates(LibraryCodec codec, WritableByteChannel channel) throws IOException {
+        BinaryWriter writer = new BinaryWriter(channel);
+        for (Loan loan : loans) {
+            codec.writeLoan(writer, loan);
+        }
+        writer.flush();
+    }
+    
+    /**
+     * Decodes a stream into a new in-memory store.
+     * 
+     * @param bytes The encoded library
+     * @return The number of records read
+     * @throws IOException if the stream is malformed
+     */
+    public static int decode(byte[] bytes) throws IOException {
+        BinaryReader reader = new BinaryReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        LibraryCodec.readHeader(reader);
+        LibraryCodec codec = new LibraryCodec();
+        InMemoryDataStore store = new InMemoryDataStore();
+        int records = 0;
+        while (reader.hasRemaining()) {
+            codec.readRecord(reader, store);
+            records++;
+        }
+        return records;
+    }
+    
+    /**
+     * Runs each phase and prints its throughput.
+     * 
+     * @param args Options: --films=20000 --dvds=100000 --members=50000 --loans=1000000 --runs=5 --seed=1
+     * @throws IOException never, since all streams are in memory
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = LoadGenerator.parseOptions(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        CodecBenchmark benchmark = new CodecBenchmark(
+                Integer.parseInt(options.getOrDefault("films", "20000")),
+                Integer.parseInt(options.getOrDefault("dvds", "100000")),
+                Integer.parseInt(options.getOrDefault("members", "50000")),
+                Integer.parseInt(options.getOrDefault("loans", "1000000")),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+        int records = benchmark.getRecordCount();
+        
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        benchmark.encode(Channels.newChannel(encoded));
+        byte[] bytes = encoded.toByteArray();
+        System.out.printf("%,d records in %,d bytes, %.1f bytes per record%n",
+                records, bytes.length, (double) bytes.length / records);
+        
+        DiscardingChannel sink = new DiscardingChannel();
+        for (int run = 0; run <= runs; run++) {
+            String label = run == 0 ? "warmup" : "run " + run;
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            LibraryCodec codec = benchmark.encode(sink);
+            long encodeNanos = System.nanoTime() - start;
+            long encodeAllocated = allocatedBytes() - allocated;
+            
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            benchmark.encodeUpdates(codec, sink);
+            long updateNanos = System.nanoTime() - start;
+            long updateAllocated = allocatedBytes() - allocated;
+            
+            start = System.nanoTime();
+            decode(bytes);
+            long decodeNanos = System.nanoTime() - start;
+            
+            int updates = benchmark.loans.length;
+            System.out.printf("%-8s encode %,11.0f rec/s %6s B/rec   updates %,11.0f rec/s %6s B/rec   "
+                            + "decode %,11.0f rec/s%n", label,
+                    records / (encodeNanos / 1e9), perRecord(encodeAllocated, records),
+                    updates / (updateNanos / 1e9), perRecord(updateAllocated, updates),
+                    records / (decodeNanos / 1e9));
+        }
+    }
+    
+    private static String perRecord(long allocated, int records) {
+        return allocated < 0 ? "n/a" : String.format("%.1f", (double) allocated / records);
+    }
+    
+    /**
+     * Gets the bytes allocated so far by the current thread, or -1 if the JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * A channel that accepts and drops everything, so encoding is timed without I/O.
+     */
+    private static class DiscardingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer source) {
+            int count = source.remaining();
+            source.position(source.limit());
+            return count;
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package edu.dvdlibrary.librarycore.load;
+
+import edu.dvdlibrary.librarycore.fines.FineAssessor;
+import edu.dvdlibrary.librarycore.fines.FineBatchResult;
+import edu.dvdlibrary.librarycore.fines.FineLedger;
+import edu.dvdlibrary.librarycore.fines.FineRateTable;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark of the nightly overdue-fine batch: builds millions of active
+ * loans borrowed over the past two weeks, so that most are overdue on the
+ * assessment date, and times FineAssessor.assessOverdue over them.
+ * The first runs have no effective time limit; the last has the budget
+ * given, to show how far a run gets before it stops and reports that it
+ * did not complete. Repeat runs replace each loan's fine rather than add
+ * to it, so they do the same work as the first.
+ * <p>
+ * Run from the command line, e.g.
+ * <pre>
+ * java -Xmx4g edu.dvdlibrary.librarycore.load.FineBatchBenchmark --loans=2000000 --budget=50 --parallelism=4
+ * </pre>
+ */
+public class FineBatchBenchmark {
+    
+    private static final LocalDate ASSESSMENT_DATE = LocalDate.of(2024, 3, 1);
+    private static final Duration UNLIMITED = Duration.ofHours(1);
+    
+    /**
+     * Runs the benchmark and prints a line per run.
+     * 
+     * @param args Options: --loans=2000000 --members=200000 --days=14 --runs=3 --budget=50 (milliseconds)
+     *             --parallelism=(available processors) --seed=1
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = LoadGenerator.parseOptions(args);
+        int loanCount = Integer.parseInt(options.getOrDefault("loans", "2000000"));
+        int memberCount = Integer.parseInt(options.getOrDefault("members", "200000"));
+        int days = Integer.parseInt(options.getOrDefault("days", "14"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+        Duration budget = Duration.ofMillis(Long.parseLong(options.getOrDefault("budget", "50")));
+        int parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        SplittableRandom random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "1")));
+        
+        Member[] members = new Member[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            members[i] = new Member("M" + i, "Member " + i);
+        }
+        Film film = new Film("Benchmark");
+        List<Loan> loans = new ArrayList<>(loanCount);
+        for (int i = 0; i < loanCount; i++) {
+            LocalDate borrowDate = ASSESSMENT_DATE.minusDays(random.nextInt(days));
+            loans.add(new Loan(new DVD("DVD" + i, film), members[random.nextInt(memberCount)], borrowDate));
+        }
+        long overdue = loans.stream().filter(loan -> loan.isOverdue(ASSESSMENT_DATE)).count();
+        System.out.printf("%,d active loans, %,d overdue, %,d members, parallelism %d%n",
+                loanCount, overdue, memberCount, parallelism);
+        
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            FineAssessor assessor = new FineAssessor(FineRateTable.standard(), new FineLedger(), pool);
+            for (int run = 1; run <= runs + 1; run++) {
+                boolean budgeted = run > runs;
+                FineBatchResult result = assessor.assessOverdue(loans, ASSESSMENT_DATE,
+                        budgeted ? budget : UNLIMITED);
+                System.out.printf("%-12s %,12d scanned %,12d fined %8d ms  completed=%s%n",
+                        budgeted ? budget.toMillis() + " ms budget" : "Run " + run,
+                        result.getLoansScanned(), result.getFinesAssessed(), result.getElapsedMillis(),
+                        result.isCompleted());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
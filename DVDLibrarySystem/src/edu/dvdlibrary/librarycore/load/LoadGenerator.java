@@ -0,0 +1,465 @@
+package edu.dvdlibrary.librarycore.load;
+
+import edu.dvdlibrary.librarycore.dao.BloomFilterDataStore;
+import edu.dvdlibrary.librarycore.dao.CachingDataStore;
+import edu.dvdlibrary.librarycore.dao.DataStore;
+import edu.dvdlibrary.librarycore.dao.FileDataStore;
+import edu.dvdlibrary.librarycore.dao.InMemoryDataStore;
+import edu.dvdlibrary.librarycore.dao.JdbcDataStore;
+import edu.dvdlibrary.librarycore.dao.WriteBehindDataStore;
+import edu.dvdlibrary.librarycore.metrics.LatencyHistogram;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.service.LibraryService;
+import edu.dvdlibrary.librarycore.service.LibraryServiceImpl;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end workload driver that simulates a busy checkout day: a number of
+ * front desks borrowing, returning and searching concurrently against a
+ * LibraryService, in either an open or a closed loop (see LoadProfile).
+ * <p>
+ * Each operation's latency is recorded from when it was due to start rather
+ * than from when the desk got round to it, so a stall is charged to every
+ * operation it delayed (avoiding "coordinated omission"). The desks lend
+ * copies from a shared shelf and return the longest-held loans first, so
+ * most borrows and returns succeed; calls rejected by the service are
+ * counted as failures.
+ * <p>
+ * Run from the command line against any data store, e.g.
+ * <pre>
+ * java edu.dvdlibrary.librarycore.load.LoadGenerator --desks=16 --rate=5000 --duration=30
+ * java edu.dvdlibrary.librarycore.load.LoadGenerator --store=file:library.dat --write-behind --think=5
+ * </pre>
+ */
+public class LoadGenerator {
+    
+    private static final String[] WORDS = {
+        "Lost", "Silent", "Midnight", "Summer", "Last", "Hidden", "Broken", "Golden", "Dark", "Wild",
+        "River", "City", "Night", "Garden", "Storm", "Road", "Island", "Star", "Winter", "Shadow"
+    };
+    private static final double INITIAL_LOAN_FRACTION = 0.25;
+    private static final Operation[] OPERATIONS = Operation.values();
+    
+    private final LibraryService service;
+    private final LoadProfile profile;
+    private final LocalDate today;
+    private final List<DVD> dvds = new ArrayList<>();
+    private final List<Member> members = new ArrayList<>();
+    private final Queue<DVD> shelf = new ConcurrentLinkedQueue<>();
+    private final Queue<DVD> onLoan = new ConcurrentLinkedQueue<>();
+    private final LatencyHistogram[] responseTimes = new LatencyHistogram[OPERATIONS.length];
+    private final LatencyHistogram[] serviceTimes = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[] failures = new LongAdder[OPERATIONS.length];
+    private final LongAdder missedStarts = new LongAdder();
+    
+    /**
+     * Creates a load generator.
+     * 
+     * @param service The service to drive
+     * @param profile The run settings
+     */
+    public LoadGenerator(LibraryService service, LoadProfile profile) {
+        this(service, profile, LocalDate.now());
+    }
+    
+    /**
+     * Creates a load generator that borrows and returns on a given day.
+     * 
+     * @param service The service to drive
+     * @param profile The run settings
+     * @param today The date used for borrows and returns
+     */
+    public LoadGenerator(LibraryService service, LoadProfile profile, LocalDate today) {
+        this.service = service;
+        this.profile = profile;
+        this.today = today;
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            responseTimes[i] = new LatencyHistogram();
+            serviceTimes[i] = new LatencyHistogram();
+            failures[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Fills an empty library with the profile's films, copies and members, a
+     * quarter of the copies already on loan. A library that already has
+     * films (e.g. a file store from an earlier run) is used as it is.
+     */
+    public void populate() {
+        SplittableRandom random = new SplittableRandom(profile.getSeed());
+        boolean fresh = service.getAllFilms().isEmpty();
+        if (fresh) {
+            for (int i = 0; i < profile.getFilms(); i++) {
+                String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+                Film film = service.addFilm(title);
+                for (int c = 0; c < profile.getCopiesPerFilm(); c++) {
+                    service.addDVDCopy(film, "DVD" + i + "-" + c);
+                }
+            }
+            for (int i = 0; i < profile.getMembers(); i++) {
+                service.addMember("M" + i, "Member " + i);
+            }
+        }
+        
+        dvds.clear();
+        members.clear();
+        shelf.clear();
+        onLoan.clear();
+        for (Film film : service.getAllFilms()) {
+            dvds.addAll(film.getDvdCopies());
+        }
+        members.addAll(service.getAllMembers());
+        if (members.isEmpty()) {
+            throw new IllegalStateException("The library has no members to lend to");
+        }
+        
+        // Lend out the initial quarter over the past few days, so some returns are late
+        for (DVD dvd : dvds) {
+            if (fresh && random.nextDouble() < INITIAL_LOAN_FRACTION) {
+                try {
+                    service.borrowDVD(dvd, randomMember(random), today.minusDays(random.nextInt(5)));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    // Member already at the loan limit; leave the copy on the shelf
+                }
+            }
+            (dvd.isOnLoan() ? onLoan : shelf).add(dvd);
+        }
+    }
+    
+    /**
+     * Gets the number of copies the desks lend, once populated.
+     * 
+     * @return The copy count
+     */
+    int getCopyCount() {
+        return dvds.size();
+    }
+    
+    /**
+     * Gets the number of members the desks lend to, once populated.
+     * 
+     * @return The member count
+     */
+    int getMemberCount() {
+        return members.size();
+    }
+    
+    /**
+     * Populates the library if that has not been done, then runs the desks
+     * for the warmup and measured periods and waits for them to finish.
+     * 
+     * @return The report on the measured period
+     * @throws InterruptedException if interrupted while waiting for the desks
+     */
+    public LoadReport run() throws InterruptedException {
+        if (dvds.isEmpty()) {
+            populate();
+        }
+        long start = System.nanoTime();
+        long recordFrom = start + profile.getWarmup().toNanos();
+        long end = recordFrom + profile.getDuration().toNanos();
+        
+        Thread[] desks = new Thread[profile.getDesks()];
+        for (int i = 0; i < desks.length; i++) {
+            int desk = i;
+            desks[i] = new Thread(() -> runDesk(desk, start, recordFrom, end), "desk-" + i);
+            desks[i].start();
+        }
+        for (Thread desk : desks) {
+            desk.join();
+        }
+        double measuredSeconds = (Math.max(end, System.nanoTime()) - recordFrom) / 1e9;
+        
+        List<LoadReport.OperationResult> results = new ArrayList<>();
+        for (Operation operation : OPERATIONS) {
+            int i = operation.ordinal();
+            results.add(new LoadReport.OperationResult(operation, responseTimes[i].snapshot(),
+                    serviceTimes[i].snapshot(), failures[i].sum()));
+        }
+        return new LoadReport(profile, results, measuredSeconds, missedStarts.sum());
+    }
+    
+    /**
+     * Issues operations from one desk until the end of the run.
+     * 
+     * @param desk The desk number, used to stagger open-loop arrivals and seed the desk's choices
+     * @param start When the run started
+     * @param recordFrom When the warmup ends
+     * @param end When the run ends
+     */
+    private void runDesk(int desk, long start, long recordFrom, long end) {
+        SplittableRandom random = new SplittableRandom(profile.getSeed() * 31 + desk);
+        WorkloadMix mix = profile.getMix();
+        boolean openLoop = profile.isOpenLoop();
+        long interval = openLoop ? (long) (1e9 * profile.getDesks() / profile.getTargetRate()) : 0;
+        long thinkTime = profile.getThinkTime().toNanos();
+        long due = openLoop ? start + interval * desk / profile.getDesks() : start;
+        
+        while (due < end) {
+            long now = System.nanoTime();
+            if (now >= end) {
+                break;
+            }
+            while (now < due) {
+                LockSupport.parkNanos(due - now);
+                now = System.nanoTime();
+            }
+            Operation operation = mix.pick(random.nextInt(mix.getTotalWeight()));
+            boolean succeeded = perform(operation, random);
+            long finished = System.nanoTime();
+            if (due >= recordFrom) {
+                int i = operation.ordinal();
+                responseTimes[i].record(finished - due);
+                serviceTimes[i].record(finished - now);
+                if (!succeeded) {
+                    failures[i].increment();
+                }
+            }
+            due = openLoop ? due + interval : finished + thinkTime;
+        }
+        
+        // Arrivals still due when an open-loop run ends were kept waiting for the whole remainder
+        if (openLoop && due < end) {
+            long firstMissed = Math.max(due, recordFrom + Math.floorMod(due - recordFrom, interval));
+            if (firstMissed < end) {
+                missedStarts.add((end - firstMissed + interval - 1) / interval);
+            }
+        }
+    }
+    
+    /**
+     * Makes one service call.
+     * 
+     * @param operation The call to make
+     * @param random The desk's random source
+     * @return false if the service rejected the call
+     */
+    private boolean perform(Operation operation, SplittableRandom random) {
+        try {
+            switch (operation) {
+                case BORROW:
+                    return borrow(random);
+                case RETURN:
+                    return returnCopy(random);
+                case SEARCH:
+                    service.searchFilmsByTitle(WORDS[random.nextInt(WORDS.length)]);
+                    return true;
+                case MEMBER_LOANS:
+                    service.listFilmsForMember(randomMember(random));
+                    return true;
+                case ACTIVE_LOANS:
+                    service.getAllActiveLoans();
+                    return true;
+                default:
+                    throw new IllegalStateException("Unknown operation " + operation);
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Lends the next copy on the shelf to a random member, or tries a random
+     * copy if the shelf is empty.
+     * 
+     * @param random The desk's random source
+     * @return true if the copy was lent
+     */
+    private boolean borrow(SplittableRandom random) {
+        DVD dvd = shelf.poll();
+        boolean fromShelf = dvd != null;
+        if (!fromShelf) {
+            dvd = dvds.get(random.nextInt(dvds.size()));
+        }
+        try {
+            service.borrowDVD(dvd, randomMember(random), today);
+            onLoan.add(dvd);
+            return true;
+        } catch (RuntimeException e) {
+            if (fromShelf) {
+                shelf.add(dvd);
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Returns the longest-held copy on loan, or tries a random copy if none is on loan.
+     * 
+     * @param random The desk's random source
+     * @return true if the copy was returned
+     */
+    private boolean returnCopy(SplittableRandom random) {
+        DVD dvd = onLoan.poll();
+        boolean fromLoans = dvd != null;
+        if (!fromLoans) {
+            dvd = dvds.get(random.nextInt(dvds.size()));
+        }
+        try {
+            service.returnDVD(dvd, today);
+            shelf.add(dvd);
+            return true;
+        } catch (RuntimeException e) {
+            if (fromLoans) {
+                onLoan.add(dvd);
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Picks a member at random.
+     * 
+     * @param random The random source to use
+     * @return The member
+     */
+    private Member randomMember(SplittableRandom random) {
+        return members.get(random.nextInt(members.size()));
+    }
+    
+    /**
+     * Runs a load test from the command line and prints the report. Options,
+     * all optional, are given as --name=value:
+     * <ul>
+     * <li>--desks: concurrent desks (default 8)</li>
+     * <li>--rate: total operations per second for an open loop; omit for a closed loop</li>
+     * <li>--think: closed-loop think time in milliseconds (default 0)</li>
+     * <li>--duration, --warmup: measured and warmup seconds (default 30 and 5)</li>
+     * <li>--mix: operation weights, e.g. borrow:30,return:30,search:25,member_loans:10,active_loans:5</li>
+     * <li>--films, --copies, --members, --seed: the library to populate</li>
+     * <li>--store: memory (default), file:PATH or a JDBC URL</li>
+     * <li>--write-behind, --bloom, --cache: wrap the store in those decorators</li>
+     * </ul>
+     * 
+     * @param args The options
+     * @throws Exception if the store cannot be opened or closed
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        LoadProfile profile = parseProfile(options);
+        Deque<AutoCloseable> closeables = new ArrayDeque<>();
+        try {
+            DataStore store = openStore(options.getOrDefault("store", "memory"), options, closeables);
+            LoadGenerator generator = new LoadGenerator(new LibraryServiceImpl(store), profile);
+            long populateStart = System.nanoTime();
+            generator.populate();
+            System.out.printf("Populated %d copies and %d members in %.1f s%n",
+                    generator.getCopyCount(), generator.getMemberCount(), (System.nanoTime() - populateStart) / 1e9);
+            generator.run().print(System.out);
+        } finally {
+            closeAll(closeables);
+        }
+    }
+    
+    /**
+     * Parses --name=value options; a bare --name is taken as "true".
+     * 
+     * @param args The command-line arguments
+     * @return The options by name
+     */
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument '" + arg + "'");
+            }
+            int equals = arg.indexOf('=');
+            options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals),
+                    equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+        return options;
+    }
+    
+    /**
+     * Builds the run settings from the options main accepts.
+     * 
+     * @param options The parsed options
+     * @return The load profile
+     */
+    static LoadProfile parseProfile(Map<String, String> options) {
+        return new LoadProfile(
+                Integer.parseInt(options.getOrDefault("desks", "8")),
+                Double.parseDouble(options.getOrDefault("rate", "0")),
+                Duration.ofMillis(Long.parseLong(options.getOrDefault("think", "0"))),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5"))),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30"))),
+                options.containsKey("mix") ? WorkloadMix.parse(options.get("mix")) : WorkloadMix.checkoutDay(),
+                Integer.parseInt(options.getOrDefault("films", "2000")),
+                Integer.parseInt(options.getOrDefault("copies", "3")),
+                Integer.parseInt(options.getOrDefault("members", "5000")),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+    }
+    
+    /**
+     * Opens a store and the decorators the options ask for, innermost first,
+     * pushing each one that needs closing so they can be closed in reverse.
+     * 
+     * @param storeOption memory, file:PATH or a JDBC URL
+     * @param options The parsed options, for --write-behind, --bloom, --cache and the library size
+     * @param closeables Where to push what must be closed
+     * @return The outermost store
+     * @throws IOException if a file store cannot be opened
+     */
+    static DataStore openStore(String storeOption, Map<String, String> options, Deque<AutoCloseable> closeables)
+            throws IOException {
+        DataStore store;
+        if (storeOption.equals("memory")) {
+            store = new InMemoryDataStore();
+        } else if (storeOption.startsWith("file:")) {
+            FileDataStore fileStore = new FileDataStore(Paths.get(storeOption.substring("file:".length())));
+            closeables.push(fileStore);
+            store = fileStore;
+        } else if (storeOption.startsWith("jdbc:")) {
+            JdbcDataStore jdbcStore = new JdbcDataStore(storeOption);
+            closeables.push(jdbcStore);
+            store = jdbcStore;
+        } else {
+            throw new IllegalArgumentException("Unknown store '" + storeOption + "'");
+        }
+        if (options.containsKey("write-behind")) {
+            WriteBehindDataStore writeBehind = new WriteBehindDataStore(store);
+            closeables.push(writeBehind);
+            store = writeBehind;
+        }
+        if (options.containsKey("bloom")) {
+            long keys = Long.parseLong(options.getOrDefault("films", "2000"))
+                    + Long.parseLong(options.getOrDefault("members", "5000"));
+            BloomFilterDataStore bloom = new BloomFilterDataStore(store, 2 * keys);
+            closeables.push(bloom);
+            store = bloom;
+        }
+        if (options.containsKey("cache")) {
+            store = new CachingDataStore(store);
+        }
+        return store;
+    }
+    
+    /**
+     * Closes everything openStore pushed, outermost first.
+     * 
+     * @param closeables The stack openStore pushed to
+     * @throws Exception if a store cannot be closed
+     */
+    static void closeAll(Deque<AutoCloseable> closeables) throws Exception {
+        while (!closeables.isEmpty()) {
+            closeables.pop().close();
+        }
+    }
+}
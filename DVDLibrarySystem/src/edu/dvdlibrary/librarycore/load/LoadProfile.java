@@ -0,0 +1,199 @@
+package edu.dvdlibrary.librarycore.load;
+
+import java.time.Duration;
+
+/**
+ * Settings for a load run: how many desks, how they issue requests, for how
+ * long, and the size of the library they work against.
+ * <p>
+ * In an open-loop run the desks together start operations at a fixed target
+ * rate whether or not earlier operations have finished, as customers arrive
+ * at a real library. In a closed-loop run each desk starts its next
+ * operation a fixed think time after its previous one finished. Either way,
+ * every operation is timed from when it was due to start, so a stalled
+ * service is charged for the customers kept waiting, not only for the one
+ * operation that stalled.
+ */
+public class LoadProfile {
+    
+    private final int desks;
+    private final double targetRate;
+    private final Duration thinkTime;
+    private final Duration warmup;
+    private final Duration duration;
+    private final WorkloadMix mix;
+    private final int films;
+    private final int copiesPerFilm;
+    private final int members;
+    private final long seed;
+    
+    /**
+     * Creates a profile.
+     * 
+     * @param desks The number of concurrent desks
+     * @param targetRate The total operations per second to start for an open-loop run, or 0 for a closed-loop run
+     * @param thinkTime The pause between operations at each desk in a closed-loop run
+     * @param warmup How long to run before recording
+     * @param duration How long to record for
+     * @param mix The operation mix
+     * @param films The number of films to add to the library before the run
+     * @param copiesPerFilm The number of DVD copies of each film
+     * @param members The number of members to add
+     * @param seed The random seed for the library contents and the desks' choices
+     */
+    public LoadProfile(int desks, double targetRate, Duration thinkTime, Duration warmup, Duration duration,
+                       WorkloadMix mix, int films, int copiesPerFilm, int members, long seed) {
+        if (desks < 1) {
+            throw new IllegalArgumentException("At least one desk is required");
+        }
+        if (targetRate < 0 || Double.isNaN(targetRate)) {
+            throw new IllegalArgumentException("Target rate cannot be negative");
+        }
+        if (thinkTime.isNegative() || warmup.isNegative() || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Durations must be positive");
+        }
+        if (films < 1 || copiesPerFilm < 1 || members < 1) {
+            throw new IllegalArgumentException("The library needs at least one film, copy and member");
+        }
+        this.desks = desks;
+        this.targetRate = targetRate;
+        this.thinkTime = thinkTime;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.mix = mix;
+        this.films = films;
+        this.copiesPerFilm = copiesPerFilm;
+        this.members = members;
+        this.seed = seed;
+    }
+    
+    /**
+     * Creates an open-loop checkout day profile with a library of 2,000 films
+     * of 3 copies each and 5,000 members.
+     * 
+     * @param desks The number of concurrent desks
+     * @param targetRate The total operations per second to start
+     * @param duration How long to record for, after a warmup of a fifth as long
+     * @return The profile
+     */
+    public static LoadProfile openLoop(int desks, double targetRate, Duration duration) {
+        if (targetRate <= 0) {
+            throw new IllegalArgumentException("An open-loop run needs a positive target rate");
+        }
+        return new LoadProfile(desks, targetRate, Duration.ZERO, duration.dividedBy(5), duration,
+                WorkloadMix.checkoutDay(), 2_000, 3, 5_000, 1);
+    }
+    
+    /**
+     * Creates a closed-loop checkout day profile with a library of 2,000 films
+     * of 3 copies each and 5,000 members.
+     * 
+     * @param desks The number of concurrent desks
+     * @param thinkTime The pause between operations at each desk
+     * @param duration How long to record for, after a warmup of a fifth as long
+     * @return The profile
+     */
+    public static LoadProfile closedLoop(int desks, Duration thinkTime, Duration duration) {
+        return new LoadProfile(desks, 0, thinkTime, duration.dividedBy(5), duration,
+                WorkloadMix.checkoutDay(), 2_000, 3, 5_000, 1);
+    }
+    
+    /**
+     * Checks whether operations start at a fixed rate rather than after the previous one.
+     * 
+     * @return true for an open-loop run
+     */
+    public boolean isOpenLoop() {
+        return targetRate > 0;
+    }
+    
+    /**
+     * Gets the number of concurrent desks.
+     * 
+     * @return The desk count
+     */
+    public int getDesks() {
+        return desks;
+    }
+    
+    /**
+     * Gets the total operations per second to start in an open-loop run.
+     * 
+     * @return The target rate, or 0 for a closed-loop run
+     */
+    public double getTargetRate() {
+        return targetRate;
+    }
+    
+    /**
+     * Gets the pause between operations at each desk in a closed-loop run.
+     * 
+     * @return The think time
+     */
+    public Duration getThinkTime() {
+        return thinkTime;
+    }
+    
+    /**
+     * Gets how long to run before recording.
+     * 
+     * @return The warmup time
+     */
+    public Duration getWarmup() {
+        return warmup;
+    }
+    
+    /**
+     * Gets how long to record for.
+     * 
+     * @return The measured duration
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+    
+    /**
+     * Gets the operation mix.
+     * 
+     * @return The mix
+     */
+    public WorkloadMix getMix() {
+        return mix;
+    }
+    
+    /**
+     * Gets the number of films to add before the run.
+     * 
+     * @return The film count
+     */
+    public int getFilms() {
+        return films;
+    }
+    
+    /**
+     * Gets the number of DVD copies of each film.
+     * 
+     * @return The copies per film
+     */
+    public int getCopiesPerFilm() {
+        return copiesPerFilm;
+    }
+    
+    /**
+     * Gets the number of members to add before the run.
+     * 
+     * @return The member count
+     */
+    public int getMembers() {
+        return members;
+    }
+    
+    /**
+     * Gets the random seed.
+     * 
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -0,0 +1,201 @@
+package edu.dvdlibrary.librarycore.load;
+
+import edu.dvdlibrary.librarycore.metrics.HistogramSnapshot;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of a load run: throughput and latency percentiles per operation.
+ * Response time is measured from when an operation was due to start, so it
+ * includes any time spent waiting for the desk to get to it; service time is
+ * measured from when the call was actually made.
+ */
+public class LoadReport {
+    
+    private final LoadProfile profile;
+    private final List<OperationResult> results;
+    private final double measuredSeconds;
+    private final long missedStarts;
+    
+    /**
+     * Creates a report.
+     * 
+     * @param profile The profile that was run
+     * @param results The results per operation
+     * @param measuredSeconds The length of the recorded part of the run
+     * @param missedStarts The number of operations due in an open-loop run that were never started
+     */
+    public LoadReport(LoadProfile profile, List<OperationResult> results, double measuredSeconds, long missedStarts) {
+        this.profile = profile;
+        this.results = Collections.unmodifiableList(results);
+        this.measuredSeconds = measuredSeconds;
+        this.missedStarts = missedStarts;
+    }
+    
+    /**
+     * Gets the profile that was run.
+     * 
+     * @return The profile
+     */
+    public LoadProfile getProfile() {
+        return profile;
+    }
+    
+    /**
+     * Gets the results per operation.
+     * 
+     * @return The operation results, in Operation order
+     */
+    public List<OperationResult> getResults() {
+        return results;
+    }
+    
+    /**
+     * Gets the length of the recorded part of the run.
+     * 
+     * @return The measured time in seconds
+     */
+    public double getMeasuredSeconds() {
+        return measuredSeconds;
+    }
+    
+    /**
+     * Gets the number of operations due in an open-loop run that had not been
+     * started when the run ended, because the desks had fallen behind.
+     * 
+     * @return The missed start count
+     */
+    public long getMissedStarts() {
+        return missedStarts;
+    }
+    
+    /**
+     * Gets the number of operations completed in the recorded part of the run.
+     * 
+     * @return The completed operation count
+     */
+    public long getCompleted() {
+        long completed = 0;
+        for (OperationResult result : results) {
+            completed += result.getResponseTime().getCount();
+        }
+        return completed;
+    }
+    
+    /**
+     * Gets the completed operations per second.
+     * 
+     * @return The throughput
+     */
+    public double getThroughput() {
+        return getCompleted() / measuredSeconds;
+    }
+    
+    /**
+     * Prints the report as a table.
+     * 
+     * @param out The stream to print to
+     */
+    public void print(PrintStream out) {
+        if (profile.isOpenLoop()) {
+            out.printf("Open loop: %d desks, target %.0f ops/s, mix %s%n",
+                    profile.getDesks(), profile.getTargetRate(), profile.getMix());
+        } else {
+            out.printf("Closed loop: %d desks, think time %d ms, mix %s%n",
+                    profile.getDesks(), profile.getThinkTime().toMillis(), profile.getMix());
+        }
+        out.printf("Measured %.1f s: %d operations, %.0f ops/s", measuredSeconds, getCompleted(), getThroughput());
+        if (profile.isOpenLoop()) {
+            out.printf(", %d due but never started", missedStarts);
+        }
+        out.println();
+        out.println();
+        out.printf("%-20s %9s %7s %9s %9s %9s %9s %9s %9s %12s%n", "Operation", "Count", "Failed", "Ops/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms", "Svc p99 ms");
+        for (OperationResult result : results) {
+            HistogramSnapshot response = result.getResponseTime();
+            if (response.getCount() == 0) {
+                continue;
+            }
+            out.printf("%-20s %9d %7d %9.0f %9.3f %9.3f %9.3f %9.3f %9.3f %12.3f%n",
+                    result.getOperation().getMethodName(), response.getCount(), result.getFailures(),
+                    response.getCount() / measuredSeconds,
+                    millis(response.getValueAtPercentile(50)),
+                    millis(response.getValueAtPercentile(90)),
+                    millis(response.getValueAtPercentile(99)),
+                    millis(response.getValueAtPercentile(99.9)),
+                    millis(response.getMaxNanos()),
+                    millis(result.getServiceTime().getValueAtPercentile(99)));
+        }
+    }
+    
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+    
+    /**
+     * Latencies and failures of one operation.
+     */
+    public static class OperationResult {
+        
+        private final Operation operation;
+        private final HistogramSnapshot responseTime;
+        private final HistogramSnapshot serviceTime;
+        private final long failures;
+        
+        /**
+         * Creates an operation result.
+         * 
+         * @param operation The operation
+         * @param responseTime The times from when each call was due to when it returned
+         * @param serviceTime The times from when each call was made to when it returned
+         * @param failures The number of calls that threw an exception
+         */
+        public OperationResult(Operation operation, HistogramSnapshot responseTime,
+                               HistogramSnapshot serviceTime, long failures) {
+            this.operation = operation;
+            this.responseTime = responseTime;
+            this.serviceTime = serviceTime;
+            this.failures = failures;
+        }
+        
+        /**
+         * Gets the operation.
+         * 
+         * @return The operation
+         */
+        public Operation getOperation() {
+            return operation;
+        }
+        
+        /**
+         * Gets the times from when each call was due to when it returned.
+         * 
+         * @return The response time distribution
+         */
+        public HistogramSnapshot getResponseTime() {
+            return responseTime;
+        }
+        
+        /**
+         * Gets the times from when each call was made to when it returned.
+         * 
+         * @return The service time distribution
+         */
+        public HistogramSnapshot getServiceTime() {
+            return serviceTime;
+        }
+        
+        /**
+         * Gets the number of calls that threw an exception, e.g. a borrow of a
+         * copy another desk had just lent out.
+         * 
+         * @return The failure count
+         */
+        public long getFailures() {
+            return failures;
+        }
+    }
+}
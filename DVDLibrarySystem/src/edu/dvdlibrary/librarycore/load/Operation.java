@@ -0,0 +1,32 @@
+package edu.dvdlibrary.librarycore.load;
+
+/**
+ * The library service calls a simulated front desk makes.
+ */
+public enum Operation {
+    BORROW("borrowDVD"),
+    RETURN("returnDVD"),
+    SEARCH("searchFilmsByTitle"),
+    MEMBER_LOANS("listFilmsForMember"),
+    ACTIVE_LOANS("getAllActiveLoans");
+    
+    private final String methodName;
+    
+    /**
+     * Creates an operation.
+     * 
+     * @param methodName The LibraryService method the operation calls
+     */
+    Operation(String methodName) {
+        this.methodName = methodName;
+    }
+    
+    /**
+     * Gets the name of the LibraryService method the operation calls.
+     * 
+     * @return The method name
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+}
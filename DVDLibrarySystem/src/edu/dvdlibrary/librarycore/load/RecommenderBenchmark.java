@@ -0,0 +1,119 @@
+package edu.dvdlibrary.librarycore.load;
+
+import edu.dvdlibrary.librarycore.analytics.CoBorrowRecommender;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of CoBorrowRecommender at scale: builds a synthetic loan
+ * history in which a few films are far more popular than the rest, then
+ * times the initial fork/join load, measures the heap the matrix takes,
+ * and times recommendation lookups (first ranking of a row and cached)
+ * and incremental updates from new loans.
+ * <p>
+ * Heap figures come from Runtime after asking for a collection, so they
+ * are approximate; give the JVM room for the loan history itself, e.g.
+ * <pre>
+ * java -Xmx4g edu.dvdlibrary.librarycore.load.RecommenderBenchmark --loans=2000000 --members=200000 --films=20000
+ * </pre>
+ */
+public class RecommenderBenchmark {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 1);
+    
+    /**
+     * Runs the benchmark and prints the results.
+     * 
+     * @param args Options: --loans=2000000 --members=200000 --films=20000 --runs=3
+     *             --lookups=100000 --records=100000 --seed=1
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = LoadGenerator.parseOptions(args);
+        int loanCount = Integer.parseInt(options.getOrDefault("loans", "2000000"));
+        int memberCount = Integer.parseInt(options.getOrDefault("members", "200000"));
+        int filmCount = Integer.parseInt(options.getOrDefault("films", "20000"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+        int lookups = Integer.parseInt(options.getOrDefault("lookups", "100000"));
+        int records = Integer.parseInt(options.getOrDefault("records", "100000"));
+        SplittableRandom random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "1")));
+        
+        DVD[] copies = new DVD[filmCount];
+        for (int i = 0; i < filmCount; i++) {
+            copies[i] = new DVD("DVD" + i, new Film("Film " + i));
+        }
+        Member[] members = new Member[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            members[i] = new Member("M" + i, "Member " + i);
+        }
+        List<Loan> loans = new ArrayList<>(loanCount);
+        for (int i = 0; i < loanCount; i++) {
+            loans.add(randomLoan(random, copies, members));
+        }
+        System.out.printf("%,d loans by %,d members of %,d films, %d available processors%n",
+                loanCount, memberCount, filmCount, Runtime.getRuntime().availableProcessors());
+        
+        long heapBefore = usedHeap();
+        CoBorrowRecommender recommender = new CoBorrowRecommender();
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            recommender.load(loans);
+            System.out.printf("Load run %d: %.2f s%n", run, (System.nanoTime() - start) / 1e9);
+        }
+        System.out.printf("Heap used by the matrix: about %.0f MB%n", (usedHeap() - heapBefore) / 1e6);
+        
+        // The first lookup of a film ranks its row; later ones read the cached ranking
+        String[] titles = new String[lookups];
+        for (int i = 0; i < lookups; i++) {
+            titles[i] = copies[random.nextInt(filmCount)].getFilm().getTitle();
+        }
+        for (String label : new String[]{"first", "cached"}) {
+            long start = System.nanoTime();
+            long found = 0;
+            for (String title : titles) {
+                found += recommender.recommend(title, 5).size();
+            }
+            double micros = (System.nanoTime() - start) / 1e3 / lookups;
+            System.out.printf("Lookups (%s): %.2f us each, %.1f recommendations on average%n",
+                    label, micros, (double) found / lookups);
+        }
+        
+        List<Loan> newLoans = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            newLoans.add(randomLoan(random, copies, members));
+        }
+        long start = System.nanoTime();
+        for (Loan loan : newLoans) {
+            recommender.record(loan);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Incremental updates: %,.0f loans/s%n", records / seconds);
+    }
+    
+    /**
+     * Makes a loan of a film picked with a strong bias towards the lowest numbers.
+     */
+    private static Loan randomLoan(SplittableRandom random, DVD[] copies, Member[] members) {
+        double skew = random.nextDouble();
+        DVD dvd = copies[(int) (copies.length * skew * skew * skew)];
+        return new Loan(dvd, members[random.nextInt(members.length)], TODAY);
+    }
+    
+    /**
+     * Gets the heap in use after asking for a full collection.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
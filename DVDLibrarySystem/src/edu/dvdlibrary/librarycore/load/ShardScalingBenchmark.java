@@ -0,0 +1,175 @@
+package edu.dvdlibrary.librarycore.load;
+
+import edu.dvdlibrary.librarycore.dao.ShardedDataStore;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Benchmark of ShardedDataStore as the number of branch shards grows. For
+ * each shard count it builds a library with copies and members spread
+ * evenly over the branches, then runs worker threads for a fixed time, each
+ * working at one branch: looking copies up by id and lending or returning
+ * them, with a share of cross-branch queries (active loans and title
+ * searches) that gather from every shard. It prints the throughput and the
+ * mean time of each kind of operation.
+ * <p>
+ * The store is used directly rather than through the service, whose own
+ * indexes answer searches without asking the store. Shards only help
+ * where there are cores for the threads to run on; on a single core the
+ * results show the overhead of sharding rather than its gain.
+ * <pre>
+ * java -Xmx2g edu.dvdlibrary.librarycore.load.ShardScalingBenchmark --shards=1,2,4,8 --threads=8 --duration=10
+ * </pre>
+ */
+public class ShardScalingBenchmark {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 1);
+    
+    private static final int LOOKUP = 0;
+    private static final int LEND = 1;
+    private static final int GATHER = 2;
+    private static final int OPERATION_COUNT = 3;
+    
+    /**
+     * Runs the benchmark at each shard count and prints a line for each.
+     * 
+     * @param args Options: --shards=1,2,4,8 --threads=8 --dvds=200000 --films=20000 --members=20000
+     *             --duration=10 (seconds) --gather=1 (percent of operations) --seed=1
+     * @throws Exception if a worker fails
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseOptions(args);
+        String[] shardCounts = options.getOrDefault("shards", "1,2,4,8").split(",");
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        int dvdCount = Integer.parseInt(options.getOrDefault("dvds", "200000"));
+        int filmCount = Integer.parseInt(options.getOrDefault("films", "20000"));
+        int memberCount = Integer.parseInt(options.getOrDefault("members", "20000"));
+        long durationNanos = Long.parseLong(options.getOrDefault("duration", "10")) * 1_000_000_000L;
+        int gatherPercent = Integer.parseInt(options.getOrDefault("gather", "1"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        
+        System.out.printf("%,d copies of %,d films, %,d members, %d threads, %d available processors%n",
+                dvdCount, filmCount, memberCount, threads, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-7s %12s %14s %14s %14s%n", "Shards", "Ops/s", "Lookup us", "Lend us", "Gather ms");
+        for (String shardOption : shardCounts) {
+            int shardCount = Integer.parseInt(shardOption.trim());
+            String[] branches = new String[shardCount];
+            for (int b = 0; b < shardCount; b++) {
+                branches[b] = "B" + b;
+            }
+            ShardedDataStore store = ShardedDataStore.inMemory(branches);
+            List<List<String>> dvdIds = new ArrayList<>();
+            List<List<Member>> members = new ArrayList<>();
+            for (int b = 0; b < shardCount; b++) {
+                dvdIds.add(new ArrayList<>());
+                members.add(new ArrayList<>());
+            }
+            Film[] films = new Film[filmCount];
+            for (int i = 0; i < filmCount; i++) {
+                films[i] = new Film("Film " + i);
+                store.saveFilm(films[i]);
+            }
+            for (int i = 0; i < dvdCount; i++) {
+                int branch = i % shardCount;
+                DVD dvd = new DVD(branches[branch] + "-DVD" + i, films[i % filmCount]);
+                films[i % filmCount].addDvdCopy(dvd);
+                store.saveDVD(dvd);
+                dvdIds.get(branch).add(dvd.getDvdId());
+            }
+            for (int i = 0; i < memberCount; i++) {
+                int branch = i % shardCount;
+                Member member = new Member(branches[branch] + "-M" + i, "Member " + i);
+                store.saveMember(member);
+                members.get(branch).add(member);
+            }
+            
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<long[]>> workers = new ArrayList<>();
+            long deadline = System.nanoTime() + durationNanos;
+            for (int t = 0; t < threads; t++) {
+                int branch = t % shardCount;
+                SplittableRandom random = new SplittableRandom(seed + t);
+                workers.add(executor.submit(() -> work(store, dvdIds.get(branch), members.get(branch), gatherPercent,
+                        random, deadline)));
+            }
+            long[] totals = new long[OPERATION_COUNT * 2];
+            for (Future<long[]> worker : workers) {
+                long[] counts = worker.get();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += counts[i];
+                }
+            }
+            executor.shutdown();
+            
+            long operations = totals[LOOKUP] + totals[LEND] + totals[GATHER];
+            System.out.printf("%-7d %,12.0f %14.2f %14.2f %14.2f%n", shardCount, operations / (durationNanos / 1e9),
+                    meanNanos(totals, LOOKUP) / 1e3, meanNanos(totals, LEND) / 1e3, meanNanos(totals, GATHER) / 1e6);
+        }
+    }
+    
+    /**
+     * Runs one worker's operations at its branch until the deadline.
+     * 
+     * @return The count of each operation followed by the nanoseconds spent on each
+     */
+    private static long[] work(ShardedDataStore store, List<String> dvdIds, List<Member> members, int gatherPercent,
+                               SplittableRandom random, long deadline) {
+        long[] counts = new long[OPERATION_COUNT * 2];
+        int gathers = 0;
+        long now = System.nanoTime();
+        while (now < deadline) {
+            int operation;
+            if (random.nextInt(100) < gatherPercent) {
+                operation = GATHER;
+                // Alternate the two cross-branch queries
+                if (gathers++ % 2 == 0) {
+                    store.getActiveLoans();
+                } else {
+                    store.searchFilmsByTitle("Film " + random.nextInt(100));
+                }
+            } else {
+                DVD dvd = store.findDVDById(dvdIds.get(random.nextInt(dvdIds.size())));
+                operation = random.nextBoolean() ? LOOKUP : LEND;
+                if (operation == LEND) {
+                    lendOrReturn(store, dvd, members.get(random.nextInt(members.size())));
+                }
+            }
+            long end = System.nanoTime();
+            counts[operation]++;
+            counts[OPERATION_COUNT + operation] += end - now;
+            now = end;
+        }
+        return counts;
+    }
+    
+    /**
+     * Lends a copy on the shelf or returns one on loan, as the service would, without its bookkeeping.
+     */
+    private static void lendOrReturn(ShardedDataStore store, DVD dvd, Member member) {
+        if (dvd.tryBorrow(member)) {
+            store.saveLoan(new Loan(dvd, member, TODAY));
+            return;
+        }
+        Loan loan = store.findActiveLoanByDVD(dvd);
+        if (loan != null && loan.tryReturn(TODAY)) {
+            store.updateLoan(loan);
+            dvd.tryReturn();
+        }
+    }
+    
+    private static double meanNanos(long[] totals, int operation) {
+        long count = totals[operation];
+        return count == 0 ? 0 : (double) totals[OPERATION_COUNT + operation] / count;
+    }
+}
@@ -0,0 +1,84 @@
+package edu.dvdlibrary.librarycore.load;
+
+import edu.dvdlibrary.librarycore.dao.DataStore;
+import edu.dvdlibrary.librarycore.metrics.HistogramSnapshot;
+import edu.dvdlibrary.librarycore.service.LibraryServiceImpl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the same LoadGenerator workload against several data stores in turn,
+ * by default the in-memory store and JdbcDataStore over an in-process H2
+ * database, and prints each store's report followed by a side-by-side
+ * summary. Populating the library goes through the service one record at a
+ * time, so its time shows the cost of a database round trip per save.
+ * <p>
+ * Takes LoadGenerator's options, plus --stores, a comma-separated list of
+ * --store values. The JDBC driver must be on the classpath, e.g.
+ * <pre>
+ * java -cp bin:h2-2.2.224.jar edu.dvdlibrary.librarycore.load.StoreComparisonBenchmark --desks=8 --duration=20
+ * java -cp bin:h2-2.2.224.jar edu.dvdlibrary.librarycore.load.StoreComparisonBenchmark --stores=memory,jdbc:h2:./bench --cache
+ * </pre>
+ */
+public class StoreComparisonBenchmark {
+    
+    private static final String DEFAULT_STORES = "memory,jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+    
+    /**
+     * Runs the workload against each store and prints the reports and a summary.
+     * 
+     * @param args LoadGenerator's options and --stores
+     * @throws Exception if a store cannot be opened or closed
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseOptions(args);
+        LoadProfile profile = LoadGenerator.parseProfile(options);
+        String[] stores = options.getOrDefault("stores", DEFAULT_STORES).split(",");
+        
+        List<String> summary = new ArrayList<>();
+        for (String storeOption : stores) {
+            Deque<AutoCloseable> closeables = new ArrayDeque<>();
+            try {
+                DataStore store = LoadGenerator.openStore(storeOption.trim(), options, closeables);
+                LoadGenerator generator = new LoadGenerator(new LibraryServiceImpl(store), profile);
+                long populateStart = System.nanoTime();
+                generator.populate();
+                double populateSeconds = (System.nanoTime() - populateStart) / 1e9;
+                
+                System.out.printf("== %s: populated %d copies and %d members in %.1f s%n",
+                        storeOption.trim(), generator.getCopyCount(), generator.getMemberCount(), populateSeconds);
+                LoadReport report = generator.run();
+                report.print(System.out);
+                System.out.println();
+                summary.add(String.format("%-40s %11.1f %10.0f %12.3f %12.3f %12.3f", storeOption.trim(),
+                        populateSeconds, report.getThroughput(), p99Millis(report, Operation.BORROW),
+                        p99Millis(report, Operation.RETURN), p99Millis(report, Operation.SEARCH)));
+            } finally {
+                LoadGenerator.closeAll(closeables);
+            }
+        }
+        
+        System.out.printf("%-40s %11s %10s %12s %12s %12s%n", "Store", "Populate s", "Ops/s",
+                "Borrow p99", "Return p99", "Search p99");
+        for (String row : summary) {
+            System.out.println(row);
+        }
+    }
+    
+    /**
+     * Gets an operation's 99th percentile response time from a report, in milliseconds.
+     */
+    private static double p99Millis(LoadReport report, Operation operation) {
+        for (LoadReport.OperationResult result : report.getResults()) {
+            if (result.getOperation() == operation) {
+                HistogramSnapshot response = result.getResponseTime();
+                return response.getCount() == 0 ? 0 : response.getValueAtPercentile(99) / 1_000_000.0;
+            }
+        }
+        return 0;
+    }
+}
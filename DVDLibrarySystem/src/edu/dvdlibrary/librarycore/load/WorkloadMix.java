@@ -0,0 +1,128 @@
+package edu.dvdlibrary.librarycore.load;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Relative frequencies of the operations in a workload. Each desk picks its
+ * next operation at random in these proportions.
+ */
+public class WorkloadMix {
+    
+    private static final Operation[] OPERATIONS = Operation.values();
+    
+    private final int[] weights = new int[OPERATIONS.length];
+    private final int[] cumulative = new int[OPERATIONS.length];
+    private final int total;
+    
+    /**
+     * Creates a mix.
+     * 
+     * @param weights The relative weight of each operation; operations left out are never picked
+     */
+    public WorkloadMix(Map<Operation, Integer> weights) {
+        int sum = 0;
+        for (Operation operation : OPERATIONS) {
+            int weight = weights.getOrDefault(operation, 0);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + operation + " cannot be negative");
+            }
+            this.weights[operation.ordinal()] = weight;
+            sum += weight;
+            cumulative[operation.ordinal()] = sum;
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("At least one operation must have a positive weight");
+        }
+        this.total = sum;
+    }
+    
+    /**
+     * Gets the mix of a busy checkout day: mostly borrows and returns, with
+     * regular catalogue searches and the occasional look at a member's or the
+     * library's loans.
+     * 
+     * @return The checkout day mix
+     */
+    public static WorkloadMix checkoutDay() {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        weights.put(Operation.BORROW, 30);
+        weights.put(Operation.RETURN, 30);
+        weights.put(Operation.SEARCH, 25);
+        weights.put(Operation.MEMBER_LOANS, 10);
+        weights.put(Operation.ACTIVE_LOANS, 5);
+        return new WorkloadMix(weights);
+    }
+    
+    /**
+     * Parses a mix written as comma-separated operation:weight pairs,
+     * e.g. "borrow:40,return:40,search:20".
+     * 
+     * @param text The mix
+     * @return The parsed mix
+     */
+    public static WorkloadMix parse(String text) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String pair : text.split(",")) {
+            String[] parts = pair.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but found '" + pair + "'");
+            }
+            try {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(parts[1].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid operation weight '" + pair + "'", e);
+            }
+        }
+        return new WorkloadMix(weights);
+    }
+    
+    /**
+     * Picks an operation.
+     * 
+     * @param ticket A uniformly random number from 0 (inclusive) to getTotalWeight() (exclusive)
+     * @return The operation the ticket falls on
+     */
+    public Operation pick(int ticket) {
+        for (int i = 0; i < cumulative.length; i++) {
+            if (ticket < cumulative[i]) {
+                return OPERATIONS[i];
+            }
+        }
+        throw new IllegalArgumentException("Ticket out of range: " + ticket);
+    }
+    
+    /**
+     * Gets the sum of all weights.
+     * 
+     * @return The total weight
+     */
+    public int getTotalWeight() {
+        return total;
+    }
+    
+    /**
+     * Gets the weight of one operation.
+     * 
+     * @param operation The operation
+     * @return Its weight
+     */
+    public int getWeight(Operation operation) {
+        return weights[operation.ordinal()];
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Operation operation : OPERATIONS) {
+            if (weights[operation.ordinal()] > 0) {
+                if (text.length() > 0) {
+                    text.append(',');
+                }
+                text.append(operation.name().toLowerCase(Locale.ROOT)).append(':').append(weights[operation.ordinal()]);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package edu.dvdlibrary.librarycore.metrics;
+
+/**
+ * Immutable copy of a LatencyHistogram's counts at one moment.
+ * All values are in nanoseconds.
+ */
+public class HistogramSnapshot {
+    
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+    
+    /**
+     * Creates a snapshot.
+     * 
+     * @param counts The count in each bucket (not copied)
+     * @param sum The sum of all recorded values
+     * @param max The largest recorded value
+     */
+    HistogramSnapshot(long[] counts, long sum, long max) {
+        this.counts = counts;
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        this.count = total;
+        this.sum = sum;
+        this.max = max;
+    }
+    
+    /**
+     * Gets the number of values recorded.
+     * 
+     * @return The count
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Gets the sum of all values recorded.
+     * 
+     * @return The total in nanoseconds
+     */
+    public long getSumNanos() {
+        return sum;
+    }
+    
+    /**
+     * Gets the average value recorded.
+     * 
+     * @return The mean in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+    
+    /**
+     * Gets the largest value recorded.
+     * 
+     * @return The maximum in nanoseconds
+     */
+    public long getMaxNanos() {
+        return max;
+    }
+    
+    /**
+     * Gets the value that the given percentage of recorded values are at or below,
+     * to within the histogram's precision.
+     * 
+     * @param percentile The percentile, from 0 to 100
+     * @return The value in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+}
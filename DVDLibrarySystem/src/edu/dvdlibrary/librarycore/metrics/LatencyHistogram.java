@@ -0,0 +1,99 @@
+package edu.dvdlibrary.librarycore.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent latency histogram with log-linear buckets, in the style of
+ * HdrHistogram: each power-of-two range of nanoseconds is split into 32
+ * equal buckets, so any recorded value is reported within about 3% while
+ * the whole range up to a minute fits in 1024 counters. Recording adds to
+ * one of several stripes chosen by thread, so threads recording at the same
+ * time rarely touch the same counters, and allocates nothing. Values above
+ * the range are counted in the top bucket.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 35;
+    private static final long MAX_TRACKABLE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final int SUM = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+    private static final int MAX_STRIPES = 8;
+    
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+    
+    /**
+     * Creates an empty histogram with one stripe per processor, up to 8.
+     */
+    public LatencyHistogram() {
+        int count = Integer.highestOneBit(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+        this.stripes = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS + 2);
+        }
+        this.stripeMask = count - 1;
+    }
+    
+    /**
+     * Records one latency.
+     * 
+     * @param nanos The latency in nanoseconds (negative values count as 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        stripe.incrementAndGet(bucketIndex(Math.min(value, MAX_TRACKABLE)));
+        stripe.addAndGet(SUM, value);
+        long max;
+        while (value > (max = stripe.get(MAX)) && !stripe.compareAndSet(MAX, max, value)) {
+            // Another thread raised the maximum; check against the new one
+        }
+    }
+    
+    /**
+     * Copies the current counts. Values recorded while the copy is taken may or may not be included.
+     * 
+     * @return A snapshot of the histogram
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+            sum += stripe.get(SUM);
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return new HistogramSnapshot(counts, sum, max);
+    }
+    
+    /**
+     * Gets the bucket a value falls in.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+    
+    /**
+     * Gets the largest value that falls in a bucket.
+     */
+    static long bucketUpperBound(int index) {
+        int block = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (block == 0) {
+            return index;
+        }
+        int shift = block - 1;
+        return ((long) (SUB_BUCKETS + sub) << shift) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,65 @@
+package edu.dvdlibrary.librarycore.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves a registry's metrics as plain text at /metrics over HTTP, for a
+ * monitoring system to scrape.
+ */
+public class MetricsEndpoint implements AutoCloseable {
+    
+    private final HttpServer server;
+    
+    /**
+     * Starts serving on a port.
+     * 
+     * @param registry The metrics to serve
+     * @param port The port to listen on (0 picks a free one)
+     * @throws IOException if the port cannot be opened
+     */
+    public MetricsEndpoint(MetricsRegistry registry, int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> respond(exchange, registry));
+        server.start();
+    }
+    
+    /**
+     * Gets the port the endpoint is listening on.
+     * 
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    /**
+     * Stops serving.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+    
+    private static void respond(HttpExchange exchange, MetricsRegistry registry) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.toText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
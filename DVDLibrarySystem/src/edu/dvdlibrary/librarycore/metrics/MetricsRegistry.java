@@ -0,0 +1,93 @@
+package edu.dvdlibrary.librarycore.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the operation timers for the application, keyed by operation name.
+ */
+public class MetricsRegistry {
+    
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    
+    private final ConcurrentMap<String, OperationTimer> timers = new ConcurrentHashMap<>();
+    
+    /**
+     * Gets the timer for an operation, creating it on first use.
+     * Callers on a hot path should look the timer up once and keep it.
+     * 
+     * @param name The operation name
+     * @return The timer
+     */
+    public OperationTimer timer(String name) {
+        return timers.computeIfAbsent(name, OperationTimer::new);
+    }
+    
+    /**
+     * Gets the current figures for every operation that has been called at least once.
+     * 
+     * @return Operation statistics ordered by name
+     */
+    public List<OperationStats> snapshot() {
+        List<OperationStats> stats = new ArrayList<>();
+        for (OperationTimer timer : timers.values()) {
+            OperationStats snapshot = timer.snapshot();
+            if (snapshot.getCount() > 0) {
+                stats.add(snapshot);
+            }
+        }
+        stats.sort(Comparator.comparing(OperationStats::getName));
+        return stats;
+    }
+    
+    /**
+     * Gets the figures for one operation.
+     * 
+     * @param name The operation name
+     * @return The operation's statistics, or null if it has never been timed
+     */
+    public OperationStats snapshot(String name) {
+        OperationTimer timer = timers.get(name);
+        return timer != null ? timer.snapshot() : null;
+    }
+    
+    /**
+     * Formats every operation's figures in the Prometheus text exposition
+     * format: a latency summary in seconds and a failure counter per operation.
+     * 
+     * @return The metrics as plain text
+     */
+    public String toText() {
+        List<OperationStats> stats = snapshot();
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP library_operation_seconds Latency of library operations.\n");
+        text.append("# TYPE library_operation_seconds summary\n");
+        for (OperationStats op : stats) {
+            HistogramSnapshot latency = op.getLatency();
+            for (double quantile : QUANTILES) {
+                text.append("library_operation_seconds{operation=\"").append(op.getName())
+                        .append("\",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(latency.getValueAtPercentile(quantile * 100))).append('\n');
+            }
+            text.append("library_operation_seconds_sum{operation=\"").append(op.getName()).append("\"} ")
+                    .append(seconds(latency.getSumNanos())).append('\n');
+            text.append("library_operation_seconds_count{operation=\"").append(op.getName()).append("\"} ")
+                    .append(latency.getCount()).append('\n');
+        }
+        text.append("# HELP library_operation_failures_total Library operations that threw an exception.\n");
+        text.append("# TYPE library_operation_failures_total counter\n");
+        for (OperationStats op : stats) {
+            text.append("library_operation_failures_total{operation=\"").append(op.getName()).append("\"} ")
+                    .append(op.getFailures()).append('\n');
+        }
+        return text.toString();
+    }
+    
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,69 @@
+package edu.dvdlibrary.librarycore.metrics;
+
+/**
+ * Call count, failures and latency distribution of one operation at one moment.
+ */
+public class OperationStats {
+    
+    private final String name;
+    private final HistogramSnapshot latency;
+    private final long failures;
+    
+    /**
+     * Creates operation statistics.
+     * 
+     * @param name The operation name
+     * @param latency The latency distribution
+     * @param failures The number of calls that threw an exception
+     */
+    public OperationStats(String name, HistogramSnapshot latency, long failures) {
+        this.name = name;
+        this.latency = latency;
+        this.failures = failures;
+    }
+    
+    /**
+     * Gets the operation name, e.g. "service.borrowDVD".
+     * 
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Gets the number of calls made.
+     * 
+     * @return The call count
+     */
+    public long getCount() {
+        return latency.getCount();
+    }
+    
+    /**
+     * Gets the number of calls that threw an exception.
+     * 
+     * @return The failure count
+     */
+    public long getFailures() {
+        return failures;
+    }
+    
+    /**
+     * Gets the latency distribution.
+     * 
+     * @return The latency histogram snapshot
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: count=%d failures=%d p50=%.1fus p99=%.1fus max=%.1fus",
+                name, getCount(), failures,
+                latency.getValueAtPercentile(50) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0,
+                latency.getMaxNanos() / 1000.0);
+    }
+}
@@ -0,0 +1,69 @@
+package edu.dvdlibrary.librarycore.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and failure count for one operation.
+ * 
+ * Typical use, which allocates nothing:
+ * <pre>
+ * long start = System.nanoTime();
+ * try {
+ *     return doOperation();
+ * } catch (RuntimeException e) {
+ *     timer.failed();
+ *     throw e;
+ * } finally {
+ *     timer.record(start);
+ * }
+ * </pre>
+ */
+public class OperationTimer {
+    
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder failures = new LongAdder();
+    
+    /**
+     * Creates a timer.
+     * 
+     * @param name The operation name
+     */
+    OperationTimer(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Gets the operation name.
+     * 
+     * @return The name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Records a call that started at the given time and has just finished.
+     * 
+     * @param startNanos The System.nanoTime() value when the call started
+     */
+    public void record(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Counts a call that ended with an exception.
+     */
+    public void failed() {
+        failures.increment();
+    }
+    
+    /**
+     * Copies the timer's current figures.
+     * 
+     * @return The operation's statistics
+     */
+    public OperationStats snapshot() {
+        return new OperationStats(name, latency.snapshot(), failures.sum());
+    }
+}
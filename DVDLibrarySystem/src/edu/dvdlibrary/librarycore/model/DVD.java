@@ -1,16 +1,19 @@
 package edu.dvdlibrary.librarycore.model;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents a physical DVD in the library system.
  * Each DVD is a copy of a film and has a unique identifier.
+ * The loan state is a single atomic reference to the borrower (null when
+ * the DVD is on the shelf), so borrowing is a compare-and-set and two
+ * members can never check out the same copy.
  */
 public class DVD {
     private final String dvdId;
     private final Film film;
-    private boolean onLoan;
-    private Member borrower;
+    private final AtomicReference<Member> borrower = new AtomicReference<>();
     
     /**
      * Creates a new DVD for a specific film.
@@ -21,8 +24,6 @@ public class DVD {
     public DVD(String dvdId, Film film) {
         this.dvdId = dvdId;
         this.film = film;
-        this.onLoan = false;
-        this.borrower = null;
     }
     
     /**
@@ -49,7 +50,7 @@ public class DVD {
      * @return true if the DVD is on loan, false otherwise
      */
     public boolean isOnLoan() {
-        return onLoan;
+        return borrower.get() != null;
     }
     
     /**
@@ -58,25 +59,42 @@ public class DVD {
      * @return The borrowing member or null if not on loan
      */
     public Member getBorrower() {
-        return borrower;
+        return borrower.get();
     }
     
     /**
-     * Sets the DVD as borrowed by a member.
+     * Lends the DVD to a member if it is on the shelf.
+     * 
+     * @param member The member borrowing this DVD
+     * @return true if the DVD was free and is now on loan to the member, false if it was already on loan
+     */
+    public boolean tryBorrow(Member member) {
+        return borrower.compareAndSet(null, member);
+    }
+    
+    /**
+     * Puts the DVD back on the shelf if it is on loan.
+     * 
+     * @return true if the DVD was on loan and is now available, false if it was not on loan
+     */
+    public boolean tryReturn() {
+        return borrower.getAndSet(null) != null;
+    }
+    
+    /**
+     * Sets the DVD as borrowed by a member, regardless of its current state.
      * 
      * @param member The member borrowing this DVD
      */
     public void borrowedBy(Member member) {
-        this.onLoan = true;
-        this.borrower = member;
+        borrower.set(member);
     }
     
     /**
      * Marks the DVD as returned and available for loan.
      */
     public void returnDVD() {
-        this.onLoan = false;
-        this.borrower = null;
+        borrower.set(null);
     }
     
     @Override
@@ -97,8 +115,8 @@ public class DVD {
         return "DVD{" +
                 "dvdId='" + dvdId + '\'' +
                 ", film=" + film.getTitle() +
-                ", onLoan=" + onLoan +
-                ", borrower=" + (borrower != null ? borrower.getMembershipNumber() : "none") +
+                ", onLoan=" + isOnLoan() +
+                ", borrower=" + (getBorrower() != null ? getBorrower().getMembershipNumber() : "none") +
                 '}';
     }
 }
@@ -10,6 +10,7 @@ import java.util.Objects;
  */
 public class Film {
     private final String title;
+    private final String searchKey;
     private final List<DVD> dvdCopies;
     
     /**
@@ -19,6 +20,7 @@ public class Film {
      */
     public Film(String title) {
         this.title = title;
+        this.searchKey = TitleNormalizer.normalize(title);
         this.dvdCopies = new ArrayList<>();
     }
     
@@ -31,6 +33,15 @@ public class Film {
         return title;
     }
     
+    /**
+     * Gets the normalized form of the title that lookups and searches compare against.
+     * 
+     * @return The title with case, accents and punctuation normalized away
+     */
+    public String getSearchKey() {
+        return searchKey;
+    }
+    
     /**
      * Gets the list of DVD copies for this film.
      * 
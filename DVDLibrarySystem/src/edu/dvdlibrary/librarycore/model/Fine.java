@@ -0,0 +1,121 @@
+package edu.dvdlibrary.librarycore.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Represents a fine charged to a member for an overdue loan.
+ * Amounts are held in cents to avoid rounding errors.
+ */
+public class Fine {
+    private final Loan loan;
+    private final long amountCents;
+    private final int overdueDays;
+    private final LocalDate assessedDate;
+    
+    /**
+     * Creates a new fine.
+     * 
+     * @param loan The overdue loan
+     * @param amountCents The fine amount in cents
+     * @param overdueDays The number of days the loan was overdue
+     * @param assessedDate The date the fine was calculated
+     */
+    public Fine(Loan loan, long amountCents, int overdueDays, LocalDate assessedDate) {
+        this.loan = loan;
+        this.amountCents = amountCents;
+        this.overdueDays = overdueDays;
+        this.assessedDate = assessedDate;
+    }
+    
+    /**
+     * Gets the loan this fine is for.
+     * 
+     * @return The loan
+     */
+    public Loan getLoan() {
+        return loan;
+    }
+    
+    /**
+     * Gets the member who owes this fine.
+     * 
+     * @return The member
+     */
+    public Member getMember() {
+        return loan.getMember();
+    }
+    
+    /**
+     * Gets the fine amount in cents.
+     * 
+     * @return The amount in cents
+     */
+    public long getAmountCents() {
+        return amountCents;
+    }
+    
+    /**
+     * Gets the number of overdue days the fine covers.
+     * 
+     * @return The overdue days
+     */
+    public int getOverdueDays() {
+        return overdueDays;
+    }
+    
+    /**
+     * Gets the date the fine was calculated.
+     * 
+     * @return The assessed date
+     */
+    public LocalDate getAssessedDate() {
+        return assessedDate;
+    }
+    
+    /**
+     * Checks if this fine is final, i.e. the DVD has been returned and the
+     * amount will not grow any further.
+     * 
+     * @return true if the loan has been returned, false if the fine is still accruing
+     */
+    public boolean isFinal() {
+        return loan.isReturned();
+    }
+    
+    /**
+     * Formats an amount in cents as a decimal string, e.g. 150 as "1.50".
+     * 
+     * @param cents The amount in cents
+     * @return The formatted amount
+     */
+    public static String formatAmount(long cents) {
+        return String.format("%d.%02d", cents / 100, Math.abs(cents % 100));
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Fine fine = (Fine) o;
+        return amountCents == fine.amountCents && 
+               Objects.equals(loan, fine.loan) && 
+               Objects.equals(assessedDate, fine.assessedDate);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(loan, amountCents, assessedDate);
+    }
+    
+    @Override
+    public String toString() {
+        return "Fine{" +
+                "dvd=" + loan.getDvd().getDvdId() +
+                ", member=" + loan.getMember().getMembershipNumber() +
+                ", amount=" + formatAmount(amountCents) +
+                ", overdueDays=" + overdueDays +
+                ", assessedDate=" + assessedDate +
+                '}';
+    }
+}
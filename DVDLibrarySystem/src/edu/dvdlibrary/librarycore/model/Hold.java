@@ -0,0 +1,180 @@
+package edu.dvdlibrary.librarycore.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Represents a member's reservation for a film that has no copies available.
+ * A hold waits in the film's queue until a copy is returned, is then ready
+ * for pickup with that copy set aside, and ends when the member borrows the
+ * film, cancels, or does not collect it in time.
+ */
+public class Hold {
+    
+    /**
+     * The lifecycle states of a hold.
+     */
+    public enum Status {
+        WAITING,
+        READY,
+        FULFILLED,
+        CANCELLED,
+        EXPIRED
+    }
+    
+    private static final int PICKUP_PERIOD_DAYS = 3;
+    
+    private final Film film;
+    private final Member member;
+    private final LocalDate placedDate;
+    private Status status;
+    private DVD assignedDvd;
+    private LocalDate pickupDeadline;
+    
+    /**
+     * Creates a new waiting hold.
+     * 
+     * @param film The film being reserved
+     * @param member The member placing the hold
+     * @param placedDate The date the hold was placed
+     */
+    public Hold(Film film, Member member, LocalDate placedDate) {
+        this.film = film;
+        this.member = member;
+        this.placedDate = placedDate;
+        this.status = Status.WAITING;
+    }
+    
+    /**
+     * Gets the film being reserved.
+     * 
+     * @return The film
+     */
+    public Film getFilm() {
+        return film;
+    }
+    
+    /**
+     * Gets the member who placed the hold.
+     * 
+     * @return The member
+     */
+    public Member getMember() {
+        return member;
+    }
+    
+    /**
+     * Gets the date the hold was placed.
+     * 
+     * @return The placed date
+     */
+    public LocalDate getPlacedDate() {
+        return placedDate;
+    }
+    
+    /**
+     * Gets the current status of the hold.
+     * 
+     * @return The status
+     */
+    public synchronized Status getStatus() {
+        return status;
+    }
+    
+    /**
+     * Gets the DVD set aside for this hold.
+     * 
+     * @return The assigned DVD or null if the hold is not ready
+     */
+    public synchronized DVD getAssignedDvd() {
+        return assignedDvd;
+    }
+    
+    /**
+     * Gets the last day the member can collect the assigned DVD.
+     * 
+     * @return The pickup deadline or null if the hold is not ready
+     */
+    public synchronized LocalDate getPickupDeadline() {
+        return pickupDeadline;
+    }
+    
+    /**
+     * Checks if the hold is still waiting or ready for pickup.
+     * 
+     * @return true if the hold is active, false otherwise
+     */
+    public synchronized boolean isActive() {
+        return status == Status.WAITING || status == Status.READY;
+    }
+    
+    /**
+     * Sets a returned DVD aside for this hold.
+     * 
+     * @param dvd The DVD to set aside
+     * @param readyDate The date the DVD became available
+     * @return true if the hold was waiting and is now ready, false otherwise
+     */
+    public synchronized boolean markReady(DVD dvd, LocalDate readyDate) {
+        if (status != Status.WAITING) {
+            return false;
+        }
+        status = Status.READY;
+        assignedDvd = dvd;
+        pickupDeadline = readyDate.plusDays(PICKUP_PERIOD_DAYS);
+        return true;
+    }
+    
+    /**
+     * Ends the hold with the given status. Has no effect if the hold has already ended.
+     * 
+     * @param finalStatus The status to end with (FULFILLED, CANCELLED or EXPIRED)
+     * @return The DVD that was set aside, or null if none was
+     */
+    public synchronized DVD close(Status finalStatus) {
+        if (!isActive()) {
+            return null;
+        }
+        DVD released = assignedDvd;
+        status = finalStatus;
+        assignedDvd = null;
+        return released;
+    }
+    
+    /**
+     * Checks if a ready hold has passed its pickup deadline.
+     * 
+     * @param currentDate The reference date to check against
+     * @return true if the hold is ready and uncollected past its deadline
+     */
+    public synchronized boolean isPickupExpired(LocalDate currentDate) {
+        return status == Status.READY && currentDate.isAfter(pickupDeadline);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Hold hold = (Hold) o;
+        return Objects.equals(film, hold.film) && 
+               Objects.equals(member, hold.member) && 
+               Objects.equals(placedDate, hold.placedDate);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(film, member, placedDate);
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "Hold{" +
+                "film=" + film.getTitle() +
+                ", member=" + member.getMembershipNumber() +
+                ", placedDate=" + placedDate +
+                ", status=" + status +
+                ", assignedDvd=" + (assignedDvd != null ? assignedDvd.getDvdId() : "none") +
+                ", pickupDeadline=" + pickupDeadline +
+                '}';
+    }
+}
@@ -2,6 +2,7 @@ package edu.dvdlibrary.librarycore.model;
 
 import java.time.LocalDate;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents a loan of a DVD to a member.
@@ -11,7 +12,7 @@ public class Loan {
     private final Member member;
     private final LocalDate borrowDate;
     private final LocalDate dueDate;
-    private LocalDate returnDate;
+    private final AtomicReference<LocalDate> returnDate = new AtomicReference<>();
     private static final int LOAN_PERIOD_DAYS = 3;
     
     /**
@@ -26,7 +27,6 @@ public class Loan {
         this.member = member;
         this.borrowDate = borrowDate;
         this.dueDate = borrowDate.plusDays(LOAN_PERIOD_DAYS);
-        this.returnDate = null;
     }
     
     /**
@@ -71,7 +71,7 @@ public class Loan {
      * @return The return date or null if not yet returned
      */
     public LocalDate getReturnDate() {
-        return returnDate;
+        return returnDate.get();
     }
     
     /**
@@ -80,7 +80,27 @@ public class Loan {
      * @param returnDate The date the DVD was returned
      */
     public void returnDVD(LocalDate returnDate) {
-        this.returnDate = returnDate;
+        this.returnDate.set(returnDate);
+    }
+    
+    /**
+     * Marks the DVD as returned on the specified date, unless it already has been.
+     * 
+     * @param returnDate The date the DVD was returned
+     * @return true if this call closed the loan, false if it was already returned
+     */
+    public boolean tryReturn(LocalDate returnDate) {
+        return this.returnDate.compareAndSet(null, returnDate);
+    }
+    
+    /**
+     * Reopens a loan closed by tryReturn, for when the return could not be recorded.
+     * 
+     * @param returnDate The return date that tryReturn set
+     * @return true if this call reopened the loan, false if it was closed with another date
+     */
+    public boolean undoReturn(LocalDate returnDate) {
+        return this.returnDate.compareAndSet(returnDate, null);
     }
     
     /**
@@ -89,7 +109,7 @@ public class Loan {
      * @return true if the DVD has been returned, false otherwise
      */
     public boolean isReturned() {
-        return returnDate != null;
+        return returnDate.get() != null;
     }
     
     /**
@@ -128,7 +148,7 @@ public class Loan {
                 ", member=" + member.getMembershipNumber() +
                 ", borrowDate=" + borrowDate +
                 ", dueDate=" + dueDate +
-                ", returnDate=" + returnDate +
+                ", returnDate=" + returnDate.get() +
                 '}';
     }
 }
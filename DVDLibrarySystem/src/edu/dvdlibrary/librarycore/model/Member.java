@@ -3,14 +3,19 @@ package edu.dvdlibrary.librarycore.model;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a library member who can borrow DVDs.
+ * Loan slots are counted atomically: a borrow reserves a slot before it
+ * takes the DVD, so concurrent borrows cannot push a member past the limit.
  */
 public class Member {
     private final String membershipNumber;
     private String name;
     private final List<Loan> currentLoans;
+    private final AtomicInteger loanSlotsInUse = new AtomicInteger();
     private static final int MAX_LOANS = 6;
     
     /**
@@ -22,7 +27,7 @@ public class Member {
     public Member(String membershipNumber, String name) {
         this.membershipNumber = membershipNumber;
         this.name = name;
-        this.currentLoans = new ArrayList<>();
+        this.currentLoans = new CopyOnWriteArrayList<>();
     }
     
     /**
@@ -62,26 +67,60 @@ public class Member {
     }
     
     /**
-     * Adds a loan to this member's current loans.
+     * Reserves one of the member's loan slots ahead of a borrow.
+     * 
+     * @return true if a slot was reserved, false if the member has reached their loan limit
+     */
+    public boolean reserveLoanSlot() {
+        int inUse;
+        do {
+            inUse = loanSlotsInUse.get();
+            if (inUse >= MAX_LOANS) {
+                return false;
+            }
+        } while (!loanSlotsInUse.compareAndSet(inUse, inUse + 1));
+        return true;
+    }
+    
+    /**
+     * Gives back a slot reserved for a borrow that did not go ahead.
+     */
+    public void releaseLoanSlot() {
+        loanSlotsInUse.decrementAndGet();
+    }
+    
+    /**
+     * Adds a loan to this member's current loans, reserving a slot for it.
      * 
      * @param loan The loan to add
      * @return true if the loan was added, false if the member has reached their loan limit
      */
     public boolean addLoan(Loan loan) {
-        if (currentLoans.size() < MAX_LOANS && loan.getMember().equals(this)) {
-            currentLoans.add(loan);
-            return true;
+        if (!loan.getMember().equals(this) || !reserveLoanSlot()) {
+            return false;
         }
-        return false;
+        currentLoans.add(loan);
+        return true;
     }
     
     /**
-     * Removes a loan from this member's current loans.
+     * Adds a loan for a slot already taken with reserveLoanSlot.
+     * 
+     * @param loan The loan to add
+     */
+    public void addReservedLoan(Loan loan) {
+        currentLoans.add(loan);
+    }
+    
+    /**
+     * Removes a loan from this member's current loans and frees its slot.
      * 
      * @param loan The loan to remove
      */
     public void removeLoan(Loan loan) {
-        currentLoans.remove(loan);
+        if (currentLoans.remove(loan)) {
+            loanSlotsInUse.decrementAndGet();
+        }
     }
     
     /**
@@ -99,7 +138,16 @@ public class Member {
      * @return true if the member hasn't reached the maximum loan limit, false otherwise
      */
     public boolean canBorrow() {
-        return currentLoans.size() < MAX_LOANS;
+        return loanSlotsInUse.get() < MAX_LOANS;
+    }
+    
+    /**
+     * Checks if the member has as many DVDs on loan as they are allowed.
+     * 
+     * @return true if the member's current loans have reached the maximum loan limit
+     */
+    public boolean isAtLoanLimit() {
+        return currentLoans.size() >= MAX_LOANS;
     }
     
     @Override
@@ -0,0 +1,104 @@
+package edu.dvdlibrary.librarycore.model;
+
+import java.text.Normalizer;
+
+/**
+ * Turns film titles into the keys they are looked up and searched by, so
+ * that "the matrix" finds "The Matrix", "Amelie" finds "Am&eacute;lie" and
+ * "spider man" finds "Spider-Man". A key is the title case-folded, with
+ * accents stripped, apostrophes dropped ("Schindler's" becomes
+ * "schindlers") and every other run of punctuation or white space
+ * collapsed to a single space, trimmed at both ends.
+ * <p>
+ * Films compute their key once when created; searches normalize their term
+ * the same way and compare it against the stored keys.
+ */
+public final class TitleNormalizer {
+    
+    private TitleNormalizer() {
+    }
+    
+    /**
+     * Gets the search key for a title or search term.
+     * 
+     * @param title The title as written
+     * @return The normalized key, empty if the title has no letters or digits
+     */
+    public static String normalize(String title) {
+        StringBuilder key = new StringBuilder(title.length());
+        boolean pendingSpace = false;
+        String text = isAscii(title) ? title : Normalizer.normalize(title, Normalizer.Form.NFD);
+        for (int i = 0; i < text.length(); ) {
+            int c = text.codePointAt(i);
+            i += Character.charCount(c);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && key.length() > 0) {
+                    key.append(' ');
+                }
+                pendingSpace = false;
+                appendFolded(key, c);
+            } else if (!isIgnorable(c)) {
+                pendingSpace = true;
+            }
+        }
+        return key.toString();
+    }
+    
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Tells whether a character is dropped without separating words: accents
+     * left over from decomposition and apostrophes.
+     */
+    private static boolean isIgnorable(int c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK
+                || c == '\'' || c == '\u2019' || c == '\u02bc'; // apostrophes
+    }
+    
+    /**
+     * Appends a letter or digit in lower case, spelling out the letters that
+     * have no decomposition into a base letter and an accent.
+     */
+    private static void appendFolded(StringBuilder key, int c) {
+        switch (c) {
+            case '\u00df': // sharp s
+            case '\u1e9e':
+                key.append("ss");
+                return;
+            case '\u00c6': // ae ligature
+            case '\u00e6':
+                key.append("ae");
+                return;
+            case '\u0152': // oe ligature
+            case '\u0153':
+                key.append("oe");
+                return;
+            case '\u00d8': // slashed o
+            case '\u00f8':
+                key.append('o');
+                return;
+            case '\u0141': // Polish l
+            case '\u0142':
+                key.append('l');
+                return;
+            case '\u0110': // crossed d
+            case '\u0111':
+                key.append('d');
+                return;
+            case '\u03c2': // final sigma
+                key.append('\u03c3');
+                return;
+            default:
+                key.appendCodePoint(Character.toLowerCase(c));
+        }
+    }
+}
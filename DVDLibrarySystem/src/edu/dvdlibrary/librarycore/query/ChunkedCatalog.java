@@ -0,0 +1,56 @@
+package edu.dvdlibrary.librarycore.query;
+
+import edu.dvdlibrary.librarycore.model.Film;
+
+import java.util.Arrays;
+
+/**
+ * Append-only list of films held in fixed-size chunks, so a scan can be
+ * split across threads by chunk without first copying the catalogue. Films
+ * are only ever added; a reader sees every film added before it read the
+ * size, and the chunks it needs are never reallocated.
+ */
+class ChunkedCatalog {
+    
+    static final int CHUNK_SIZE = 4096;
+    
+    private volatile Film[][] chunks = new Film[0][];
+    private volatile int size;
+    
+    /**
+     * Adds a film at the end.
+     * 
+     * @param film The film to add
+     */
+    synchronized void add(Film film) {
+        int index = size;
+        int chunk = index / CHUNK_SIZE;
+        Film[][] current = chunks;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, chunk + 1);
+            current[chunk] = new Film[CHUNK_SIZE];
+        }
+        current[chunk][index % CHUNK_SIZE] = film;
+        // Publish the chunk array before the size that makes the new film visible
+        chunks = current;
+        size = index + 1;
+    }
+    
+    /**
+     * Gets the number of films.
+     * 
+     * @return The film count
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the chunks. Read size() first; every film below that size is in these chunks.
+     * 
+     * @return The chunk array
+     */
+    Film[][] chunks() {
+        return chunks;
+    }
+}
@@ -0,0 +1,326 @@
+package edu.dvdlibrary.librarycore.query;
+
+import edu.dvdlibrary.librarycore.dao.DataStore;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.model.TitleNormalizer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A condition on films for FilmQueryEngine. Criteria are combined with
+ * allOf, anyOf and not. A criterion that can list the few films that might
+ * match without looking at the whole catalogue (e.g. a member's current
+ * loans) offers them through candidates(), and the engine then checks only
+ * those instead of scanning.
+ */
+public interface FilmCriterion {
+    
+    /**
+     * Checks whether a film meets the criterion.
+     * 
+     * @param film The film to check
+     * @param dataStore The store to look up loans in
+     * @return true if the film matches
+     */
+    boolean matches(Film film, DataStore dataStore);
+    
+    /**
+     * Lists every film that could meet the criterion, if that can be done
+     * without scanning the catalogue. The list may include films that do not
+     * match; the engine checks each with matches().
+     * 
+     * @param dataStore The store to look up loans in
+     * @return The candidate films, or null if the catalogue must be scanned
+     */
+    default Collection<Film> candidates(DataStore dataStore) {
+        return null;
+    }
+    
+    /**
+     * Matches films whose title contains every one of the given terms,
+     * ignoring case, accents and punctuation. Terms are normalized once and
+     * compared against each film's stored search key.
+     * 
+     * @param terms The terms to look for
+     * @return The criterion
+     */
+    static FilmCriterion titleContains(String... terms) {
+        String[] keys = new String[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i] == null || terms[i].trim().isEmpty()) {
+                throw new IllegalArgumentException("Title search terms cannot be null or empty");
+            }
+            keys[i] = TitleNormalizer.normalize(terms[i]);
+            if (keys[i].isEmpty()) {
+                throw new IllegalArgumentException("Title search terms must contain letters or digits");
+            }
+        }
+        return new FilmCriterion() {
+            @Override
+            public boolean matches(Film film, DataStore dataStore) {
+                String title = film.getSearchKey();
+                for (String key : keys) {
+                    if (!title.contains(key)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            
+            @Override
+            public String toString() {
+                return "titleContains" + Arrays.toString(keys);
+            }
+        };
+    }
+    
+    /**
+     * Matches films with a number of copies available in a range.
+     * 
+     * @param min The fewest available copies, inclusive
+     * @param max The most available copies, inclusive
+     * @return The criterion
+     */
+    static FilmCriterion availableBetween(int min, int max) {
+        checkRange(min, max);
+        return new FilmCriterion() {
+            @Override
+            public boolean matches(Film film, DataStore dataStore) {
+                int available = film.getNumberAvailable();
+                return available >= min && available <= max;
+            }
+            
+            @Override
+            public String toString() {
+                return "availableBetween(" + min + ", " + max + ")";
+            }
+        };
+    }
+    
+    /**
+     * Matches films with a total number of copies in a range.
+     * 
+     * @param min The fewest copies, inclusive
+     * @param max The most copies, inclusive
+     * @return The criterion
+     */
+    static FilmCriterion totalCopiesBetween(int min, int max) {
+        checkRange(min, max);
+        return new FilmCriterion() {
+            @Override
+            public boolean matches(Film film, DataStore dataStore) {
+                int copies = film.getTotalCopies();
+                return copies >= min && copies <= max;
+            }
+            
+            @Override
+            public String toString() {
+                return "totalCopiesBetween(" + min + ", " + max + ")";
+            }
+        };
+    }
+    
+    /**
+     * Matches films a member currently has a copy of. Answered from the
+     * member's current loans without scanning the catalogue.
+     * 
+     * @param member The member
+     * @return The criterion
+     */
+    static FilmCriterion borrowedBy(Member member) {
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        return new FilmCriterion() {
+            @Override
+            public boolean matches(Film film, DataStore dataStore) {
+                for (DVD dvd : film.getDvdCopies()) {
+                    if (member.equals(dvd.getBorrower())) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            
+            @Override
+            public Collection<Film> candidates(DataStore dataStore) {
+                Set<Film> films = new LinkedHashSet<>();
+                for (Loan loan : member.getCurrentLoans()) {
+                    films.add(loan.getDvd().getFilm());
+                }
+                return films;
+            }
+            
+            @Override
+            public String toString() {
+                return "borrowedBy(" + member.getMembershipNumber() + ")";
+            }
+        };
+    }
+    
+    /**
+     * Matches films with at least one copy that is overdue on a date.
+     * Answered from the active loans without scanning the catalogue.
+     * 
+     * @param date The date to check against
+     * @return The criterion
+     */
+    static FilmCriterion hasOverdueCopies(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        return new FilmCriterion() {
+            @Override
+            public boolean matches(Film film, DataStore dataStore) {
+                for (DVD dvd : film.getDvdCopies()) {
+                    if (dvd.isOnLoan()) {
+                        Loan loan = dataStore.findActiveLoanByDVD(dvd);
+                        if (loan != null && loan.isOverdue(date)) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            }
+            
+            @Override
+            public Collection<Film> candidates(DataStore dataStore) {
+                Set<Film> films = new LinkedHashSet<>();
+                for (Loan loan : dataStore.getActiveLoans()) {
+                    if (loan.isOverdue(date)) {
+                        films.add(loan.getDvd().getFilm());
+                    }
+                }
+                return films;
+            }
+            
+            @Override
+            public String toString() {
+                return "hasOverdueCopies(" + date + ")";
+            }
+        };
+    }
+    
+    /**
+     * Matches films that meet every one of the given criteria. If any of them
+     * can list candidates, the shortest such list is used.
+     * 
+     * @param criteria The criteria to combine
+     * @return The criterion
+     */
+    static FilmCriterion allOf(FilmCriterion... criteria) {
+        List<FilmCriterion> parts = new ArrayList<>(Arrays.asList(criteria));
+        return new FilmCriterion() {
+            @Override
+            public boolean matches(Film film, DataStore dataStore) {
+                for (FilmCriterion part : parts) {
+                    if (!part.matches(film, dataStore)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            
+            @Override
+            public Collection<Film> candidates(DataStore dataStore) {
+                Collection<Film> best = null;
+                for (FilmCriterion part : parts) {
+                    Collection<Film> candidates = part.candidates(dataStore);
+                    if (candidates != null && (best == null || candidates.size() < best.size())) {
+                        best = candidates;
+                        if (best.isEmpty()) {
+                            break;
+                        }
+                    }
+                }
+                return best;
+            }
+            
+            @Override
+            public String toString() {
+                return "allOf" + parts;
+            }
+        };
+    }
+    
+    /**
+     * Matches films that meet at least one of the given criteria. Candidates
+     * can only be listed if every one of the criteria can list them.
+     * 
+     * @param criteria The criteria to combine
+     * @return The criterion
+     */
+    static FilmCriterion anyOf(FilmCriterion... criteria) {
+        List<FilmCriterion> parts = new ArrayList<>(Arrays.asList(criteria));
+        return new FilmCriterion() {
+            @Override
+            public boolean matches(Film film, DataStore dataStore) {
+                for (FilmCriterion part : parts) {
+                    if (part.matches(film, dataStore)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            
+            @Override
+            public Collection<Film> candidates(DataStore dataStore) {
+                Set<Film> union = new LinkedHashSet<>();
+                for (FilmCriterion part : parts) {
+                    Collection<Film> candidates = part.candidates(dataStore);
+                    if (candidates == null) {
+                        return null;
+                    }
+                    union.addAll(candidates);
+                }
+                return union;
+            }
+            
+            @Override
+            public String toString() {
+                return "anyOf" + parts;
+            }
+        };
+    }
+    
+    /**
+     * Matches films that do not meet a criterion.
+     * 
+     * @param criterion The criterion to negate
+     * @return The criterion
+     */
+    static FilmCriterion not(FilmCriterion criterion) {
+        return new FilmCriterion() {
+            @Override
+            public boolean matches(Film film, DataStore dataStore) {
+                return !criterion.matches(film, dataStore);
+            }
+            
+            @Override
+            public String toString() {
+                return "not(" + criterion + ")";
+            }
+        };
+    }
+    
+    /**
+     * Checks that a range is valid.
+     * 
+     * @param min The lower bound
+     * @param max The upper bound
+     */
+    private static void checkRange(int min, int max) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Invalid range " + min + " to " + max);
+        }
+    }
+}
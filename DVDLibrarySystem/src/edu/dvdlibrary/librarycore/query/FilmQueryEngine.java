@@ -0,0 +1,175 @@
+package edu.dvdlibrary.librarycore.query;
+
+import edu.dvdlibrary.librarycore.dao.DataStore;
+import edu.dvdlibrary.librarycore.model.Film;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Answers FilmCriterion queries over the catalogue. If the criterion can
+ * list its candidate films from an index (a member's loans, the active loan
+ * table), only those are checked. Otherwise the catalogue is scanned: on
+ * the calling thread when it is small, or split by chunk across a fork/join
+ * pool when it is large, so the scan speeds up with the number of cores.
+ * Results are ordered by title either way.
+ */
+public class FilmQueryEngine {
+    
+    private static final int PARALLEL_THRESHOLD = 2 * ChunkedCatalog.CHUNK_SIZE;
+    
+    private final DataStore dataStore;
+    private final ForkJoinPool pool;
+    private final ChunkedCatalog catalog = new ChunkedCatalog();
+    
+    /**
+     * Creates an engine over the films already in a store, scanning on the common fork/join pool.
+     * 
+     * @param dataStore The store holding the films and loans
+     */
+    public FilmQueryEngine(DataStore dataStore) {
+        this(dataStore, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates an engine over the films already in a store.
+     * 
+     * @param dataStore The store holding the films and loans
+     * @param pool The fork/join pool for parallel scans
+     */
+    public FilmQueryEngine(DataStore dataStore, ForkJoinPool pool) {
+        this(dataStore, dataStore.getAllFilms(), pool);
+    }
+    
+    /**
+     * Creates an engine over films already read from a store, scanning on the common fork/join pool.
+     * 
+     * @param dataStore The store holding the films and loans
+     * @param films The films in the store
+     */
+    public FilmQueryEngine(DataStore dataStore, Collection<Film> films) {
+        this(dataStore, films, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates an engine over films already read from a store.
+     * 
+     * @param dataStore The store holding the films and loans
+     * @param films The films in the store
+     * @param pool The fork/join pool for parallel scans
+     */
+    public FilmQueryEngine(DataStore dataStore, Collection<Film> films, ForkJoinPool pool) {
+        this.dataStore = dataStore;
+        this.pool = pool;
+        for (Film film : films) {
+            catalog.add(film);
+        }
+    }
+    
+    /**
+     * Adds a film that has just been saved to the store.
+     * 
+     * @param film The new film
+     */
+    public void filmAdded(Film film) {
+        catalog.add(film);
+    }
+    
+    /**
+     * Finds the films meeting a criterion.
+     * 
+     * @param criterion The criterion
+     * @return The matching films, ordered by title
+     */
+    public List<Film> search(FilmCriterion criterion) {
+        if (criterion == null) {
+            throw new IllegalArgumentException("Criterion cannot be null");
+        }
+        List<Film> results;
+        Collection<Film> candidates = criterion.candidates(dataStore);
+        if (candidates != null) {
+            results = new ArrayList<>();
+            for (Film film : candidates) {
+                if (criterion.matches(film, dataStore)) {
+                    results.add(film);
+                }
+            }
+        } else {
+            int size = catalog.size();
+            Film[][] chunks = catalog.chunks();
+            if (size < PARALLEL_THRESHOLD) {
+                results = scan(chunks, 0, size, criterion);
+            } else {
+                results = pool.invoke(new ScanTask(chunks, 0, size, criterion));
+            }
+        }
+        results.sort(Comparator.comparing(Film::getTitle));
+        return results;
+    }
+    
+    /**
+     * Gets the number of films the engine knows about.
+     * 
+     * @return The catalogue size
+     */
+    public int getCatalogSize() {
+        return catalog.size();
+    }
+    
+    /**
+     * Checks a range of the catalogue on the calling thread.
+     * 
+     * @param chunks The catalogue chunks
+     * @param from The first position to check
+     * @param to The position after the last one to check
+     * @param criterion The criterion
+     * @return The matching films, in catalogue order
+     */
+    private List<Film> scan(Film[][] chunks, int from, int to, FilmCriterion criterion) {
+        List<Film> matches = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Film film = chunks[i / ChunkedCatalog.CHUNK_SIZE][i % ChunkedCatalog.CHUNK_SIZE];
+            if (criterion.matches(film, dataStore)) {
+                matches.add(film);
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Scans a range of the catalogue, splitting it in half until each part is at most one chunk.
+     */
+    private class ScanTask extends RecursiveTask<List<Film>> {
+        private final Film[][] chunks;
+        private final int from;
+        private final int to;
+        private final FilmCriterion criterion;
+        
+        ScanTask(Film[][] chunks, int from, int to, FilmCriterion criterion) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.criterion = criterion;
+        }
+        
+        @Override
+        protected List<Film> compute() {
+            if (to - from <= ChunkedCatalog.CHUNK_SIZE) {
+                return scan(chunks, from, to, criterion);
+            }
+            // Split on a chunk boundary so no two tasks share a chunk
+            int chunkCount = (to - from + ChunkedCatalog.CHUNK_SIZE - 1) / ChunkedCatalog.CHUNK_SIZE;
+            int mid = from + (chunkCount / 2) * ChunkedCatalog.CHUNK_SIZE;
+            ScanTask left = new ScanTask(chunks, from, mid, criterion);
+            left.fork();
+            List<Film> right = new ScanTask(chunks, mid, to, criterion).compute();
+            List<Film> matches = left.join();
+            matches.addAll(right);
+            return matches;
+        }
+    }
+}
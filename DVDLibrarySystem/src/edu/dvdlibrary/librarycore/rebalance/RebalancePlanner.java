@@ -0,0 +1,231 @@
+package edu.dvdlibrary.librarycore.rebalance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plans moves of idle DVD copies between branches so that each branch's
+ * share of a film's available copies follows its share of the demand.
+ * 
+ * Each film is planned on its own: the available copies are divided between
+ * branches in proportion to demand (largest remainder), and the branches
+ * holding more than their share are paired greedily with those holding
+ * less, largest first. Plans are cached per film and only films whose
+ * availability or demand changed since the last call are re-planned, in
+ * parallel.
+ */
+public class RebalancePlanner {
+    
+    private final List<String> branches;
+    private final Map<String, Integer> branchIndex = new HashMap<>();
+    private final Map<String, TitleState> titles = new ConcurrentHashMap<>();
+    private final Set<String> dirtyTitles = ConcurrentHashMap.newKeySet();
+    private final Map<String, List<Transfer>> plansByTitle = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates a planner for a set of branches.
+     * 
+     * @param branches The branch codes
+     */
+    public RebalancePlanner(List<String> branches) {
+        if (branches.isEmpty()) {
+            throw new IllegalArgumentException("At least one branch is required");
+        }
+        this.branches = Collections.unmodifiableList(new ArrayList<>(branches));
+        for (int i = 0; i < branches.size(); i++) {
+            branchIndex.put(branches.get(i), i);
+        }
+    }
+    
+    /**
+     * Gets the branches being planned for.
+     * 
+     * @return List of branch codes
+     */
+    public List<String> getBranches() {
+        return branches;
+    }
+    
+    /**
+     * Sets the number of copies of a film that a branch has available to move.
+     * 
+     * @param filmTitle The film title
+     * @param branch The branch code
+     * @param copies The number of idle copies at the branch
+     */
+    public void setAvailable(String filmTitle, String branch, int copies) {
+        int index = indexOf(branch);
+        TitleState state = stateFor(filmTitle);
+        synchronized (state) {
+            if (state.available[index] == copies) {
+                return;
+            }
+            state.available[index] = copies;
+        }
+        dirtyTitles.add(filmTitle);
+    }
+    
+    /**
+     * Adds demand for a film at a branch, e.g. a loan or a hold by one of its members.
+     * 
+     * @param filmTitle The film title
+     * @param branch The branch code
+     * @param weight The amount of demand to add
+     */
+    public void addDemand(String filmTitle, String branch, int weight) {
+        int index = indexOf(branch);
+        TitleState state = stateFor(filmTitle);
+        synchronized (state) {
+            state.demand[index] += weight;
+        }
+        dirtyTitles.add(filmTitle);
+    }
+    
+    /**
+     * Gets the number of films whose plan is out of date.
+     * 
+     * @return The number of films to re-plan on the next call to getPlan
+     */
+    public int getPendingCount() {
+        return dirtyTitles.size();
+    }
+    
+    /**
+     * Gets the current transfer plan, re-planning any films that changed.
+     * 
+     * @return List of transfers, largest first
+     */
+    public List<Transfer> getPlan() {
+        List<String> changed = new ArrayList<>(dirtyTitles.size());
+        Iterator<String> iterator = dirtyTitles.iterator();
+        while (iterator.hasNext()) {
+            changed.add(iterator.next());
+            iterator.remove();
+        }
+        
+        changed.parallelStream().forEach(this::replan);
+        
+        List<Transfer> plan = new ArrayList<>();
+        for (List<Transfer> transfers : plansByTitle.values()) {
+            plan.addAll(transfers);
+        }
+        plan.sort(Comparator.comparingInt(Transfer::getCopies).reversed()
+                .thenComparing(Transfer::getFilmTitle));
+        return plan;
+    }
+    
+    private void replan(String filmTitle) {
+        TitleState state = titles.get(filmTitle);
+        int[] available;
+        int[] demand;
+        synchronized (state) {
+            available = state.available.clone();
+            demand = state.demand.clone();
+        }
+        
+        List<Transfer> transfers = plan(filmTitle, available, demand);
+        if (transfers.isEmpty()) {
+            plansByTitle.remove(filmTitle);
+        } else {
+            plansByTitle.put(filmTitle, transfers);
+        }
+    }
+    
+    /**
+     * Plans transfers for a single film.
+     */
+    private List<Transfer> plan(String filmTitle, int[] available, int[] demand) {
+        int n = available.length;
+        long totalAvailable = 0;
+        long totalDemand = 0;
+        for (int i = 0; i < n; i++) {
+            totalAvailable += available[i];
+            totalDemand += demand[i];
+        }
+        if (totalAvailable == 0 || totalDemand == 0) {
+            return Collections.emptyList();
+        }
+        
+        // Share out the copies in proportion to demand, giving leftovers to the largest remainders
+        int[] target = new int[n];
+        long[] remainder = new long[n];
+        long assigned = 0;
+        for (int i = 0; i < n; i++) {
+            long scaled = totalAvailable * demand[i];
+            target[i] = (int) (scaled / totalDemand);
+            remainder[i] = scaled % totalDemand;
+            assigned += target[i];
+        }
+        Integer[] byRemainder = sortedIndexes(n, (a, b) -> Long.compare(remainder[b], remainder[a]));
+        for (int i = 0; assigned < totalAvailable; i++) {
+            target[byRemainder[i]]++;
+            assigned++;
+        }
+        
+        // Pair branches with spare copies against branches that are short, largest first
+        int[] balance = new int[n];
+        for (int i = 0; i < n; i++) {
+            balance[i] = available[i] - target[i];
+        }
+        Integer[] order = sortedIndexes(n, (a, b) -> Integer.compare(balance[b], balance[a]));
+        
+        List<Transfer> transfers = new ArrayList<>();
+        int from = 0;
+        int to = n - 1;
+        while (from < to && balance[order[from]] > 0 && balance[order[to]] < 0) {
+            int copies = Math.min(balance[order[from]], -balance[order[to]]);
+            transfers.add(new Transfer(filmTitle, branches.get(order[from]), branches.get(order[to]), copies));
+            balance[order[from]] -= copies;
+            balance[order[to]] += copies;
+            if (balance[order[from]] == 0) {
+                from++;
+            }
+            if (balance[order[to]] == 0) {
+                to--;
+            }
+        }
+        return transfers;
+    }
+    
+    private static Integer[] sortedIndexes(int n, Comparator<Integer> comparator) {
+        Integer[] indexes = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, comparator);
+        return indexes;
+    }
+    
+    private TitleState stateFor(String filmTitle) {
+        return titles.computeIfAbsent(filmTitle, key -> new TitleState(branches.size()));
+    }
+    
+    private int indexOf(String branch) {
+        Integer index = branchIndex.get(branch);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown branch '" + branch + "'");
+        }
+        return index;
+    }
+    
+    /**
+     * Per-branch availability and demand for one film.
+     */
+    private static class TitleState {
+        private final int[] available;
+        private final int[] demand;
+        
+        TitleState(int branchCount) {
+            this.available = new int[branchCount];
+            this.demand = new int[branchCount];
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package edu.dvdlibrary.librarycore.rebalance;
+
+import java.util.Objects;
+
+/**
+ * A planned move of idle DVD copies of one film from one branch to another.
+ */
+public class Transfer {
+    private final String filmTitle;
+    private final String fromBranch;
+    private final String toBranch;
+    private final int copies;
+    
+    /**
+     * Creates a new transfer.
+     * 
+     * @param filmTitle The title of the film to move
+     * @param fromBranch The branch that has spare copies
+     * @param toBranch The branch that needs them
+     * @param copies The number of copies to move
+     */
+    public Transfer(String filmTitle, String fromBranch, String toBranch, int copies) {
+        this.filmTitle = filmTitle;
+        this.fromBranch = fromBranch;
+        this.toBranch = toBranch;
+        this.copies = copies;
+    }
+    
+    /**
+     * Gets the title of the film to move.
+     * 
+     * @return The film title
+     */
+    public String getFilmTitle() {
+        return filmTitle;
+    }
+    
+    /**
+     * Gets the branch the copies move from.
+     * 
+     * @return The source branch code
+     */
+    public String getFromBranch() {
+        return fromBranch;
+    }
+    
+    /**
+     * Gets the branch the copies move to.
+     * 
+     * @return The destination branch code
+     */
+    public String getToBranch() {
+        return toBranch;
+    }
+    
+    /**
+     * Gets the number of copies to move.
+     * 
+     * @return The number of copies
+     */
+    public int getCopies() {
+        return copies;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Transfer transfer = (Transfer) o;
+        return copies == transfer.copies &&
+                Objects.equals(filmTitle, transfer.filmTitle) &&
+                Objects.equals(fromBranch, transfer.fromBranch) &&
+                Objects.equals(toBranch, transfer.toBranch);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(filmTitle, fromBranch, toBranch, copies);
+    }
+    
+    @Override
+    public String toString() {
+        return copies + " x " + filmTitle + ": " + fromBranch + " -> " + toBranch;
+    }
+}
@@ -0,0 +1,224 @@
+package edu.dvdlibrary.librarycore.service;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Hold;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Per-film FIFO hold queues.
+ * All operations are safe to call from concurrent threads: queues are
+ * lock-free, and each hold guards its own state transitions so a hold
+ * cancelled during a concurrent return is skipped rather than assigned.
+ */
+public class HoldQueueManager {
+    
+    private final ConcurrentHashMap<String, Queue<Hold>> queuesByFilm = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Hold> activeHolds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Hold> readyHoldsByDvd = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Hold> pickupDeadlines =
+            new PriorityBlockingQueue<>(16, Comparator.comparing(Hold::getPickupDeadline));
+    
+    /**
+     * Adds a hold to the back of a film's queue.
+     * 
+     * @param film The film to reserve
+     * @param member The member placing the hold
+     * @param placedDate The date the hold is placed
+     * @return The new hold
+     * @throws IllegalStateException if the member already has an active hold on the film
+     */
+    public Hold placeHold(Film film, Member member, LocalDate placedDate) {
+        Hold hold = new Hold(film, member, placedDate);
+        Hold existing = activeHolds.putIfAbsent(key(film, member), hold);
+        if (existing != null) {
+            throw new IllegalStateException("Member already has a hold on this film");
+        }
+        queuesByFilm.computeIfAbsent(film.getTitle(), title -> new ConcurrentLinkedQueue<>()).add(hold);
+        return hold;
+    }
+    
+    /**
+     * Sets a returned DVD aside for the next waiting member of its film.
+     * Holds that were cancelled while queued are skipped.
+     * 
+     * @param dvd The DVD that became available
+     * @param readyDate The date it became available
+     * @return The hold the DVD was assigned to, or null if nobody is waiting
+     */
+    public Hold assignReturnedCopy(DVD dvd, LocalDate readyDate) {
+        Queue<Hold> queue = queuesByFilm.get(dvd.getFilm().getTitle());
+        if (queue == null) {
+            return null;
+        }
+        
+        Hold hold;
+        while ((hold = queue.poll()) != null) {
+            if (hold.markReady(dvd, readyDate)) {
+                readyHoldsByDvd.put(dvd.getDvdId(), hold);
+                pickupDeadlines.add(hold);
+                return hold;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Gets the ready hold a DVD has been set aside for.
+     * 
+     * @param dvd The DVD to check
+     * @return The hold or null if the DVD is not reserved
+     */
+    public Hold findReadyHold(DVD dvd) {
+        return readyHoldsByDvd.get(dvd.getDvdId());
+    }
+    
+    /**
+     * Gets a member's active hold on a film.
+     * 
+     * @param film The film
+     * @param member The member
+     * @return The active hold or null if there is none
+     */
+    public Hold findActiveHold(Film film, Member member) {
+        return activeHolds.get(key(film, member));
+    }
+    
+    /**
+     * Marks a member's hold on a film as fulfilled after they borrow a copy.
+     * If the copy set aside for them is not the one they borrowed, it is
+     * passed on to the next waiting member.
+     * 
+     * @param borrowed The DVD the member borrowed
+     * @param member The borrowing member
+     * @param borrowDate The date of borrowing
+     */
+    public void fulfil(DVD borrowed, Member member, LocalDate borrowDate) {
+        Hold hold = activeHolds.get(key(borrowed.getFilm(), member));
+        if (hold != null) {
+            end(hold, Hold.Status.FULFILLED, borrowed, borrowDate);
+        }
+    }
+    
+    /**
+     * Cancels a member's hold on a film.
+     * 
+     * @param film The film
+     * @param member The member
+     * @param cancelDate The date of cancellation
+     * @return The cancelled hold
+     * @throws IllegalStateException if the member has no active hold on the film
+     */
+    public Hold cancelHold(Film film, Member member, LocalDate cancelDate) {
+        Hold hold = activeHolds.get(key(film, member));
+        if (hold == null) {
+            throw new IllegalStateException("Member has no active hold on this film");
+        }
+        end(hold, Hold.Status.CANCELLED, null, cancelDate);
+        return hold;
+    }
+    
+    /**
+     * Expires ready holds that were not collected by their pickup deadline,
+     * passing each released DVD to the next waiting member.
+     * 
+     * @param currentDate The date to check deadlines against
+     * @return The holds that expired
+     */
+    public List<Hold> expireHolds(LocalDate currentDate) {
+        List<Hold> expired = new ArrayList<>();
+        Hold hold;
+        while ((hold = pickupDeadlines.poll()) != null) {
+            if (!currentDate.isAfter(hold.getPickupDeadline())) {
+                // Earliest deadline has not passed yet, so none of the rest have either
+                pickupDeadlines.add(hold);
+                break;
+            }
+            if (hold.isPickupExpired(currentDate)) {
+                end(hold, Hold.Status.EXPIRED, null, currentDate);
+                expired.add(hold);
+            }
+        }
+        return expired;
+    }
+    
+    /**
+     * Gets the active holds on a film in queue order, ready holds first.
+     * 
+     * @param film The film
+     * @return List of active holds
+     */
+    public List<Hold> getHoldQueue(Film film) {
+        List<Hold> result = new ArrayList<>();
+        for (Hold hold : readyHoldsByDvd.values()) {
+            if (hold.getFilm().equals(film)) {
+                result.add(hold);
+            }
+        }
+        Queue<Hold> queue = queuesByFilm.get(film.getTitle());
+        if (queue != null) {
+            for (Hold hold : queue) {
+                if (hold.isActive()) {
+                    result.add(hold);
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Gets the number of members waiting on a film, not counting ready holds.
+     * 
+     * @param film The film
+     * @return The number of waiting holds
+     */
+    public int getWaitingCount(Film film) {
+        Queue<Hold> queue = queuesByFilm.get(film.getTitle());
+        if (queue == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Hold hold : queue) {
+            if (hold.getStatus() == Hold.Status.WAITING) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Gets every active hold, oldest first.
+     * 
+     * @return List of active holds
+     */
+    public List<Hold> getActiveHolds() {
+        return activeHolds.values().stream()
+                .sorted(Comparator.comparing(Hold::getPlacedDate))
+                .collect(Collectors.toList());
+    }
+    
+    private void end(Hold hold, Hold.Status status, DVD borrowed, LocalDate date) {
+        DVD released = hold.close(status);
+        activeHolds.remove(key(hold.getFilm(), hold.getMember()), hold);
+        if (released != null) {
+            readyHoldsByDvd.remove(released.getDvdId(), hold);
+            if (!released.equals(borrowed)) {
+                assignReturnedCopy(released, date);
+            }
+        }
+    }
+    
+    private static String key(Film film, Member member) {
+        return film.getTitle() + '\u0000' + member.getMembershipNumber();
+    }
+}
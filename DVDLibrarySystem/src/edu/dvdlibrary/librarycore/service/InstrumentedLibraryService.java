@@ -0,0 +1,677 @@
+package edu.dvdlibrary.librarycore.service;
+
+import edu.dvdlibrary.librarycore.analytics.AnalyticsWindow;
+import edu.dvdlibrary.librarycore.analytics.LibraryStats;
+import edu.dvdlibrary.librarycore.analytics.LibraryStatsAudit;
+import edu.dvdlibrary.librarycore.analytics.RankedItem;
+import edu.dvdlibrary.librarycore.events.LibrarySnapshot;
+import edu.dvdlibrary.librarycore.fines.FineBatchResult;
+import edu.dvdlibrary.librarycore.index.InventoryCounts;
+import edu.dvdlibrary.librarycore.metrics.MetricsRegistry;
+import edu.dvdlibrary.librarycore.metrics.OperationTimer;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Fine;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Hold;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.query.FilmCriterion;
+import edu.dvdlibrary.librarycore.rebalance.Transfer;
+import edu.dvdlibrary.librarycore.snapshot.LibraryVersion;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * LibraryService decorator that times every call. Each operation records
+ * its latency in a histogram and counts the calls that threw, under the
+ * name "service." followed by the method name. Timers are looked up once
+ * here, so timing a call allocates nothing.
+ */
+public class InstrumentedLibraryService implements LibraryService {
+    
+    private static final String PREFIX = "service.";
+    
+    private final LibraryService delegate;
+    private final OperationTimer addFilmTimer;
+    private final OperationTimer findFilmByTitleTimer;
+    private final OperationTimer getAllFilmsTimer;
+    private final OperationTimer browseFilmsTimer;
+    private final OperationTimer searchFilmsByTitleTimer;
+    private final OperationTimer searchFilmsBySimilarTitleTimer;
+    private final OperationTimer searchFilmsByAvailabilityTimer;
+    private final OperationTimer searchFilmsByCombinedCriteriaTimer;
+    private final OperationTimer searchFilmsTimer;
+    private final OperationTimer addDVDCopyTimer;
+    private final OperationTimer findDVDByIdTimer;
+    private final OperationTimer getNumberAvailableTimer;
+    private final OperationTimer addMemberTimer;
+    private final OperationTimer findMemberByNumberTimer;
+    private final OperationTimer getAllMembersTimer;
+    private final OperationTimer listFilmsForMemberTimer;
+    private final OperationTimer getLoanHistoryTimer;
+    private final OperationTimer getLoanHistoryBetweenTimer;
+    private final OperationTimer hasMemberBorrowedFilmTimer;
+    private final OperationTimer borrowDVDTimer;
+    private final OperationTimer returnDVDTimer;
+    private final OperationTimer getAllActiveLoansTimer;
+    private final OperationTimer getDVDsOnLoanTimer;
+    private final OperationTimer getInventoryCountsTimer;
+    private final OperationTimer getLibraryStatsTimer;
+    private final OperationTimer auditLibraryStatsTimer;
+    private final OperationTimer getSnapshotTimer;
+    private final OperationTimer getTopFilmsTimer;
+    private final OperationTimer getTopMembersTimer;
+    private final OperationTimer getRecommendationsTimer;
+    private final OperationTimer placeHoldTimer;
+    private final OperationTimer cancelHoldTimer;
+    private final OperationTimer getHoldQueueTimer;
+    private final OperationTimer getActiveHoldsTimer;
+    private final OperationTimer findReadyHoldTimer;
+    private final OperationTimer expireHoldsTimer;
+    private final OperationTimer getFineBalanceTimer;
+    private final OperationTimer getFinesTimer;
+    private final OperationTimer findFineTimer;
+    private final OperationTimer assessOverdueFinesTimer;
+    private final OperationTimer getRebalancePlanTimer;
+    private final OperationTimer getLibraryAsOfTimer;
+    
+    /**
+     * Creates an instrumented service.
+     * 
+     * @param delegate The service to time
+     * @param metrics The registry to record timings in
+     */
+    public InstrumentedLibraryService(LibraryService delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.addFilmTimer = metrics.timer(PREFIX + "addFilm");
+        this.findFilmByTitleTimer = metrics.timer(PREFIX + "findFilmByTitle");
+        this.getAllFilmsTimer = metrics.timer(PREFIX + "getAllFilms");
+        this.browseFilmsTimer = metrics.timer(PREFIX + "browseFilms");
+        this.searchFilmsByTitleTimer = metrics.timer(PREFIX + "searchFilmsByTitle");
+        this.searchFilmsBySimilarTitleTimer = metrics.timer(PREFIX + "searchFilmsBySimilarTitle");
+        this.searchFilmsByAvailabilityTimer = metrics.timer(PREFIX + "searchFilmsByAvailability");
+        this.searchFilmsByCombinedCriteriaTimer = metrics.timer(PREFIX + "searchFilmsByCombinedCriteria");
+        this.searchFilmsTimer = metrics.timer(PREFIX + "searchFilms");
+        this.addDVDCopyTimer = metrics.timer(PREFIX + "addDVDCopy");
+        this.findDVDByIdTimer = metrics.timer(PREFIX + "findDVDById");
+        this.getNumberAvailableTimer = metrics.timer(PREFIX + "getNumberAvailable");
+        this.addMemberTimer = metrics.timer(PREFIX + "addMember");
+        this.findMemberByNumberTimer = metrics.timer(PREFIX + "findMemberByNumber");
+        this.getAllMembersTimer = metrics.timer(PREFIX + "getAllMembers");
+        this.listFilmsForMemberTimer = metrics.timer(PREFIX + "listFilmsForMember");
+        this.getLoanHistoryTimer = metrics.timer(PREFIX + "getLoanHistory");
+        this.getLoanHistoryBetweenTimer = metrics.timer(PREFIX + "getLoanHistory");
+        this.hasMemberBorrowedFilmTimer = metrics.timer(PREFIX + "hasMemberBorrowedFilm");
+        this.borrowDVDTimer = metrics.timer(PREFIX + "borrowDVD");
+        this.returnDVDTimer = metrics.timer(PREFIX + "returnDVD");
+        this.getAllActiveLoansTimer = metrics.timer(PREFIX + "getAllActiveLoans");
+        this.getDVDsOnLoanTimer = metrics.timer(PREFIX + "getDVDsOnLoan");
+        this.getInventoryCountsTimer = metrics.timer(PREFIX + "getInventoryCounts");
+        this.getLibraryStatsTimer = metrics.timer(PREFIX + "getLibraryStats");
+        this.auditLibraryStatsTimer = metrics.timer(PREFIX + "auditLibraryStats");
+        this.getSnapshotTimer = metrics.timer(PREFIX + "getSnapshot");
+        this.getTopFilmsTimer = metrics.timer(PREFIX + "getTopFilms");
+        this.getTopMembersTimer = metrics.timer(PREFIX + "getTopMembers");
+        this.getRecommendationsTimer = metrics.timer(PREFIX + "getRecommendations");
+        this.placeHoldTimer = metrics.timer(PREFIX + "placeHold");
+        this.cancelHoldTimer = metrics.timer(PREFIX + "cancelHold");
+        this.getHoldQueueTimer = metrics.timer(PREFIX + "getHoldQueue");
+        this.getActiveHoldsTimer = metrics.timer(PREFIX + "getActiveHolds");
+        this.findReadyHoldTimer = metrics.timer(PREFIX + "findReadyHold");
+        this.expireHoldsTimer = metrics.timer(PREFIX + "expireHolds");
+        this.getFineBalanceTimer = metrics.timer(PREFIX + "getFineBalance");
+        this.getFinesTimer = metrics.timer(PREFIX + "getFines");
+        this.findFineTimer = metrics.timer(PREFIX + "findFine");
+        this.assessOverdueFinesTimer = metrics.timer(PREFIX + "assessOverdueFines");
+        this.getRebalancePlanTimer = metrics.timer(PREFIX + "getRebalancePlan");
+        this.getLibraryAsOfTimer = metrics.timer(PREFIX + "getLibraryAsOf");
+    }
+    
+    @Override
+    public Film addFilm(String title) {
+        long start = System.nanoTime();
+        try {
+            return delegate.addFilm(title);
+        } catch (RuntimeException e) {
+            addFilmTimer.failed();
+            throw e;
+        } finally {
+            addFilmTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Film findFilmByTitle(String title) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findFilmByTitle(title);
+        } catch (RuntimeException e) {
+            findFilmByTitleTimer.failed();
+            throw e;
+        } finally {
+            findFilmByTitleTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Film> getAllFilms() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllFilms();
+        } catch (RuntimeException e) {
+            getAllFilmsTimer.failed();
+            throw e;
+        } finally {
+            getAllFilmsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Film> browseFilms(String fromTitle, String toTitle, String afterTitle, int pageSize, boolean descending) {
+        long start = System.nanoTime();
+        try {
+            return delegate.browseFilms(fromTitle, toTitle, afterTitle, pageSize, descending);
+        } catch (RuntimeException e) {
+            browseFilmsTimer.failed();
+            throw e;
+        } finally {
+            browseFilmsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Film> searchFilmsByTitle(String searchTerm) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchFilmsByTitle(searchTerm);
+        } catch (RuntimeException e) {
+            searchFilmsByTitleTimer.failed();
+            throw e;
+        } finally {
+            searchFilmsByTitleTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Film> searchFilmsBySimilarTitle(String title, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchFilmsBySimilarTitle(title, limit);
+        } catch (RuntimeException e) {
+            searchFilmsBySimilarTitleTimer.failed();
+            throw e;
+        } finally {
+            searchFilmsBySimilarTitleTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Film> searchFilmsByAvailability(int minAvailable) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchFilmsByAvailability(minAvailable);
+        } catch (RuntimeException e) {
+            searchFilmsByAvailabilityTimer.failed();
+            throw e;
+        } finally {
+            searchFilmsByAvailabilityTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Film> searchFilmsByCombinedCriteria(String searchTerm, int minAvailable) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchFilmsByCombinedCriteria(searchTerm, minAvailable);
+        } catch (RuntimeException e) {
+            searchFilmsByCombinedCriteriaTimer.failed();
+            throw e;
+        } finally {
+            searchFilmsByCombinedCriteriaTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Film> searchFilms(FilmCriterion criterion) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchFilms(criterion);
+        } catch (RuntimeException e) {
+            searchFilmsTimer.failed();
+            throw e;
+        } finally {
+            searchFilmsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public DVD addDVDCopy(Film film, String dvdId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.addDVDCopy(film, dvdId);
+        } catch (RuntimeException e) {
+            addDVDCopyTimer.failed();
+            throw e;
+        } finally {
+            addDVDCopyTimer.record(start);
+        }
+    }
+    
+    @Override
+    public DVD findDVDById(String dvdId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findDVDById(dvdId);
+        } catch (RuntimeException e) {
+            findDVDByIdTimer.failed();
+            throw e;
+        } finally {
+            findDVDByIdTimer.record(start);
+        }
+    }
+    
+    @Override
+    public int getNumberAvailable(Film film) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getNumberAvailable(film);
+        } catch (RuntimeException e) {
+            getNumberAvailableTimer.failed();
+            throw e;
+        } finally {
+            getNumberAvailableTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Member addMember(String membershipNumber, String name) {
+        long start = System.nanoTime();
+        try {
+            return delegate.addMember(membershipNumber, name);
+        } catch (RuntimeException e) {
+            addMemberTimer.failed();
+            throw e;
+        } finally {
+            addMemberTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Member findMemberByNumber(String membershipNumber) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findMemberByNumber(membershipNumber);
+        } catch (RuntimeException e) {
+            findMemberByNumberTimer.failed();
+            throw e;
+        } finally {
+            findMemberByNumberTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Member> getAllMembers() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllMembers();
+        } catch (RuntimeException e) {
+            getAllMembersTimer.failed();
+            throw e;
+        } finally {
+            getAllMembersTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Loan> listFilmsForMember(Member member) {
+        long start = System.nanoTime();
+        try {
+            return delegate.listFilmsForMember(member);
+        } catch (RuntimeException e) {
+            listFilmsForMemberTimer.failed();
+            throw e;
+        } finally {
+            listFilmsForMemberTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Loan> getLoanHistory(Member member) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getLoanHistory(member);
+        } catch (RuntimeException e) {
+            getLoanHistoryTimer.failed();
+            throw e;
+        } finally {
+            getLoanHistoryTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Loan> getLoanHistory(Member member, LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getLoanHistory(member, from, to);
+        } catch (RuntimeException e) {
+            getLoanHistoryBetweenTimer.failed();
+            throw e;
+        } finally {
+            getLoanHistoryBetweenTimer.record(start);
+        }
+    }
+    
+    @Override
+    public boolean hasMemberBorrowedFilm(Member member, Film film) {
+        long start = System.nanoTime();
+        try {
+            return delegate.hasMemberBorrowedFilm(member, film);
+        } catch (RuntimeException e) {
+            hasMemberBorrowedFilmTimer.failed();
+            throw e;
+        } finally {
+            hasMemberBorrowedFilmTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Loan borrowDVD(DVD dvd, Member member, LocalDate borrowDate) {
+        long start = System.nanoTime();
+        try {
+            return delegate.borrowDVD(dvd, member, borrowDate);
+        } catch (RuntimeException e) {
+            borrowDVDTimer.failed();
+            throw e;
+        } finally {
+            borrowDVDTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Loan returnDVD(DVD dvd, LocalDate returnDate) {
+        long start = System.nanoTime();
+        try {
+            return delegate.returnDVD(dvd, returnDate);
+        } catch (RuntimeException e) {
+            returnDVDTimer.failed();
+            throw e;
+        } finally {
+            returnDVDTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Loan> getAllActiveLoans() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllActiveLoans();
+        } catch (RuntimeException e) {
+            getAllActiveLoansTimer.failed();
+            throw e;
+        } finally {
+            getAllActiveLoansTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<DVD> getDVDsOnLoan(Film film) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getDVDsOnLoan(film);
+        } catch (RuntimeException e) {
+            getDVDsOnLoanTimer.failed();
+            throw e;
+        } finally {
+            getDVDsOnLoanTimer.record(start);
+        }
+    }
+    
+    @Override
+    public InventoryCounts getInventoryCounts() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getInventoryCounts();
+        } catch (RuntimeException e) {
+            getInventoryCountsTimer.failed();
+            throw e;
+        } finally {
+            getInventoryCountsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public LibraryStats getLibraryStats() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getLibraryStats();
+        } catch (RuntimeException e) {
+            getLibraryStatsTimer.failed();
+            throw e;
+        } finally {
+            getLibraryStatsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public LibraryStatsAudit auditLibraryStats() {
+        long start = System.nanoTime();
+        try {
+            return delegate.auditLibraryStats();
+        } catch (RuntimeException e) {
+            auditLibraryStatsTimer.failed();
+            throw e;
+        } finally {
+            auditLibraryStatsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public LibraryVersion getSnapshot() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSnapshot();
+        } catch (RuntimeException e) {
+            getSnapshotTimer.failed();
+            throw e;
+        } finally {
+            getSnapshotTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<RankedItem> getTopFilms(AnalyticsWindow window, int k) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTopFilms(window, k);
+        } catch (RuntimeException e) {
+            getTopFilmsTimer.failed();
+            throw e;
+        } finally {
+            getTopFilmsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<RankedItem> getTopMembers(AnalyticsWindow window, int k) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTopMembers(window, k);
+        } catch (RuntimeException e) {
+            getTopMembersTimer.failed();
+            throw e;
+        } finally {
+            getTopMembersTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<RankedItem> getRecommendations(Film film, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getRecommendations(film, limit);
+        } catch (RuntimeException e) {
+            getRecommendationsTimer.failed();
+            throw e;
+        } finally {
+            getRecommendationsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Hold placeHold(Film film, Member member, LocalDate placedDate) {
+        long start = System.nanoTime();
+        try {
+            return delegate.placeHold(film, member, placedDate);
+        } catch (RuntimeException e) {
+            placeHoldTimer.failed();
+            throw e;
+        } finally {
+            placeHoldTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Hold cancelHold(Film film, Member member, LocalDate cancelDate) {
+        long start = System.nanoTime();
+        try {
+            return delegate.cancelHold(film, member, cancelDate);
+        } catch (RuntimeException e) {
+            cancelHoldTimer.failed();
+            throw e;
+        } finally {
+            cancelHoldTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Hold> getHoldQueue(Film film) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getHoldQueue(film);
+        } catch (RuntimeException e) {
+            getHoldQueueTimer.failed();
+            throw e;
+        } finally {
+            getHoldQueueTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Hold> getActiveHolds() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getActiveHolds();
+        } catch (RuntimeException e) {
+            getActiveHoldsTimer.failed();
+            throw e;
+        } finally {
+            getActiveHoldsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Hold findReadyHold(DVD dvd) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findReadyHold(dvd);
+        } catch (RuntimeException e) {
+            findReadyHoldTimer.failed();
+            throw e;
+        } finally {
+            findReadyHoldTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Hold> expireHolds(LocalDate currentDate) {
+        long start = System.nanoTime();
+        try {
+            return delegate.expireHolds(currentDate);
+        } catch (RuntimeException e) {
+            expireHoldsTimer.failed();
+            throw e;
+        } finally {
+            expireHoldsTimer.record(start);
+        }
+    }
+    
+    @Override
+    public long getFineBalance(Member member) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getFineBalance(member);
+        } catch (RuntimeException e) {
+            getFineBalanceTimer.failed();
+            throw e;
+        } finally {
+            getFineBalanceTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Fine> getFines(Member member) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getFines(member);
+        } catch (RuntimeException e) {
+            getFinesTimer.failed();
+            throw e;
+        } finally {
+            getFinesTimer.record(start);
+        }
+    }
+    
+    @Override
+    public Fine findFine(Loan loan) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findFine(loan);
+        } catch (RuntimeException e) {
+            findFineTimer.failed();
+            throw e;
+        } finally {
+            findFineTimer.record(start);
+        }
+    }
+    
+    @Override
+    public FineBatchResult assessOverdueFines(LocalDate assessmentDate, Duration budget) {
+        long start = System.nanoTime();
+        try {
+            return delegate.assessOverdueFines(assessmentDate, budget);
+        } catch (RuntimeException e) {
+            assessOverdueFinesTimer.failed();
+            throw e;
+        } finally {
+            assessOverdueFinesTimer.record(start);
+        }
+    }
+    
+    @Override
+    public List<Transfer> getRebalancePlan() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getRebalancePlan();
+        } catch (RuntimeException e) {
+            getRebalancePlanTimer.failed();
+            throw e;
+        } finally {
+            getRebalancePlanTimer.record(start);
+        }
+    }
+    
+    @Override
+    public LibrarySnapshot getLibraryAsOf(LocalDate date) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getLibraryAsOf(date);
+        } catch (RuntimeException e) {
+            getLibraryAsOfTimer.failed();
+            throw e;
+        } finally {
+            getLibraryAsOfTimer.record(start);
+        }
+    }
+}
@@ -1,10 +1,23 @@
 package edu.dvdlibrary.librarycore.service;
 
+import edu.dvdlibrary.librarycore.analytics.AnalyticsWindow;
+import edu.dvdlibrary.librarycore.analytics.LibraryStats;
+import edu.dvdlibrary.librarycore.analytics.LibraryStatsAudit;
+import edu.dvdlibrary.librarycore.analytics.RankedItem;
+import edu.dvdlibrary.librarycore.events.LibrarySnapshot;
+import edu.dvdlibrary.librarycore.fines.FineBatchResult;
+import edu.dvdlibrary.librarycore.index.InventoryCounts;
 import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Fine;
 import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Hold;
 import edu.dvdlibrary.librarycore.model.Loan;
 import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.query.FilmCriterion;
+import edu.dvdlibrary.librarycore.rebalance.Transfer;
+import edu.dvdlibrary.librarycore.snapshot.LibraryVersion;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -19,12 +32,14 @@ public interface LibraryService {
      * 
      * @param title The title of the film
      * @return The created Film object
-     * @throws IllegalArgumentException if a film with the same title already exists
+     * @throws IllegalArgumentException if a film with the same title, ignoring case, accents
+     *         and punctuation, already exists
      */
     Film addFilm(String title);
     
     /**
-     * Finds a film by its title.
+     * Finds a film by its title, ignoring case, accents and punctuation,
+     * so "the matrix" finds "The Matrix".
      * 
      * @param title The title to search for
      * @return The Film object or null if not found
@@ -39,13 +54,41 @@ public interface LibraryService {
     List<Film> getAllFilms();
     
     /**
-     * Searches for films by title (partial or complete).
+     * Gets a page of films in alphabetical order of title, ignoring case,
+     * accents and punctuation. Pass the last title of one page as afterTitle
+     * to get the next; pass the first title with the opposite direction to
+     * get the one before. Blank titles are treated as absent.
+     * 
+     * @param fromTitle The first title to include, or null to start at the beginning
+     * @param toTitle The last title to include, or null to run to the end; every
+     *                title starting with it is included, so "C" covers "Casablanca"
+     * @param afterTitle The title the previous page ended with, or null for the first page
+     * @param pageSize The maximum number of films to return
+     * @param descending true to browse from Z to A
+     * @return The films on the page, in the order browsed
+     */
+    List<Film> browseFilms(String fromTitle, String toTitle, String afterTitle, int pageSize, boolean descending);
+    
+    /**
+     * Searches for films by title (partial or complete), ignoring case,
+     * accents and punctuation.
      * 
      * @param searchTerm The search term to match against film titles
      * @return List of films matching the search term
      */
     List<Film> searchFilmsByTitle(String searchTerm);
     
+    /**
+     * Searches for films whose titles are close to a title that may contain
+     * typos, e.g. "Intersteller" finds "Interstellar". Titles of 4 or 5
+     * characters may differ by one edit and longer titles by two.
+     * 
+     * @param title The title as typed
+     * @param limit The maximum number of films to return
+     * @return List of films, fewest edits first, then most borrowed
+     */
+    List<Film> searchFilmsBySimilarTitle(String title, int limit);
+    
     /**
      * Searches for films by availability.
      * 
@@ -63,6 +106,16 @@ public interface LibraryService {
      */
     List<Film> searchFilmsByCombinedCriteria(String searchTerm, int minAvailable);
     
+    /**
+     * Searches for films meeting any combination of criteria, e.g. titles
+     * containing some words with no copies available, or films a member has
+     * on loan that are overdue.
+     * 
+     * @param criterion The criteria, built with the FilmCriterion factory methods
+     * @return List of matching films, ordered by title
+     */
+    List<Film> searchFilms(FilmCriterion criterion);
+    
     /**
      * Adds a DVD copy of a film to the library.
      * 
@@ -124,21 +177,52 @@ public interface LibraryService {
      */
     List<Loan> listFilmsForMember(Member member);
     
+    /**
+     * Gets every loan a member has ever made, including returned loans.
+     * 
+     * @param member The member to check
+     * @return List of loans ordered by borrow date, oldest first
+     */
+    List<Loan> getLoanHistory(Member member);
+    
+    /**
+     * Gets the loans a member made within a date range.
+     * 
+     * @param member The member to check
+     * @param from The earliest borrow date to include
+     * @param to The latest borrow date to include
+     * @return List of loans borrowed between the two dates (inclusive), oldest first
+     */
+    List<Loan> getLoanHistory(Member member, LocalDate from, LocalDate to);
+    
+    /**
+     * Checks whether a member has ever borrowed a copy of a film.
+     * 
+     * @param member The member to check
+     * @param film The film to check
+     * @return true if the member has borrowed the film before, false otherwise
+     */
+    boolean hasMemberBorrowedFilm(Member member, Film film);
+    
     /**
      * Allows a member to borrow a DVD.
      * Implements Use Case C: Borrow DVD
+     * If the data store cannot save the loan, the DVD stays on the shelf and its error is rethrown.
      * 
      * @param dvd The DVD to borrow
      * @param member The member borrowing the DVD
      * @param borrowDate The date of borrowing
      * @return The created Loan object
-     * @throws IllegalStateException if the DVD is already on loan or the member has reached their loan limit
+     * @throws IllegalStateException if the DVD is already on loan, is reserved for another member,
+     *         or the member has reached their loan limit
      */
     Loan borrowDVD(DVD dvd, Member member, LocalDate borrowDate);
     
     /**
      * Processes a DVD return.
      * Implements Use Case D: Return DVD
+     * If members are waiting for the film, the DVD is set aside for the first of them.
+     * A late return is charged a fine.
      * 
      * @param dvd The DVD being returned
      * @param returnDate The date of return
@@ -153,4 +237,181 @@ public interface LibraryService {
      * @return List of all active loans
      */
     List<Loan> getAllActiveLoans();
+    
+    /**
+     * Gets the DVDs currently on loan, answered from the availability index
+     * rather than by reading the loans.
+     * 
+     * @param film The film whose copies to check, or null for every film
+     * @return List of DVDs on loan
+     */
+    List<DVD> getDVDsOnLoan(Film film);
+    
+    /**
+     * Gets stock totals for the whole library: films, discs, discs on loan,
+     * films with every copy out and films with no copies.
+     * 
+     * @return The counts, all taken at the same moment
+     */
+    InventoryCounts getInventoryCounts();
+    
+    /**
+     * Gets the library's headline totals: films, discs, discs on loan,
+     * overdue loans, members and members at their loan limit. The totals are
+     * kept up to date by every change, so this is cheap enough to poll.
+     * 
+     * @return The totals as of today
+     */
+    LibraryStats getLibraryStats();
+    
+    /**
+     * Checks the totals returned by getLibraryStats against a full recount,
+     * correcting them if they have drifted.
+     * 
+     * @return The tracked and recounted totals, and whether a correction was made
+     */
+    LibraryStatsAudit auditLibraryStats();
+    
+    /**
+     * Gets a consistent, immutable view of the film catalogue and active loans.
+     * Unlike getAllFilms and getAllActiveLoans, which return live objects,
+     * every count and loan in the snapshot comes from the same version, so
+     * reports built from it always agree with each other.
+     * 
+     * @return The latest library version
+     */
+    LibraryVersion getSnapshot();
+    
+    /**
+     * Gets the most borrowed films in a recent time window.
+     * 
+     * @param window The time window ending today
+     * @param k The maximum number of films to return
+     * @return Film titles with their borrow counts, most borrowed first
+     */
+    List<RankedItem> getTopFilms(AnalyticsWindow window, int k);
+    
+    /**
+     * Gets the members who borrowed the most in a recent time window.
+     * 
+     * @param window The time window ending today
+     * @param k The maximum number of members to return
+     * @return Membership numbers with their borrow counts, most active first
+     */
+    List<RankedItem> getTopMembers(AnalyticsWindow window, int k);
+    
+    /**
+     * Gets films that members who borrowed a film also borrowed.
+     * 
+     * @param film The film to base the recommendations on
+     * @param limit The maximum number of films to return
+     * @return Film titles with the number of members who borrowed both, strongest first
+     */
+    List<RankedItem> getRecommendations(Film film, int limit);
+    
+    /**
+     * Places a hold on a film that has no copies available to borrow.
+     * 
+     * @param film The film to reserve
+     * @param member The member placing the hold
+     * @param placedDate The date the hold is placed
+     * @return The created Hold object
+     * @throws IllegalStateException if a copy is available or the member already has a hold on the film
+     */
+    Hold placeHold(Film film, Member member, LocalDate placedDate);
+    
+    /**
+     * Cancels a member's hold on a film.
+     * If a DVD was set aside for the hold, it passes to the next waiting member.
+     * 
+     * @param film The reserved film
+     * @param member The member who placed the hold
+     * @param cancelDate The date of cancellation
+     * @return The cancelled Hold object
+     * @throws IllegalStateException if the member has no active hold on the film
+     */
+    Hold cancelHold(Film film, Member member, LocalDate cancelDate);
+    
+    /**
+     * Gets the active holds on a film, ready holds first and then in queue order.
+     * 
+     * @param film The film to check
+     * @return List of active holds
+     */
+    List<Hold> getHoldQueue(Film film);
+    
+    /**
+     * Gets all active holds in the system.
+     * 
+     * @return List of active holds, oldest first
+     */
+    List<Hold> getActiveHolds();
+    
+    /**
+     * Finds the hold a DVD has been set aside for.
+     * 
+     * @param dvd The DVD to check
+     * @return The ready Hold or null if the DVD is not reserved
+     */
+    Hold findReadyHold(DVD dvd);
+    
+    /**
+     * Expires holds whose DVD was not collected by the pickup deadline.
+     * 
+     * @param currentDate The date to check deadlines against
+     * @return List of holds that expired
+     */
+    List<Hold> expireHolds(LocalDate currentDate);
+    
+    /**
+     * Gets the total fines a member owes.
+     * 
+     * @param member The member to check
+     * @return The balance in cents
+     */
+    long getFineBalance(Member member);
+    
+    /**
+     * Gets the fines charged to a member.
+     * 
+     * @param member The member to check
+     * @return List of fines, oldest loan first
+     */
+    List<Fine> getFines(Member member);
+    
+    /**
+     * Finds the fine charged for a loan.
+     * 
+     * @param loan The loan to check
+     * @return The Fine or null if the loan has not been fined
+     */
+    Fine findFine(Loan loan);
+    
+    /**
+     * Brings the fines on all overdue active loans up to date.
+     * Safe to run repeatedly: each loan's fine is replaced rather than added to.
+     * 
+     * @param assessmentDate The date to calculate fines as of
+     * @param budget The maximum time to spend before stopping early
+     * @return A summary of the run
+     */
+    FineBatchResult assessOverdueFines(LocalDate assessmentDate, Duration budget);
+    
+    /**
+     * Gets the suggested moves of idle copies between branches, so that each
+     * branch's share of a film's copies follows its share of loans and holds.
+     * Only films whose availability or demand changed since the last call are re-planned.
+     * 
+     * @return List of transfers, largest first (empty for a single-branch library)
+     */
+    List<Transfer> getRebalancePlan();
+    
+    /**
+     * Rebuilds the library as it stood at the end of a day, e.g. to settle
+     * a dispute over who had a DVD on a particular date.
+     * 
+     * @param date The day to rebuild
+     * @return A read-only snapshot of films, members and loans on that day
+     */
+    LibrarySnapshot getLibraryAsOf(LocalDate date);
 }
@@ -1,15 +1,53 @@
 package edu.dvdlibrary.librarycore.service;
 
+import edu.dvdlibrary.librarycore.analytics.AnalyticsWindow;
+import edu.dvdlibrary.librarycore.analytics.BorrowAnalytics;
+import edu.dvdlibrary.librarycore.analytics.CoBorrowRecommender;
+import edu.dvdlibrary.librarycore.analytics.LibraryStats;
+import edu.dvdlibrary.librarycore.analytics.LibraryStatsAudit;
+import edu.dvdlibrary.librarycore.analytics.LibraryStatsTracker;
+import edu.dvdlibrary.librarycore.analytics.RankedItem;
+import edu.dvdlibrary.librarycore.analytics.SketchBorrowAnalytics;
 import edu.dvdlibrary.librarycore.dao.DataStore;
+import edu.dvdlibrary.librarycore.events.EventLog;
+import edu.dvdlibrary.librarycore.events.LibrarySnapshot;
+import edu.dvdlibrary.librarycore.fines.FineAssessor;
+import edu.dvdlibrary.librarycore.fines.FineBatchResult;
+import edu.dvdlibrary.librarycore.fines.FineLedger;
+import edu.dvdlibrary.librarycore.fines.FineRateTable;
+import edu.dvdlibrary.librarycore.index.AvailabilityIndex;
+import edu.dvdlibrary.librarycore.index.FuzzyTitleIndex;
+import edu.dvdlibrary.librarycore.index.InventoryCounts;
+import edu.dvdlibrary.librarycore.index.LoanHistoryIndex;
+import edu.dvdlibrary.librarycore.index.SortedTitleIndex;
+import edu.dvdlibrary.librarycore.index.TitleKeyIndex;
+import edu.dvdlibrary.librarycore.jfr.BorrowEvent;
+import edu.dvdlibrary.librarycore.jfr.ReturnEvent;
+import edu.dvdlibrary.librarycore.jfr.SearchEvent;
+import edu.dvdlibrary.librarycore.jfr.StoreLookupEvent;
 import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Fine;
 import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Hold;
 import edu.dvdlibrary.librarycore.model.Loan;
 import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.model.TitleNormalizer;
+import edu.dvdlibrary.librarycore.query.FilmCriterion;
+import edu.dvdlibrary.librarycore.query.FilmQueryEngine;
+import edu.dvdlibrary.librarycore.rebalance.RebalancePlanner;
+import edu.dvdlibrary.librarycore.rebalance.Transfer;
+import edu.dvdlibrary.librarycore.snapshot.LibraryVersion;
+import edu.dvdlibrary.librarycore.snapshot.VersionedCatalog;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Implementation of the LibraryService interface.
@@ -17,7 +55,26 @@ import java.util.stream.Collectors;
  */
 public class LibraryServiceImpl implements LibraryService {
     
+    private static final String SINGLE_BRANCH = "MAIN";
+    private static final int HOLD_DEMAND_WEIGHT = 2;
+    
     private final DataStore dataStore;
+    private final LoanHistoryIndex loanHistory;
+    private final BorrowAnalytics borrowAnalytics;
+    private final CoBorrowRecommender recommender;
+    private final HoldQueueManager holds;
+    private final FineLedger fineLedger;
+    private final FineAssessor fineAssessor;
+    private final Function<String, String> branchOf;
+    private final RebalancePlanner rebalancePlanner;
+    private final EventLog eventLog;
+    private final VersionedCatalog catalog;
+    private final FilmQueryEngine queryEngine;
+    private final TitleKeyIndex titleKeys;
+    private final SortedTitleIndex sortedTitles;
+    private final FuzzyTitleIndex fuzzyTitles;
+    private final AvailabilityIndex availability;
+    private final LibraryStatsTracker libraryStats;
     
     /**
      * Creates a new library service with the specified data store.
@@ -25,7 +82,77 @@ public class LibraryServiceImpl implements LibraryService {
      * @param dataStore The data store to use for persistence
      */
     public LibraryServiceImpl(DataStore dataStore) {
+        this(dataStore, new SketchBorrowAnalytics());
+    }
+    
+    /**
+     * Creates a new library service with the specified data store and borrow analytics.
+     * 
+     * @param dataStore The data store to use for persistence
+     * @param borrowAnalytics The analytics to feed with every borrow
+     */
+    public LibraryServiceImpl(DataStore dataStore, BorrowAnalytics borrowAnalytics) {
         this.dataStore = dataStore;
+        this.loanHistory = new LoanHistoryIndex();
+        this.titleKeys = new TitleKeyIndex();
+        this.sortedTitles = new SortedTitleIndex();
+        this.fuzzyTitles = new FuzzyTitleIndex();
+        this.availability = new AvailabilityIndex();
+        List<Film> existingFilms = dataStore.getAllFilms();
+        titleKeys.addAll(existingFilms);
+        sortedTitles.addAll(existingFilms);
+        fuzzyTitles.addAll(existingFilms);
+        this.borrowAnalytics = borrowAnalytics;
+        this.recommender = new CoBorrowRecommender();
+        this.holds = new HoldQueueManager();
+        this.fineLedger = new FineLedger();
+        this.fineAssessor = new FineAssessor(FineRateTable.standard(), fineLedger);
+        
+        // Branches only exist when the store, or one it wraps, is sharded; otherwise everything is one branch
+        List<String> branches = dataStore.getBranches();
+        if (!branches.isEmpty()) {
+            this.branchOf = dataStore::branchOf;
+            this.rebalancePlanner = new RebalancePlanner(branches);
+        } else {
+            this.branchOf = id -> SINGLE_BRANCH;
+            this.rebalancePlanner = new RebalancePlanner(Collections.singletonList(SINGLE_BRANCH));
+        }
+        
+        // Anything already in the store predates the event log
+        this.eventLog = new EventLog();
+        for (Film film : existingFilms) {
+            eventLog.recordFilmAdded(LocalDate.MIN, film.getTitle());
+            for (DVD dvd : film.getDvdCopies()) {
+                eventLog.recordDVDAdded(LocalDate.MIN, film.getTitle(), dvd.getDvdId());
+            }
+        }
+        List<Member> existingMembers = dataStore.getAllMembers();
+        for (Member member : existingMembers) {
+            eventLog.recordMemberAdded(LocalDate.MIN, member.getMembershipNumber(), member.getName());
+        }
+        
+        List<Loan> existingLoans = dataStore.getAllLoans();
+        for (Loan loan : existingLoans) {
+            loanHistory.addLoan(loan);
+            fuzzyTitles.recordBorrow(loan.getDvd().getFilm());
+            borrowAnalytics.record(loan);
+            recordDemand(loan.getDvd().getFilm(), loan.getMember(), 1);
+            eventLog.recordBorrowed(loan.getBorrowDate(), loan.getDvd().getDvdId(), loan.getMember().getMembershipNumber());
+            if (loan.isReturned()) {
+                eventLog.recordReturned(loan.getReturnDate(), loan.getDvd().getDvdId());
+            }
+        }
+        recommender.load(existingLoans);
+        for (Film film : existingFilms) {
+            refreshAvailability(film);
+        }
+        availability.addAll(existingFilms);
+        
+        List<Loan> activeLoans = dataStore.getActiveLoans();
+        this.catalog = new VersionedCatalog();
+        catalog.load(existingFilms, activeLoans);
+        this.queryEngine = new FilmQueryEngine(dataStore, existingFilms);
+        this.libraryStats = new LibraryStatsTracker(dataStore, existingFilms, activeLoans, existingMembers);
     }
     
     @Override
@@ -34,14 +161,25 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalArgumentException("Film title cannot be null or empty");
         }
         
-        // Check if a film with this title already exists
+        // Check if a film with this title already exists, ignoring case, accents and punctuation
         Film existingFilm = findFilmByTitle(title);
         if (existingFilm != null) {
-            throw new IllegalArgumentException("A film with the title '" + title + "' already exists");
+            throw new IllegalArgumentException("A film with the title '" + existingFilm.getTitle() + "' already exists");
         }
         
         Film film = new Film(title);
+        if (film.getSearchKey().isEmpty()) {
+            throw new IllegalArgumentException("Film title must contain letters or digits");
+        }
         dataStore.saveFilm(film);
+        libraryStats.filmAdded();
+        titleKeys.add(film);
+        sortedTitles.add(film);
+        fuzzyTitles.add(film);
+        availability.addFilm(film);
+        eventLog.recordFilmAdded(LocalDate.now(), title);
+        catalog.filmChanged(film);
+        queryEngine.filmAdded(film);
         return film;
     }
     
@@ -50,7 +188,7 @@ public class LibraryServiceImpl implements LibraryService {
         if (title == null || title.trim().isEmpty()) {
             return null;
         }
-        return dataStore.findFilmByTitle(title);
+        return lookupFilm(title);
     }
     
     @Override
@@ -58,46 +196,128 @@ public class LibraryServiceImpl implements LibraryService {
         return dataStore.getAllFilms();
     }
     
+    @Override
+    public List<Film> browseFilms(String fromTitle, String toTitle, String afterTitle, int pageSize, boolean descending) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        return sortedTitles.page(blankToNull(fromTitle), blankToNull(toTitle), blankToNull(afterTitle),
+                pageSize, descending);
+    }
+    
     @Override
     public List<Film> searchFilmsByTitle(String searchTerm) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        return commitSearch(event, "title", searchTerm, 0, titleMatches(searchTerm));
+    }
+    
+    /**
+     * Finds the films whose titles contain a search term.
+     * 
+     * @param searchTerm The search term, matched ignoring case, accents and punctuation
+     * @return List of matching films
+     */
+    private List<Film> titleMatches(String searchTerm) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return new ArrayList<>();
         }
         
-        String normalizedSearchTerm = searchTerm.toLowerCase().trim();
+        String normalizedSearchTerm = TitleNormalizer.normalize(searchTerm);
+        if (normalizedSearchTerm.isEmpty()) {
+            return new ArrayList<>();
+        }
         
-        return dataStore.getAllFilms().stream()
-                .filter(film -> film.getTitle().toLowerCase().contains(normalizedSearchTerm))
-                .collect(Collectors.toList());
+        return dataStore.searchFilmsByTitle(normalizedSearchTerm);
+    }
+    
+    @Override
+    public List<Film> searchFilmsBySimilarTitle(String title, int limit) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        return commitSearch(event, "similar", title, 0, similarTitleMatches(title, limit));
+    }
+    
+    /**
+     * Finds the films whose titles are within a few typos of a title.
+     * 
+     * @param title The title as typed
+     * @param limit The maximum number of films to return
+     * @return List of matching films, closest and most borrowed first
+     */
+    private List<Film> similarTitleMatches(String title, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        if (title == null || title.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        return fuzzyTitles.search(title, limit);
     }
     
     @Override
     public List<Film> searchFilmsByAvailability(int minAvailable) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        return commitSearch(event, "availability", null, minAvailable, availabilityMatches(minAvailable));
+    }
+    
+    /**
+     * Finds the films with at least a number of copies available.
+     * 
+     * @param minAvailable The minimum number of available copies
+     * @return List of matching films
+     */
+    private List<Film> availabilityMatches(int minAvailable) {
         if (minAvailable < 0) {
             throw new IllegalArgumentException("Minimum available copies cannot be negative");
         }
         
-        return dataStore.getAllFilms().stream()
-                .filter(film -> film.getNumberAvailable() >= minAvailable)
-                .collect(Collectors.toList());
+        List<Film> results = availability.filmsAvailableBetween(minAvailable, Integer.MAX_VALUE);
+        results.sort(Comparator.comparing(Film::getTitle));
+        return results;
     }
     
     @Override
     public List<Film> searchFilmsByCombinedCriteria(String searchTerm, int minAvailable) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        return commitSearch(event, "combined", searchTerm, minAvailable, combinedMatches(searchTerm, minAvailable));
+    }
+    
+    /**
+     * Finds the films matching both a title search term and a minimum availability.
+     * 
+     * @param searchTerm The search term, matched case-insensitively
+     * @param minAvailable The minimum number of available copies
+     * @return List of matching films
+     */
+    private List<Film> combinedMatches(String searchTerm, int minAvailable) {
         if (minAvailable < 0) {
             throw new IllegalArgumentException("Minimum available copies cannot be negative");
         }
         
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return searchFilmsByAvailability(minAvailable);
+            return availabilityMatches(minAvailable);
         }
         
-        String normalizedSearchTerm = searchTerm.toLowerCase().trim();
-        
-        return dataStore.getAllFilms().stream()
-                .filter(film -> film.getTitle().toLowerCase().contains(normalizedSearchTerm))
-                .filter(film -> film.getNumberAvailable() >= minAvailable)
-                .collect(Collectors.toList());
+        FilmCriterion titleCriterion = FilmCriterion.titleContains(searchTerm);
+        List<Film> results = new ArrayList<>();
+        for (Film film : availability.filmsAvailableBetween(minAvailable, Integer.MAX_VALUE)) {
+            if (titleCriterion.matches(film, dataStore)) {
+                results.add(film);
+            }
+        }
+        results.sort(Comparator.comparing(Film::getTitle));
+        return results;
+    }
+    
+    @Override
+    public List<Film> searchFilms(FilmCriterion criterion) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        return commitSearch(event, "query", null, 0, queryEngine.search(criterion));
     }
     
     @Override
@@ -118,6 +338,11 @@ public class LibraryServiceImpl implements LibraryService {
         DVD dvd = new DVD(dvdId, film);
         film.addDvdCopy(dvd);
         dataStore.saveDVD(dvd);
+        availability.addDVD(dvd);
+        libraryStats.dvdAdded();
+        eventLog.recordDVDAdded(LocalDate.now(), film.getTitle(), dvdId);
+        catalog.filmChanged(film);
+        refreshAvailability(film);
         return dvd;
     }
     
@@ -126,7 +351,7 @@ public class LibraryServiceImpl implements LibraryService {
         if (dvdId == null || dvdId.trim().isEmpty()) {
             return null;
         }
-        return dataStore.findDVDById(dvdId);
+        return lookupDVD(dvdId);
     }
     
     @Override
@@ -154,6 +379,8 @@ public class LibraryServiceImpl implements LibraryService {
         
         Member member = new Member(membershipNumber, name);
         dataStore.saveMember(member);
+        libraryStats.memberAdded();
+        eventLog.recordMemberAdded(LocalDate.now(), membershipNumber, name);
         return member;
     }
     
@@ -162,7 +389,7 @@ public class LibraryServiceImpl implements LibraryService {
         if (membershipNumber == null || membershipNumber.trim().isEmpty()) {
             return null;
         }
-        return dataStore.findMemberByNumber(membershipNumber);
+        return lookupMember(membershipNumber);
     }
     
     @Override
@@ -176,14 +403,74 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalArgumentException("Member cannot be null");
         }
         
-        // Filter the loans to include only those that haven't been returned
-        return member.getCurrentLoans().stream()
-                .filter(loan -> !loan.isReturned())
-                .collect(Collectors.toList());
+        // Current loans are removed from the member on return, so they are all active
+        return member.getCurrentLoans();
+    }
+    
+    @Override
+    public List<Loan> getLoanHistory(Member member) {
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        return loanHistory.getHistory(member);
+    }
+    
+    @Override
+    public List<Loan> getLoanHistory(Member member, LocalDate from, LocalDate to) {
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Date range cannot be null");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+        return loanHistory.getHistory(member, from, to);
+    }
+    
+    @Override
+    public boolean hasMemberBorrowedFilm(Member member, Film film) {
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        if (film == null) {
+            throw new IllegalArgumentException("Film cannot be null");
+        }
+        return loanHistory.hasBorrowed(member, film);
     }
     
     @Override
     public Loan borrowDVD(DVD dvd, Member member, LocalDate borrowDate) {
+        BorrowEvent event = new BorrowEvent();
+        event.begin();
+        try {
+            Loan loan = borrow(dvd, member, borrowDate);
+            event.succeeded = true;
+            return loan;
+        } catch (RuntimeException e) {
+            event.failure = e.getMessage();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.dvdId = dvd != null ? dvd.getDvdId() : null;
+                event.filmTitle = dvd != null ? dvd.getFilm().getTitle() : null;
+                event.membershipNumber = member != null ? member.getMembershipNumber() : null;
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * Lends a DVD to a member; borrowDVD wraps this in a Flight Recorder event.
+     * 
+     * @param dvd The DVD to borrow
+     * @param member The member borrowing the DVD
+     * @param borrowDate The date of borrowing
+     * @return The created Loan object
+     */
+    private Loan borrow(DVD dvd, Member member, LocalDate borrowDate) {
         if (dvd == null) {
             throw new IllegalArgumentException("DVD cannot be null");
         }
@@ -199,26 +486,88 @@ public class LibraryServiceImpl implements LibraryService {
             throw new IllegalStateException("DVD is already on loan");
         }
         
-        // Check if member has reached their loan limit
-        if (!member.canBorrow()) {
+        // Check if the DVD has been set aside for someone else's hold
+        checkNotReservedForOthers(dvd, member);
+        
+        // Reserve one of the member's loan slots, then claim the DVD; either can lose a race
+        if (!member.reserveLoanSlot()) {
             throw new IllegalStateException("Member has reached the maximum number of loans (6)");
         }
+        if (!dvd.tryBorrow(member)) {
+            member.releaseLoanSlot();
+            throw new IllegalStateException("DVD is already on loan");
+        }
+        
+        // A return sets the DVD aside before putting it back on the shelf, so check again now it is ours
+        try {
+            checkNotReservedForOthers(dvd, member);
+        } catch (IllegalStateException e) {
+            dvd.tryReturn();
+            member.releaseLoanSlot();
+            throw e;
+        }
         
         // Create the loan
         Loan loan = new Loan(dvd, member, borrowDate);
+        member.addReservedLoan(loan);
         
-        // Update the DVD and member
-        dvd.borrowedBy(member);
-        member.addLoan(loan);
-        
-        // Save to data store
-        dataStore.saveLoan(loan);
+        // Save to data store; if it refuses the loan, give back the DVD and the slot
+        try {
+            dataStore.saveLoan(loan);
+        } catch (RuntimeException e) {
+            member.removeLoan(loan);
+            dvd.tryReturn();
+            throw e;
+        }
+        availability.update(dvd);
+        libraryStats.loanStarted(loan);
+        eventLog.recordBorrowed(borrowDate, dvd.getDvdId(), member.getMembershipNumber());
+        catalog.loanStarted(loan);
+        loanHistory.addLoan(loan);
+        fuzzyTitles.recordBorrow(dvd.getFilm());
+        borrowAnalytics.record(loan);
+        recommender.record(loan);
+        holds.fulfil(dvd, member, borrowDate);
+        recordDemand(dvd.getFilm(), member, 1);
+        refreshAvailability(dvd.getFilm());
         
         return loan;
     }
     
     @Override
     public Loan returnDVD(DVD dvd, LocalDate returnDate) {
+        ReturnEvent event = new ReturnEvent();
+        event.begin();
+        Loan loan = null;
+        try {
+            loan = returnCopy(dvd, returnDate);
+            event.succeeded = true;
+            return loan;
+        } catch (RuntimeException e) {
+            event.failure = e.getMessage();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.dvdId = dvd != null ? dvd.getDvdId() : null;
+                event.filmTitle = dvd != null ? dvd.getFilm().getTitle() : null;
+                if (loan != null) {
+                    event.membershipNumber = loan.getMember().getMembershipNumber();
+                    event.late = loan.getReturnDate().isAfter(loan.getDueDate());
+                }
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * Takes a DVD back; returnDVD wraps this in a Flight Recorder event.
+     * 
+     * @param dvd The DVD being returned
+     * @param returnDate The date of return
+     * @return The closed Loan object
+     */
+    private Loan returnCopy(DVD dvd, LocalDate returnDate) {
         if (dvd == null) {
             throw new IllegalArgumentException("DVD cannot be null");
         }
@@ -232,29 +581,358 @@ public class LibraryServiceImpl implements LibraryService {
         }
         
         // Find the active loan for this DVD
-        Loan loan = dataStore.findActiveLoanByDVD(dvd);
+        Loan loan = lookupActiveLoan(dvd);
         if (loan == null) {
             throw new IllegalStateException("No active loan found for this DVD");
         }
         
-        // Update the loan record
-        loan.returnDVD(returnDate);
+        // Close the loan; only one of two concurrent returns can succeed
+        if (!loan.tryReturn(returnDate)) {
+            throw new IllegalStateException("DVD is not currently on loan");
+        }
+        
+        // Save to data store; if it refuses the return, reopen the loan so the DVD can be returned again
+        try {
+            dataStore.updateLoan(loan);
+        } catch (RuntimeException e) {
+            loan.undoReturn(returnDate);
+            throw e;
+        }
         
-        // Update the DVD and member
-        dvd.returnDVD();
-        Member member = loan.getMember();
-        member.removeLoan(loan);
+        // Update the member
+        loan.getMember().removeLoan(loan);
+        libraryStats.loanEnded(loan);
+        eventLog.recordReturned(returnDate, dvd.getDvdId());
+        catalog.loanEnded(loan);
         
-        // Update in data store
-        dataStore.updateLoan(loan);
+        // Charge a fine if the DVD came back late
+        fineAssessor.assessOnReturn(loan);
+        
+        // Set the DVD aside for the next member waiting for this film, then put it back on the shelf
+        holds.assignReturnedCopy(dvd, returnDate);
+        dvd.tryReturn();
+        availability.update(dvd);
+        refreshAvailability(dvd.getFilm());
         
         return loan;
     }
     
     @Override
     public List<Loan> getAllActiveLoans() {
-        return dataStore.getAllLoans().stream()
-                .filter(loan -> !loan.isReturned())
-                .collect(Collectors.toList());
+        return dataStore.getActiveLoans();
+    }
+    
+    @Override
+    public List<DVD> getDVDsOnLoan(Film film) {
+        return availability.dvdsOnLoan(film);
+    }
+    
+    @Override
+    public InventoryCounts getInventoryCounts() {
+        return availability.counts();
+    }
+    
+    @Override
+    public LibraryStats getLibraryStats() {
+        return libraryStats.current(LocalDate.now());
+    }
+    
+    @Override
+    public LibraryStatsAudit auditLibraryStats() {
+        return libraryStats.audit(LocalDate.now());
+    }
+    
+    @Override
+    public LibraryVersion getSnapshot() {
+        return catalog.current();
+    }
+    
+    @Override
+    public List<RankedItem> getTopFilms(AnalyticsWindow window, int k) {
+        if (window == null) {
+            throw new IllegalArgumentException("Window cannot be null");
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("Number of results must be positive");
+        }
+        return borrowAnalytics.topFilms(window, k, LocalDate.now());
+    }
+    
+    @Override
+    public List<RankedItem> getTopMembers(AnalyticsWindow window, int k) {
+        if (window == null) {
+            throw new IllegalArgumentException("Window cannot be null");
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("Number of results must be positive");
+        }
+        return borrowAnalytics.topMembers(window, k, LocalDate.now());
+    }
+    
+    @Override
+    public List<RankedItem> getRecommendations(Film film, int limit) {
+        if (film == null) {
+            throw new IllegalArgumentException("Film cannot be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Number of results must be positive");
+        }
+        return recommender.recommend(film.getTitle(), limit);
+    }
+    
+    @Override
+    public Hold placeHold(Film film, Member member, LocalDate placedDate) {
+        if (film == null) {
+            throw new IllegalArgumentException("Film cannot be null");
+        }
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        if (placedDate == null) {
+            throw new IllegalArgumentException("Hold date cannot be null");
+        }
+        
+        // Only copies that are neither on loan nor set aside for another hold can be borrowed
+        for (DVD dvd : film.getDvdCopies()) {
+            if (!dvd.isOnLoan() && holds.findReadyHold(dvd) == null) {
+                throw new IllegalStateException("A copy of this film is available to borrow");
+            }
+        }
+        
+        Hold hold = holds.placeHold(film, member, placedDate);
+        recordDemand(film, member, HOLD_DEMAND_WEIGHT);
+        return hold;
+    }
+    
+    @Override
+    public Hold cancelHold(Film film, Member member, LocalDate cancelDate) {
+        if (film == null) {
+            throw new IllegalArgumentException("Film cannot be null");
+        }
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        if (cancelDate == null) {
+            throw new IllegalArgumentException("Cancel date cannot be null");
+        }
+        Hold hold = holds.cancelHold(film, member, cancelDate);
+        refreshAvailability(film);
+        return hold;
+    }
+    
+    @Override
+    public List<Hold> getHoldQueue(Film film) {
+        if (film == null) {
+            throw new IllegalArgumentException("Film cannot be null");
+        }
+        return holds.getHoldQueue(film);
+    }
+    
+    @Override
+    public List<Hold> getActiveHolds() {
+        return holds.getActiveHolds();
+    }
+    
+    @Override
+    public Hold findReadyHold(DVD dvd) {
+        if (dvd == null) {
+            return null;
+        }
+        return holds.findReadyHold(dvd);
+    }
+    
+    @Override
+    public List<Hold> expireHolds(LocalDate currentDate) {
+        if (currentDate == null) {
+            throw new IllegalArgumentException("Current date cannot be null");
+        }
+        List<Hold> expired = holds.expireHolds(currentDate);
+        for (Hold hold : expired) {
+            refreshAvailability(hold.getFilm());
+        }
+        return expired;
+    }
+    
+    @Override
+    public long getFineBalance(Member member) {
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        return fineLedger.getBalance(member);
+    }
+    
+    @Override
+    public List<Fine> getFines(Member member) {
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        return fineLedger.getFines(member);
+    }
+    
+    @Override
+    public Fine findFine(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        return fineLedger.findFine(loan);
+    }
+    
+    @Override
+    public FineBatchResult assessOverdueFines(LocalDate assessmentDate, Duration budget) {
+        if (assessmentDate == null) {
+            throw new IllegalArgumentException("Assessment date cannot be null");
+        }
+        if (budget == null || budget.isNegative()) {
+            throw new IllegalArgumentException("Time budget cannot be null or negative");
+        }
+        return fineAssessor.assessOverdue(dataStore.getActiveLoans(), assessmentDate, budget);
+    }
+    
+    @Override
+    public List<Transfer> getRebalancePlan() {
+        return rebalancePlanner.getPlan();
+    }
+    
+    @Override
+    public LibrarySnapshot getLibraryAsOf(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        return eventLog.snapshotAsOf(date);
+    }
+    
+    /**
+     * Checks that a DVD has not been set aside for another member's hold.
+     * 
+     * @param dvd The DVD being borrowed
+     * @param member The member borrowing it
+     * @throws IllegalStateException if the DVD is reserved for someone else
+     */
+    private void checkNotReservedForOthers(DVD dvd, Member member) {
+        Hold reservation = holds.findReadyHold(dvd);
+        if (reservation != null && !reservation.getMember().equals(member)) {
+            throw new IllegalStateException("DVD is reserved for member " + reservation.getMember().getMembershipNumber());
+        }
+    }
+    
+    private static String blankToNull(String text) {
+        return text == null || text.trim().isEmpty() ? null : text;
+    }
+    
+    /**
+     * Records a search in a Flight Recorder event if recording is on.
+     */
+    private List<Film> commitSearch(SearchEvent event, String kind, String searchTerm, int minAvailable, List<Film> results) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.termLength = searchTerm != null ? searchTerm.trim().length() : 0;
+            event.minAvailable = minAvailable;
+            event.resultCount = results.size();
+            event.commit();
+        }
+        return results;
+    }
+    
+    /**
+     * Looks a film up in the data store, recording the lookup for Flight Recorder.
+     * 
+     * @param title The title to look up
+     * @return The Film or null if not found
+     */
+    private Film lookupFilm(String title) {
+        StoreLookupEvent event = new StoreLookupEvent();
+        event.begin();
+        String storedTitle = titleKeys.findTitle(title);
+        Film film = storedTitle != null ? dataStore.findFilmByTitle(storedTitle) : null;
+        commitLookup(event, "film", title, film != null);
+        return film;
+    }
+    
+    /**
+     * Looks a DVD up in the data store, recording the lookup for Flight Recorder.
+     * 
+     * @param dvdId The DVD ID to look up
+     * @return The DVD or null if not found
+     */
+    private DVD lookupDVD(String dvdId) {
+        StoreLookupEvent event = new StoreLookupEvent();
+        event.begin();
+        DVD dvd = dataStore.findDVDById(dvdId);
+        commitLookup(event, "dvd", dvdId, dvd != null);
+        return dvd;
+    }
+    
+    /**
+     * Looks a member up in the data store, recording the lookup for Flight Recorder.
+     * 
+     * @param membershipNumber The membership number to look up
+     * @return The Member or null if not found
+     */
+    private Member lookupMember(String membershipNumber) {
+        StoreLookupEvent event = new StoreLookupEvent();
+        event.begin();
+        Member member = dataStore.findMemberByNumber(membershipNumber);
+        commitLookup(event, "member", membershipNumber, member != null);
+        return member;
+    }
+    
+    /**
+     * Looks up a DVD's active loan in the data store, recording the lookup for Flight Recorder.
+     * 
+     * @param dvd The DVD to check
+     * @return The active Loan or null if the DVD is not on loan
+     */
+    private Loan lookupActiveLoan(DVD dvd) {
+        StoreLookupEvent event = new StoreLookupEvent();
+        event.begin();
+        Loan loan = dataStore.findActiveLoanByDVD(dvd);
+        commitLookup(event, "activeLoan", dvd.getDvdId(), loan != null);
+        return loan;
+    }
+    
+    /**
+     * Records a data store lookup in a Flight Recorder event if recording is on.
+     */
+    private static void commitLookup(StoreLookupEvent event, String kind, String key, boolean found) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.key = key;
+            event.found = found;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Records demand for a film at the borrowing member's home branch.
+     * 
+     * @param film The film in demand
+     * @param member The member who borrowed or reserved it
+     * @param weight The amount of demand to add
+     */
+    private void recordDemand(Film film, Member member, int weight) {
+        rebalancePlanner.addDemand(film.getTitle(), branchOf.apply(member.getMembershipNumber()), weight);
+    }
+    
+    /**
+     * Recounts the copies of a film that are on the shelf at each branch,
+     * i.e. neither on loan nor set aside for a hold.
+     * 
+     * @param film The film to recount
+     */
+    private void refreshAvailability(Film film) {
+        Map<String, Integer> idleByBranch = new HashMap<>();
+        for (String branch : rebalancePlanner.getBranches()) {
+            idleByBranch.put(branch, 0);
+        }
+        for (DVD dvd : film.getDvdCopies()) {
+            if (!dvd.isOnLoan() && holds.findReadyHold(dvd) == null) {
+                idleByBranch.merge(branchOf.apply(dvd.getDvdId()), 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : idleByBranch.entrySet()) {
+            rebalancePlanner.setAvailable(film.getTitle(), entry.getKey(), entry.getValue());
+        }
     }
 }
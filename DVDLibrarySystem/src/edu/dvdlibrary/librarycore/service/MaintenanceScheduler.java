@@ -0,0 +1,100 @@
+package edu.dvdlibrary.librarycore.service;
+
+import edu.dvdlibrary.librarycore.analytics.LibraryStatsAudit;
+import edu.dvdlibrary.librarycore.fines.FineBatchResult;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs periodic library housekeeping on a background thread:
+ * expiring uncollected holds every hour, checking the status bar totals
+ * against a full recount every hour, and assessing fines on overdue loans
+ * once a night.
+ */
+public class MaintenanceScheduler {
+    
+    private static final long HOLD_EXPIRY_INTERVAL_MINUTES = 60;
+    private static final long STATS_AUDIT_INTERVAL_MINUTES = 60;
+    private static final Duration FINE_BATCH_BUDGET = Duration.ofMinutes(5);
+    
+    private final LibraryService libraryService;
+    private ScheduledExecutorService executor;
+    
+    /**
+     * Creates a scheduler for a library service.
+     * 
+     * @param libraryService The library service to maintain
+     */
+    public MaintenanceScheduler(LibraryService libraryService) {
+        this.libraryService = libraryService;
+    }
+    
+    /**
+     * Starts the scheduled jobs. Hold expiry runs immediately and then hourly;
+     * the totals audit runs hourly, starting an hour from now; the fine batch
+     * runs at the next midnight and then every 24 hours.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "library-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::expireHolds, 0, HOLD_EXPIRY_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        executor.scheduleAtFixedRate(this::auditStats, STATS_AUDIT_INTERVAL_MINUTES, STATS_AUDIT_INTERVAL_MINUTES,
+                TimeUnit.MINUTES);
+        
+        LocalDateTime now = LocalDateTime.now();
+        long minutesUntilMidnight = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMinutes();
+        executor.scheduleAtFixedRate(this::assessFines, minutesUntilMidnight, TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Stops the scheduled jobs.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    private void expireHolds() {
+        try {
+            libraryService.expireHolds(LocalDate.now());
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next run will retry
+            System.err.println("Failed to expire holds: " + e.getMessage());
+        }
+    }
+    
+    private void auditStats() {
+        try {
+            LibraryStatsAudit audit = libraryService.auditLibraryStats();
+            if (audit.isCorrected()) {
+                System.err.println("Library totals had drifted from a full recount and were corrected: " + audit);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to audit library totals: " + e.getMessage());
+        }
+    }
+    
+    private void assessFines() {
+        try {
+            FineBatchResult result = libraryService.assessOverdueFines(LocalDate.now(), FINE_BATCH_BUDGET);
+            if (!result.isCompleted()) {
+                System.err.println("Nightly fine assessment did not finish within its budget: " + result);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Failed to assess fines: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package edu.dvdlibrary.librarycore.snapshot;
+
+/**
+ * Immutable copy count of a film as of one library version.
+ */
+public class FilmStatus {
+    private final String title;
+    private final int totalCopies;
+    private final int available;
+    
+    /**
+     * Creates a new film status.
+     * 
+     * @param title The film title
+     * @param totalCopies The number of DVD copies
+     * @param available The number of copies not on loan
+     */
+    public FilmStatus(String title, int totalCopies, int available) {
+        this.title = title;
+        this.totalCopies = totalCopies;
+        this.available = available;
+    }
+    
+    /**
+     * Gets the title of the film.
+     * 
+     * @return The film title
+     */
+    public String getTitle() {
+        return title;
+    }
+    
+    /**
+     * Gets the number of DVD copies of the film.
+     * 
+     * @return The total number of copies
+     */
+    public int getTotalCopies() {
+        return totalCopies;
+    }
+    
+    /**
+     * Gets the number of copies that were not on loan.
+     * 
+     * @return The number of available copies
+     */
+    public int getAvailable() {
+        return available;
+    }
+    
+    @Override
+    public String toString() {
+        return title + " (" + available + "/" + totalCopies + " available)";
+    }
+}
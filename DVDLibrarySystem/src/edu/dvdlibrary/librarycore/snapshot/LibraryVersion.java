@@ -0,0 +1,184 @@
+package edu.dvdlibrary.librarycore.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, consistent view of the film catalogue and active loans at
+ * one version. Films and loans are split into segments by key hash so that
+ * a new version only copies the segments a change touches; every other
+ * segment is shared with the previous version. Segment maps are never
+ * modified once a version is built.
+ */
+public class LibraryVersion {
+    
+    static final int SEGMENTS = 256;
+    private static final int SEGMENT_SHIFT = 32 - Integer.numberOfTrailingZeros(SEGMENTS);
+    
+    private final long version;
+    private final Map<String, FilmStatus>[] filmSegments;
+    private final Map<String, LoanStatus>[] loanSegments;
+    private final int filmCount;
+    private final int activeLoanCount;
+    
+    private LibraryVersion(long version, Map<String, FilmStatus>[] filmSegments,
+                           Map<String, LoanStatus>[] loanSegments, int filmCount, int activeLoanCount) {
+        this.version = version;
+        this.filmSegments = filmSegments;
+        this.loanSegments = loanSegments;
+        this.filmCount = filmCount;
+        this.activeLoanCount = activeLoanCount;
+    }
+    
+    /**
+     * Creates a version holding the given films and loans.
+     * 
+     * @param version The version number
+     * @param films The film statuses
+     * @param loans The active loans
+     * @return The new version
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static LibraryVersion of(long version, Collection<FilmStatus> films, Collection<LoanStatus> loans) {
+        Map<String, FilmStatus>[] filmSegments = new Map[SEGMENTS];
+        Map<String, LoanStatus>[] loanSegments = new Map[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            filmSegments[i] = new HashMap<>();
+            loanSegments[i] = new HashMap<>();
+        }
+        for (FilmStatus film : films) {
+            filmSegments[segmentOf(film.getTitle())].put(film.getTitle(), film);
+        }
+        for (LoanStatus loan : loans) {
+            loanSegments[segmentOf(loan.getDvdId())].put(loan.getDvdId(), loan);
+        }
+        
+        int filmCount = 0;
+        int loanCount = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            filmCount += filmSegments[i].size();
+            loanCount += loanSegments[i].size();
+        }
+        return new LibraryVersion(version, filmSegments, loanSegments, filmCount, loanCount);
+    }
+    
+    /**
+     * Creates the next version with a film's status replaced and, optionally,
+     * a loan added or removed. Only the touched segments are copied.
+     * 
+     * @param film The film's new status
+     * @param addedLoan A loan that became active, or null
+     * @param removedLoanDvdId The DVD of a loan that ended, or null
+     * @return The next version
+     */
+    LibraryVersion next(FilmStatus film, LoanStatus addedLoan, String removedLoanDvdId) {
+        Map<String, FilmStatus>[] films = filmSegments.clone();
+        int filmSegment = segmentOf(film.getTitle());
+        Map<String, FilmStatus> filmCopy = new HashMap<>(films[filmSegment]);
+        boolean newFilm = filmCopy.put(film.getTitle(), film) == null;
+        films[filmSegment] = filmCopy;
+        
+        Map<String, LoanStatus>[] loans = loanSegments;
+        int loanCount = activeLoanCount;
+        if (addedLoan != null || removedLoanDvdId != null) {
+            loans = loanSegments.clone();
+            if (removedLoanDvdId != null) {
+                int loanSegment = segmentOf(removedLoanDvdId);
+                Map<String, LoanStatus> loanCopy = new HashMap<>(loans[loanSegment]);
+                if (loanCopy.remove(removedLoanDvdId) != null) {
+                    loanCount--;
+                }
+                loans[loanSegment] = loanCopy;
+            }
+            if (addedLoan != null) {
+                int loanSegment = segmentOf(addedLoan.getDvdId());
+                Map<String, LoanStatus> loanCopy = new HashMap<>(loans[loanSegment]);
+                if (loanCopy.put(addedLoan.getDvdId(), addedLoan) == null) {
+                    loanCount++;
+                }
+                loans[loanSegment] = loanCopy;
+            }
+        }
+        
+        return new LibraryVersion(version + 1, films, loans, newFilm ? filmCount + 1 : filmCount, loanCount);
+    }
+    
+    /**
+     * Gets the version number, which increases by one with every change.
+     * 
+     * @return The version number
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Gets the status of every film, ordered by title.
+     * 
+     * @return List of film statuses
+     */
+    public List<FilmStatus> getFilms() {
+        List<FilmStatus> films = new ArrayList<>(filmCount);
+        for (Map<String, FilmStatus> segment : filmSegments) {
+            films.addAll(segment.values());
+        }
+        films.sort(Comparator.comparing(FilmStatus::getTitle));
+        return films;
+    }
+    
+    /**
+     * Gets the status of a film.
+     * 
+     * @param title The film title
+     * @return The film status or null if the film did not exist at this version
+     */
+    public FilmStatus getFilm(String title) {
+        return filmSegments[segmentOf(title)].get(title);
+    }
+    
+    /**
+     * Gets every active loan, ordered by borrow date and then DVD ID.
+     * 
+     * @return List of active loans
+     */
+    public List<LoanStatus> getActiveLoans() {
+        List<LoanStatus> loans = new ArrayList<>(activeLoanCount);
+        for (Map<String, LoanStatus> segment : loanSegments) {
+            loans.addAll(segment.values());
+        }
+        loans.sort(Comparator.comparing(LoanStatus::getBorrowDate).thenComparing(LoanStatus::getDvdId));
+        return loans;
+    }
+    
+    /**
+     * Gets the number of films.
+     * 
+     * @return The film count
+     */
+    public int getFilmCount() {
+        return filmCount;
+    }
+    
+    /**
+     * Gets the number of active loans.
+     * 
+     * @return The active loan count
+     */
+    public int getActiveLoanCount() {
+        return activeLoanCount;
+    }
+    
+    /**
+     * Picks a segment from the top bits of a scrambled hash. HashMap buckets
+     * by the low bits, so using those here would pile each segment's keys
+     * into a fraction of its buckets.
+     */
+    private static int segmentOf(String key) {
+        return (key.hashCode() * 0x9E3779B9) >>> SEGMENT_SHIFT;
+    }
+}
@@ -0,0 +1,94 @@
+package edu.dvdlibrary.librarycore.snapshot;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable record of an active loan as of one library version.
+ */
+public class LoanStatus {
+    private final String dvdId;
+    private final String filmTitle;
+    private final String membershipNumber;
+    private final String memberName;
+    private final LocalDate borrowDate;
+    private final LocalDate dueDate;
+    
+    /**
+     * Creates a new loan status.
+     * 
+     * @param dvdId The ID of the DVD on loan
+     * @param filmTitle The title of the film
+     * @param membershipNumber The borrower's membership number
+     * @param memberName The borrower's name
+     * @param borrowDate The date the DVD was borrowed
+     * @param dueDate The date the DVD is due back
+     */
+    public LoanStatus(String dvdId, String filmTitle, String membershipNumber, String memberName,
+                      LocalDate borrowDate, LocalDate dueDate) {
+        this.dvdId = dvdId;
+        this.filmTitle = filmTitle;
+        this.membershipNumber = membershipNumber;
+        this.memberName = memberName;
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+    }
+    
+    /**
+     * Gets the ID of the DVD on loan.
+     * 
+     * @return The DVD ID
+     */
+    public String getDvdId() {
+        return dvdId;
+    }
+    
+    /**
+     * Gets the title of the film on loan.
+     * 
+     * @return The film title
+     */
+    public String getFilmTitle() {
+        return filmTitle;
+    }
+    
+    /**
+     * Gets the borrower's membership number.
+     * 
+     * @return The membership number
+     */
+    public String getMembershipNumber() {
+        return membershipNumber;
+    }
+    
+    /**
+     * Gets the borrower's name.
+     * 
+     * @return The member name
+     */
+    public String getMemberName() {
+        return memberName;
+    }
+    
+    /**
+     * Gets the date the DVD was borrowed.
+     * 
+     * @return The borrow date
+     */
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+    
+    /**
+     * Gets the date the DVD is due back.
+     * 
+     * @return The due date
+     */
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+    
+    @Override
+    public String toString() {
+        return dvdId + " (" + filmTitle + ") to " + membershipNumber + ", due " + dueDate;
+    }
+}
@@ -0,0 +1,134 @@
+package edu.dvdlibrary.librarycore.snapshot;
+
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes copy-on-write versions of the catalogue and active loans.
+ * 
+ * Readers call current() and keep using that version for as long as they
+ * like without locking; writers build the next version alongside it and
+ * swap it in, so they never block readers. A borrow or return changes the
+ * film's available count and the loan list in the same version, so a report
+ * built from one version always adds up. Available counts are worked out
+ * from the loans the catalogue itself has published, not read from the live
+ * films, which a borrow in progress may already have changed. Versions are immutable and
+ * unreferenced once superseded, so the garbage collector reclaims each one
+ * as soon as the last reader holding it lets go.
+ */
+public class VersionedCatalog {
+    
+    private final AtomicReference<LibraryVersion> current =
+            new AtomicReference<>(LibraryVersion.of(0, Collections.emptyList(), Collections.emptyList()));
+    private final Object writeLock = new Object();
+    // Active loans per film title in the current version, guarded by writeLock
+    private final Map<String, Integer> loansByFilm = new HashMap<>();
+    
+    /**
+     * Gets the latest version.
+     * 
+     * @return The current library version
+     */
+    public LibraryVersion current() {
+        return current.get();
+    }
+    
+    /**
+     * Publishes a version containing existing films and active loans.
+     * 
+     * @param films The films to include
+     * @param activeLoans The loans that are currently active
+     */
+    public void load(List<Film> films, List<Loan> activeLoans) {
+        Map<String, Integer> loanCounts = new HashMap<>();
+        List<LoanStatus> loanStatuses = new ArrayList<>(activeLoans.size());
+        for (Loan loan : activeLoans) {
+            loanStatuses.add(statusOf(loan));
+            loanCounts.merge(loan.getDvd().getFilm().getTitle(), 1, Integer::sum);
+        }
+        List<FilmStatus> filmStatuses = new ArrayList<>(films.size());
+        for (Film film : films) {
+            int onLoan = loanCounts.getOrDefault(film.getTitle(), 0);
+            filmStatuses.add(new FilmStatus(film.getTitle(), film.getTotalCopies(), film.getTotalCopies() - onLoan));
+        }
+        
+        synchronized (writeLock) {
+            loansByFilm.clear();
+            loansByFilm.putAll(loanCounts);
+            long version = current.get().getVersion() + 1;
+            current.set(LibraryVersion.of(version, filmStatuses, loanStatuses));
+        }
+    }
+    
+    /**
+     * Publishes a film's copy counts after it is added or gains a copy.
+     * 
+     * @param film The film that changed
+     */
+    public void filmChanged(Film film) {
+        synchronized (writeLock) {
+            current.set(current.get().next(statusOf(film.getTitle(), film.getTotalCopies()), null, null));
+        }
+    }
+    
+    /**
+     * Publishes a new loan together with one fewer available copy of its film.
+     * 
+     * @param loan The loan that was made
+     */
+    public void loanStarted(Loan loan) {
+        synchronized (writeLock) {
+            LibraryVersion version = current.get();
+            String title = loan.getDvd().getFilm().getTitle();
+            int totalCopies = totalCopiesOf(version, loan);
+            loansByFilm.merge(title, 1, Integer::sum);
+            current.set(version.next(statusOf(title, totalCopies), statusOf(loan), null));
+        }
+    }
+    
+    /**
+     * Publishes the end of a loan together with one more available copy of its film.
+     * 
+     * @param loan The loan that was returned
+     */
+    public void loanEnded(Loan loan) {
+        synchronized (writeLock) {
+            LibraryVersion version = current.get();
+            String title = loan.getDvd().getFilm().getTitle();
+            int totalCopies = totalCopiesOf(version, loan);
+            loansByFilm.computeIfPresent(title, (key, count) -> count > 1 ? count - 1 : null);
+            current.set(version.next(statusOf(title, totalCopies), null, loan.getDvd().getDvdId()));
+        }
+    }
+    
+    private static int totalCopiesOf(LibraryVersion version, Loan loan) {
+        Film film = loan.getDvd().getFilm();
+        FilmStatus status = version.getFilm(film.getTitle());
+        return status != null ? status.getTotalCopies() : film.getTotalCopies();
+    }
+    
+    /**
+     * Builds a film's status from its copy count and the loans of it in the
+     * current version. Called with writeLock held.
+     */
+    private FilmStatus statusOf(String title, int totalCopies) {
+        return new FilmStatus(title, totalCopies, totalCopies - loansByFilm.getOrDefault(title, 0));
+    }
+    
+    private static LoanStatus statusOf(Loan loan) {
+        return new LoanStatus(
+                loan.getDvd().getDvdId(),
+                loan.getDvd().getFilm().getTitle(),
+                loan.getMember().getMembershipNumber(),
+                loan.getMember().getName(),
+                loan.getBorrowDate(),
+                loan.getDueDate());
+    }
+}
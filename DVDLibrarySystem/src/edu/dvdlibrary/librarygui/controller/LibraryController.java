@@ -1,10 +1,22 @@
 package edu.dvdlibrary.librarygui.controller;
 
+import edu.dvdlibrary.librarycore.analytics.AnalyticsWindow;
+import edu.dvdlibrary.librarycore.analytics.LibraryStats;
+import edu.dvdlibrary.librarycore.analytics.RankedItem;
+import edu.dvdlibrary.librarycore.events.LibrarySnapshot;
+import edu.dvdlibrary.librarycore.index.InventoryCounts;
+import edu.dvdlibrary.librarycore.metrics.MetricsRegistry;
+import edu.dvdlibrary.librarycore.metrics.OperationStats;
 import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Fine;
 import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Hold;
 import edu.dvdlibrary.librarycore.model.Loan;
 import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.query.FilmCriterion;
+import edu.dvdlibrary.librarycore.rebalance.Transfer;
 import edu.dvdlibrary.librarycore.service.LibraryService;
+import edu.dvdlibrary.librarycore.snapshot.LibraryVersion;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -17,6 +29,7 @@ import java.util.List;
 public class LibraryController {
     
     private final LibraryService libraryService;
+    private final MetricsRegistry metrics;
     
     /**
      * Creates a new controller with the specified library service.
@@ -24,7 +37,18 @@ public class LibraryController {
      * @param libraryService The library service to use
      */
     public LibraryController(LibraryService libraryService) {
+        this(libraryService, new MetricsRegistry());
+    }
+    
+    /**
+     * Creates a new controller with the specified library service and the metrics it is timed with.
+     * 
+     * @param libraryService The library service to use
+     * @param metrics The registry the service's operation timings are recorded in
+     */
+    public LibraryController(LibraryService libraryService, MetricsRegistry metrics) {
         this.libraryService = libraryService;
+        this.metrics = metrics;
     }
     
     /**
@@ -50,6 +74,24 @@ public class LibraryController {
         return libraryService.getAllFilms();
     }
     
+    /**
+     * Gets a page of films in alphabetical order of title.
+     * 
+     * @param fromTitle The first title to include, or null or blank to start at the beginning
+     * @param toTitle The last title (or title prefix) to include, or null or blank to run to the end
+     * @param afterTitle The title the previous page ended with, or null for the first page
+     * @param pageSize The maximum number of films to return
+     * @param descending true to browse from Z to A
+     * @return The films on the page, or an empty list if the page size is invalid
+     */
+    public List<Film> browseFilms(String fromTitle, String toTitle, String afterTitle, int pageSize, boolean descending) {
+        try {
+            return libraryService.browseFilms(fromTitle, toTitle, afterTitle, pageSize, descending);
+        } catch (IllegalArgumentException e) {
+            return new ArrayList<Film>();
+        }
+    }
+    
     /**
      * Searches for films by title.
      * 
@@ -60,6 +102,21 @@ public class LibraryController {
         return libraryService.searchFilmsByTitle(searchTerm);
     }
     
+    /**
+     * Searches for films whose titles are close to a title that may contain typos.
+     * 
+     * @param title The title as typed
+     * @param limit The maximum number of films to return
+     * @return List of films, closest first, or an empty list if the limit is invalid
+     */
+    public List<Film> searchFilmsBySimilarTitle(String title, int limit) {
+        try {
+            return libraryService.searchFilmsBySimilarTitle(title, limit);
+        } catch (IllegalArgumentException e) {
+            return new ArrayList<Film>();
+        }
+    }
+    
     /**
      * Searches for films by availability.
      * 
@@ -89,6 +146,20 @@ public class LibraryController {
         }
     }
     
+    /**
+     * Searches for films meeting a combination of criteria.
+     * 
+     * @param criterion The criteria, built with the FilmCriterion factory methods
+     * @return List of matching films ordered by title, or an empty list if the criteria are invalid
+     */
+    public List<Film> searchFilms(FilmCriterion criterion) {
+        try {
+            return libraryService.searchFilms(criterion);
+        } catch (IllegalArgumentException e) {
+            return new ArrayList<Film>();
+        }
+    }
+    
     /**
      * Finds a film by its title.
      * 
@@ -186,6 +257,51 @@ public class LibraryController {
         }
     }
     
+    /**
+     * Gets every loan a member has ever made.
+     * 
+     * @param member The member to check
+     * @return List of loans ordered by borrow date or null if there was an error
+     */
+    public List<Loan> getLoanHistory(Member member) {
+        try {
+            return libraryService.getLoanHistory(member);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Gets the loans a member made between two dates.
+     * 
+     * @param member The member to check
+     * @param from The earliest borrow date to include
+     * @param to The latest borrow date to include
+     * @return List of loans ordered by borrow date or null if there was an error
+     */
+    public List<Loan> getLoanHistory(Member member, LocalDate from, LocalDate to) {
+        try {
+            return libraryService.getLoanHistory(member, from, to);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Checks whether a member has ever borrowed a film.
+     * 
+     * @param member The member to check
+     * @param film The film to check
+     * @return true if the member has borrowed the film before
+     */
+    public boolean hasMemberBorrowedFilm(Member member, Film film) {
+        try {
+            return libraryService.hasMemberBorrowedFilm(member, film);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
     /**
      * Borrows a DVD for a member.
      * 
@@ -223,4 +339,191 @@ public class LibraryController {
     public List<Loan> getAllActiveLoans() {
         return libraryService.getAllActiveLoans();
     }
+    
+    /**
+     * Gets the DVDs currently on loan.
+     * 
+     * @param film The film whose copies to check, or null for every film
+     * @return List of DVDs on loan
+     */
+    public List<DVD> getDVDsOnLoan(Film film) {
+        return libraryService.getDVDsOnLoan(film);
+    }
+    
+    /**
+     * Gets stock totals for the whole library.
+     * 
+     * @return The inventory counts
+     */
+    public InventoryCounts getInventoryCounts() {
+        return libraryService.getInventoryCounts();
+    }
+    
+    /**
+     * Gets the library's headline totals for the status bar.
+     * 
+     * @return The library totals
+     */
+    public LibraryStats getLibraryStats() {
+        return libraryService.getLibraryStats();
+    }
+    
+    /**
+     * Gets a consistent view of the film catalogue and active loans.
+     * 
+     * @return The latest library version
+     */
+    public LibraryVersion getSnapshot() {
+        return libraryService.getSnapshot();
+    }
+    
+    /**
+     * Gets the most borrowed films in a time window.
+     * 
+     * @param window The time window ending today
+     * @param k The maximum number of films to return
+     * @return List of film titles with borrow counts
+     */
+    public List<RankedItem> getTopFilms(AnalyticsWindow window, int k) {
+        try {
+            return libraryService.getTopFilms(window, k);
+        } catch (IllegalArgumentException e) {
+            return new ArrayList<RankedItem>();
+        }
+    }
+    
+    /**
+     * Gets the members who borrowed the most in a time window.
+     * 
+     * @param window The time window ending today
+     * @param k The maximum number of members to return
+     * @return List of membership numbers with borrow counts
+     */
+    public List<RankedItem> getTopMembers(AnalyticsWindow window, int k) {
+        try {
+            return libraryService.getTopMembers(window, k);
+        } catch (IllegalArgumentException e) {
+            return new ArrayList<RankedItem>();
+        }
+    }
+    
+    /**
+     * Gets films that members who borrowed a film also borrowed.
+     * 
+     * @param film The film to base the recommendations on
+     * @param limit The maximum number of films to return
+     * @return List of film titles with co-borrow counts
+     */
+    public List<RankedItem> getRecommendations(Film film, int limit) {
+        try {
+            return libraryService.getRecommendations(film, limit);
+        } catch (IllegalArgumentException e) {
+            return new ArrayList<RankedItem>();
+        }
+    }
+    
+    /**
+     * Places a hold on a film with no available copies.
+     * 
+     * @param film The film to reserve
+     * @param member The member placing the hold
+     * @return The created Hold or null if there was an error
+     */
+    public Hold placeHold(Film film, Member member) {
+        try {
+            return libraryService.placeHold(film, member, LocalDate.now());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Cancels a member's hold on a film.
+     * 
+     * @param film The reserved film
+     * @param member The member who placed the hold
+     * @return The cancelled Hold or null if there was an error
+     */
+    public Hold cancelHold(Film film, Member member) {
+        try {
+            return libraryService.cancelHold(film, member, LocalDate.now());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Gets all active holds in the system.
+     * 
+     * @return List of active holds
+     */
+    public List<Hold> getActiveHolds() {
+        return libraryService.getActiveHolds();
+    }
+    
+    /**
+     * Finds the hold a DVD has been set aside for.
+     * 
+     * @param dvd The DVD to check
+     * @return The ready Hold or null if the DVD is not reserved
+     */
+    public Hold findReadyHold(DVD dvd) {
+        return libraryService.findReadyHold(dvd);
+    }
+    
+    /**
+     * Gets the total fines a member owes.
+     * 
+     * @param member The member to check
+     * @return The balance in cents, or 0 if there was an error
+     */
+    public long getFineBalance(Member member) {
+        try {
+            return libraryService.getFineBalance(member);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Finds the fine charged for a loan.
+     * 
+     * @param loan The loan to check
+     * @return The Fine or null if the loan has not been fined
+     */
+    public Fine findFine(Loan loan) {
+        return libraryService.findFine(loan);
+    }
+    
+    /**
+     * Gets the suggested moves of idle copies between branches.
+     * 
+     * @return List of transfers, largest first
+     */
+    public List<Transfer> getRebalancePlan() {
+        return libraryService.getRebalancePlan();
+    }
+    
+    /**
+     * Rebuilds the library as it stood at the end of a day.
+     * 
+     * @param date The day to rebuild
+     * @return The snapshot or null if there was an error
+     */
+    public LibrarySnapshot getLibraryAsOf(LocalDate date) {
+        try {
+            return libraryService.getLibraryAsOf(date);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Gets the call counts and latencies of the timed library operations.
+     * 
+     * @return List of operation statistics ordered by name
+     */
+    public List<OperationStats> getOperationStats() {
+        return metrics.snapshot();
+    }
 }
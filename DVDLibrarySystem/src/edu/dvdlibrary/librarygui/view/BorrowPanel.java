@@ -1,9 +1,12 @@
 package edu.dvdlibrary.librarygui.view;
 
+import edu.dvdlibrary.librarycore.analytics.RankedItem;
 import edu.dvdlibrary.librarycore.model.DVD;
 import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Hold;
 import edu.dvdlibrary.librarycore.model.Loan;
 import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.snapshot.LoanStatus;
 import edu.dvdlibrary.librarygui.controller.LibraryController;
 
 import javax.swing.*;
@@ -17,13 +20,19 @@ import java.util.List;
  */
 public class BorrowPanel extends JPanel implements LibraryView {
     
+    private static final int RECOMMENDATION_LIMIT = 5;
+    
     private LibraryController controller;
     
     private JComboBox<String> filmComboBox;
     private JComboBox<String> dvdComboBox;
     private JComboBox<String> memberComboBox;
+    private DefaultListModel<String> recommendationListModel;
     private JTable activeLoansTable;
     private DefaultTableModel activeLoansTableModel;
+    private JComboBox<String> holdFilmComboBox;
+    private JComboBox<String> holdMemberComboBox;
+    private DefaultTableModel holdsTableModel;
     
     /**
      * Creates a new borrow panel.
@@ -55,7 +64,10 @@ public class BorrowPanel extends JPanel implements LibraryView {
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.weightx = 1.0;
         filmComboBox = new JComboBox<>();
-        filmComboBox.addActionListener(e -> updateDVDComboBox());
+        filmComboBox.addActionListener(e -> {
+            updateDVDComboBox();
+            updateRecommendations();
+        });
         inputPanel.add(filmComboBox, gbc);
         
         // DVD selection
@@ -89,11 +101,28 @@ public class BorrowPanel extends JPanel implements LibraryView {
         borrowButton.addActionListener(e -> borrowDVD());
         inputPanel.add(borrowButton, gbc);
         
-        add(inputPanel, BorderLayout.NORTH);
+        // Co-borrowing recommendations for the selected film
+        gbc.gridx = 0;
+        gbc.gridy = 4;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.anchor = GridBagConstraints.WEST;
+        inputPanel.add(new JLabel("Members who borrowed this also borrowed:"), gbc);
+        
+        gbc.gridy = 5;
+        recommendationListModel = new DefaultListModel<>();
+        JList<String> recommendationList = new JList<>(recommendationListModel);
+        recommendationList.setVisibleRowCount(RECOMMENDATION_LIMIT);
+        inputPanel.add(new JScrollPane(recommendationList), gbc);
+        
+        // Stack the borrow and hold forms at the top
+        JPanel formsPanel = new JPanel(new BorderLayout());
+        formsPanel.add(inputPanel, BorderLayout.NORTH);
+        formsPanel.add(createHoldInputPanel(), BorderLayout.SOUTH);
+        add(formsPanel, BorderLayout.NORTH);
         
         // Create the table panel
         JPanel tablePanel = new JPanel(new BorderLayout());
-        tablePanel.setBorder(BorderFactory.createTitledBorder("Active Loans"));
         
         // Create the table model with column names
         activeLoansTableModel = new DefaultTableModel() {
@@ -114,7 +143,163 @@ public class BorrowPanel extends JPanel implements LibraryView {
         JScrollPane scrollPane = new JScrollPane(activeLoansTable);
         tablePanel.add(scrollPane, BorderLayout.CENTER);
         
-        add(tablePanel, BorderLayout.CENTER);
+        // Active loans and holds share the bottom area as tabs
+        JTabbedPane tableTabs = new JTabbedPane();
+        tableTabs.addTab("Active Loans", tablePanel);
+        tableTabs.addTab("Holds", createHoldsTablePanel());
+        
+        add(tableTabs, BorderLayout.CENTER);
+    }
+    
+    /**
+     * Creates the form for placing and cancelling holds on films with no copies available.
+     * 
+     * @return The hold input panel
+     */
+    private JPanel createHoldInputPanel() {
+        JPanel holdPanel = new JPanel(new GridBagLayout());
+        holdPanel.setBorder(BorderFactory.createTitledBorder("Place Hold (films with no copies available)"));
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        
+        // Film selection
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        gbc.anchor = GridBagConstraints.EAST;
+        holdPanel.add(new JLabel("Film:"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.weightx = 1.0;
+        holdFilmComboBox = new JComboBox<>();
+        holdPanel.add(holdFilmComboBox, gbc);
+        
+        // Member selection
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.weightx = 0.0;
+        gbc.anchor = GridBagConstraints.EAST;
+        holdPanel.add(new JLabel("Member:"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.weightx = 1.0;
+        holdMemberComboBox = new JComboBox<>();
+        holdPanel.add(holdMemberComboBox, gbc);
+        
+        // Buttons
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        JButton placeHoldButton = new JButton("Place Hold");
+        placeHoldButton.addActionListener(e -> placeHold());
+        buttonPanel.add(placeHoldButton);
+        JButton cancelHoldButton = new JButton("Cancel Hold");
+        cancelHoldButton.addActionListener(e -> cancelHold());
+        buttonPanel.add(cancelHoldButton);
+        
+        gbc.gridx = 0;
+        gbc.gridy = 2;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.anchor = GridBagConstraints.CENTER;
+        holdPanel.add(buttonPanel, gbc);
+        
+        return holdPanel;
+    }
+    
+    /**
+     * Creates the table listing all active holds.
+     * 
+     * @return The holds table panel
+     */
+    private JPanel createHoldsTablePanel() {
+        JPanel holdsPanel = new JPanel(new BorderLayout());
+        
+        holdsTableModel = new DefaultTableModel() {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false; // Make the table read-only
+            }
+        };
+        holdsTableModel.addColumn("Film Title");
+        holdsTableModel.addColumn("Member");
+        holdsTableModel.addColumn("Placed");
+        holdsTableModel.addColumn("Status");
+        holdsTableModel.addColumn("DVD ID");
+        holdsTableModel.addColumn("Pickup By");
+        
+        holdsPanel.add(new JScrollPane(new JTable(holdsTableModel)), BorderLayout.CENTER);
+        return holdsPanel;
+    }
+    
+    /**
+     * Places a hold for the selected film and member.
+     */
+    private void placeHold() {
+        String selectedFilmTitle = (String) holdFilmComboBox.getSelectedItem();
+        Member member = findSelectedMember(holdMemberComboBox);
+        
+        if (selectedFilmTitle == null) {
+            showError("Please select a film");
+            return;
+        }
+        
+        if (member == null) {
+            showError("Please select a member");
+            return;
+        }
+        
+        Film film = controller.findFilmByTitle(selectedFilmTitle);
+        if (film != null) {
+            Hold hold = controller.placeHold(film, member);
+            
+            if (hold != null) {
+                showSuccess("Hold placed successfully");
+                updateView();
+            } else {
+                showError("Failed to place hold. A copy may be available or the member already has a hold on this film.");
+            }
+        }
+    }
+    
+    /**
+     * Cancels the selected member's hold on the selected film.
+     */
+    private void cancelHold() {
+        String selectedFilmTitle = (String) holdFilmComboBox.getSelectedItem();
+        Member member = findSelectedMember(holdMemberComboBox);
+        
+        if (selectedFilmTitle == null || member == null) {
+            showError("Please select a film and a member");
+            return;
+        }
+        
+        Film film = controller.findFilmByTitle(selectedFilmTitle);
+        if (film != null) {
+            if (controller.cancelHold(film, member) != null) {
+                showSuccess("Hold cancelled");
+                updateView();
+            } else {
+                showError("The member has no active hold on this film");
+            }
+        }
+    }
+    
+    /**
+     * Looks up the member selected in a combo box of "number - name" entries.
+     * 
+     * @param comboBox The combo box to read
+     * @return The selected Member or null if none is selected
+     */
+    private Member findSelectedMember(JComboBox<String> comboBox) {
+        String selected = (String) comboBox.getSelectedItem();
+        if (selected == null) {
+            return null;
+        }
+        int separator = selected.indexOf(" - ");
+        String membershipNumber = separator >= 0 ? selected.substring(0, separator) : selected;
+        return controller.findMemberByNumber(membershipNumber);
     }
     
     /**
@@ -137,25 +322,43 @@ public class BorrowPanel extends JPanel implements LibraryView {
         }
     }
     
+    /**
+     * Updates the recommendation list for the selected film.
+     */
+    private void updateRecommendations() {
+        recommendationListModel.clear();
+        
+        String selectedFilmTitle = (String) filmComboBox.getSelectedItem();
+        if (selectedFilmTitle != null) {
+            Film film = controller.findFilmByTitle(selectedFilmTitle);
+            
+            if (film != null) {
+                List<RankedItem> recommendations = controller.getRecommendations(film, RECOMMENDATION_LIMIT);
+                for (RankedItem item : recommendations) {
+                    recommendationListModel.addElement(item.getKey() + " (" + item.getCount() + " members)");
+                }
+            }
+        }
+    }
+    
     /**
      * Processes a DVD borrow with the selected DVD and member.
      */
     private void borrowDVD() {
         String selectedDVDId = (String) dvdComboBox.getSelectedItem();
-        String selectedMembership = (String) memberComboBox.getSelectedItem();
         
         if (selectedDVDId == null) {
             showError("Please select a DVD");
             return;
         }
         
-        if (selectedMembership == null) {
+        Member member = findSelectedMember(memberComboBox);
+        if (member == null) {
             showError("Please select a member");
             return;
         }
         
         DVD dvd = controller.findDVDById(selectedDVDId);
-        Member member = controller.findMemberByNumber(selectedMembership);
         
         if (dvd != null && member != null) {
             Loan loan = controller.borrowDVD(dvd, member);
@@ -164,7 +367,12 @@ public class BorrowPanel extends JPanel implements LibraryView {
                 showSuccess("DVD borrowed successfully");
                 updateView();
             } else {
-                showError("Failed to borrow DVD. The DVD may be already on loan or the member has reached their loan limit.");
+                Hold reservation = controller.findReadyHold(dvd);
+                if (reservation != null && !reservation.getMember().equals(member)) {
+                    showError("This DVD is reserved for " + reservation.getMember().getName() + ".");
+                } else {
+                    showError("Failed to borrow DVD. The DVD may be already on loan or the member has reached their loan limit.");
+                }
             }
         }
     }
@@ -178,37 +386,74 @@ public class BorrowPanel extends JPanel implements LibraryView {
     public void updateView() {
         // Update film combo box
         filmComboBox.removeAllItems();
+        holdFilmComboBox.removeAllItems();
         List<Film> films = controller.getAllFilms();
         for (Film film : films) {
             if (film.getNumberAvailable() > 0) {
                 filmComboBox.addItem(film.getTitle());
             }
+            if (film.getTotalCopies() > 0 && !hasBorrowableCopy(film)) {
+                holdFilmComboBox.addItem(film.getTitle());
+            }
         }
         
-        // Update DVD combo box
+        // Update DVD combo box and recommendations
         updateDVDComboBox();
+        updateRecommendations();
         
         // Update member combo box
         memberComboBox.removeAllItems();
+        holdMemberComboBox.removeAllItems();
         List<Member> members = controller.getAllMembers();
         for (Member member : members) {
+            String memberLabel = member.getMembershipNumber() + " - " + member.getName();
             if (member.canBorrow()) {
-                memberComboBox.addItem(member.getMembershipNumber() + " - " + member.getName());
+                memberComboBox.addItem(memberLabel);
             }
+            holdMemberComboBox.addItem(memberLabel);
         }
         
         // Update active loans table
         activeLoansTableModel.setRowCount(0);
-        List<Loan> activeLoans = controller.getAllActiveLoans();
-        for (Loan loan : activeLoans) {
+        List<LoanStatus> activeLoans = controller.getSnapshot().getActiveLoans();
+        for (LoanStatus loan : activeLoans) {
             activeLoansTableModel.addRow(new Object[]{
-                    loan.getDvd().getDvdId(),
-                    loan.getDvd().getFilm().getTitle(),
-                    loan.getMember().getMembershipNumber() + " - " + loan.getMember().getName(),
+                    loan.getDvdId(),
+                    loan.getFilmTitle(),
+                    loan.getMembershipNumber() + " - " + loan.getMemberName(),
                     loan.getBorrowDate(),
                     loan.getDueDate()
             });
         }
+        
+        // Update holds table
+        holdsTableModel.setRowCount(0);
+        for (Hold hold : controller.getActiveHolds()) {
+            DVD assignedDvd = hold.getAssignedDvd();
+            holdsTableModel.addRow(new Object[]{
+                    hold.getFilm().getTitle(),
+                    hold.getMember().getMembershipNumber() + " - " + hold.getMember().getName(),
+                    hold.getPlacedDate(),
+                    hold.getStatus(),
+                    assignedDvd != null ? assignedDvd.getDvdId() : "",
+                    hold.getPickupDeadline() != null ? hold.getPickupDeadline() : ""
+            });
+        }
+    }
+    
+    /**
+     * Checks whether a film has a copy that is neither on loan nor set aside for a hold.
+     * 
+     * @param film The film to check
+     * @return true if a copy can be borrowed by anyone
+     */
+    private boolean hasBorrowableCopy(Film film) {
+        for (DVD dvd : film.getDvdCopies()) {
+            if (!dvd.isOnLoan() && controller.findReadyHold(dvd) == null) {
+                return true;
+            }
+        }
+        return false;
     }
     
     @Override
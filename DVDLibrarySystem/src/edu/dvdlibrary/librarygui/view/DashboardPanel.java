@@ -0,0 +1,180 @@
+package edu.dvdlibrary.librarygui.view;
+
+import edu.dvdlibrary.librarycore.analytics.AnalyticsWindow;
+import edu.dvdlibrary.librarycore.analytics.RankedItem;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.rebalance.Transfer;
+import edu.dvdlibrary.librarygui.controller.LibraryController;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Panel showing live borrowing analytics.
+ * Lists the most borrowed films and most active members for a chosen time window,
+ * and the suggested moves of copies between branches.
+ */
+public class DashboardPanel extends JPanel implements LibraryView {
+    
+    private static final int DEFAULT_TOP_K = 10;
+    
+    private LibraryController controller;
+    
+    private JComboBox<AnalyticsWindow> windowComboBox;
+    private JSpinner topKSpinner;
+    private DefaultTableModel topFilmsTableModel;
+    private DefaultTableModel topMembersTableModel;
+    private DefaultTableModel transfersTableModel;
+    
+    /**
+     * Creates a new dashboard panel.
+     */
+    public DashboardPanel() {
+        initializeUI();
+    }
+    
+    /**
+     * Initializes the user interface components.
+     */
+    private void initializeUI() {
+        setLayout(new BorderLayout(10, 10));
+        setBackground(LibraryTheme.BACKGROUND_COLOR);
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        // Create the options panel
+        JPanel optionsPanel = LibraryTheme.createTitledPanel("Most Borrowed");
+        optionsPanel.setLayout(new FlowLayout(FlowLayout.LEFT, 8, 4));
+        
+        optionsPanel.add(LibraryTheme.createLabel("Window:"));
+        windowComboBox = new JComboBox<>(AnalyticsWindow.values());
+        windowComboBox.setSelectedItem(AnalyticsWindow.WEEK);
+        windowComboBox.setFont(LibraryTheme.REGULAR_FONT);
+        windowComboBox.addActionListener(e -> updateView());
+        optionsPanel.add(windowComboBox);
+        
+        optionsPanel.add(LibraryTheme.createLabel("Show top:"));
+        topKSpinner = new JSpinner(new SpinnerNumberModel(DEFAULT_TOP_K, 1, 100, 1));
+        topKSpinner.setFont(LibraryTheme.REGULAR_FONT);
+        topKSpinner.addChangeListener(e -> updateView());
+        optionsPanel.add(topKSpinner);
+        
+        JButton refreshButton = LibraryTheme.createPrimaryButton("Refresh");
+        refreshButton.addActionListener(e -> updateView());
+        optionsPanel.add(refreshButton);
+        
+        add(optionsPanel, BorderLayout.NORTH);
+        
+        // Create the two result tables side by side
+        JPanel tablesPanel = new JPanel(new GridLayout(1, 2, 10, 0));
+        tablesPanel.setBackground(LibraryTheme.BACKGROUND_COLOR);
+        
+        topFilmsTableModel = createReadOnlyModel("Rank", "Film Title", "Loans");
+        tablesPanel.add(createTablePanel("Top Films", topFilmsTableModel));
+        
+        topMembersTableModel = createReadOnlyModel("Rank", "Member", "Loans");
+        tablesPanel.add(createTablePanel("Top Members", topMembersTableModel));
+        
+        add(tablesPanel, BorderLayout.CENTER);
+        
+        // Create the branch transfers table below
+        transfersTableModel = createReadOnlyModel("Copies", "Film Title", "From", "To");
+        JPanel transfersPanel = createTablePanel("Suggested Branch Transfers", transfersTableModel);
+        transfersPanel.setPreferredSize(new Dimension(0, 180));
+        add(transfersPanel, BorderLayout.SOUTH);
+    }
+    
+    /**
+     * Creates a read-only table model with the given columns.
+     * 
+     * @param columns The column names
+     * @return The table model
+     */
+    private DefaultTableModel createReadOnlyModel(String... columns) {
+        return new DefaultTableModel(new Object[][]{}, columns) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false; // Make the table read-only
+            }
+        };
+    }
+    
+    /**
+     * Wraps a table model in a titled, scrollable panel.
+     * 
+     * @param title The panel title
+     * @param model The table model
+     * @return The table panel
+     */
+    private JPanel createTablePanel(String title, DefaultTableModel model) {
+        JPanel panel = LibraryTheme.createTitledPanel(title);
+        panel.setLayout(new BorderLayout());
+        
+        JTable table = LibraryTheme.createTable(model);
+        table.getColumnModel().getColumn(0).setPreferredWidth(40);
+        table.getColumnModel().getColumn(1).setPreferredWidth(220);
+        table.getColumnModel().getColumn(2).setPreferredWidth(60);
+        
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        panel.add(scrollPane, BorderLayout.CENTER);
+        return panel;
+    }
+    
+    @Override
+    public void setController(LibraryController controller) {
+        this.controller = controller;
+    }
+    
+    @Override
+    public void updateView() {
+        if (controller == null) {
+            return;
+        }
+        
+        AnalyticsWindow window = (AnalyticsWindow) windowComboBox.getSelectedItem();
+        int k = (Integer) topKSpinner.getValue();
+        
+        // Update top films table
+        topFilmsTableModel.setRowCount(0);
+        List<RankedItem> topFilms = controller.getTopFilms(window, k);
+        for (int i = 0; i < topFilms.size(); i++) {
+            RankedItem item = topFilms.get(i);
+            topFilmsTableModel.addRow(new Object[]{i + 1, item.getKey(), item.getCount()});
+        }
+        
+        // Update top members table
+        topMembersTableModel.setRowCount(0);
+        List<RankedItem> topMembers = controller.getTopMembers(window, k);
+        for (int i = 0; i < topMembers.size(); i++) {
+            RankedItem item = topMembers.get(i);
+            Member member = controller.findMemberByNumber(item.getKey());
+            String memberLabel = member != null
+                    ? member.getMembershipNumber() + " - " + member.getName()
+                    : item.getKey();
+            topMembersTableModel.addRow(new Object[]{i + 1, memberLabel, item.getCount()});
+        }
+        
+        // Update branch transfers table
+        transfersTableModel.setRowCount(0);
+        for (Transfer transfer : controller.getRebalancePlan()) {
+            transfersTableModel.addRow(new Object[]{
+                    transfer.getCopies(),
+                    transfer.getFilmTitle(),
+                    transfer.getFromBranch(),
+                    transfer.getToBranch()
+            });
+        }
+    }
+    
+    @Override
+    public void showError(String message) {
+        JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    @Override
+    public void showSuccess(String message) {
+        JOptionPane.showMessageDialog(this, message, "Success", JOptionPane.INFORMATION_MESSAGE);
+    }
+}
@@ -0,0 +1,146 @@
+package edu.dvdlibrary.librarygui.view;
+
+import edu.dvdlibrary.librarycore.metrics.HistogramSnapshot;
+import edu.dvdlibrary.librarycore.metrics.OperationStats;
+import edu.dvdlibrary.librarygui.controller.LibraryController;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+
+/**
+ * Status bar strip showing the 99th percentile latency of borrows, returns
+ * and searches, refreshed every few seconds. The Details button opens a
+ * table of every timed operation.
+ */
+public class DiagnosticsPanel extends JPanel implements LibraryView {
+    
+    private static final int REFRESH_MILLIS = 2000;
+    private static final String[][] SUMMARY_OPERATIONS = {
+        {"Borrow", "service.borrowDVD"},
+        {"Return", "service.returnDVD"},
+        {"Search", "service.searchFilmsByTitle"}
+    };
+    
+    private LibraryController controller;
+    private final JLabel summaryLabel;
+    private DefaultTableModel detailsTableModel;
+    
+    /**
+     * Creates a new diagnostics panel and starts refreshing it.
+     */
+    public DiagnosticsPanel() {
+        super(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        setBackground(LibraryTheme.BACKGROUND_COLOR);
+        
+        summaryLabel = new JLabel();
+        summaryLabel.setFont(LibraryTheme.SMALL_FONT);
+        summaryLabel.setForeground(LibraryTheme.TEXT_COLOR);
+        add(summaryLabel);
+        
+        JButton detailsButton = new JButton("Details");
+        detailsButton.setFont(LibraryTheme.SMALL_FONT);
+        detailsButton.setMargin(new Insets(0, 6, 0, 6));
+        detailsButton.addActionListener(e -> showDetails());
+        add(detailsButton);
+        
+        new Timer(REFRESH_MILLIS, e -> updateView()).start();
+    }
+    
+    /**
+     * Opens a window listing the figures for every timed operation.
+     */
+    private void showDetails() {
+        detailsTableModel = new DefaultTableModel(new Object[][]{},
+                new String[]{"Operation", "Calls", "Failures", "Mean (ms)", "p50 (ms)", "p90 (ms)", "p99 (ms)", "Max (ms)"}) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false; // Make the table read-only
+            }
+        };
+        JTable table = LibraryTheme.createTable(detailsTableModel);
+        table.getColumnModel().getColumn(0).setPreferredWidth(220);
+        
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this), "Operation Latency");
+        dialog.add(new JScrollPane(table));
+        dialog.setSize(760, 420);
+        dialog.setLocationRelativeTo(this);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                detailsTableModel = null;
+            }
+        });
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        updateView();
+        dialog.setVisible(true);
+    }
+    
+    @Override
+    public void setController(LibraryController controller) {
+        this.controller = controller;
+        updateView();
+    }
+    
+    @Override
+    public void updateView() {
+        if (controller == null) {
+            return;
+        }
+        List<OperationStats> stats = controller.getOperationStats();
+        
+        StringBuilder summary = new StringBuilder();
+        for (String[] operation : SUMMARY_OPERATIONS) {
+            if (summary.length() > 0) {
+                summary.append("  |  ");
+            }
+            summary.append(operation[0]).append(" p99 ");
+            OperationStats op = find(stats, operation[1]);
+            summary.append(op == null ? "-" : millis(op.getLatency().getValueAtPercentile(99)) + " ms");
+        }
+        summaryLabel.setText(summary.toString());
+        
+        if (detailsTableModel != null) {
+            detailsTableModel.setRowCount(0);
+            for (OperationStats op : stats) {
+                HistogramSnapshot latency = op.getLatency();
+                detailsTableModel.addRow(new Object[]{
+                    op.getName(),
+                    op.getCount(),
+                    op.getFailures(),
+                    millis((long) latency.getMeanNanos()),
+                    millis(latency.getValueAtPercentile(50)),
+                    millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)),
+                    millis(latency.getMaxNanos())
+                });
+            }
+        }
+    }
+    
+    private static OperationStats find(List<OperationStats> stats, String name) {
+        for (OperationStats op : stats) {
+            if (op.getName().equals(name)) {
+                return op;
+            }
+        }
+        return null;
+    }
+    
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+    
+    @Override
+    public void showError(String message) {
+        JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    @Override
+    public void showSuccess(String message) {
+        JOptionPane.showMessageDialog(this, message, "Success", JOptionPane.INFORMATION_MESSAGE);
+    }
+}
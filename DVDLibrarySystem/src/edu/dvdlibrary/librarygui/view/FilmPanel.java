@@ -1,11 +1,15 @@
 package edu.dvdlibrary.librarygui.view;
 
 import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.query.FilmCriterion;
+import edu.dvdlibrary.librarycore.snapshot.FilmStatus;
+import edu.dvdlibrary.librarycore.snapshot.LibraryVersion;
 import edu.dvdlibrary.librarygui.controller.LibraryController;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.time.LocalDate;
 import java.util.List;
 import javax.swing.SpinnerNumberModel;
 
@@ -15,6 +19,9 @@ import javax.swing.SpinnerNumberModel;
  */
 public class FilmPanel extends JPanel implements LibraryView {
     
+    private static final int SIMILAR_TITLE_LIMIT = 10;
+    private static final int PAGE_SIZE = 50;
+    
     private LibraryController controller;
     
     private JTextField titleField;
@@ -24,6 +31,17 @@ public class FilmPanel extends JPanel implements LibraryView {
     private DefaultTableModel filmTableModel;
     private JLabel availableLabel;
     
+    private JTextField browseFromField;
+    private JTextField browseToField;
+    private JComboBox<String> browseOrderBox;
+    private JButton previousPageButton;
+    private JButton nextPageButton;
+    private JLabel pageLabel;
+    // The title just before the page on show (in browsing order), or null for the first page
+    private String pageAfter;
+    private String pageFirstTitle;
+    private String pageLastTitle;
+    
     /**
      * Creates a new film panel.
      */
@@ -175,6 +193,20 @@ public class FilmPanel extends JPanel implements LibraryView {
         });
         searchPanel.add(combinedSearchButton, searchGbc);
         
+        // Overdue search row
+        searchGbc.gridx = 0;
+        searchGbc.gridy = 3;
+        searchGbc.gridwidth = 2;
+        searchGbc.anchor = GridBagConstraints.WEST;
+        JLabel overdueSearchLabel = LibraryTheme.createLabel("Films with copies overdue today:");
+        searchPanel.add(overdueSearchLabel, searchGbc);
+        
+        searchGbc.gridx = 2;
+        searchGbc.gridwidth = 1;
+        JButton overdueSearchButton = LibraryTheme.createPrimaryButton("Overdue Search");
+        overdueSearchButton.addActionListener(e -> searchFilmsWithOverdueCopies());
+        searchPanel.add(overdueSearchButton, searchGbc);
+        
         tablePanel.add(searchPanel, BorderLayout.NORTH);
         
         // Create the table with modern styling
@@ -202,6 +234,42 @@ public class FilmPanel extends JPanel implements LibraryView {
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
         tablePanel.add(scrollPane, BorderLayout.CENTER);
         
+        // Browse bar: page through the catalogue alphabetically, optionally within a range of titles
+        JPanel browsePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        browsePanel.setBackground(LibraryTheme.BACKGROUND_COLOR);
+        
+        browsePanel.add(LibraryTheme.createLabel("Titles from:"));
+        browseFromField = LibraryTheme.createTextField();
+        browseFromField.setColumns(6);
+        browsePanel.add(browseFromField);
+        
+        browsePanel.add(LibraryTheme.createLabel("to:"));
+        browseToField = LibraryTheme.createTextField();
+        browseToField.setColumns(6);
+        browsePanel.add(browseToField);
+        
+        browseOrderBox = new JComboBox<>(new String[]{"A to Z", "Z to A"});
+        browseOrderBox.setFont(LibraryTheme.REGULAR_FONT);
+        browseOrderBox.addActionListener(e -> showPage(null));
+        browsePanel.add(browseOrderBox);
+        
+        JButton browseButton = LibraryTheme.createPrimaryButton("Browse");
+        browseButton.addActionListener(e -> showPage(null));
+        browsePanel.add(browseButton);
+        
+        previousPageButton = LibraryTheme.createPrimaryButton("< Previous");
+        previousPageButton.addActionListener(e -> showPreviousPage());
+        browsePanel.add(previousPageButton);
+        
+        nextPageButton = LibraryTheme.createPrimaryButton("Next >");
+        nextPageButton.addActionListener(e -> showPage(pageLastTitle));
+        browsePanel.add(nextPageButton);
+        
+        pageLabel = LibraryTheme.createLabel("");
+        browsePanel.add(pageLabel);
+        
+        tablePanel.add(browsePanel, BorderLayout.SOUTH);
+        
         add(tablePanel, BorderLayout.CENTER);
     }
     
@@ -280,25 +348,66 @@ public class FilmPanel extends JPanel implements LibraryView {
     
     @Override
     public void updateView() {
+        // Stay on the page on show, picking up any films added to it
+        showPage(pageAfter);
+    }
+    
+    /**
+     * Shows a page of the catalogue in title order.
+     * 
+     * @param after The title just before the page in browsing order, or null for the first page
+     */
+    private void showPage(String after) {
+        boolean descending = browseOrderBox.getSelectedIndex() == 1;
+        // Ask for one film more than fits on the page to learn whether there is a next page
+        List<Film> films = controller.browseFilms(browseFromField.getText(), browseToField.getText(),
+                after, PAGE_SIZE + 1, descending);
+        boolean hasNextPage = films.size() > PAGE_SIZE;
+        if (hasNextPage) {
+            films = films.subList(0, PAGE_SIZE);
+        }
+        
         // Clear the table
         filmTableModel.setRowCount(0);
         
-        // Get all films
-        List<Film> films = controller.getAllFilms();
-        
-        // Add films to the table
+        // Show copy counts from a single consistent snapshot
+        LibraryVersion snapshot = controller.getSnapshot();
         for (Film film : films) {
+            FilmStatus status = snapshot.getFilm(film.getTitle());
             filmTableModel.addRow(new Object[]{
                     film.getTitle(),
-                    film.getTotalCopies(),
-                    film.getNumberAvailable()
+                    status != null ? status.getTotalCopies() : film.getTotalCopies(),
+                    status != null ? status.getAvailable() : film.getNumberAvailable()
             });
         }
         
+        pageAfter = after;
+        pageFirstTitle = films.isEmpty() ? null : films.get(0).getTitle();
+        pageLastTitle = films.isEmpty() ? null : films.get(films.size() - 1).getTitle();
+        previousPageButton.setEnabled(after != null);
+        nextPageButton.setEnabled(hasNextPage);
+        pageLabel.setText(films.isEmpty() ? "No films"
+                : pageFirstTitle + " \u2013 " + pageLastTitle);
+        
         // Update the available label
         updateAvailableLabel();
     }
     
+    /**
+     * Shows the page before the one on show.
+     */
+    private void showPreviousPage() {
+        if (pageFirstTitle == null) {
+            showPage(null);
+            return;
+        }
+        // Walking back from the first title, the film one page away is the new page's starting point
+        boolean descending = browseOrderBox.getSelectedIndex() == 1;
+        List<Film> before = controller.browseFilms(browseFromField.getText(), browseToField.getText(),
+                pageFirstTitle, PAGE_SIZE + 1, !descending);
+        showPage(before.size() > PAGE_SIZE ? before.get(PAGE_SIZE).getTitle() : null);
+    }
+    
     /**
      * Searches for films by title using the search field text.
      */
@@ -317,7 +426,21 @@ public class FilmPanel extends JPanel implements LibraryView {
         List<Film> matchingFilms = controller.searchFilmsByTitle(searchTerm);
         
         if (matchingFilms.isEmpty()) {
-            showMessage("No films found matching title: " + searchTerm);
+            // Perhaps the title was mistyped; offer the closest ones instead
+            List<Film> similarFilms = controller.searchFilmsBySimilarTitle(searchTerm, SIMILAR_TITLE_LIMIT);
+            if (similarFilms.isEmpty()) {
+                showMessage("No films found matching title: " + searchTerm);
+                return;
+            }
+            for (Film film : similarFilms) {
+                filmTableModel.addRow(new Object[]{
+                        film.getTitle(),
+                        film.getTotalCopies(),
+                        film.getNumberAvailable()
+                });
+            }
+            showMessage("No films found matching title: " + searchTerm
+                    + ". Showing " + similarFilms.size() + " film(s) with similar titles.");
             return;
         }
         
@@ -399,6 +522,32 @@ public class FilmPanel extends JPanel implements LibraryView {
                 + "' with at least " + minAvailable + " available copies");
     }
     
+    /**
+     * Lists the films that have at least one copy overdue today.
+     */
+    private void searchFilmsWithOverdueCopies() {
+        // Clear the table
+        filmTableModel.setRowCount(0);
+        
+        List<Film> matchingFilms = controller.searchFilms(FilmCriterion.hasOverdueCopies(LocalDate.now()));
+        
+        if (matchingFilms.isEmpty()) {
+            showMessage("No films have copies overdue");
+            return;
+        }
+        
+        // Add matching films to the table
+        for (Film film : matchingFilms) {
+            filmTableModel.addRow(new Object[]{
+                    film.getTitle(),
+                    film.getTotalCopies(),
+                    film.getNumberAvailable()
+            });
+        }
+        
+        showMessage("Found " + matchingFilms.size() + " film(s) with copies overdue");
+    }
+    
     /**
      * Shows an information message to the user.
      * 
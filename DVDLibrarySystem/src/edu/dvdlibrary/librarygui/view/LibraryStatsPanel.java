@@ -0,0 +1,64 @@
+package edu.dvdlibrary.librarygui.view;
+
+import edu.dvdlibrary.librarycore.analytics.LibraryStats;
+import edu.dvdlibrary.librarygui.controller.LibraryController;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Status bar strip showing the library's headline totals: films, discs,
+ * discs on loan, overdue loans and members at their loan limit. The totals
+ * are kept up to date by the service, so the strip refreshes every second.
+ */
+public class LibraryStatsPanel extends JPanel implements LibraryView {
+    
+    private static final int REFRESH_MILLIS = 1000;
+    
+    private LibraryController controller;
+    private final JLabel statsLabel;
+    
+    /**
+     * Creates a new stats panel and starts refreshing it.
+     */
+    public LibraryStatsPanel() {
+        super(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        setBackground(LibraryTheme.BACKGROUND_COLOR);
+        
+        statsLabel = new JLabel("DVD Library System Ready");
+        statsLabel.setFont(LibraryTheme.SMALL_FONT);
+        statsLabel.setForeground(LibraryTheme.TEXT_COLOR);
+        add(statsLabel);
+        
+        new Timer(REFRESH_MILLIS, e -> updateView()).start();
+    }
+    
+    @Override
+    public void setController(LibraryController controller) {
+        this.controller = controller;
+        updateView();
+    }
+    
+    @Override
+    public void updateView() {
+        if (controller == null) {
+            return;
+        }
+        LibraryStats stats = controller.getLibraryStats();
+        statsLabel.setText(stats.getFilms() + " films  |  "
+                + stats.getDiscs() + " discs  |  "
+                + stats.getDiscsOnLoan() + " on loan  |  "
+                + stats.getOverdueLoans() + " overdue  |  "
+                + stats.getMembersAtLoanLimit() + " of " + stats.getMembers() + " members at loan limit");
+    }
+    
+    @Override
+    public void showError(String message) {
+        JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    @Override
+    public void showSuccess(String message) {
+        JOptionPane.showMessageDialog(this, message, "Success", JOptionPane.INFORMATION_MESSAGE);
+    }
+}
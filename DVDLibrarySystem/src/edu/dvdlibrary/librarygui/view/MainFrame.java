@@ -18,6 +18,7 @@ public class MainFrame extends JFrame {
     private MemberPanel memberPanel;
     private BorrowPanel borrowPanel;
     private ReturnPanel returnPanel;
+    private DashboardPanel dashboardPanel;
     
     /**
      * Creates the main application window.
@@ -74,18 +75,29 @@ public class MainFrame extends JFrame {
         memberPanel = new MemberPanel();
         borrowPanel = new BorrowPanel();
         returnPanel = new ReturnPanel();
+        dashboardPanel = new DashboardPanel();
         
         // Set the controller for each panel
         filmPanel.setController(controller);
         memberPanel.setController(controller);
         borrowPanel.setController(controller);
         returnPanel.setController(controller);
+        dashboardPanel.setController(controller);
         
         // Add panels to the tabbed pane with descriptive names
         tabbedPane.addTab("Films", filmPanel);
         tabbedPane.addTab("Members", memberPanel);
         tabbedPane.addTab("Borrow", borrowPanel);
         tabbedPane.addTab("Return", returnPanel);
+        tabbedPane.addTab("Dashboard", dashboardPanel);
+        
+        // Refresh a tab when it is shown, since other tabs may have changed the data
+        tabbedPane.addChangeListener(e -> {
+            Component selected = tabbedPane.getSelectedComponent();
+            if (selected instanceof LibraryView) {
+                ((LibraryView) selected).updateView();
+            }
+        });
         
         // Add the tabbed pane to the frame
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
@@ -111,15 +123,24 @@ public class MainFrame extends JFrame {
                 new EmptyBorder(8, 10, 8, 10)
         ));
         
-        JLabel statusLabel = new JLabel("DVD Library System Ready");
-        statusLabel.setFont(LibraryTheme.SMALL_FONT);
-        statusLabel.setForeground(LibraryTheme.TEXT_COLOR);
-        statusBar.add(statusLabel, BorderLayout.WEST);
+        // Show the library totals, kept live by the service
+        LibraryStatsPanel statsPanel = new LibraryStatsPanel();
+        statsPanel.setController(controller);
+        statusBar.add(statsPanel, BorderLayout.WEST);
+        
+        JPanel eastPanel = new JPanel(new BorderLayout(10, 0));
+        eastPanel.setBackground(LibraryTheme.BACKGROUND_COLOR);
+        
+        // Show operation latency next to the version
+        DiagnosticsPanel diagnosticsPanel = new DiagnosticsPanel();
+        diagnosticsPanel.setController(controller);
+        eastPanel.add(diagnosticsPanel, BorderLayout.CENTER);
         
         JLabel versionLabel = new JLabel("v1.0");
         versionLabel.setFont(LibraryTheme.SMALL_FONT);
         versionLabel.setForeground(LibraryTheme.TEXT_COLOR);
-        statusBar.add(versionLabel, BorderLayout.EAST);
+        eastPanel.add(versionLabel, BorderLayout.EAST);
+        statusBar.add(eastPanel, BorderLayout.EAST);
         
         return statusBar;
     }
@@ -132,5 +153,6 @@ public class MainFrame extends JFrame {
         memberPanel.updateView();
         borrowPanel.updateView();
         returnPanel.updateView();
+        dashboardPanel.updateView();
     }
 }
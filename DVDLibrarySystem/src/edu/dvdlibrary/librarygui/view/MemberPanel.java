@@ -1,5 +1,6 @@
 package edu.dvdlibrary.librarygui.view;
 
+import edu.dvdlibrary.librarycore.model.Fine;
 import edu.dvdlibrary.librarycore.model.Loan;
 import edu.dvdlibrary.librarycore.model.Member;
 import edu.dvdlibrary.librarygui.controller.LibraryController;
@@ -7,7 +8,9 @@ import edu.dvdlibrary.librarygui.controller.LibraryController;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -24,6 +27,9 @@ public class MemberPanel extends JPanel implements LibraryView {
     private DefaultTableModel memberTableModel;
     private JTable loanTable;
     private DefaultTableModel loanTableModel;
+    private JTextField historyFromField;
+    private JTextField historyToField;
+    private DefaultTableModel historyTableModel;
     
     /**
      * Creates a new member panel.
@@ -95,6 +101,7 @@ public class MemberPanel extends JPanel implements LibraryView {
         memberTableModel.addColumn("Membership Number");
         memberTableModel.addColumn("Name");
         memberTableModel.addColumn("Current Loans");
+        memberTableModel.addColumn("Fines Owed");
         
         // Create the member table and add it to a scroll pane
         memberTable = new JTable(memberTableModel);
@@ -112,7 +119,6 @@ public class MemberPanel extends JPanel implements LibraryView {
         
         // Create the loan table panel
         JPanel loanTablePanel = new JPanel(new BorderLayout());
-        loanTablePanel.setBorder(BorderFactory.createTitledBorder("Borrowed Films"));
         
         // Create the loan table model with column names
         loanTableModel = new DefaultTableModel() {
@@ -132,11 +138,67 @@ public class MemberPanel extends JPanel implements LibraryView {
         JScrollPane loanScrollPane = new JScrollPane(loanTable);
         loanTablePanel.add(loanScrollPane, BorderLayout.CENTER);
         
-        splitPane.setBottomComponent(loanTablePanel);
+        // Current loans and full loan history share the bottom half as tabs
+        JTabbedPane loanTabs = new JTabbedPane();
+        loanTabs.addTab("Borrowed Films", loanTablePanel);
+        loanTabs.addTab("Loan History", createHistoryPanel());
+        
+        splitPane.setBottomComponent(loanTabs);
         
         add(splitPane, BorderLayout.CENTER);
     }
     
+    /**
+     * Creates the panel showing a member's full loan history with a date range filter.
+     * 
+     * @return The loan history panel
+     */
+    private JPanel createHistoryPanel() {
+        JPanel historyPanel = new JPanel(new BorderLayout());
+        
+        // Create the date range filter
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filterPanel.add(new JLabel("From (yyyy-MM-dd):"));
+        historyFromField = new JTextField(10);
+        filterPanel.add(historyFromField);
+        filterPanel.add(new JLabel("To (yyyy-MM-dd):"));
+        historyToField = new JTextField(10);
+        filterPanel.add(historyToField);
+        
+        JButton filterButton = new JButton("Filter");
+        filterButton.addActionListener(e -> updateHistoryTable());
+        filterPanel.add(filterButton);
+        
+        JButton clearButton = new JButton("Show All");
+        clearButton.addActionListener(e -> {
+            historyFromField.setText("");
+            historyToField.setText("");
+            updateHistoryTable();
+        });
+        filterPanel.add(clearButton);
+        
+        historyPanel.add(filterPanel, BorderLayout.NORTH);
+        
+        // Create the history table model with column names
+        historyTableModel = new DefaultTableModel() {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false; // Make the table read-only
+            }
+        };
+        historyTableModel.addColumn("DVD ID");
+        historyTableModel.addColumn("Film Title");
+        historyTableModel.addColumn("Borrow Date");
+        historyTableModel.addColumn("Due Date");
+        historyTableModel.addColumn("Returned");
+        historyTableModel.addColumn("Fine");
+        
+        JTable historyTable = new JTable(historyTableModel);
+        historyPanel.add(new JScrollPane(historyTable), BorderLayout.CENTER);
+        
+        return historyPanel;
+    }
+    
     /**
      * Adds a new member using the input field values.
      */
@@ -194,6 +256,63 @@ public class MemberPanel extends JPanel implements LibraryView {
                 }
             }
         }
+        
+        updateHistoryTable();
+    }
+    
+    /**
+     * Updates the history table with the selected member's past and current loans,
+     * restricted to the date range when one is entered.
+     */
+    private void updateHistoryTable() {
+        historyTableModel.setRowCount(0);
+        
+        int selectedRow = memberTable.getSelectedRow();
+        if (selectedRow == -1) {
+            return;
+        }
+        
+        String membershipNumber = (String) memberTableModel.getValueAt(selectedRow, 0);
+        Member member = controller.findMemberByNumber(membershipNumber);
+        if (member == null) {
+            return;
+        }
+        
+        String fromText = historyFromField.getText().trim();
+        String toText = historyToField.getText().trim();
+        
+        List<Loan> loans;
+        if (fromText.isEmpty() && toText.isEmpty()) {
+            loans = controller.getLoanHistory(member);
+        } else {
+            try {
+                LocalDate from = fromText.isEmpty() ? LocalDate.MIN : LocalDate.parse(fromText);
+                LocalDate to = toText.isEmpty() ? LocalDate.MAX : LocalDate.parse(toText);
+                loans = controller.getLoanHistory(member, from, to);
+            } catch (DateTimeParseException e) {
+                showError("Please enter dates in the format yyyy-MM-dd");
+                return;
+            }
+        }
+        
+        if (loans == null) {
+            showError("Invalid date range");
+            return;
+        }
+        
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        
+        for (Loan loan : loans) {
+            Fine fine = controller.findFine(loan);
+            historyTableModel.addRow(new Object[]{
+                    loan.getDvd().getDvdId(),
+                    loan.getDvd().getFilm().getTitle(),
+                    loan.getBorrowDate().format(formatter),
+                    loan.getDueDate().format(formatter),
+                    loan.isReturned() ? loan.getReturnDate().format(formatter) : "On loan",
+                    fine != null ? Fine.formatAmount(fine.getAmountCents()) : ""
+            });
+        }
     }
     
     @Override
@@ -214,7 +333,8 @@ public class MemberPanel extends JPanel implements LibraryView {
             memberTableModel.addRow(new Object[]{
                     member.getMembershipNumber(),
                     member.getName(),
-                    member.getCurrentLoanCount()
+                    member.getCurrentLoanCount(),
+                    Fine.formatAmount(controller.getFineBalance(member))
             });
         }
         
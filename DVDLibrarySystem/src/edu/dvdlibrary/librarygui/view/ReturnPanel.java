@@ -1,13 +1,19 @@
 package edu.dvdlibrary.librarygui.view;
 
+import edu.dvdlibrary.librarycore.events.LibrarySnapshot;
 import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Fine;
+import edu.dvdlibrary.librarycore.model.Hold;
 import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.snapshot.LoanStatus;
 import edu.dvdlibrary.librarygui.controller.LibraryController;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -19,6 +25,7 @@ public class ReturnPanel extends JPanel implements LibraryView {
     private LibraryController controller;
     
     private JTextField dvdIdField;
+    private JTextField onDateField;
     private JTable activeLoansTable;
     private DefaultTableModel activeLoansTableModel;
     
@@ -61,6 +68,25 @@ public class ReturnPanel extends JPanel implements LibraryView {
         returnButton.addActionListener(e -> returnDVD());
         inputPanel.add(returnButton, gbc);
         
+        // Look up who had the DVD on a past date
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        gbc.anchor = GridBagConstraints.EAST;
+        inputPanel.add(new JLabel("On date (yyyy-MM-dd):"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.weightx = 1.0;
+        onDateField = new JTextField(20);
+        inputPanel.add(onDateField, gbc);
+        
+        gbc.gridx = 2;
+        gbc.weightx = 0.0;
+        gbc.fill = GridBagConstraints.NONE;
+        JButton whoHadItButton = new JButton("Who Had It?");
+        whoHadItButton.addActionListener(e -> showBorrowerOnDate());
+        inputPanel.add(whoHadItButton, gbc);
+        
         add(inputPanel, BorderLayout.NORTH);
         
         // Create the table panel
@@ -122,7 +148,23 @@ public class ReturnPanel extends JPanel implements LibraryView {
             Loan loan = controller.returnDVD(dvd);
             
             if (loan != null) {
-                showSuccess("DVD returned successfully");
+                StringBuilder message = new StringBuilder("DVD returned successfully.");
+                
+                Fine fine = controller.findFine(loan);
+                if (fine != null) {
+                    message.append(" Returned ").append(fine.getOverdueDays())
+                            .append(" day(s) late: a fine of ").append(Fine.formatAmount(fine.getAmountCents()))
+                            .append(" has been charged.");
+                }
+                
+                Hold hold = controller.findReadyHold(dvd);
+                if (hold != null) {
+                    message.append(" Set it aside for ").append(hold.getMember().getName())
+                            .append(" (").append(hold.getMember().getMembershipNumber())
+                            .append("), who has a hold on this film.");
+                }
+                
+                showSuccess(message.toString());
                 dvdIdField.setText("");
                 updateView();
             } else {
@@ -133,6 +175,43 @@ public class ReturnPanel extends JPanel implements LibraryView {
         }
     }
     
+    /**
+     * Shows who had the DVD in the input field at the end of the entered date.
+     */
+    private void showBorrowerOnDate() {
+        String dvdId = dvdIdField.getText().trim();
+        String dateText = onDateField.getText().trim();
+        
+        if (dvdId.isEmpty() || dateText.isEmpty()) {
+            showError("Please enter a DVD ID and a date");
+            return;
+        }
+        
+        LocalDate date;
+        try {
+            date = LocalDate.parse(dateText);
+        } catch (DateTimeParseException e) {
+            showError("Please enter the date in the format yyyy-MM-dd");
+            return;
+        }
+        
+        LibrarySnapshot snapshot = controller.getLibraryAsOf(date);
+        if (snapshot == null) {
+            showError("Could not look up the library on " + dateText);
+            return;
+        }
+        
+        String borrower = snapshot.getBorrower(dvdId);
+        if (borrower == null) {
+            showSuccess("DVD '" + dvdId + "' was not on loan at the end of " + dateText + ".");
+        } else {
+            String name = snapshot.getMemberName(borrower);
+            showSuccess("At the end of " + dateText + ", DVD '" + dvdId + "' was on loan to "
+                    + (name != null ? name + " (" + borrower + ")" : borrower)
+                    + ", borrowed on " + snapshot.getBorrowDate(dvdId) + ".");
+        }
+    }
+    
     @Override
     public void setController(LibraryController controller) {
         this.controller = controller;
@@ -143,15 +222,15 @@ public class ReturnPanel extends JPanel implements LibraryView {
         // Update active loans table
         activeLoansTableModel.setRowCount(0);
         
-        List<Loan> activeLoans = controller.getAllActiveLoans();
+        List<LoanStatus> activeLoans = controller.getSnapshot().getActiveLoans();
         
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         
-        for (Loan loan : activeLoans) {
+        for (LoanStatus loan : activeLoans) {
             activeLoansTableModel.addRow(new Object[]{
-                    loan.getDvd().getDvdId(),
-                    loan.getDvd().getFilm().getTitle(),
-                    loan.getMember().getMembershipNumber() + " - " + loan.getMember().getName(),
+                    loan.getDvdId(),
+                    loan.getFilmTitle(),
+                    loan.getMembershipNumber() + " - " + loan.getMemberName(),
                     loan.getBorrowDate().format(formatter),
                     loan.getDueDate().format(formatter)
             });
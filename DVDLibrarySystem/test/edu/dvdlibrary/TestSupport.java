@@ -0,0 +1,96 @@
+package edu.dvdlibrary;
+
+import java.util.Objects;
+
+/**
+ * Checks for the self-checking test programs under test/. Each test class
+ * has a main method that runs its cases through run() and ends with
+ * finish(), which exits with status 1 if any case failed. The tests need
+ * nothing beyond the JDK, apart from the database tests, which need an
+ * embedded database's JDBC driver on the classpath.
+ */
+public final class TestSupport {
+    
+    private static int passed;
+    private static int failed;
+    
+    private TestSupport() {
+    }
+    
+    /**
+     * A test case, which fails by throwing.
+     */
+    public interface TestCase {
+        void run() throws Exception;
+    }
+    
+    /**
+     * Runs a test case and reports whether it passed.
+     * 
+     * @param name The name to report the case under
+     * @param test The case to run
+     */
+    public static void run(String name, TestCase test) {
+        try {
+            test.run();
+            passed++;
+            System.out.println("PASS " + name);
+        } catch (Throwable e) {
+            failed++;
+            System.out.println("FAIL " + name + ": " + e);
+            e.printStackTrace(System.out);
+        }
+    }
+    
+    /**
+     * Prints the totals and exits, with status 1 if any case failed.
+     */
+    public static void finish() {
+        System.out.println(passed + " passed, " + failed + " failed");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+    
+    /**
+     * Fails unless a condition holds.
+     * 
+     * @param condition The condition to check
+     * @param message What was expected
+     */
+    public static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+    
+    /**
+     * Fails unless two values are equal.
+     * 
+     * @param expected The expected value
+     * @param actual The actual value
+     * @param what What the value is, for the failure message
+     */
+    public static void checkEquals(Object expected, Object actual, String what) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+        }
+    }
+    
+    /**
+     * Fails unless some code throws an exception of a given type.
+     * 
+     * @param type The type of exception expected
+     * @param test The code to run
+     * @return The exception thrown
+     */
+    public static <T extends Throwable> T checkThrows(Class<T> type, TestCase test) {
+        try {
+            test.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return type.cast(e);
+            }
+            throw new AssertionError("Expected " + type.getSimpleName() + " but got " + e, e);
+        }
+        throw new AssertionError("Expected " + type.getSimpleName() + " but nothing was thrown");
+    }
+}
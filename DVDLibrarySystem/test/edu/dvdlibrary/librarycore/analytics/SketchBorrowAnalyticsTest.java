@@ -0,0 +1,122 @@
+package edu.dvdlibrary.librarycore.analytics;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static edu.dvdlibrary.TestSupport.check;
+import static edu.dvdlibrary.TestSupport.checkEquals;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests SketchBorrowAnalytics against ExactBorrowAnalytics fed the same
+ * loans: a skewed month of borrowing with a long tail of rarely borrowed
+ * films, where the sketch must rank the popular films as the exact counts
+ * do and never undercount them.
+ */
+public class SketchBorrowAnalyticsTest {
+    
+    private static final LocalDate START = LocalDate.of(2024, 4, 1);
+    private static final int DAYS = 40;
+    private static final int POPULAR = 20;
+    private static final int TAIL = 2000;
+    private static final int TOP = 10;
+    
+    public static void main(String[] args) {
+        run("sketch top-K matches the exact top-K", SketchBorrowAnalyticsTest::matchesExact);
+        run("loans leave the window as it slides", SketchBorrowAnalyticsTest::windowSlides);
+        finish();
+    }
+    
+    private static void matchesExact() {
+        SketchBorrowAnalytics sketch = new SketchBorrowAnalytics();
+        ExactBorrowAnalytics exact = new ExactBorrowAnalytics();
+        Random random = new Random(42);
+        Member[] members = new Member[500];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new Member("M" + i, "Member " + i);
+        }
+        
+        // Popular film j is borrowed 10 * (POPULAR - j) times a day; the tail at random
+        for (int day = 0; day < DAYS; day++) {
+            LocalDate date = START.plusDays(day);
+            List<Loan> loans = new ArrayList<>();
+            for (int j = 0; j < POPULAR; j++) {
+                for (int n = 0; n < 10 * (POPULAR - j); n++) {
+                    loans.add(loan("Popular " + j, members[random.nextInt(members.length)], date));
+                }
+            }
+            for (int n = 0; n < 500; n++) {
+                loans.add(loan("Tail " + random.nextInt(TAIL), members[random.nextInt(members.length)], date));
+            }
+            Collections.shuffle(loans, random);
+            for (Loan loan : loans) {
+                sketch.record(loan);
+                exact.record(loan);
+            }
+        }
+        
+        LocalDate asOf = START.plusDays(DAYS - 1);
+        for (AnalyticsWindow window : AnalyticsWindow.values()) {
+            List<RankedItem> expected = exact.topFilms(window, TOP, asOf);
+            List<RankedItem> actual = sketch.topFilms(window, TOP, asOf);
+            checkEquals(keys(expected), keys(actual), window + " top films");
+            
+            // Count-Min overcounts by at most e / width of the window's loans, with high probability
+            long loansInWindow = (long) window.getDays() * (10L * POPULAR * (POPULAR + 1) / 2 + 500);
+            long tolerance = (long) Math.ceil(Math.E / 1024 * loansInWindow);
+            for (int i = 0; i < TOP; i++) {
+                long trueCount = expected.get(i).getCount();
+                long estimate = actual.get(i).getCount();
+                check(estimate >= trueCount, window + " estimate for " + expected.get(i).getKey()
+                        + " should not undercount: " + estimate + " < " + trueCount);
+                check(estimate - trueCount <= tolerance, window + " estimate for " + expected.get(i).getKey()
+                        + " is " + estimate + ", more than " + tolerance + " over " + trueCount);
+            }
+        }
+    }
+    
+    private static void windowSlides() {
+        SketchBorrowAnalytics sketch = new SketchBorrowAnalytics();
+        ExactBorrowAnalytics exact = new ExactBorrowAnalytics();
+        Member member = new Member("M001", "John Doe");
+        for (int day = 0; day < DAYS; day++) {
+            // Alien is popular early on, Heat late; queries are as of the latest day or after, as the service makes them
+            String title = day < DAYS / 2 ? "Alien" : "Heat";
+            for (int n = 0; n < 5; n++) {
+                Loan loan = loan(title, member, START.plusDays(day));
+                sketch.record(loan);
+                exact.record(loan);
+            }
+            for (int ahead : new int[]{0, 3, 31}) {
+                compare(sketch, exact, START.plusDays(day + ahead), "day " + day + " + " + ahead);
+            }
+        }
+    }
+    
+    private static void compare(BorrowAnalytics sketch, BorrowAnalytics exact, LocalDate asOf, String label) {
+        for (AnalyticsWindow window : AnalyticsWindow.values()) {
+            checkEquals(exact.topFilms(window, TOP, asOf), sketch.topFilms(window, TOP, asOf),
+                    window + " top films as of " + label);
+            checkEquals(exact.topMembers(window, TOP, asOf), sketch.topMembers(window, TOP, asOf),
+                    window + " top members as of " + label);
+        }
+    }
+    
+    private static Loan loan(String title, Member member, LocalDate date) {
+        return new Loan(new DVD(title + "-copy", new Film(title)), member, date);
+    }
+    
+    private static List<String> keys(List<RankedItem> items) {
+        return items.stream().map(RankedItem::getKey).collect(Collectors.toList());
+    }
+}
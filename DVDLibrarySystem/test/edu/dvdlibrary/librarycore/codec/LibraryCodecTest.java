@@ -0,0 +1,319 @@
+package edu.dvdlibrary.librarycore.codec;
+
+import edu.dvdlibrary.librarycore.dao.FileDataStore;
+import edu.dvdlibrary.librarycore.dao.InMemoryDataStore;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static edu.dvdlibrary.TestSupport.check;
+import static edu.dvdlibrary.TestSupport.checkEquals;
+import static edu.dvdlibrary.TestSupport.checkThrows;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests the binary library format and the file store built on it.
+ */
+public class LibraryCodecTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 6);
+    
+    public static void main(String[] args) {
+        run("variable-length integers round trip at their bounds", LibraryCodecTest::varintBounds);
+        run("variable-length integers longer than a long are rejected", LibraryCodecTest::varintOverflow);
+        run("multi-byte UTF-8 strings round trip", LibraryCodecTest::utf8Strings);
+        run("dates round trip", LibraryCodecTest::dates);
+        run("library round trips through the codec", LibraryCodecTest::libraryRoundTrip);
+        run("truncated final record is dropped", LibraryCodecTest::truncatedFinalRecord);
+        run("failed write is numbered again when retried", LibraryCodecTest::rollbackAfterFailedWrite);
+        run("compacted file keeps the library", LibraryCodecTest::compact);
+        run("failed compaction leaves the store writing", LibraryCodecTest::failedCompaction);
+        finish();
+    }
+    
+    private static void varintBounds() throws IOException {
+        long[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, (long) Integer.MAX_VALUE + 1,
+                Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        int[] lengths = {1, 1, 1, 2, 2, 3, 5, 5, 9, 10, 10};
+        for (int i = 0; i < values.length; i++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryWriter writer = new BinaryWriter(Channels.newChannel(bytes), 16);
+            writer.writeVarLong(values[i]);
+            writer.writeSignedVarLong(values[i]);
+            writer.flush();
+            BinaryReader reader = reader(bytes.toByteArray(), 16);
+            checkEquals(values[i], reader.readVarLong(), "unsigned " + values[i]);
+            checkEquals((long) lengths[i], reader.getPosition(), "length of " + values[i]);
+            checkEquals(values[i], reader.readSignedVarLong(), "signed " + values[i]);
+            check(!reader.hasRemaining(), "nothing should follow " + values[i]);
+        }
+        
+        BinaryReader tooBig = reader(encode(writer -> writer.writeVarLong((long) Integer.MAX_VALUE + 1)), 16);
+        checkThrows(IOException.class, tooBig::readVarInt);
+        checkThrows(IOException.class, reader(new byte[]{(byte) 0x80, (byte) 0x80}, 16)::readVarLong);
+    }
+    
+    private static void varintOverflow() {
+        // Eleven bytes, and ten whose last byte holds more than the one bit a long has left
+        byte[] eleven = new byte[11];
+        Arrays.fill(eleven, 0, 10, (byte) 0x80);
+        byte[] ten = new byte[10];
+        Arrays.fill(ten, 0, 9, (byte) 0xFF);
+        ten[9] = 0x7F;
+        checkThrows(IOException.class, reader(eleven, 16)::readVarLong);
+        checkThrows(IOException.class, reader(ten, 16)::readVarLong);
+    }
+    
+    private static void utf8Strings() throws IOException {
+        String[] strings = {
+            "",
+            "Alien",
+            "Am\u00e9lie",
+            "\u5343\u3068\u5343\u5c0b\u306e\u795e\u96a0\u3057",
+            "\uD83C\uDFAC Clapper",
+            "\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u20ac\u20ac\u20ac\u20ac\uD83C\uDFAC\uD83C\uDFAC"
+        };
+        int[] lengths = {0, 5, 7, 24, 12, 36};
+        for (int i = 0; i < strings.length; i++) {
+            String value = strings[i];
+            byte[] bytes = encode(writer -> writer.writeString(value));
+            checkEquals(lengths[i] + 1, bytes.length, "encoded length of string " + i);
+            checkEquals(value, reader(bytes, 16).readString(), "string " + i);
+        }
+        
+        // An unpaired surrogate is written as '?'
+        checkEquals("a?b", reader(encode(writer -> writer.writeString("a\uD83Cb")), 16).readString(), "surrogate");
+        
+        // A multi-byte character cut off by the end of the string
+        byte[] cut = {2, (byte) 0xE2, (byte) 0x82};
+        checkThrows(IOException.class, reader(cut, 16)::readString);
+        byte[] badContinuation = {2, (byte) 0xC3, 0x41};
+        checkThrows(IOException.class, reader(badContinuation, 16)::readString);
+    }
+    
+    private static void dates() throws IOException {
+        LocalDate[] dates = {TODAY, LocalDate.ofEpochDay(0), LocalDate.of(1900, 1, 1), LocalDate.MAX, LocalDate.MIN};
+        for (LocalDate date : dates) {
+            byte[] bytes = encode(writer -> {
+                writer.writeDate(date);
+                writer.writeNullableDate(date);
+                writer.writeNullableDate(null);
+            });
+            BinaryReader reader = reader(bytes, 16);
+            checkEquals(date, reader.readDate(), "date " + date);
+            checkEquals(date, reader.readNullableDate(), "nullable date " + date);
+            checkEquals(null, reader.readNullableDate(), "missing date");
+        }
+    }
+    
+    private static void libraryRoundTrip() throws IOException {
+        Film film = new Film("Am\u00e9lie");
+        DVD first = new DVD("DVD001", film);
+        DVD second = new DVD("DVD002", film);
+        film.addDvdCopy(first);
+        film.addDvdCopy(second);
+        Member member = new Member("M001", "Zo\u00eb \u5343\u5c0b");
+        Loan returned = new Loan(first, member, TODAY.minusDays(10));
+        returned.returnDVD(TODAY.minusDays(8));
+        first.tryBorrow(member);
+        Loan active = new Loan(first, member, TODAY);
+        member.addLoan(active);
+        
+        LibraryCodec codec = new LibraryCodec();
+        byte[] bytes = encode(writer -> {
+            LibraryCodec.writeHeader(writer);
+            codec.writeDVD(writer, second);
+            codec.writeLoan(writer, returned);
+            codec.writeLoan(writer, active);
+            member.setName("Zo\u00eb");
+            codec.writeMember(writer, member);
+        });
+        InMemoryDataStore target = read(bytes);
+        Film readFilm = target.findFilmByTitle("Am\u00e9lie");
+        checkEquals(2, readFilm.getTotalCopies(), "copies");
+        checkEquals(1, readFilm.getNumberAvailable(), "available");
+        Member readMember = target.findMemberByNumber("M001");
+        checkEquals("Zo\u00eb", readMember.getName(), "renamed member");
+        checkEquals(2, target.getAllLoans().size(), "loans");
+        Loan readActive = target.findActiveLoanByDVD(target.findDVDById("DVD001"));
+        checkEquals(TODAY, readActive.getBorrowDate(), "active loan");
+        check(readMember.getCurrentLoans().get(0) == readActive, "member holds the active loan");
+    }
+    
+    private static void truncatedFinalRecord() throws IOException {
+        Path dir = Files.createTempDirectory("library");
+        Path file = dir.resolve("library.dat");
+        try (FileDataStore store = new FileDataStore(file)) {
+            populate(store);
+        }
+        long complete = Files.size(file);
+        try (FileDataStore store = new FileDataStore(file)) {
+            store.saveFilm(new Film("\u5343\u3068\u5343\u5c0b\u306e\u795e\u96a0\u3057"));
+        }
+        
+        // Cut the film record off part way through its title, as a crash while writing would
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        try (FileDataStore store = new FileDataStore(file)) {
+            checkEquals(1, store.getAllFilms().size(), "films");
+            checkEquals(1, store.getActiveLoans().size(), "active loans");
+            checkEquals(complete, Files.size(file), "file size after dropping the record");
+            store.saveFilm(new Film("Brazil"));
+        }
+        try (FileDataStore store = new FileDataStore(file)) {
+            checkEquals(2, store.getAllFilms().size(), "films after appending");
+        }
+        deleteAll(dir);
+    }
+    
+    private static void rollbackAfterFailedWrite() throws IOException {
+        Film film = new Film("Alien");
+        DVD dvd = new DVD("DVD001", film);
+        film.addDvdCopy(dvd);
+        LibraryCodec codec = new LibraryCodec();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryWriter writer = new BinaryWriter(Channels.newChannel(bytes));
+        LibraryCodec.writeHeader(writer);
+        writer.flush();
+        
+        // The film and DVD are numbered, but never reach the stream
+        BinaryWriter failing = new BinaryWriter(new FailingChannel());
+        codec.writeDVD(failing, dvd);
+        checkThrows(IOException.class, failing::flush);
+        codec.rollback();
+        
+        codec.writeDVD(writer, dvd);
+        writer.flush();
+        codec.commit();
+        InMemoryDataStore target = read(bytes.toByteArray());
+        checkEquals(1, target.getAllFilms().size(), "films");
+        checkEquals("Alien", target.findDVDById("DVD001").getFilm().getTitle(), "DVD's film");
+    }
+    
+    private static void compact() throws IOException {
+        Path dir = Files.createTempDirectory("library");
+        Path file = dir.resolve("library.dat");
+        try (FileDataStore store = new FileDataStore(file)) {
+            Loan loan = populate(store);
+            loan.returnDVD(TODAY.plusDays(2));
+            store.updateLoan(loan);
+            long before = Files.size(file);
+            store.compact();
+            check(Files.size(file) < before, "compacting should drop the update");
+            Member member = new Member("M002", "Jane Roe");
+            store.saveMember(member);
+        }
+        try (FileDataStore store = new FileDataStore(file)) {
+            checkEquals(2, store.getAllMembers().size(), "members");
+            checkEquals(1, store.getAllLoans().size(), "loans");
+            checkEquals(0, store.getActiveLoans().size(), "active loans");
+        }
+        check(!Files.exists(dir.resolve("library.dat.tmp")), "no temporary file should be left");
+        deleteAll(dir);
+    }
+    
+    private static void failedCompaction() throws IOException {
+        Path dir = Files.createTempDirectory("library");
+        Path file = dir.resolve("library.dat");
+        // A directory where the temporary file should go stops the new file being written
+        Path blocker = Files.createDirectory(dir.resolve("library.dat.tmp"));
+        try (FileDataStore store = new FileDataStore(file)) {
+            populate(store);
+            checkThrows(IOException.class, store::compact);
+            store.saveMember(new Member("M002", "Jane Roe"));
+        }
+        Files.deleteIfExists(blocker);
+        try (FileDataStore store = new FileDataStore(file)) {
+            checkEquals(2, store.getAllMembers().size(), "members");
+            checkEquals(1, store.getActiveLoans().size(), "active loans");
+        }
+        deleteAll(dir);
+    }
+    
+    private static Loan populate(FileDataStore store) {
+        Film film = new Film("Alien");
+        store.saveFilm(film);
+        DVD dvd = new DVD("DVD001", film);
+        film.addDvdCopy(dvd);
+        store.saveDVD(dvd);
+        Member member = new Member("M001", "John Doe");
+        store.saveMember(member);
+        dvd.tryBorrow(member);
+        Loan loan = new Loan(dvd, member, TODAY);
+        member.addLoan(loan);
+        store.saveLoan(loan);
+        return loan;
+    }
+    
+    private static void deleteAll(Path dir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+    
+    private static byte[] encode(Encoding encoding) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryWriter writer = new BinaryWriter(Channels.newChannel(bytes), 16);
+        encoding.write(writer);
+        writer.flush();
+        return bytes.toByteArray();
+    }
+    
+    private static BinaryReader reader(byte[] bytes, int bufferSize) {
+        return new BinaryReader(Channels.newChannel(new ByteArrayInputStream(bytes)), bufferSize);
+    }
+    
+    private static InMemoryDataStore read(byte[] bytes) throws IOException {
+        BinaryReader reader = reader(bytes, 16);
+        LibraryCodec.readHeader(reader);
+        LibraryCodec codec = new LibraryCodec();
+        InMemoryDataStore target = new InMemoryDataStore();
+        while (reader.hasRemaining()) {
+            codec.readRecord(reader, target);
+        }
+        return target;
+    }
+    
+    /**
+     * Writes some values.
+     */
+    private interface Encoding {
+        void write(BinaryWriter writer) throws IOException;
+    }
+    
+    /**
+     * A channel whose every write fails, like a full disk.
+     */
+    private static class FailingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            throw new IOException("No space left on device");
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+}
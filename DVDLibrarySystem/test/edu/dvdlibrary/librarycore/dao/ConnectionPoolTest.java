@@ -0,0 +1,73 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static edu.dvdlibrary.TestSupport.check;
+import static edu.dvdlibrary.TestSupport.checkThrows;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests ConnectionPool against an in-memory H2 database. Needs the H2 jar
+ * on the classpath.
+ */
+public class ConnectionPoolTest {
+    
+    private static final String URL = "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1";
+    
+    public static void main(String[] args) {
+        run("released connection is reused", ConnectionPoolTest::reuse);
+        run("discarded connection wakes a waiting borrower", ConnectionPoolTest::discardWakesWaiter);
+        run("closed pool refuses to lend", ConnectionPoolTest::closedPool);
+        finish();
+    }
+    
+    private static void reuse() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, null, null, 1)) {
+            Connection first = pool.borrow();
+            pool.release(first, false);
+            Connection second = pool.borrow();
+            check(first == second, "the idle connection should be lent again");
+            pool.release(second, false);
+        }
+    }
+    
+    private static void discardWakesWaiter() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ConnectionPool pool = new ConnectionPool(URL, null, null, 1)) {
+            Connection broken = pool.borrow();
+            CountDownLatch waiting = new CountDownLatch(1);
+            Future<Connection> waiter = executor.submit(() -> {
+                waiting.countDown();
+                return pool.borrow();
+            });
+            waiting.await();
+            Thread.sleep(200);
+            
+            // A connection that has gone bad is closed rather than put back
+            broken.close();
+            pool.release(broken, true);
+            Connection replacement = waiter.get(5, TimeUnit.SECONDS);
+            check(replacement != broken, "the waiter should get a newly opened connection");
+            check(!replacement.isClosed(), "the new connection should be open");
+            pool.release(replacement, false);
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    private static void closedPool() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(URL, null, null, 2);
+        Connection inUse = pool.borrow();
+        pool.close();
+        checkThrows(SQLException.class, pool::borrow);
+        pool.release(inUse, false);
+        check(inUse.isClosed(), "a connection released after closing should be closed");
+    }
+}
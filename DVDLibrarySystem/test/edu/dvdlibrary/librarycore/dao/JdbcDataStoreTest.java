@@ -0,0 +1,350 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.service.LibraryService;
+import edu.dvdlibrary.librarycore.service.LibraryServiceImpl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static edu.dvdlibrary.TestSupport.check;
+import static edu.dvdlibrary.TestSupport.checkEquals;
+import static edu.dvdlibrary.TestSupport.checkThrows;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests JdbcDataStore against an in-memory H2 database. Needs the H2 jar
+ * on the classpath; each case uses a database of its own.
+ */
+public class JdbcDataStoreTest {
+    
+    private static final AtomicInteger databases = new AtomicInteger();
+    
+    public static void main(String[] args) throws SQLException {
+        DriverManager.registerDriver(new NoInfoDriver());
+        
+        run("library survives reopening the store", JdbcDataStoreTest::roundTrip);
+        run("title search matches normalized keys", JdbcDataStoreTest::titleSearch);
+        run("old films table gains search keys", JdbcDataStoreTest::searchKeyMigration);
+        run("upsert works when the driver gives no update counts", JdbcDataStoreTest::successNoInfo);
+        run("concurrent saves of the same new rows all succeed", JdbcDataStoreTest::concurrentInserts);
+        run("concurrent loads share one object per record", JdbcDataStoreTest::concurrentLoads);
+        run("failed save leaves nothing behind", JdbcDataStoreTest::failedSave);
+        finish();
+    }
+    
+    private static String newDatabase() {
+        return "jdbc:h2:mem:library" + databases.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    }
+    
+    private static void roundTrip() {
+        String url = newDatabase();
+        LocalDate today = LocalDate.of(2024, 5, 1);
+        try (JdbcDataStore store = new JdbcDataStore(url)) {
+            LibraryService service = new LibraryServiceImpl(store);
+            Film matrix = service.addFilm("The Matrix");
+            service.addFilm("Alien");
+            DVD first = service.addDVDCopy(matrix, "DVD001");
+            DVD second = service.addDVDCopy(matrix, "DVD002");
+            Member john = service.addMember("M001", "John Doe");
+            service.borrowDVD(first, john, today);
+            service.borrowDVD(second, john, today);
+            service.returnDVD(second, today.plusDays(2));
+        }
+        
+        try (JdbcDataStore store = new JdbcDataStore(url)) {
+            checkEquals(2, store.getAllFilms().size(), "films");
+            checkEquals(2, store.getAllLoans().size(), "loans");
+            Film matrix = store.findFilmByTitle("The Matrix");
+            checkEquals(2, matrix.getTotalCopies(), "copies");
+            checkEquals(1, matrix.getNumberAvailable(), "available copies");
+            DVD first = store.findDVDById("DVD001");
+            check(first.isOnLoan(), "DVD001 should still be on loan");
+            Member john = store.findMemberByNumber("M001");
+            check(first.getBorrower() == john, "the borrower should be the loaded member");
+            checkEquals(1, john.getCurrentLoanCount(), "member's current loans");
+            Loan active = store.findActiveLoanByDVD(first);
+            check(active == john.getCurrentLoans().get(0), "the active loan should be one object");
+            checkEquals(Collections.singletonList(active), store.getActiveLoans(), "active loans");
+            
+            // Saving an existing film again updates its row rather than adding one
+            store.saveFilm(matrix);
+            checkEquals(2, store.getAllFilms().size(), "films after saving again");
+        }
+    }
+    
+    private static void titleSearch() {
+        try (JdbcDataStore store = new JdbcDataStore(newDatabase())) {
+            store.saveFilm(new Film("Am\u00e9lie"));
+            store.saveFilm(new Film("100% Wolf"));
+            store.saveFilm(new Film("Alien"));
+            checkEquals(Collections.singletonList("Am\u00e9lie"), titles(store.searchFilmsByTitle("amelie")), "accent");
+            checkEquals(Collections.singletonList("100% Wolf"), titles(store.searchFilmsByTitle("100 wolf")), "punctuation");
+            checkEquals(Collections.emptyList(), titles(store.searchFilmsByTitle("%")), "wildcard");
+        }
+    }
+    
+    private static void searchKeyMigration() throws SQLException {
+        String url = newDatabase();
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            // The schema as it was before films had search keys
+            statement.execute("CREATE TABLE films (title VARCHAR(255) NOT NULL PRIMARY KEY)");
+            statement.execute("CREATE TABLE dvds (dvd_id VARCHAR(64) NOT NULL PRIMARY KEY,"
+                    + " film_title VARCHAR(255) NOT NULL REFERENCES films (title))");
+            statement.execute("CREATE TABLE members (membership_number VARCHAR(64) NOT NULL PRIMARY KEY,"
+                    + " name VARCHAR(255) NOT NULL)");
+            statement.execute("CREATE TABLE loans (loan_id BIGINT NOT NULL PRIMARY KEY,"
+                    + " dvd_id VARCHAR(64) NOT NULL REFERENCES dvds (dvd_id),"
+                    + " membership_number VARCHAR(64) NOT NULL REFERENCES members (membership_number),"
+                    + " borrow_date DATE NOT NULL, return_date DATE)");
+            statement.execute("INSERT INTO films (title) VALUES ('Am\u00e9lie'), ('The Matrix')");
+            statement.execute("INSERT INTO dvds (dvd_id, film_title) VALUES ('DVD001', 'The Matrix')");
+        }
+        
+        try (JdbcDataStore store = new JdbcDataStore(url)) {
+            checkEquals(Collections.singletonList("Am\u00e9lie"), titles(store.searchFilmsByTitle("amelie")), "search");
+            checkEquals(1, store.findFilmByTitle("The Matrix").getTotalCopies(), "copies");
+            store.saveFilm(new Film("Alien"));
+        }
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT title, search_key FROM films ORDER BY title")) {
+            List<String> rows = new ArrayList<>();
+            while (rs.next()) {
+                rows.add(rs.getString(1) + "=" + rs.getString(2));
+            }
+            checkEquals(Arrays.asList("Alien=alien", "Am\u00e9lie=amelie", "The Matrix=the matrix"), rows, "keys");
+        }
+        
+        // Opening it again finds the column and leaves it alone
+        try (JdbcDataStore store = new JdbcDataStore(url)) {
+            checkEquals(3, store.getAllFilms().size(), "films after reopening");
+        }
+    }
+    
+    private static void successNoInfo() {
+        String url = newDatabase();
+        try (JdbcDataStore store = new JdbcDataStore(url.replace("jdbc:", "jdbc:noinfo:"))) {
+            store.saveFilms(Arrays.asList(new Film("Alien"), new Film("Brazil")));
+            store.saveFilms(Arrays.asList(new Film("Alien"), new Film("Casablanca")));
+            checkEquals(Arrays.asList("Alien", "Brazil", "Casablanca"), titles(store.getAllFilms()), "films");
+        }
+        try (JdbcDataStore store = new JdbcDataStore(url)) {
+            checkEquals(3, store.getAllFilms().size(), "stored films");
+        }
+    }
+    
+    private static void concurrentInserts() throws Exception {
+        String url = newDatabase();
+        int writers = 4;
+        int titles = 200;
+        try (JdbcDataStore store = new JdbcDataStore(url, null, null, writers)) {
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            try {
+                List<Callable<Void>> saves = new ArrayList<>();
+                for (int w = 0; w < writers; w++) {
+                    int offset = w * 37;
+                    saves.add(() -> {
+                        // Each writer saves the same titles in its own order, one at a time and in batches
+                        List<Film> batch = new ArrayList<>();
+                        for (int i = 0; i < titles; i++) {
+                            Film film = new Film("Film " + (i + offset) % titles);
+                            if (i % 2 == 0) {
+                                store.saveFilm(film);
+                            } else {
+                                batch.add(film);
+                            }
+                        }
+                        store.saveFilms(batch);
+                        return null;
+                    });
+                }
+                for (Future<Void> result : executor.invokeAll(saves)) {
+                    result.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+        try (JdbcDataStore store = new JdbcDataStore(url)) {
+            checkEquals(titles, store.getAllFilms().size(), "films");
+        }
+    }
+    
+    private static void concurrentLoads() throws Exception {
+        String url = newDatabase();
+        try (JdbcDataStore store = new JdbcDataStore(url)) {
+            LibraryService service = new LibraryServiceImpl(store);
+            for (int i = 0; i < 50; i++) {
+                Film film = service.addFilm("Film " + i);
+                service.addMember("M" + i, "Member " + i);
+                for (int c = 0; c < 3; c++) {
+                    service.addDVDCopy(film, "DVD" + i + "-" + c);
+                }
+            }
+            for (int i = 0; i < 50; i++) {
+                // Chains members and films together through their loans
+                service.borrowDVD(store.findDVDById("DVD" + i + "-0"), store.findMemberByNumber("M" + i), LocalDate.now());
+                service.borrowDVD(store.findDVDById("DVD" + (i + 1) % 50 + "-1"), store.findMemberByNumber("M" + i),
+                        LocalDate.now());
+            }
+        }
+        
+        try (JdbcDataStore store = new JdbcDataStore(url)) {
+            int threads = 4;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<List<Object>>> results = new ArrayList<>();
+            try {
+                for (int t = 0; t < threads; t++) {
+                    int start = t;
+                    results.add(executor.submit(() -> {
+                        List<Object> seen = new ArrayList<>();
+                        for (int i = 0; i < 50; i++) {
+                            int n = (i * 7 + start * 13) % 50;
+                            seen.add(store.findMemberByNumber("M" + n));
+                            seen.add(store.findDVDById("DVD" + n + "-2"));
+                            seen.add(store.findFilmByTitle("Film " + n));
+                        }
+                        seen.addAll(store.getActiveLoans());
+                        return seen;
+                    }));
+                }
+                Set<Object> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Future<List<Object>> result : results) {
+                    distinct.addAll(result.get());
+                }
+                checkEquals(150 + 100, distinct.size(), "distinct objects");
+            } finally {
+                executor.shutdown();
+            }
+            for (Member member : store.getAllMembers()) {
+                checkEquals(2, member.getCurrentLoanCount(), "loans of " + member.getMembershipNumber());
+                for (Loan loan : member.getCurrentLoans()) {
+                    check(loan.getDvd().getBorrower() == member, "DVD linked to its borrower");
+                    check(store.findDVDById(loan.getDvd().getDvdId()) == loan.getDvd(), "one DVD object");
+                }
+            }
+            checkEquals(100, store.getActiveLoans().size(), "active loans");
+        }
+    }
+    
+    private static void failedSave() {
+        try (JdbcDataStore store = new JdbcDataStore(newDatabase())) {
+            // The film was never saved, so the foreign key rejects the copy
+            DVD orphan = new DVD("DVD001", new Film("Unsaved"));
+            checkThrows(IllegalStateException.class, () -> store.saveDVD(orphan));
+            checkEquals(null, store.findDVDById("DVD001"), "DVD after failed save");
+            checkEquals(0, store.getAllDVDs().size(), "DVDs");
+        }
+    }
+    
+    private static List<String> titles(List<Film> films) {
+        List<String> titles = new ArrayList<>();
+        for (Film film : films) {
+            titles.add(film.getTitle());
+        }
+        return titles;
+    }
+    
+    /**
+     * Wraps another driver, under URLs starting "jdbc:noinfo:", and reports
+     * every batched statement as Statement.SUCCESS_NO_INFO, as some drivers do.
+     */
+    private static class NoInfoDriver implements Driver {
+        private static final String PREFIX = "jdbc:noinfo:";
+        
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection connection = DriverManager.getConnection("jdbc:" + url.substring(PREFIX.length()), info);
+            return wrap(Connection.class, connection, (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof PreparedStatement) {
+                    PreparedStatement statement = (PreparedStatement) result;
+                    return wrap(PreparedStatement.class, statement, (p, m, a) -> {
+                        Object value = invoke(statement, m, a);
+                        if (m.getName().equals("executeBatch")) {
+                            int[] counts = (int[]) value;
+                            Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+                        }
+                        return value;
+                    });
+                }
+                return result;
+            });
+        }
+        
+        private static <T> T wrap(Class<T> type, T target, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+        }
+        
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith(PREFIX);
+        }
+        
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+        
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+        
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+        
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+        
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
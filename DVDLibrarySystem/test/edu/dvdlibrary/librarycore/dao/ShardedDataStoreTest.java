@@ -0,0 +1,177 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.metrics.MetricsRegistry;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.rebalance.Transfer;
+import edu.dvdlibrary.librarycore.service.LibraryService;
+import edu.dvdlibrary.librarycore.service.LibraryServiceImpl;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static edu.dvdlibrary.TestSupport.check;
+import static edu.dvdlibrary.TestSupport.checkEquals;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests ShardedDataStore over in-memory shards and over H2 shards. Needs
+ * the H2 jar on the classpath; each case uses databases of its own.
+ */
+public class ShardedDataStoreTest {
+    
+    private static final AtomicInteger databases = new AtomicInteger();
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 1);
+    
+    public static void main(String[] args) {
+        run("records are routed to their branch's shard", ShardedDataStoreTest::routing);
+        run("persistent shards keep cross-branch loans", ShardedDataStoreTest::persistentShards);
+        run("wrapped sharded store keeps its branches", ShardedDataStoreTest::wrappedBranches);
+        finish();
+    }
+    
+    private static String newDatabase() {
+        return "jdbc:h2:mem:shard" + databases.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    }
+    
+    private static void routing() {
+        ShardedDataStore store = ShardedDataStore.inMemory("NORTH", "SOUTH");
+        Film matrix = new Film("The Matrix");
+        store.saveFilm(matrix);
+        DVD north = new DVD("NORTH-DVD001", matrix);
+        DVD south = new DVD("SOUTH-DVD001", matrix);
+        DVD unknown = new DVD("EAST-DVD001", matrix);
+        DVD plain = new DVD("DVD001", matrix);
+        for (DVD dvd : Arrays.asList(north, south, unknown, plain)) {
+            matrix.addDvdCopy(dvd);
+            store.saveDVD(dvd);
+        }
+        Member ann = new Member("SOUTH-M001", "Ann");
+        store.saveMember(ann);
+        
+        checkEquals(Arrays.asList("DVD001", "EAST-DVD001", "NORTH-DVD001"), ids(store.getDVDsForBranch("NORTH")),
+                "north DVDs");
+        checkEquals(Arrays.asList("SOUTH-DVD001"), ids(store.getDVDsForBranch("SOUTH")), "south DVDs");
+        checkEquals("NORTH", store.branchOf("EAST-DVD001"), "branch of an unknown prefix");
+        checkEquals("NORTH", store.branchOf("-DVD001"), "branch of an empty prefix");
+        check(store.findDVDById("SOUTH-DVD001") == south, "DVD lookup should reach its shard");
+        
+        // A south member borrowing a north copy: the loan lives with the copy
+        Loan loan = new Loan(north, ann, TODAY);
+        north.borrowedBy(ann);
+        store.saveLoan(loan);
+        checkEquals(Arrays.asList(loan), store.getLoansForBranch("NORTH"), "north loans");
+        checkEquals(0, store.getLoansForBranch("SOUTH").size(), "south loans");
+        check(store.findActiveLoanByDVD(north) == loan, "active loan lookup should reach the DVD's shard");
+        checkEquals(Arrays.asList(loan), store.getActiveLoans(), "active loans");
+        
+        // Films and members are in every shard but listed once
+        checkEquals(Arrays.asList(matrix), store.getAllFilms(), "films");
+        checkEquals(Arrays.asList(matrix), store.searchFilmsByTitle("matrix"), "film search");
+        checkEquals(Arrays.asList(ann), store.getAllMembers(), "members");
+        check(store.findMemberByNumber("SOUTH-M001") == ann, "member lookup");
+        checkEquals(4, store.getAllDVDs().size(), "all DVDs");
+    }
+    
+    private static void persistentShards() {
+        String north = newDatabase();
+        String south = newDatabase();
+        SharedRecords shared = new SharedRecords();
+        try (JdbcDataStore northStore = new JdbcDataStore(north, shared);
+             JdbcDataStore southStore = new JdbcDataStore(south, shared)) {
+            LibraryService service = new LibraryServiceImpl(shards(northStore, southStore));
+            Film matrix = service.addFilm("The Matrix");
+            service.addFilm("Alien");
+            DVD northCopy = service.addDVDCopy(matrix, "NORTH-DVD001");
+            DVD southCopy = service.addDVDCopy(matrix, "SOUTH-DVD001");
+            Member ann = service.addMember("NORTH-M001", "Ann");
+            service.addMember("SOUTH-M001", "Bob");
+            
+            // Ann's loan lives in the south shard, which must know her to accept it
+            service.borrowDVD(southCopy, ann, TODAY);
+            service.borrowDVD(northCopy, ann, TODAY);
+            service.returnDVD(northCopy, TODAY.plusDays(1));
+        }
+        
+        shared = new SharedRecords();
+        try (JdbcDataStore northStore = new JdbcDataStore(north, shared);
+             JdbcDataStore southStore = new JdbcDataStore(south, shared)) {
+            ShardedDataStore store = shards(northStore, southStore);
+            checkEquals(Arrays.asList("Alien", "The Matrix"), titles(store.getAllFilms()), "films");
+            checkEquals(2, store.getAllMembers().size(), "members");
+            checkEquals(2, store.getAllLoans().size(), "loans");
+            checkEquals(1, store.getLoansForBranch("SOUTH").size(), "south loans");
+            
+            Film matrix = store.findFilmByTitle("The Matrix");
+            checkEquals(2, matrix.getTotalCopies(), "copies across both branches");
+            checkEquals(1, matrix.getNumberAvailable(), "available copies");
+            Member ann = store.findMemberByNumber("NORTH-M001");
+            checkEquals(1, ann.getCurrentLoanCount(), "Ann's current loans");
+            DVD southCopy = store.findDVDById("SOUTH-DVD001");
+            check(southCopy.getFilm() == matrix, "copies should share one film object");
+            check(southCopy.getBorrower() == ann, "the borrower should be the member loaded by the north shard");
+            check(ann.getCurrentLoans().get(0) == store.findActiveLoanByDVD(southCopy),
+                    "the active loan should be one object");
+            
+            LibraryService service = new LibraryServiceImpl(store);
+            service.returnDVD(southCopy, TODAY.plusDays(3));
+            checkEquals(0, ann.getCurrentLoanCount(), "Ann's current loans after returning");
+        }
+    }
+    
+    private static void wrappedBranches() {
+        ShardedDataStore sharded = ShardedDataStore.inMemory("NORTH", "SOUTH");
+        List<DataStore> wrapped = Arrays.asList(
+                new CachingDataStore(sharded),
+                new InstrumentedDataStore(sharded, new MetricsRegistry()),
+                new BloomFilterDataStore(sharded, 100));
+        for (DataStore store : wrapped) {
+            String name = store.getClass().getSimpleName();
+            checkEquals(Arrays.asList("NORTH", "SOUTH"), store.getBranches(), name + " branches");
+            checkEquals("SOUTH", store.branchOf("SOUTH-DVD001"), name + " branch of a DVD");
+        }
+        try (WriteBehindDataStore writeBehind = new WriteBehindDataStore(sharded)) {
+            checkEquals("NORTH", writeBehind.branchOf("M001"), "default branch through write-behind");
+        }
+        checkEquals(0, new InMemoryDataStore().getBranches().size(), "unsharded store branches");
+        
+        // Idle copies in the north and demand in the south only show up as a
+        // transfer if the service sees the branches through the cache
+        LibraryService service = new LibraryServiceImpl(new CachingDataStore(sharded));
+        Film matrix = service.addFilm("The Matrix");
+        for (int i = 1; i <= 3; i++) {
+            service.addDVDCopy(matrix, "NORTH-DVD00" + i);
+        }
+        Member bob = service.addMember("SOUTH-M001", "Bob");
+        Member cat = service.addMember("SOUTH-M002", "Cat");
+        service.borrowDVD(service.findDVDById("NORTH-DVD001"), bob, TODAY);
+        service.borrowDVD(service.findDVDById("NORTH-DVD002"), cat, TODAY);
+        List<Transfer> plan = service.getRebalancePlan();
+        check(!plan.isEmpty(), "a transfer should be planned");
+        checkEquals("NORTH", plan.get(0).getFromBranch(), "transfer from");
+        checkEquals("SOUTH", plan.get(0).getToBranch(), "transfer to");
+    }
+    
+    private static ShardedDataStore shards(DataStore north, DataStore south) {
+        Map<String, DataStore> stores = new LinkedHashMap<>();
+        stores.put("NORTH", north);
+        stores.put("SOUTH", south);
+        return new ShardedDataStore(stores, "NORTH");
+    }
+    
+    private static List<String> ids(List<DVD> dvds) {
+        return dvds.stream().map(DVD::getDvdId).sorted().collect(Collectors.toList());
+    }
+    
+    private static List<String> titles(List<Film> films) {
+        return films.stream().map(Film::getTitle).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,142 @@
+package edu.dvdlibrary.librarycore.dao;
+
+import edu.dvdlibrary.librarycore.dao.WriteBehindDataStore.OverflowPolicy;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.service.LibraryService;
+import edu.dvdlibrary.librarycore.service.LibraryServiceImpl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static edu.dvdlibrary.TestSupport.check;
+import static edu.dvdlibrary.TestSupport.checkEquals;
+import static edu.dvdlibrary.TestSupport.checkThrows;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests WriteBehindDataStore over in-memory backing stores, some of which
+ * reject a record. Cases that look at the queue use a flush interval long
+ * enough that writes stay queued until the test flushes them.
+ */
+public class WriteBehindDataStoreTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 6);
+    private static final Duration NEVER = Duration.ofHours(1);
+    private static final Duration RETRY = Duration.ofMillis(10);
+    
+    public static void main(String[] args) throws Exception {
+        run("same-day re-borrow is a separate loan", WriteBehindDataStoreTest::sameDayReborrow);
+        run("rejected write is given up on and reported", WriteBehindDataStoreTest::deadLetter);
+        run("blocked writers get past a rejected write", WriteBehindDataStoreTest::blockedWriters);
+        run("close flushes pending writes", WriteBehindDataStoreTest::closeFlushes);
+        run("close reports writes it gave up on", WriteBehindDataStoreTest::closeReportsDeadLetters);
+        finish();
+    }
+    
+    private static void sameDayReborrow() {
+        try (WriteBehindDataStore store = new WriteBehindDataStore(new InMemoryDataStore(),
+                100, 100, NEVER, OverflowPolicy.BLOCK)) {
+            LibraryService service = new LibraryServiceImpl(store);
+            Film film = service.addFilm("Alien");
+            DVD dvd = service.addDVDCopy(film, "DVD001");
+            Member member = service.addMember("M001", "John Doe");
+            Loan first = service.borrowDVD(dvd, member, TODAY);
+            service.returnDVD(dvd, TODAY);
+            store.flush();
+            
+            // Equal to the first loan, which the backing store already holds, but a loan of its own
+            Loan second = service.borrowDVD(dvd, member, TODAY);
+            check(second.equals(first), "the loans should be equal");
+            checkEquals(1, store.getQueueDepth(), "queued writes");
+            List<Loan> loans = store.getAllLoans();
+            checkEquals(2, loans.size(), "loans");
+            check(loans.get(0) == first && loans.get(1) == second, "both loan objects should be listed");
+            List<Loan> active = store.getActiveLoans();
+            checkEquals(1, active.size(), "active loans");
+            check(active.get(0) == second, "the re-borrow should be the active loan");
+            check(store.findActiveLoanByDVD(dvd) == second, "the DVD's active loan should be the re-borrow");
+        }
+    }
+    
+    private static void deadLetter() {
+        RejectingStore backend = new RejectingStore();
+        try (WriteBehindDataStore store = new WriteBehindDataStore(backend, 100, 100, RETRY, OverflowPolicy.BLOCK)) {
+            Member bad = new Member("BAD", "Rejected");
+            store.saveMember(bad);
+            store.saveFilm(new Film("Alien"));
+            checkThrows(IllegalStateException.class, store::flush);
+            checkEquals(Collections.singletonList(bad), store.getDeadLetters(), "dead letters");
+            checkEquals(0, store.getQueueDepth(), "queued writes");
+            check(backend.findFilmByTitle("Alien") != null, "the write behind the rejected one should be flushed");
+            checkEquals(null, backend.findMemberByNumber("BAD"), "rejected member in the backing store");
+            
+            // Reported once; later writes flush normally
+            store.saveFilm(new Film("Heat"));
+            store.flush();
+            check(backend.findFilmByTitle("Heat") != null, "a later write should be flushed");
+        }
+    }
+    
+    private static void blockedWriters() throws Exception {
+        RejectingStore backend = new RejectingStore();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (WriteBehindDataStore store = new WriteBehindDataStore(backend, 1, 1, RETRY, OverflowPolicy.BLOCK)) {
+            store.saveMember(new Member("BAD", "Rejected"));
+            Future<?> writes = executor.submit(() -> {
+                for (int i = 0; i < 5; i++) {
+                    store.saveFilm(new Film("Film " + i));
+                }
+            });
+            writes.get(10, TimeUnit.SECONDS);
+            checkThrows(IllegalStateException.class, store::flush);
+            checkEquals(5, backend.getAllFilms().size(), "films in the backing store");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static void closeFlushes() {
+        InMemoryDataStore backend = new InMemoryDataStore();
+        WriteBehindDataStore store = new WriteBehindDataStore(backend, 100, 100, NEVER, OverflowPolicy.BLOCK);
+        store.saveFilm(new Film("Alien"));
+        store.saveMember(new Member("M001", "John Doe"));
+        store.close();
+        check(backend.findFilmByTitle("Alien") != null, "film should be flushed on close");
+        check(backend.findMemberByNumber("M001") != null, "member should be flushed on close");
+        checkThrows(IllegalStateException.class, () -> store.saveFilm(new Film("Heat")));
+    }
+    
+    private static void closeReportsDeadLetters() {
+        RejectingStore backend = new RejectingStore();
+        WriteBehindDataStore store = new WriteBehindDataStore(backend, 100, 100, RETRY, OverflowPolicy.BLOCK);
+        store.saveMember(new Member("BAD", "Rejected"));
+        store.saveFilm(new Film("Alien"));
+        checkThrows(IllegalStateException.class, store::close);
+        check(backend.findFilmByTitle("Alien") != null, "the write behind the rejected one should be flushed");
+        checkEquals(1, store.getDeadLetters().size(), "dead letters");
+    }
+    
+    /**
+     * An in-memory store that rejects the member numbered "BAD", as a
+     * database would a row breaking one of its constraints.
+     */
+    private static class RejectingStore extends InMemoryDataStore {
+        @Override
+        public void saveMember(Member member) {
+            if (member.getMembershipNumber().equals("BAD")) {
+                throw new IllegalStateException("Constraint violation");
+            }
+            super.saveMember(member);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package edu.dvdlibrary.librarycore.fines;
+
+import edu.dvdlibrary.librarycore.dao.InMemoryDataStore;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Fine;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+import edu.dvdlibrary.librarycore.service.LibraryService;
+import edu.dvdlibrary.librarycore.service.LibraryServiceImpl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static edu.dvdlibrary.TestSupport.check;
+import static edu.dvdlibrary.TestSupport.checkEquals;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests the fine ledger and the nightly fine batch.
+ */
+public class FineLedgerTest {
+    
+    private static final LocalDate MONDAY = LocalDate.of(2024, 5, 6);
+    
+    public static void main(String[] args) {
+        run("re-borrow on the return day gets its own fine", FineLedgerTest::sameDayReborrow);
+        run("late nightly fine does not replace the final fine", FineLedgerTest::nightlyAfterReturn);
+        run("re-assessing replaces an unreturned loan's fine", FineLedgerTest::reassessment);
+        run("on-time return clears a provisional fine", FineLedgerTest::onTimeReturnClearsFine);
+        run("nightly batch scans only active loans", FineLedgerTest::batchScansActiveLoans);
+        finish();
+    }
+    
+    private static void sameDayReborrow() {
+        Member member = new Member("M001", "John Doe");
+        DVD dvd = new DVD("DVD001", new Film("Alien"));
+        Loan first = new Loan(dvd, member, MONDAY);
+        Loan second = new Loan(dvd, member, MONDAY);
+        check(first.equals(second), "the two loans should be equal");
+        
+        FineLedger ledger = new FineLedger();
+        ledger.record(new Fine(first, 150, 3, MONDAY.plusDays(6)));
+        ledger.record(new Fine(second, 50, 1, MONDAY.plusDays(4)));
+        checkEquals(2, ledger.getFines(member).size(), "fines");
+        checkEquals(200L, ledger.getBalance(member), "balance");
+        checkEquals(150L, ledger.findFine(first).getAmountCents(), "first loan's fine");
+        checkEquals(50L, ledger.findFine(second).getAmountCents(), "second loan's fine");
+    }
+    
+    private static void nightlyAfterReturn() {
+        Member member = new Member("M001", "John Doe");
+        Loan loan = new Loan(new DVD("DVD001", new Film("Alien")), member, MONDAY);
+        FineLedger ledger = new FineLedger();
+        
+        // The batch assessed the loan as overdue before the return, but records after it
+        Fine nightly = new Fine(loan, 400, 8, MONDAY.plusDays(11));
+        loan.returnDVD(MONDAY.plusDays(5));
+        ledger.record(new Fine(loan, 100, 2, MONDAY.plusDays(5)));
+        ledger.record(nightly);
+        checkEquals(100L, ledger.findFine(loan).getAmountCents(), "fine");
+        checkEquals(100L, ledger.getBalance(member), "balance");
+    }
+    
+    private static void reassessment() {
+        Member member = new Member("M001", "John Doe");
+        Loan loan = new Loan(new DVD("DVD001", new Film("Alien")), member, MONDAY);
+        FineLedger ledger = new FineLedger();
+        ledger.record(new Fine(loan, 50, 1, MONDAY.plusDays(4)));
+        ledger.record(new Fine(loan, 100, 2, MONDAY.plusDays(5)));
+        checkEquals(1, ledger.getFines(member).size(), "fines");
+        checkEquals(100L, ledger.getBalance(member), "balance");
+    }
+    
+    private static void onTimeReturnClearsFine() {
+        LibraryService service = new LibraryServiceImpl(new InMemoryDataStore());
+        Film film = service.addFilm("Alien");
+        Member member = service.addMember("M001", "John Doe");
+        DVD onTime = service.addDVDCopy(film, "DVD001");
+        DVD late = service.addDVDCopy(film, "DVD002");
+        Loan onTimeLoan = service.borrowDVD(onTime, member, MONDAY);
+        Loan lateLoan = service.borrowDVD(late, member, MONDAY);
+        
+        // The nightly run fines both as overdue before the returns are recorded
+        LocalDate due = onTimeLoan.getDueDate();
+        service.assessOverdueFines(due.plusDays(3), Duration.ofSeconds(10));
+        checkEquals(2, service.getFines(member).size(), "provisional fines");
+        
+        // One came back on the due date, the other a day late
+        service.returnDVD(onTime, due);
+        service.returnDVD(late, due.plusDays(1));
+        checkEquals(null, service.findFine(onTimeLoan), "fine on the on-time loan");
+        Fine lateFine = service.findFine(lateLoan);
+        checkEquals(1, lateFine.getOverdueDays(), "late loan's overdue days");
+        checkEquals(1, service.getFines(member).size(), "fines");
+        checkEquals(lateFine.getAmountCents(), service.getFineBalance(member), "balance");
+    }
+    
+    private static void batchScansActiveLoans() {
+        LibraryService service = new LibraryServiceImpl(new InMemoryDataStore());
+        Film film = service.addFilm("Alien");
+        Member member = service.addMember("M001", "John Doe");
+        for (int i = 0; i < 4; i++) {
+            DVD dvd = service.addDVDCopy(film, "DVD00" + i);
+            service.borrowDVD(dvd, member, MONDAY);
+            if (i < 3) {
+                service.returnDVD(dvd, MONDAY.plusDays(1));
+            }
+        }
+        
+        FineBatchResult result = service.assessOverdueFines(MONDAY.plusDays(10), Duration.ofSeconds(10));
+        checkEquals(1L, result.getLoansScanned(), "loans scanned");
+        checkEquals(1L, result.getFinesAssessed(), "fines assessed");
+        check(result.isCompleted(), "the run should be complete");
+    }
+}
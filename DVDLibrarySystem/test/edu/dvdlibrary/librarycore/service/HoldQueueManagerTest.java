@@ -0,0 +1,270 @@
+package edu.dvdlibrary.librarycore.service;
+
+import edu.dvdlibrary.librarycore.dao.InMemoryDataStore;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Hold;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static edu.dvdlibrary.TestSupport.check;
+import static edu.dvdlibrary.TestSupport.checkEquals;
+import static edu.dvdlibrary.TestSupport.checkThrows;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests hold queues: first come, first served, and pickup expiry, with
+ * copies coming back on several threads at once.
+ */
+public class HoldQueueManagerTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 6);
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 200;
+    
+    public static void main(String[] args) throws Exception {
+        run("returned copies go to holds in the order placed", HoldQueueManagerTest::fifoOrder);
+        run("concurrent returns serve the oldest holds once each", HoldQueueManagerTest::concurrentReturns);
+        run("expired hold passes its copy to the next member", HoldQueueManagerTest::expiry);
+        run("expiry racing returns assigns each copy once", HoldQueueManagerTest::expiryRacingReturns);
+        run("service sets returned copies aside for holders", HoldQueueManagerTest::serviceReturns);
+        finish();
+    }
+    
+    private static void fifoOrder() {
+        Film film = new Film("Alien");
+        List<DVD> copies = addCopies(film, 3);
+        List<Member> members = members(4);
+        HoldQueueManager holds = new HoldQueueManager();
+        for (int i = 0; i < members.size(); i++) {
+            holds.placeHold(film, members.get(i), TODAY.plusDays(i));
+        }
+        checkThrows(IllegalStateException.class, () -> holds.placeHold(film, members.get(0), TODAY));
+        
+        // The second member cancels, so the third is next after the first
+        holds.cancelHold(film, members.get(1), TODAY);
+        checkEquals(members.get(0), holds.assignReturnedCopy(copies.get(0), TODAY).getMember(), "first");
+        checkEquals(members.get(2), holds.assignReturnedCopy(copies.get(1), TODAY).getMember(), "second");
+        checkEquals(members.get(3), holds.assignReturnedCopy(copies.get(2), TODAY).getMember(), "third");
+        checkEquals(null, holds.assignReturnedCopy(copies.get(0), TODAY), "nobody left waiting");
+        checkEquals(3, holds.getHoldQueue(film).size(), "ready holds");
+        checkEquals(0, holds.getWaitingCount(film), "waiting holds");
+    }
+    
+    private static void concurrentReturns() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Film film = new Film("Alien");
+                List<DVD> copies = addCopies(film, THREADS);
+                List<Member> members = members(THREADS * 2);
+                HoldQueueManager holds = new HoldQueueManager();
+                List<Hold> placed = new ArrayList<>();
+                for (Member member : members) {
+                    placed.add(holds.placeHold(film, member, TODAY));
+                }
+                
+                List<Hold> assigned = returnAll(executor, copies, dvd -> holds.assignReturnedCopy(dvd, TODAY));
+                Set<Hold> distinct = new HashSet<>(assigned);
+                checkEquals(THREADS, distinct.size(), "holds served");
+                checkEquals(new HashSet<>(placed.subList(0, THREADS)), distinct, "served holds are the oldest");
+                for (DVD dvd : copies) {
+                    checkEquals(dvd, holds.findReadyHold(dvd).getAssignedDvd(), "copy " + dvd.getDvdId());
+                }
+                checkEquals(THREADS, holds.getWaitingCount(film), "still waiting");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    private static void expiry() {
+        Film film = new Film("Alien");
+        DVD dvd = addCopies(film, 1).get(0);
+        List<Member> members = members(2);
+        HoldQueueManager holds = new HoldQueueManager();
+        Hold first = holds.placeHold(film, members.get(0), TODAY);
+        Hold second = holds.placeHold(film, members.get(1), TODAY);
+        holds.assignReturnedCopy(dvd, TODAY);
+        
+        checkEquals(0, holds.expireHolds(TODAY.plusDays(3)).size(), "expired on the last pickup day");
+        checkEquals(1, holds.expireHolds(TODAY.plusDays(4)).size(), "expired after the deadline");
+        checkEquals(Hold.Status.EXPIRED, first.getStatus(), "first hold");
+        checkEquals(Hold.Status.READY, second.getStatus(), "second hold");
+        check(holds.findReadyHold(dvd) == second, "the copy should pass to the second member");
+        checkEquals(TODAY.plusDays(7), second.getPickupDeadline(), "second member's deadline");
+    }
+    
+    private static void expiryRacingReturns() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Film film = new Film("Alien");
+                List<DVD> early = addCopies(film, THREADS);
+                List<DVD> late = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    DVD dvd = new DVD("LATE" + i, film);
+                    film.addDvdCopy(dvd);
+                    late.add(dvd);
+                }
+                List<Member> members = members(THREADS * 3);
+                HoldQueueManager holds = new HoldQueueManager();
+                for (Member member : members) {
+                    holds.placeHold(film, member, TODAY);
+                }
+                List<Hold> uncollected = new ArrayList<>();
+                for (DVD dvd : early) {
+                    uncollected.add(holds.assignReturnedCopy(dvd, TODAY));
+                }
+                
+                // Expire the uncollected holds while the late copies come back
+                LocalDate later = TODAY.plusDays(4);
+                CountDownLatch start = new CountDownLatch(1);
+                Future<List<Hold>> expiring = executor.submit(() -> {
+                    start.await();
+                    return holds.expireHolds(later);
+                });
+                List<Future<Hold>> returns = new ArrayList<>();
+                for (DVD dvd : late) {
+                    returns.add(executor.submit(() -> {
+                        start.await();
+                        return holds.assignReturnedCopy(dvd, later);
+                    }));
+                }
+                start.countDown();
+                checkEquals(new HashSet<>(uncollected), new HashSet<>(expiring.get()), "expired holds");
+                Set<Hold> ready = new HashSet<>();
+                for (Future<Hold> result : returns) {
+                    ready.add(result.get());
+                }
+                
+                // Every copy is set aside for exactly one member, and the rest are still waiting
+                List<DVD> all = new ArrayList<>(early);
+                all.addAll(late);
+                for (DVD dvd : all) {
+                    Hold hold = holds.findReadyHold(dvd);
+                    check(hold != null && hold.getStatus() == Hold.Status.READY, dvd.getDvdId() + " set aside");
+                    ready.add(hold);
+                    checkEquals(dvd, hold.getAssignedDvd(), "copy of " + hold.getMember().getMembershipNumber());
+                }
+                checkEquals(all.size(), ready.size(), "ready holds");
+                checkEquals(0, holds.getWaitingCount(film), "still waiting");
+                checkEquals(all.size(), holds.getActiveHolds().size(), "active holds");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    private static void serviceReturns() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            LibraryService service = new LibraryServiceImpl(new InMemoryDataStore());
+            Film film = service.addFilm("Alien");
+            List<DVD> copies = new ArrayList<>();
+            List<Member> borrowers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                DVD dvd = service.addDVDCopy(film, "DVD" + i);
+                Member borrower = service.addMember("B" + i, "Borrower " + i);
+                service.borrowDVD(dvd, borrower, TODAY);
+                copies.add(dvd);
+                borrowers.add(borrower);
+            }
+            List<Member> holders = new ArrayList<>();
+            for (int i = 0; i < THREADS + 2; i++) {
+                Member holder = service.addMember("H" + i, "Holder " + i);
+                service.placeHold(film, holder, TODAY);
+                holders.add(holder);
+            }
+            
+            List<Hold> ready = returnAll(executor, copies, dvd -> {
+                service.returnDVD(dvd, TODAY.plusDays(1));
+                return service.findReadyHold(dvd);
+            });
+            Set<Member> served = new HashSet<>();
+            for (Hold hold : ready) {
+                served.add(hold.getMember());
+            }
+            checkEquals(new HashSet<>(holders.subList(0, THREADS)), served, "members served");
+            
+            // A copy set aside for one member cannot be borrowed by another
+            Hold firstHold = service.findReadyHold(copies.get(0));
+            checkThrows(IllegalStateException.class,
+                    () -> service.borrowDVD(copies.get(0), holders.get(THREADS), TODAY.plusDays(1)));
+            Loan loan = service.borrowDVD(copies.get(0), firstHold.getMember(), TODAY.plusDays(1));
+            checkEquals(Hold.Status.FULFILLED, firstHold.getStatus(), "collected hold");
+            check(loan.getDvd() == copies.get(0), "collected copy");
+            
+            // The uncollected holds expire and their copies pass down the queue
+            List<Hold> expired = service.expireHolds(TODAY.plusDays(5));
+            checkEquals(THREADS - 1, expired.size(), "expired holds");
+            checkEquals(2, service.getHoldQueue(film).size(), "holds left");
+            for (Hold hold : service.getHoldQueue(film)) {
+                check(holders.subList(THREADS, THREADS + 2).contains(hold.getMember()), "latest holders remain");
+                checkEquals(Hold.Status.READY, hold.getStatus(), "remaining hold");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Hands each DVD to its own thread, all starting together, and collects the results.
+     */
+    private static List<Hold> returnAll(ExecutorService executor, List<DVD> dvds, ReturnStep step) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Hold>> results = new ArrayList<>();
+        for (DVD dvd : dvds) {
+            Callable<Hold> task = () -> {
+                start.await();
+                return step.run(dvd);
+            };
+            results.add(executor.submit(task));
+        }
+        start.countDown();
+        List<Hold> holds = new ArrayList<>();
+        for (Future<Hold> result : results) {
+            Hold hold = result.get();
+            check(hold != null, "every returned copy should be set aside");
+            holds.add(hold);
+        }
+        return holds;
+    }
+    
+    /**
+     * Returns one DVD and gives the hold it was set aside for.
+     */
+    private interface ReturnStep {
+        Hold run(DVD dvd);
+    }
+    
+    private static List<DVD> addCopies(Film film, int count) {
+        List<DVD> copies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DVD dvd = new DVD("DVD" + i, film);
+            film.addDvdCopy(dvd);
+            copies.add(dvd);
+        }
+        return copies;
+    }
+    
+    private static List<Member> members(int count) {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new Member("M" + i, "Member " + i));
+        }
+        return members;
+    }
+}
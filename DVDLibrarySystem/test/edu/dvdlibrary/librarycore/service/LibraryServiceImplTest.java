@@ -0,0 +1,121 @@
+package edu.dvdlibrary.librarycore.service;
+
+import edu.dvdlibrary.librarycore.dao.InMemoryDataStore;
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static edu.dvdlibrary.TestSupport.check;
+import static edu.dvdlibrary.TestSupport.checkEquals;
+import static edu.dvdlibrary.TestSupport.checkThrows;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests LibraryServiceImpl against stores that fail part way through an
+ * operation, and that count how often the service reads them.
+ */
+public class LibraryServiceImplTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 6);
+    
+    public static void main(String[] args) {
+        run("failed return leaves the loan open", LibraryServiceImplTest::failedReturn);
+        run("start-up reads each list from the store once", LibraryServiceImplTest::startupReads);
+        finish();
+    }
+    
+    private static void failedReturn() {
+        FailingStore store = new FailingStore();
+        LibraryService service = new LibraryServiceImpl(store);
+        Film film = service.addFilm("Alien");
+        DVD dvd = service.addDVDCopy(film, "DVD001");
+        Member member = service.addMember("M001", "John Doe");
+        Loan loan = service.borrowDVD(dvd, member, TODAY);
+        
+        store.failUpdates = true;
+        checkThrows(IllegalStateException.class, () -> service.returnDVD(dvd, TODAY.plusDays(1)));
+        check(!loan.isReturned(), "the loan should still be open");
+        check(dvd.isOnLoan(), "the DVD should still be on loan");
+        checkEquals(1, member.getCurrentLoanCount(), "member's current loans");
+        checkEquals(1, service.getAllActiveLoans().size(), "active loans");
+        
+        // Once the store accepts it, the same DVD can be returned
+        store.failUpdates = false;
+        checkEquals(loan, service.returnDVD(dvd, TODAY.plusDays(2)), "returned loan");
+        checkEquals(TODAY.plusDays(2), loan.getReturnDate(), "return date");
+        check(!dvd.isOnLoan(), "the DVD should be back on the shelf");
+        checkEquals(0, member.getCurrentLoanCount(), "member's current loans after returning");
+    }
+    
+    private static void startupReads() {
+        CountingStore store = new CountingStore();
+        LibraryService setup = new LibraryServiceImpl(store);
+        Film film = setup.addFilm("Alien");
+        DVD onLoan = setup.addDVDCopy(film, "DVD001");
+        setup.addDVDCopy(film, "DVD002");
+        Member member = setup.addMember("M001", "John Doe");
+        setup.borrowDVD(onLoan, member, TODAY);
+        
+        store.filmReads = 0;
+        store.memberReads = 0;
+        store.activeLoanReads = 0;
+        LibraryService service = new LibraryServiceImpl(store);
+        checkEquals(1, store.filmReads, "film list reads");
+        checkEquals(1, store.memberReads, "member list reads");
+        checkEquals(1, store.activeLoanReads, "active loan list reads");
+        
+        // Everything built from the shared lists still sees the library
+        checkEquals(1, service.getLibraryStats().getFilms(), "films counted");
+        checkEquals(2, service.getLibraryStats().getDiscs(), "discs counted");
+        checkEquals(1, service.getLibraryStats().getDiscsOnLoan(), "loans counted");
+        checkEquals(1, service.getInventoryCounts().getDiscsOnLoan(), "discs on loan");
+        checkEquals(1, service.getDVDsOnLoan(film).size(), "copies of the film on loan");
+    }
+    
+    /**
+     * An in-memory store that counts reads of its full lists.
+     */
+    private static class CountingStore extends InMemoryDataStore {
+        private int filmReads;
+        private int memberReads;
+        private int activeLoanReads;
+        
+        @Override
+        public List<Film> getAllFilms() {
+            filmReads++;
+            return super.getAllFilms();
+        }
+        
+        @Override
+        public List<Member> getAllMembers() {
+            memberReads++;
+            return super.getAllMembers();
+        }
+        
+        @Override
+        public List<Loan> getActiveLoans() {
+            activeLoanReads++;
+            return super.getActiveLoans();
+        }
+    }
+    
+    /**
+     * An in-memory store whose loan updates can be made to fail.
+     */
+    private static class FailingStore extends InMemoryDataStore {
+        private volatile boolean failUpdates;
+        
+        @Override
+        public void updateLoan(Loan loan) {
+            if (failUpdates) {
+                throw new IllegalStateException("Store unavailable");
+            }
+            super.updateLoan(loan);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package edu.dvdlibrary.librarycore.snapshot;
+
+import edu.dvdlibrary.librarycore.model.DVD;
+import edu.dvdlibrary.librarycore.model.Film;
+import edu.dvdlibrary.librarycore.model.Loan;
+import edu.dvdlibrary.librarycore.model.Member;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static edu.dvdlibrary.TestSupport.checkEquals;
+import static edu.dvdlibrary.TestSupport.finish;
+import static edu.dvdlibrary.TestSupport.run;
+
+/**
+ * Tests that catalogue versions count each loan once.
+ */
+public class VersionedCatalogTest {
+    
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 6);
+    
+    public static void main(String[] args) {
+        run("copy added during a borrow counts the loan once", VersionedCatalogTest::copyAddedMidBorrow);
+        run("load counts active loans", VersionedCatalogTest::load);
+        run("return restores the copy", VersionedCatalogTest::borrowAndReturn);
+        finish();
+    }
+    
+    private static void copyAddedMidBorrow() {
+        Film film = new Film("Alien");
+        DVD first = addCopy(film, "DVD001");
+        Member member = new Member("M001", "John Doe");
+        VersionedCatalog catalog = new VersionedCatalog();
+        catalog.filmChanged(film);
+        
+        // The DVD is off the shelf but the loan is not published yet when another copy arrives
+        first.tryBorrow(member);
+        addCopy(film, "DVD002");
+        catalog.filmChanged(film);
+        checkEquals(2, catalog.current().getFilm("Alien").getAvailable(), "available before the loan");
+        
+        catalog.loanStarted(new Loan(first, member, TODAY));
+        LibraryVersion version = catalog.current();
+        checkEquals(2, version.getFilm("Alien").getTotalCopies(), "copies");
+        checkEquals(1, version.getFilm("Alien").getAvailable(), "available");
+        checkEquals(1, version.getActiveLoanCount(), "active loans");
+    }
+    
+    private static void load() {
+        Film film = new Film("Alien");
+        DVD first = addCopy(film, "DVD001");
+        addCopy(film, "DVD002");
+        Member member = new Member("M001", "John Doe");
+        first.tryBorrow(member);
+        Loan loan = new Loan(first, member, TODAY);
+        
+        VersionedCatalog catalog = new VersionedCatalog();
+        catalog.load(Collections.singletonList(film), Collections.singletonList(loan));
+        checkEquals(1, catalog.current().getFilm("Alien").getAvailable(), "available after load");
+        catalog.filmChanged(film);
+        checkEquals(1, catalog.current().getFilm("Alien").getAvailable(), "available after a change");
+    }
+    
+    private static void borrowAndReturn() {
+        Film film = new Film("Alien");
+        DVD dvd = addCopy(film, "DVD001");
+        Member member = new Member("M001", "John Doe");
+        VersionedCatalog catalog = new VersionedCatalog();
+        catalog.filmChanged(film);
+        
+        dvd.tryBorrow(member);
+        Loan loan = new Loan(dvd, member, TODAY);
+        catalog.loanStarted(loan);
+        checkEquals(0, catalog.current().getFilm("Alien").getAvailable(), "available while on loan");
+        
+        // The copy is back on the shelf before the return is published
+        dvd.tryReturn();
+        catalog.filmChanged(film);
+        checkEquals(0, catalog.current().getFilm("Alien").getAvailable(), "available before the return");
+        catalog.loanEnded(loan);
+        checkEquals(1, catalog.current().getFilm("Alien").getAvailable(), "available after the return");
+        checkEquals(0, catalog.current().getActiveLoanCount(), "active loans");
+    }
+    
+    private static DVD addCopy(Film film, String dvdId) {
+        DVD dvd = new DVD(dvdId, film);
+        film.addDvdCopy(dvd);
+        return dvd;
+    }
+}